@@ -0,0 +1,90 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link FileMetadata} with the former char by char scanner on generated source files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileMetadataBenchmark {
+
+  @Param({"1000", "100000"})
+  public int lineCount;
+
+  /**
+   * ascii: only ASCII chars, nonascii: some accented letters, utf16: same as nonascii but decoded as UTF-16
+   */
+  @Param({"ascii", "nonascii", "utf16"})
+  public String content;
+
+  private byte[] bytes;
+  private Charset charset;
+
+  @Setup
+  public void prepare() {
+    Random random = new Random(42);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < lineCount; i++) {
+      int indent = random.nextInt(12);
+      for (int j = 0; j < indent; j++) {
+        sb.append(' ');
+      }
+      sb.append("int variable").append(i).append(" = computeSomething(").append(random.nextInt()).append(");");
+      if (!"ascii".equals(content) && i % 10 == 0) {
+        sb.append(" // déjà vu");
+      }
+      sb.append(i % 2 == 0 ? "\n" : "\r\n");
+    }
+    charset = "utf16".equals(content) ? StandardCharsets.UTF_16 : StandardCharsets.UTF_8;
+    bytes = sb.toString().getBytes(charset);
+  }
+
+  @Benchmark
+  public FileMetadata.Metadata blockScanner() {
+    return new FileMetadata().readMetadata(new ByteArrayInputStream(bytes), charset, "file");
+  }
+
+  @Benchmark
+  public LegacyFileMetadata.Metadata legacyScanner() {
+    return new LegacyFileMetadata().readMetadata(new ByteArrayInputStream(bytes), charset, "file");
+  }
+}
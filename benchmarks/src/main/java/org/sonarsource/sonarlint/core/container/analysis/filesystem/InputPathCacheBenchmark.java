@@ -0,0 +1,121 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * Indexes a synthetic tree of 100k files in {@link InputPathCache}. Run with <code>-prof gc</code> to get the memory allocated
+ * to index the files (gc.alloc.rate.norm). The memory retained by the index is measured by {@link InputPathCacheFootprint}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputPathCacheBenchmark {
+
+  static final int FILE_COUNT = 100_000;
+
+  private List<SonarLintInputFile> files;
+  private List<SonarLintInputDir> dirs;
+
+  @Setup
+  public void prepare() {
+    files = new ArrayList<>(FILE_COUNT);
+    dirs = new ArrayList<>(FILE_COUNT);
+    for (int i = 0; i < FILE_COUNT; i++) {
+      Path path = Paths.get("/project/module" + (i % 10), "src/main/java/org/sonarsource/package" + (i % 1000), "File" + i + ".java");
+      SonarLintInputFile file = new SonarLintInputFile(new SourceFile(path));
+      file.setLanguage("java");
+      file.setType(InputFile.Type.MAIN);
+      files.add(file);
+      dirs.add(new SonarLintInputDir(path.getParent()));
+    }
+  }
+
+  @Benchmark
+  public InputPathCache index() {
+    InputPathCache cache = new InputPathCache();
+    for (int i = 0; i < FILE_COUNT; i++) {
+      cache.doAdd(files.get(i));
+      cache.doAdd(dirs.get(i));
+    }
+    return cache;
+  }
+
+  private static class SourceFile implements ClientInputFile {
+    private final Path path;
+
+    SourceFile(Path path) {
+      this.path = path;
+    }
+
+    @Override
+    public String getPath() {
+      return path.toString();
+    }
+
+    @Override
+    public boolean isTest() {
+      return false;
+    }
+
+    @Override
+    public Charset getCharset() {
+      return StandardCharsets.UTF_8;
+    }
+
+    @Override
+    public <G> G getClientObject() {
+      return null;
+    }
+
+    @Override
+    public InputStream inputStream() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String contents() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
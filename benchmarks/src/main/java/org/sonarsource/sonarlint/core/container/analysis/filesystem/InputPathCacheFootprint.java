@@ -0,0 +1,139 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * Retained heap size of the {@link InputPathCache} built by {@link InputPathCacheBenchmark}, per indexed file.
+ * The object graph reachable from the cache is measured with {@link Instrumentation#getObjectSize(Object)}, so the benchmarks jar
+ * must also be given as agent:
+ * <pre>java -javaagent:target/benchmarks.jar -cp target/benchmarks.jar org.sonarsource.sonarlint.core.container.analysis.filesystem.InputPathCacheFootprint</pre>
+ * Objects reachable from the {@link ClientInputFile}s belong to the client, so they are not counted.
+ */
+public class InputPathCacheFootprint {
+
+  private static final int HISTOGRAM_SIZE = 15;
+
+  private static Instrumentation instrumentation;
+
+  private final Map<Object, Object> visited = new IdentityHashMap<>();
+  private final Map<Class<?>, long[]> histogram = new HashMap<>();
+  private final Map<Class<?>, List<Field>> fieldsByClass = new HashMap<>();
+
+  public static void premain(String args, Instrumentation inst) {
+    instrumentation = inst;
+  }
+
+  public static void main(String[] args) throws IllegalAccessException {
+    if (instrumentation == null) {
+      throw new IllegalStateException("Run with -javaagent:<benchmarks jar>");
+    }
+    InputPathCacheBenchmark benchmark = new InputPathCacheBenchmark();
+    benchmark.prepare();
+    InputPathCache cache = benchmark.index();
+
+    InputPathCacheFootprint footprint = new InputPathCacheFootprint();
+    for (InputFile file : cache.inputFiles()) {
+      footprint.exclude(((SonarLintInputFile) file).getClientInputFile());
+    }
+    footprint.histogram.clear();
+    long size = footprint.retainedSize(cache);
+    System.out.printf("Retained size: %d bytes, %d bytes per file%n", size, size / InputPathCacheBenchmark.FILE_COUNT);
+    footprint.printHistogram();
+  }
+
+  private void exclude(Object root) throws IllegalAccessException {
+    retainedSize(root);
+  }
+
+  private long retainedSize(Object root) throws IllegalAccessException {
+    long size = 0;
+    Deque<Object> toVisit = new ArrayDeque<>();
+    toVisit.push(root);
+    while (!toVisit.isEmpty()) {
+      Object o = toVisit.pop();
+      if (visited.put(o, o) != null || o instanceof Class) {
+        continue;
+      }
+      long objectSize = instrumentation.getObjectSize(o);
+      size += objectSize;
+      long[] entry = histogram.computeIfAbsent(o.getClass(), c -> new long[2]);
+      entry[0]++;
+      entry[1] += objectSize;
+      addReferences(o, toVisit);
+    }
+    return size;
+  }
+
+  private void addReferences(Object o, Deque<Object> toVisit) throws IllegalAccessException {
+    Class<?> clazz = o.getClass();
+    if (clazz.isArray()) {
+      if (!clazz.getComponentType().isPrimitive()) {
+        for (Object element : (Object[]) o) {
+          if (element != null) {
+            toVisit.push(element);
+          }
+        }
+      }
+      return;
+    }
+    for (Field field : fieldsByClass.computeIfAbsent(clazz, InputPathCacheFootprint::referenceFields)) {
+      Object value = field.get(o);
+      if (value != null) {
+        toVisit.push(value);
+      }
+    }
+  }
+
+  private static List<Field> referenceFields(Class<?> clazz) {
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+          field.setAccessible(true);
+          fields.add(field);
+        }
+      }
+    }
+    return fields;
+  }
+
+  private void printHistogram() {
+    List<Map.Entry<Class<?>, long[]>> entries = new ArrayList<>(histogram.entrySet());
+    entries.sort(Collections.reverseOrder((e1, e2) -> Long.compare(e1.getValue()[1], e2.getValue()[1])));
+    System.out.printf("%12s %12s  %s%n", "instances", "bytes", "class");
+    for (Map.Entry<Class<?>, long[]> entry : entries.subList(0, Math.min(HISTOGRAM_SIZE, entries.size()))) {
+      System.out.printf("%12d %12d  %s%n", entry.getValue()[0], entry.getValue()[1], entry.getKey().getName());
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+/**
+ * Compares {@link LanguageDetection} with the former pattern by pattern detection on a synthetic tree of 100k files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LanguageDetectionBenchmark {
+
+  private static final int FILE_COUNT = 100_000;
+
+  private static final List<Language> LANGUAGES = Arrays.asList(
+    new Language("java", "Java", "java", "jav"),
+    new Language("js", "JavaScript", "js", "jsx", "vue"),
+    new Language("ts", "TypeScript", "ts", "tsx"),
+    new Language("php", "PHP", "php", "php3", "php4", "php5", "phtml", "inc"),
+    new Language("py", "Python", "py"),
+    new Language("c", "C", "c", "h"),
+    new Language("cpp", "C++", "cc", "cpp", "cxx", "c++", "hh", "hpp", "hxx", "h++", "ipp"),
+    new Language("objc", "Objective-C", "m"),
+    new Language("cs", "C#", "cs"),
+    new Language("vbnet", "VB.NET", "vb"),
+    new Language("go", "Go", "go"),
+    new Language("kotlin", "Kotlin", "kt"),
+    new Language("ruby", "Ruby", "rb"),
+    new Language("scala", "Scala", "scala"),
+    new Language("swift", "Swift", "swift"),
+    new Language("abap", "ABAP", "abap", "ab4", "flow", "asprog"),
+    new Language("cobol", "COBOL", "cbl", "ccp", "cob", "cpy"),
+    new Language("plsql", "PL/SQL", "sql", "pks", "pkb"),
+    new Language("tsql", "T-SQL", "tsql"),
+    new Language("flex", "Flex", "as"),
+    new Language("xml", "XML", "xml", "xsd", "xsl"),
+    new Language("web", "HTML", "html", "xhtml", "jsp", "jspf", "cshtml", "vm", "erb"),
+    new Language("css", "CSS", "css", "less", "scss"),
+    new Language("pli", "PL/I", "pli"),
+    new Language("rpg", "RPG", "rpg", "rpgle"));
+
+  private static final String[] OTHER_EXTENSIONS = {"txt", "md", "json", "properties", "png", "yml", "gradle", "lock"};
+
+  private List<InputFile> files;
+  private LanguageDetection languageDetection;
+  private LegacyLanguageDetection legacyLanguageDetection;
+
+  @Setup
+  public void prepare() {
+    LanguagesRepository languages = new LanguagesRepository() {
+      @CheckForNull
+      @Override
+      public Language get(String languageKey) {
+        return LANGUAGES.stream().filter(l -> l.key().equals(languageKey)).findFirst().orElse(null);
+      }
+
+      @Override
+      public Collection<Language> all() {
+        return LANGUAGES;
+      }
+    };
+    languageDetection = new LanguageDetection(languages);
+    legacyLanguageDetection = new LegacyLanguageDetection(languages);
+
+    Random random = new Random(42);
+    files = new ArrayList<>(FILE_COUNT);
+    for (int i = 0; i < FILE_COUNT; i++) {
+      String extension;
+      if (random.nextInt(4) == 0) {
+        extension = OTHER_EXTENSIONS[random.nextInt(OTHER_EXTENSIONS.length)];
+      } else {
+        List<String> suffixes = new ArrayList<>(LANGUAGES.get(random.nextInt(LANGUAGES.size())).fileSuffixes());
+        extension = suffixes.get(random.nextInt(suffixes.size()));
+      }
+      String relativePath = "module" + (i % 50) + "/src/main/package" + (i % 700) + "/File" + i + "." + extension;
+      files.add(new TestInputFileBuilder("bench", relativePath).setModuleBaseDir(Paths.get("/workspace/project")).build());
+    }
+  }
+
+  @Benchmark
+  public int extensionLookup() {
+    int detected = 0;
+    for (InputFile file : files) {
+      if (languageDetection.language(file) != null) {
+        detected++;
+      }
+    }
+    return detected;
+  }
+
+  @Benchmark
+  public int legacyPatternMatching() {
+    int detected = 0;
+    for (InputFile file : files) {
+      if (legacyLanguageDetection.language(file) != null) {
+        detected++;
+      }
+    }
+    return detected;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+/**
+ * Compares {@link IssuePatternMatcher} with the former test of every pattern against every issue, for 500 multicriteria patterns
+ * and 100k issues spread over 1000 files. A new matcher is created for each run, as it is for each analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssuePatternMatcherBenchmark {
+
+  private static final int PATTERN_COUNT = 500;
+  private static final int ISSUE_COUNT = 100_000;
+  private static final int FILE_COUNT = 1_000;
+  private static final int RULE_COUNT = 400;
+
+  private List<IssuePattern> patterns;
+  private InputFile[] issueFiles;
+  private String[] issueRuleKeys;
+
+  @Setup
+  public void prepare() {
+    Random random = new Random(42);
+    patterns = new ArrayList<>(PATTERN_COUNT);
+    for (int i = 0; i < PATTERN_COUNT; i++) {
+      String pathPattern;
+      switch (i % 4) {
+        case 0:
+          pathPattern = "**/module" + random.nextInt(50) + "/**";
+          break;
+        case 1:
+          pathPattern = "**/package" + random.nextInt(200) + "/*.java";
+          break;
+        case 2:
+          pathPattern = "file:/workspace/project/module" + random.nextInt(50) + "/src/**/File1*.js";
+          break;
+        default:
+          pathPattern = "**/generated" + i + "/**";
+      }
+      String rulePattern = i % 10 == 0 ? "squid:S1*" : ("squid:S" + random.nextInt(RULE_COUNT));
+      patterns.add(new IssuePattern(pathPattern, rulePattern));
+    }
+
+    InputFile[] files = new InputFile[FILE_COUNT];
+    for (int i = 0; i < FILE_COUNT; i++) {
+      String relativePath = "module" + (i % 50) + "/src/main/package" + (i % 200) + "/File" + i + (i % 3 == 0 ? ".js" : ".java");
+      files[i] = new TestInputFileBuilder("bench", relativePath).setModuleBaseDir(Paths.get("/workspace/project")).build();
+    }
+    issueFiles = new InputFile[ISSUE_COUNT];
+    issueRuleKeys = new String[ISSUE_COUNT];
+    for (int i = 0; i < ISSUE_COUNT; i++) {
+      // issues are reported file after file
+      issueFiles[i] = files[i * FILE_COUNT / ISSUE_COUNT];
+      issueRuleKeys[i] = "squid:S" + random.nextInt(RULE_COUNT);
+    }
+  }
+
+  @Benchmark
+  public int perFileIndex() {
+    IssuePatternMatcher matcher = new IssuePatternMatcher(patterns, true);
+    int ignored = 0;
+    for (int i = 0; i < ISSUE_COUNT; i++) {
+      if (matcher.match(issueFiles[i], issueRuleKeys[i]) != null) {
+        ignored++;
+      }
+    }
+    return ignored;
+  }
+
+  @Benchmark
+  public int legacyEveryPattern() {
+    int ignored = 0;
+    for (int i = 0; i < ISSUE_COUNT; i++) {
+      for (IssuePattern pattern : patterns) {
+        if (pattern.getRulePattern().match(issueRuleKeys[i]) && pattern.getPathPattern().match(issueFiles[i])) {
+          ignored++;
+          break;
+        }
+      }
+    }
+    return ignored;
+  }
+}
@@ -20,6 +20,9 @@
 package org.sonarsource.sonarlint.core.client.api.common;
 
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -33,15 +36,41 @@ import javax.annotation.concurrent.Immutable;
 public abstract class AbstractGlobalConfiguration {
 
   public static final String DEFAULT_WORK_DIR = "work";
+  public static final long DEFAULT_ISSUE_FLUSH_LATENCY_MS = 50;
+  public static final long DEFAULT_LARGE_FILE_THRESHOLD = 1024L * 1024L;
 
   private final LogOutput logOutput;
   private final Path sonarLintUserHome;
   private final Path workDir;
+  private final boolean supersedeStaleAnalyses;
+  private final int issueBatchSize;
+  private final long issueFlushLatencyMs;
+  private final int analysisResultCacheSize;
+  private final int maxConcurrentAnalyses;
+  private final int fileIndexingParallelism;
+  private final int fileMetadataCacheSize;
+  private final long largeFileThreshold;
+  private final long maxFileSize;
+  private final Map<String, Long> maxFileSizeByLanguage;
+  private final int maxIssuesPerRulePerFile;
+  private final int maxIssuesPerFile;
 
   public AbstractGlobalConfiguration(AbstractBuilder<?> builder) {
     this.sonarLintUserHome = builder.sonarlintUserHome != null ? builder.sonarlintUserHome : SonarLintPathManager.home();
     this.workDir = builder.workDir != null ? builder.workDir : this.sonarLintUserHome.resolve(DEFAULT_WORK_DIR);
     this.logOutput = builder.logOutput;
+    this.supersedeStaleAnalyses = builder.supersedeStaleAnalyses;
+    this.issueBatchSize = builder.issueBatchSize;
+    this.issueFlushLatencyMs = builder.issueFlushLatencyMs;
+    this.analysisResultCacheSize = builder.analysisResultCacheSize;
+    this.maxConcurrentAnalyses = builder.maxConcurrentAnalyses;
+    this.fileIndexingParallelism = builder.fileIndexingParallelism;
+    this.fileMetadataCacheSize = builder.fileMetadataCacheSize;
+    this.largeFileThreshold = builder.largeFileThreshold;
+    this.maxFileSize = builder.maxFileSize;
+    this.maxFileSizeByLanguage = Collections.unmodifiableMap(new HashMap<>(builder.maxFileSizeByLanguage));
+    this.maxIssuesPerRulePerFile = builder.maxIssuesPerRulePerFile;
+    this.maxIssuesPerFile = builder.maxIssuesPerFile;
   }
 
   public Path getSonarLintUserHome() {
@@ -57,10 +86,102 @@ public abstract class AbstractGlobalConfiguration {
     return logOutput;
   }
 
+  /**
+   * @see AbstractBuilder#setSupersedeStaleAnalyses(boolean)
+   */
+  public boolean isSupersedeStaleAnalyses() {
+    return supersedeStaleAnalyses;
+  }
+
+  /**
+   * @see AbstractBuilder#setIssueBatchSize(int)
+   */
+  public int getIssueBatchSize() {
+    return issueBatchSize;
+  }
+
+  /**
+   * @see AbstractBuilder#setIssueFlushLatencyMs(long)
+   */
+  public long getIssueFlushLatencyMs() {
+    return issueFlushLatencyMs;
+  }
+
+  /**
+   * @see AbstractBuilder#setAnalysisResultCacheSize(int)
+   */
+  public int getAnalysisResultCacheSize() {
+    return analysisResultCacheSize;
+  }
+
+  /**
+   * @see AbstractBuilder#setMaxConcurrentAnalyses(int)
+   */
+  public int getMaxConcurrentAnalyses() {
+    return maxConcurrentAnalyses;
+  }
+
+  /**
+   * @see AbstractBuilder#setFileIndexingParallelism(int)
+   */
+  public int getFileIndexingParallelism() {
+    return fileIndexingParallelism;
+  }
+
+  /**
+   * @see AbstractBuilder#setFileMetadataCacheSize(int)
+   */
+  public int getFileMetadataCacheSize() {
+    return fileMetadataCacheSize;
+  }
+
+  /**
+   * @see AbstractBuilder#setLargeFileThreshold(long)
+   */
+  public long getLargeFileThreshold() {
+    return largeFileThreshold;
+  }
+
+  /**
+   * Maximum size in bytes of the files of the given language to be analyzed, 0 if there is no limit.
+   * @see AbstractBuilder#setMaxFileSize(long)
+   * @see AbstractBuilder#setMaxFileSize(String, long)
+   */
+  public long getMaxFileSize(@Nullable String languageKey) {
+    Long languageMaxFileSize = languageKey != null ? maxFileSizeByLanguage.get(languageKey) : null;
+    return languageMaxFileSize != null ? languageMaxFileSize : maxFileSize;
+  }
+
+  /**
+   * @see AbstractBuilder#setMaxIssuesPerRulePerFile(int)
+   */
+  public int getMaxIssuesPerRulePerFile() {
+    return maxIssuesPerRulePerFile;
+  }
+
+  /**
+   * @see AbstractBuilder#setMaxIssuesPerFile(int)
+   */
+  public int getMaxIssuesPerFile() {
+    return maxIssuesPerFile;
+  }
+
   public static class AbstractBuilder<G extends AbstractBuilder> {
     private LogOutput logOutput;
     private Path sonarlintUserHome;
     private Path workDir;
+    private boolean supersedeStaleAnalyses;
+    private int issueBatchSize = 0;
+    private long issueFlushLatencyMs = DEFAULT_ISSUE_FLUSH_LATENCY_MS;
+    private int analysisResultCacheSize = 0;
+    private int maxConcurrentAnalyses = 0;
+    private int fileIndexingParallelism = 1;
+    private int fileMetadataCacheSize = 0;
+    private long largeFileThreshold = DEFAULT_LARGE_FILE_THRESHOLD;
+    private long maxFileSize = 0;
+    private final Map<String, Long> maxFileSizeByLanguage = new HashMap<>();
+    private int maxIssuesPerRulePerFile = 0;
+    private int maxIssuesPerFile = 0;
 
     public G setLogOutput(@Nullable LogOutput logOutput) {
       this.logOutput = logOutput;
@@ -83,6 +204,162 @@ public abstract class AbstractGlobalConfiguration {
       return (G) this;
     }
 
+    /**
+     * When enabled, starting an analysis on a set of files cancels any in-flight analysis of the same set of files.
+     * The outdated analysis stops at its next cancellation checkpoint and fails with a {@link org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException}.
+     * Disabled by default.
+     */
+    public G setSupersedeStaleAnalyses(boolean supersedeStaleAnalyses) {
+      this.supersedeStaleAnalyses = supersedeStaleAnalyses;
+      return (G) this;
+    }
+
+    /**
+     * When greater than 0, issues are no longer passed to the {@link org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener}
+     * on the analyzer thread. They are queued and handed in batches of at most this size to
+     * {@link org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener#handleBatch(java.util.List)} from a dedicated thread.
+     * Analyzers are slowed down when the listener lags behind. All issues are delivered before the analysis returns.
+     * Default is 0 (synchronous delivery).
+     */
+    public G setIssueBatchSize(int issueBatchSize) {
+      if (issueBatchSize < 0) {
+        throw new IllegalArgumentException("Issue batch size must be positive: " + issueBatchSize);
+      }
+      this.issueBatchSize = issueBatchSize;
+      return (G) this;
+    }
+
+    /**
+     * Maximum time in milliseconds an issue can wait for its batch to be complete before being delivered.
+     * Only used when issue batching is enabled. Default is {@value AbstractGlobalConfiguration#DEFAULT_ISSUE_FLUSH_LATENCY_MS}.
+     */
+    public G setIssueFlushLatencyMs(long issueFlushLatencyMs) {
+      if (issueFlushLatencyMs < 0) {
+        throw new IllegalArgumentException("Issue flush latency must be positive: " + issueFlushLatencyMs);
+      }
+      this.issueFlushLatencyMs = issueFlushLatencyMs;
+      return (G) this;
+    }
+
+    /**
+     * When greater than 0, the engine remembers the issues of up to this number of analyzed files. A file whose content, language,
+     * active rules, analysis properties and analyzers did not change since a previous analysis is not analyzed again: its issues
+     * are replayed to the {@link org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener}.
+     * Languages handled by analyzers declaring a global sensor are never cached, since issues of a file may depend on other files.
+     * Default is 0 (no cache).
+     */
+    public G setAnalysisResultCacheSize(int analysisResultCacheSize) {
+      if (analysisResultCacheSize < 0) {
+        throw new IllegalArgumentException("Analysis result cache size must be positive: " + analysisResultCacheSize);
+      }
+      this.analysisResultCacheSize = analysisResultCacheSize;
+      return (G) this;
+    }
+
+    /**
+     * When greater than 0, at most this number of analyses run at the same time. Other analyses wait, in the order they were requested,
+     * on the caller's thread. A request identical to one still waiting (same configuration and files) joins it instead of being
+     * queued: both callers get the issues and results of a single analysis.
+     * Default is 0 (no limit).
+     */
+    public G setMaxConcurrentAnalyses(int maxConcurrentAnalyses) {
+      if (maxConcurrentAnalyses < 0) {
+        throw new IllegalArgumentException("Max concurrent analyses must be positive: " + maxConcurrentAnalyses);
+      }
+      this.maxConcurrentAnalyses = maxConcurrentAnalyses;
+      return (G) this;
+    }
+
+    /**
+     * Number of threads used to index input files (language detection, exclusions and metadata) at the beginning of an analysis.
+     * 0 uses the number of available processors. Default is 1: files are indexed sequentially on the caller's thread.
+     */
+    public G setFileIndexingParallelism(int fileIndexingParallelism) {
+      if (fileIndexingParallelism < 0) {
+        throw new IllegalArgumentException("File indexing parallelism must be positive: " + fileIndexingParallelism);
+      }
+      this.fileIndexingParallelism = fileIndexingParallelism;
+      return (G) this;
+    }
+
+    /**
+     * When greater than 0, line metadata of files read from disk (see {@link org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile#isContentOnDisk()}) is persisted in the work dir,
+     * for at most this number of files. Files having the same size, last modification time and charset as when they were last
+     * analyzed are then not scanned again. Least recently analyzed files are forgotten first.
+     * Default is 0 (disabled).
+     */
+    public G setFileMetadataCacheSize(int fileMetadataCacheSize) {
+      if (fileMetadataCacheSize < 0) {
+        throw new IllegalArgumentException("File metadata cache size must be positive: " + fileMetadataCacheSize);
+      }
+      this.fileMetadataCacheSize = fileMetadataCacheSize;
+      return (G) this;
+    }
+
+    /**
+     * Files read from disk (see {@link org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile#isContentOnDisk()}) of at least
+     * this size in bytes are memory-mapped instead of being copied on the heap, and their line metadata is computed on the mapped bytes.
+     * Default is {@value AbstractGlobalConfiguration#DEFAULT_LARGE_FILE_THRESHOLD}.
+     */
+    public G setLargeFileThreshold(long largeFileThreshold) {
+      if (largeFileThreshold < 0) {
+        throw new IllegalArgumentException("Large file threshold must be positive: " + largeFileThreshold);
+      }
+      this.largeFileThreshold = largeFileThreshold;
+      return (G) this;
+    }
+
+    /**
+     * When greater than 0, files bigger than this size in bytes are not analyzed. They are reported in
+     * {@link org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults#skippedLargeFiles()}.
+     * Can be overridden for a given language with {@link #setMaxFileSize(String, long)}.
+     * Default is 0 (no limit).
+     */
+    public G setMaxFileSize(long maxFileSize) {
+      if (maxFileSize < 0) {
+        throw new IllegalArgumentException("Max file size must be positive: " + maxFileSize);
+      }
+      this.maxFileSize = maxFileSize;
+      return (G) this;
+    }
+
+    /**
+     * Same as {@link #setMaxFileSize(long)}, for files of the given language only. 0 means there is no limit for this language.
+     */
+    public G setMaxFileSize(String languageKey, long maxFileSize) {
+      if (maxFileSize < 0) {
+        throw new IllegalArgumentException("Max file size must be positive: " + maxFileSize);
+      }
+      this.maxFileSizeByLanguage.put(languageKey, maxFileSize);
+      return (G) this;
+    }
+
+    /**
+     * When greater than 0, at most this number of issues of a given rule are reported on a file. Further issues are counted in
+     * {@link org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults#truncatedIssues()}.
+     * Default is 0 (no limit).
+     */
+    public G setMaxIssuesPerRulePerFile(int maxIssuesPerRulePerFile) {
+      if (maxIssuesPerRulePerFile < 0) {
+        throw new IllegalArgumentException("Max issues per rule per file must be positive: " + maxIssuesPerRulePerFile);
+      }
+      this.maxIssuesPerRulePerFile = maxIssuesPerRulePerFile;
+      return (G) this;
+    }
+
+    /**
+     * When greater than 0, at most this number of issues are reported on a file, all rules included. Further issues are counted in
+     * {@link org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults#truncatedIssues()}.
+     * Default is 0 (no limit).
+     */
+    public G setMaxIssuesPerFile(int maxIssuesPerFile) {
+      if (maxIssuesPerFile < 0) {
+        throw new IllegalArgumentException("Max issues per file must be positive: " + maxIssuesPerFile);
+      }
+      this.maxIssuesPerFile = maxIssuesPerFile;
+      return (G) this;
+    }
+
   }
 
 }
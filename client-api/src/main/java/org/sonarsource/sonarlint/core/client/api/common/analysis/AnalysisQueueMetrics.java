@@ -0,0 +1,59 @@
+/*
+ * SonarLint Core - Client API
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+/**
+ * Live view on the analysis queue of an engine.
+ * @see org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration.AbstractBuilder#setMaxConcurrentAnalyses(int)
+ * @since 2.18
+ */
+public interface AnalysisQueueMetrics {
+
+  /**
+   * Number of analyses waiting for a slot.
+   */
+  int queueDepth();
+
+  /**
+   * Number of analyses currently running.
+   */
+  int runningAnalyses();
+
+  /**
+   * Total number of analyses requested, including coalesced ones.
+   */
+  long requestedAnalyses();
+
+  /**
+   * Number of requests that joined an identical waiting analysis instead of being queued.
+   */
+  long coalescedAnalyses();
+
+  /**
+   * Cumulated time in milliseconds that analyses spent waiting for a slot.
+   */
+  long totalWaitTimeMs();
+
+  /**
+   * Longest time in milliseconds that an analysis spent waiting for a slot.
+   */
+  long maxWaitTimeMs();
+
+}
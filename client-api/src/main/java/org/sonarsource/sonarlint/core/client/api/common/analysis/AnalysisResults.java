@@ -20,6 +20,8 @@
 package org.sonarsource.sonarlint.core.client.api.common.analysis;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 
 public interface AnalysisResults {
 
@@ -35,4 +37,23 @@ public interface AnalysisResults {
    */
   Collection<ClientInputFile> failedAnalysisFiles();
 
+  /**
+   * Input files that were not analyzed because they are bigger than the maximum file size configured for their language.
+   * They are not counted in {@link #fileCount()}.
+   * @since 2.18
+   */
+  default Collection<ClientInputFile> skippedLargeFiles() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Number of issues that were not reported, by input file, because the file reached the maximum number of issues
+   * per rule or per file. Files with no truncated issue are absent. Note that identical issues (same rule, location and message)
+   * are always reported only once.
+   * @since 2.18
+   */
+  default Map<ClientInputFile, Integer> truncatedIssues() {
+    return Collections.emptyMap();
+  }
+
 }
@@ -71,4 +71,13 @@ public interface ClientInputFile {
    *  Gets the contents of the file. 
    */
   String contents() throws IOException;
+
+  /**
+   * True if {@link #inputStream()} always returns the content of the file located at {@link #getPath()}, as opposed to
+   * an unsaved editor buffer for example. SonarLint may then read large files directly from the filesystem.
+   * @since 2.18
+   */
+  default boolean isContentOnDisk() {
+    return false;
+  }
 }
@@ -19,7 +19,20 @@
  */
 package org.sonarsource.sonarlint.core.client.api.common.analysis;
 
+import java.util.List;
+
 @FunctionalInterface
 public interface IssueListener {
   void handle(Issue issue);
+
+  /**
+   * Called instead of {@link #handle(Issue)} when issue batching is enabled, see
+   * {@link org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration.AbstractBuilder#setIssueBatchSize(int)}.
+   * Issues of a given file are always delivered in the order they were reported.
+   */
+  default void handleBatch(List<Issue> issues) {
+    for (Issue issue : issues) {
+      handle(issue);
+    }
+  }
 }
@@ -33,14 +33,17 @@ import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfigurat
 public class ConnectedGlobalConfiguration extends AbstractGlobalConfiguration {
 
   public static final String DEFAULT_STORAGE_DIR = "storage";
+  public static final int DEFAULT_PLUGIN_DOWNLOAD_PARALLELISM = 4;
 
   private final String serverId;
   private final Path storageRoot;
+  private final int pluginDownloadParallelism;
 
   private ConnectedGlobalConfiguration(Builder builder) {
     super(builder);
     this.serverId = builder.serverId;
     this.storageRoot = builder.storageRoot != null ? builder.storageRoot : getSonarLintUserHome().resolve(DEFAULT_STORAGE_DIR);
+    this.pluginDownloadParallelism = builder.pluginDownloadParallelism;
   }
 
   public static Builder builder() {
@@ -55,9 +58,17 @@ public class ConnectedGlobalConfiguration extends AbstractGlobalConfiguration {
     return serverId;
   }
 
+  /**
+   * @see Builder#setPluginDownloadParallelism(int)
+   */
+  public int getPluginDownloadParallelism() {
+    return pluginDownloadParallelism;
+  }
+
   public static final class Builder extends AbstractBuilder<Builder> {
     private String serverId;
     private Path storageRoot;
+    private int pluginDownloadParallelism = DEFAULT_PLUGIN_DOWNLOAD_PARALLELISM;
 
     private Builder() {
     }
@@ -85,6 +96,18 @@ public class ConnectedGlobalConfiguration extends AbstractGlobalConfiguration {
       return this;
     }
 
+    /**
+     * Maximum number of plugins downloaded at the same time during a storage update. 1 downloads plugins one after the other.
+     * Default is {@value ConnectedGlobalConfiguration#DEFAULT_PLUGIN_DOWNLOAD_PARALLELISM}.
+     */
+    public Builder setPluginDownloadParallelism(int pluginDownloadParallelism) {
+      if (pluginDownloadParallelism < 1) {
+        throw new IllegalArgumentException("Plugin download parallelism must be strictly positive: " + pluginDownloadParallelism);
+      }
+      this.pluginDownloadParallelism = pluginDownloadParallelism;
+      return this;
+    }
+
     public ConnectedGlobalConfiguration build() {
       return new ConnectedGlobalConfiguration(this);
     }
@@ -27,6 +27,7 @@ import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisQueueMetrics;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
@@ -71,6 +72,12 @@ public interface ConnectedSonarLintEngine {
    */
   AnalysisResults analyze(ConnectedAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor);
 
+  /**
+   * Metrics about analyses waiting for or holding one of the concurrent analysis slots.
+   * @since 2.18
+   */
+  AnalysisQueueMetrics getAnalysisQueueMetrics();
+
   /**
    * Gets locally stored server issues for a given file. 
    * @param moduleKey to which the project is bound (must have been previously updated with {@link #updateModule(ServerConfiguration,String)})
@@ -23,6 +23,7 @@ import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisQueueMetrics;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
@@ -48,4 +49,10 @@ public interface StandaloneSonarLintEngine {
    */
   AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor);
 
+  /**
+   * Metrics about analyses waiting for or holding one of the concurrent analysis slots.
+   * @since 2.18
+   */
+  AnalysisQueueMetrics getAnalysisQueueMetrics();
+
 }
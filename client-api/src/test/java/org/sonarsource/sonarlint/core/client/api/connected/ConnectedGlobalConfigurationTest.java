@@ -41,6 +41,7 @@ public class ConnectedGlobalConfigurationTest {
     assertThat(config.getSonarLintUserHome()).isEqualTo(Paths.get(System.getProperty("user.home"), ".sonarlint"));
     assertThat(config.getStorageRoot()).isEqualTo(Paths.get(System.getProperty("user.home"), ".sonarlint", "storage"));
     assertThat(config.getWorkDir()).isEqualTo(Paths.get(System.getProperty("user.home"), ".sonarlint", "work"));
+    assertThat(config.getPluginDownloadParallelism()).isEqualTo(ConnectedGlobalConfiguration.DEFAULT_PLUGIN_DOWNLOAD_PARALLELISM);
   }
 
   @Test
@@ -66,6 +67,19 @@ public class ConnectedGlobalConfigurationTest {
     assertThat(config.getServerId()).isEqualTo("myServer");
   }
 
+  @Test
+  public void configurePluginDownloadParallelism() {
+    ConnectedGlobalConfiguration config = ConnectedGlobalConfiguration.builder()
+      .setPluginDownloadParallelism(1)
+      .build();
+    assertThat(config.getPluginDownloadParallelism()).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectZeroPluginDownloadParallelism() {
+    ConnectedGlobalConfiguration.builder().setPluginDownloadParallelism(0);
+  }
+
   @Test
   public void validateServerId() throws Exception {
     ConnectedGlobalConfiguration.Builder builder = ConnectedGlobalConfiguration.builder();
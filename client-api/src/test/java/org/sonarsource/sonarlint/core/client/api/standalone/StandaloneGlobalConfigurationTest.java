@@ -25,6 +25,7 @@ import java.nio.file.Paths;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -40,6 +41,132 @@ public class StandaloneGlobalConfigurationTest {
     assertThat(config.getPluginUrls()).isEmpty();
     assertThat(config.getSonarLintUserHome()).isEqualTo(Paths.get(System.getProperty("user.home"), ".sonarlint"));
     assertThat(config.getWorkDir()).isEqualTo(Paths.get(System.getProperty("user.home"), ".sonarlint", "work"));
+    assertThat(config.isSupersedeStaleAnalyses()).isFalse();
+    assertThat(config.getIssueBatchSize()).isZero();
+    assertThat(config.getIssueFlushLatencyMs()).isEqualTo(AbstractGlobalConfiguration.DEFAULT_ISSUE_FLUSH_LATENCY_MS);
+    assertThat(config.getAnalysisResultCacheSize()).isZero();
+    assertThat(config.getMaxConcurrentAnalyses()).isZero();
+    assertThat(config.getFileIndexingParallelism()).isEqualTo(1);
+    assertThat(config.getFileMetadataCacheSize()).isZero();
+    assertThat(config.getLargeFileThreshold()).isEqualTo(AbstractGlobalConfiguration.DEFAULT_LARGE_FILE_THRESHOLD);
+    assertThat(config.getMaxFileSize("java")).isZero();
+    assertThat(config.getMaxIssuesPerRulePerFile()).isZero();
+    assertThat(config.getMaxIssuesPerFile()).isZero();
+  }
+
+  @Test
+  public void configureIssueCaps() {
+    StandaloneGlobalConfiguration config = StandaloneGlobalConfiguration.builder()
+      .setMaxIssuesPerRulePerFile(100)
+      .setMaxIssuesPerFile(1000)
+      .build();
+    assertThat(config.getMaxIssuesPerRulePerFile()).isEqualTo(100);
+    assertThat(config.getMaxIssuesPerFile()).isEqualTo(1000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectNegativeMaxIssuesPerRulePerFile() {
+    StandaloneGlobalConfiguration.builder().setMaxIssuesPerRulePerFile(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectNegativeMaxIssuesPerFile() {
+    StandaloneGlobalConfiguration.builder().setMaxIssuesPerFile(-1);
+  }
+
+  @Test
+  public void configureFileMetadataCache() {
+    StandaloneGlobalConfiguration config = StandaloneGlobalConfiguration.builder()
+      .setFileMetadataCacheSize(10000)
+      .build();
+    assertThat(config.getFileMetadataCacheSize()).isEqualTo(10000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectNegativeFileMetadataCacheSize() {
+    StandaloneGlobalConfiguration.builder().setFileMetadataCacheSize(-1);
+  }
+
+  @Test
+  public void configureLargeFiles() {
+    StandaloneGlobalConfiguration config = StandaloneGlobalConfiguration.builder()
+      .setLargeFileThreshold(1000)
+      .setMaxFileSize(5000)
+      .setMaxFileSize("js", 10000)
+      .setMaxFileSize("xml", 0)
+      .build();
+    assertThat(config.getLargeFileThreshold()).isEqualTo(1000);
+    assertThat(config.getMaxFileSize("java")).isEqualTo(5000);
+    assertThat(config.getMaxFileSize(null)).isEqualTo(5000);
+    assertThat(config.getMaxFileSize("js")).isEqualTo(10000);
+    assertThat(config.getMaxFileSize("xml")).isZero();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectNegativeLargeFileThreshold() {
+    StandaloneGlobalConfiguration.builder().setLargeFileThreshold(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectNegativeMaxFileSize() {
+    StandaloneGlobalConfiguration.builder().setMaxFileSize("js", -1);
+  }
+
+  @Test
+  public void configureFileIndexingParallelism() {
+    StandaloneGlobalConfiguration config = StandaloneGlobalConfiguration.builder()
+      .setFileIndexingParallelism(4)
+      .build();
+    assertThat(config.getFileIndexingParallelism()).isEqualTo(4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectNegativeFileIndexingParallelism() {
+    StandaloneGlobalConfiguration.builder().setFileIndexingParallelism(-1);
+  }
+
+  @Test
+  public void configureMaxConcurrentAnalyses() {
+    StandaloneGlobalConfiguration config = StandaloneGlobalConfiguration.builder()
+      .setMaxConcurrentAnalyses(2)
+      .build();
+    assertThat(config.getMaxConcurrentAnalyses()).isEqualTo(2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectNegativeMaxConcurrentAnalyses() {
+    StandaloneGlobalConfiguration.builder().setMaxConcurrentAnalyses(-1);
+  }
+
+  @Test
+  public void configureAnalysisResultCache() {
+    StandaloneGlobalConfiguration config = StandaloneGlobalConfiguration.builder()
+      .setAnalysisResultCacheSize(1000)
+      .build();
+    assertThat(config.getAnalysisResultCacheSize()).isEqualTo(1000);
+  }
+
+  @Test
+  public void configureIssueBatching() {
+    StandaloneGlobalConfiguration config = StandaloneGlobalConfiguration.builder()
+      .setIssueBatchSize(100)
+      .setIssueFlushLatencyMs(10)
+      .build();
+    assertThat(config.getIssueBatchSize()).isEqualTo(100);
+    assertThat(config.getIssueFlushLatencyMs()).isEqualTo(10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectNegativeIssueBatchSize() {
+    StandaloneGlobalConfiguration.builder().setIssueBatchSize(-1);
+  }
+
+  @Test
+  public void enableSupersedeStaleAnalyses() {
+    StandaloneGlobalConfiguration config = StandaloneGlobalConfiguration.builder()
+      .setSupersedeStaleAnalyses(true)
+      .build();
+    assertThat(config.isSupersedeStaleAnalyses()).isTrue();
   }
 
   @Test
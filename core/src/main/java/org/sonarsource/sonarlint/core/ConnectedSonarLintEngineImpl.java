@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -30,9 +31,11 @@ import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonarsource.sonarlint.core.analyzer.issue.BatchingIssueListener;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisQueueMetrics;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedAnalysisConfiguration;
@@ -51,12 +54,16 @@ import org.sonarsource.sonarlint.core.client.api.connected.UpdateResult;
 import org.sonarsource.sonarlint.core.client.api.exceptions.GlobalUpdateRequiredException;
 import org.sonarsource.sonarlint.core.client.api.exceptions.SonarLintWrappedException;
 import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCache;
 import org.sonarsource.sonarlint.core.container.connected.ConnectedContainer;
+import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
 import org.sonarsource.sonarlint.core.container.storage.StorageContainer;
 import org.sonarsource.sonarlint.core.container.storage.StorageContainerHandler;
 import org.sonarsource.sonarlint.core.log.SonarLintLogging;
+import org.sonarsource.sonarlint.core.util.AnalysisScheduler;
 import org.sonarsource.sonarlint.core.util.LoggedErrorHandler;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+import org.sonarsource.sonarlint.core.util.StaleAnalysisTracker;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -68,12 +75,16 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   private StorageContainer storageContainer;
   private final ReadWriteLock rwl = new ReentrantReadWriteLock();
   private final List<StateListener> stateListeners = new CopyOnWriteArrayList<>();
+  private final StaleAnalysisTracker staleAnalysisTracker;
+  private final AnalysisScheduler analysisScheduler;
   private volatile State state = State.UNKNOW;
   private LogOutput logOutput = null;
 
   public ConnectedSonarLintEngineImpl(ConnectedGlobalConfiguration globalConfig) {
     this.globalConfig = globalConfig;
     this.logOutput = globalConfig.getLogOutput();
+    this.staleAnalysisTracker = new StaleAnalysisTracker(globalConfig.isSupersedeStaleAnalyses());
+    this.analysisScheduler = new AnalysisScheduler(globalConfig.getMaxConcurrentAnalyses());
     start();
   }
 
@@ -146,18 +157,45 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   public AnalysisResults analyze(ConnectedAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
     checkNotNull(configuration);
     checkNotNull(issueListener);
+    // only computed if the request has to wait, as the content of unsaved files is read to compute it
+    Supplier<Object> coalescingKey = () -> ScheduledAnalysis.coalescingKey(Arrays.asList(configuration.moduleKey(), configuration.baseDir(), configuration.workDir(), configuration.extraProperties()), configuration.inputFiles());
+    // resolved here, so that logs of an analysis run for several callers also go to the default output of those that have none
+    LogOutput callerLogOutput = logOutput != null ? logOutput : this.logOutput;
+    // registered before waiting for a slot, so that a stale analysis is cancelled right away, even if it is still queued
+    ProgressMonitor trackedMonitor = staleAnalysisTracker.start(configuration.inputFiles(), monitor);
+    try {
+      return analysisScheduler.schedule(coalescingKey, new ScheduledAnalysis(configuration.inputFiles(), issueListener, callerLogOutput, trackedMonitor,
+        (listener, output, progress) -> doAnalyze(configuration, listener, output, progress)));
+    } finally {
+      staleAnalysisTracker.finish(trackedMonitor);
+    }
+  }
+
+  @Override
+  public AnalysisQueueMetrics getAnalysisQueueMetrics() {
+    return analysisScheduler;
+  }
+
+  private AnalysisResults doAnalyze(ConnectedAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
     setLogging(logOutput);
     LoggedErrorHandler errorHandler = new LoggedErrorHandler(configuration.inputFiles());
     SonarLintLogging.setErrorHandler(errorHandler);
-    return withReadLock(() -> {
-      try {
-        AnalysisResults results = getHandler().analyze(storageContainer, configuration, issueListener, new ProgressWrapper(monitor));
-        errorHandler.getErrorFiles().forEach(results.failedAnalysisFiles()::add);
-        return results;
-      } catch (RuntimeException e) {
-        throw SonarLintWrappedException.wrap(e);
-      }
-    });
+    BatchingIssueListener batchingIssueListener = new BatchingIssueListener(issueListener, globalConfig.getIssueBatchSize(), globalConfig.getIssueFlushLatencyMs());
+    try {
+      return withReadLock(() -> {
+        try {
+          AnalysisResults results = getHandler().analyze(storageContainer, configuration, batchingIssueListener, new ProgressWrapper(monitor));
+          batchingIssueListener.awaitDelivery();
+          errorHandler.getErrorFiles().forEach(results.failedAnalysisFiles()::add);
+          storageContainer.getComponentByType(AnalysisResultCache.class).invalidate(errorHandler.getErrorFiles());
+          return results;
+        } catch (RuntimeException e) {
+          throw SonarLintWrappedException.wrap(e);
+        }
+      });
+    } finally {
+      batchingIssueListener.awaitDeliveryQuietly();
+    }
 
   }
 
@@ -171,7 +209,7 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
     checkNotNull(serverConfig);
     setLogging(null);
     return withRwLock(() -> {
-      stop(false);
+      stopStorage(false);
       changeState(State.UPDATING);
       List<SonarAnalyzer> analyzers;
       try {
@@ -215,6 +253,7 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   public Map<String, RemoteModule> downloadAllModules(ServerConfiguration serverConfig, @Nullable ProgressMonitor monitor) {
     return withRwLock(() -> {
       checkUpdateStatus();
+      SonarLintWsClient.holdConnections(this, serverConfig);
       return getHandler().downloadModuleList(serverConfig, new ProgressWrapper(monitor));
     });
   }
@@ -234,6 +273,7 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   public List<ServerIssue> downloadServerIssues(ServerConfiguration serverConfig, String moduleKey, String filePath) {
     return withRwLock(() -> {
       checkUpdateStatus();
+      SonarLintWsClient.holdConnections(this, serverConfig);
       return getHandler().downloadServerIssues(serverConfig, moduleKey, filePath);
     });
   }
@@ -241,6 +281,7 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   @Override
   public void downloadServerIssues(ServerConfiguration serverConfig, String moduleKey) {
     withRwLock(() -> {
+      SonarLintWsClient.holdConnections(this, serverConfig);
       getHandler().downloadServerIssues(serverConfig, moduleKey);
       return null;
     });
@@ -253,6 +294,7 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
     setLogging(null);
     rwl.writeLock().lock();
     checkUpdateStatus();
+    SonarLintWsClient.holdConnections(this, serverConfig);
     ConnectedContainer connectedContainer = new ConnectedContainer(globalConfig, serverConfig);
     try {
       changeState(State.UPDATING);
@@ -279,6 +321,17 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
 
   @Override
   public void stop(boolean deleteStorage) {
+    try {
+      stopStorage(deleteStorage);
+    } finally {
+      SonarLintWsClient.releaseConnections(this);
+    }
+  }
+
+  /**
+   * Connections are kept open when the storage is restarted by an update
+   */
+  private void stopStorage(boolean deleteStorage) {
     setLogging(null);
     rwl.writeLock().lock();
     try {
@@ -299,6 +352,7 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   }
 
   private <U> U runInConnectedContainer(ServerConfiguration serverConfig, Function<ConnectedContainer, U> func) {
+    SonarLintWsClient.holdConnections(this, serverConfig);
     ConnectedContainer connectedContainer = new ConnectedContainer(globalConfig, serverConfig);
     try {
       connectedContainer.startComponents();
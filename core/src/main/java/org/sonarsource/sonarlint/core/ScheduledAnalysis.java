@@ -0,0 +1,163 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.analyzer.issue.DefaultClientIssue;
+import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.util.AnalysisScheduler;
+
+/**
+ * Analysis request of an engine, run by the {@link AnalysisScheduler}. When the request is coalesced with identical ones, issues
+ * and results computed with the input files of another caller are bound to the input files of this caller, matched by path.
+ */
+class ScheduledAnalysis extends AnalysisScheduler.Caller<AnalysisResults> {
+
+  @FunctionalInterface
+  interface Task {
+    AnalysisResults run(IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor);
+  }
+
+  private final Map<String, ClientInputFile> inputFilesByPath;
+  private final Task task;
+
+  ScheduledAnalysis(Iterable<ClientInputFile> inputFiles, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor,
+    Task task) {
+    this(byPath(inputFiles), issueListener, logOutput, monitor, task);
+  }
+
+  private ScheduledAnalysis(Map<String, ClientInputFile> inputFilesByPath, IssueListener issueListener, @Nullable LogOutput logOutput,
+    @Nullable ProgressMonitor monitor, Task task) {
+    super(new BindingIssueListener(issueListener, inputFilesByPath), logOutput, monitor);
+    this.inputFilesByPath = inputFilesByPath;
+    this.task = task;
+  }
+
+  /**
+   * Identifies requests that give the same results: same configuration, and same files with the same content. Files on disk are
+   * read by the analysis, so only the content of the other files has to be compared.
+   * @return null if the content of a file can't be read, so that the request is never coalesced
+   */
+  @CheckForNull
+  static Object coalescingKey(List<Object> configuration, Iterable<ClientInputFile> inputFiles) {
+    List<Object> key = new ArrayList<>(configuration);
+    for (ClientInputFile inputFile : inputFiles) {
+      Charset charset = inputFile.getCharset();
+      key.add(inputFile.getPath());
+      key.add(inputFile.isTest());
+      key.add(charset != null ? charset.name() : null);
+      key.add(inputFile.language());
+      if (!inputFile.isContentOnDisk()) {
+        String contentHash = contentHash(inputFile);
+        if (contentHash == null) {
+          return null;
+        }
+        key.add(contentHash);
+      }
+    }
+    return key;
+  }
+
+  @CheckForNull
+  private static String contentHash(ClientInputFile inputFile) {
+    try (InputStream is = inputFile.inputStream()) {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+      return new BigInteger(1, digest.digest()).toString(16);
+    } catch (IOException | NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
+  @Override
+  protected AnalysisResults analyze(IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
+    return task.run(issueListener, logOutput, monitor);
+  }
+
+  @Override
+  protected AnalysisResults resultOf(AnalysisResults sharedResult) {
+    DefaultAnalysisResult result = new DefaultAnalysisResult().setFileCount(sharedResult.fileCount());
+    sharedResult.failedAnalysisFiles().forEach(f -> result.addFailedAnalysisFile(bind(inputFilesByPath, f)));
+    sharedResult.skippedLargeFiles().forEach(f -> result.addSkippedLargeFile(bind(inputFilesByPath, f)));
+    sharedResult.truncatedIssues().forEach((f, count) -> result.addTruncatedIssues(bind(inputFilesByPath, f), count));
+    return result;
+  }
+
+  private static Map<String, ClientInputFile> byPath(Iterable<ClientInputFile> inputFiles) {
+    Map<String, ClientInputFile> byPath = new HashMap<>();
+    inputFiles.forEach(f -> byPath.put(f.getPath(), f));
+    return byPath;
+  }
+
+  private static ClientInputFile bind(Map<String, ClientInputFile> inputFilesByPath, ClientInputFile inputFile) {
+    return inputFilesByPath.getOrDefault(inputFile.getPath(), inputFile);
+  }
+
+  private static class BindingIssueListener implements IssueListener {
+    private final IssueListener delegate;
+    private final Map<String, ClientInputFile> inputFilesByPath;
+
+    private BindingIssueListener(IssueListener delegate, Map<String, ClientInputFile> inputFilesByPath) {
+      this.delegate = delegate;
+      this.inputFilesByPath = inputFilesByPath;
+    }
+
+    @Override
+    public void handle(Issue issue) {
+      delegate.handle(bind(issue));
+    }
+
+    @Override
+    public void handleBatch(List<Issue> issues) {
+      delegate.handleBatch(issues.stream().map(this::bind).collect(Collectors.toList()));
+    }
+
+    private Issue bind(Issue issue) {
+      ClientInputFile inputFile = issue.getInputFile();
+      if (inputFile == null || !(issue instanceof DefaultClientIssue)) {
+        return issue;
+      }
+      ClientInputFile own = ScheduledAnalysis.bind(inputFilesByPath, inputFile);
+      return own == inputFile ? issue : ((DefaultClientIssue) issue).withInputFile(own);
+    }
+  }
+}
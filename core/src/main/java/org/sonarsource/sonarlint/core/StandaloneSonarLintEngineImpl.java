@@ -19,22 +19,29 @@
  */
 package org.sonarsource.sonarlint.core;
 
+import java.util.Arrays;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.analyzer.issue.BatchingIssueListener;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisQueueMetrics;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.exceptions.SonarLintWrappedException;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneSonarLintEngine;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCache;
 import org.sonarsource.sonarlint.core.container.standalone.StandaloneGlobalContainer;
 import org.sonarsource.sonarlint.core.log.SonarLintLogging;
+import org.sonarsource.sonarlint.core.util.AnalysisScheduler;
 import org.sonarsource.sonarlint.core.util.LoggedErrorHandler;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+import org.sonarsource.sonarlint.core.util.StaleAnalysisTracker;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -43,11 +50,15 @@ public final class StandaloneSonarLintEngineImpl implements StandaloneSonarLintE
   private final StandaloneGlobalConfiguration globalConfig;
   private StandaloneGlobalContainer globalContainer;
   private final ReadWriteLock rwl = new ReentrantReadWriteLock();
+  private final StaleAnalysisTracker staleAnalysisTracker;
+  private final AnalysisScheduler analysisScheduler;
   private LogOutput logOutput = null;
 
   public StandaloneSonarLintEngineImpl(StandaloneGlobalConfiguration globalConfig) {
     this.globalConfig = globalConfig;
     this.logOutput = globalConfig.getLogOutput();
+    this.staleAnalysisTracker = new StaleAnalysisTracker(globalConfig.isSupersedeStaleAnalyses());
+    this.analysisScheduler = new AnalysisScheduler(globalConfig.getMaxConcurrentAnalyses());
     start();
   }
 
@@ -83,17 +94,41 @@ public final class StandaloneSonarLintEngineImpl implements StandaloneSonarLintE
   public AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
     checkNotNull(configuration);
     checkNotNull(issueListener);
+    // only computed if the request has to wait, as the content of unsaved files is read to compute it
+    Supplier<Object> coalescingKey = () -> ScheduledAnalysis.coalescingKey(Arrays.asList(configuration.baseDir(), configuration.workDir(), configuration.extraProperties()), configuration.inputFiles());
+    // resolved here, so that logs of an analysis run for several callers also go to the default output of those that have none
+    LogOutput callerLogOutput = logOutput != null ? logOutput : this.logOutput;
+    // registered before waiting for a slot, so that a stale analysis is cancelled right away, even if it is still queued
+    ProgressMonitor trackedMonitor = staleAnalysisTracker.start(configuration.inputFiles(), monitor);
+    try {
+      return analysisScheduler.schedule(coalescingKey, new ScheduledAnalysis(configuration.inputFiles(), issueListener, callerLogOutput, trackedMonitor,
+        (listener, output, progress) -> doAnalyze(configuration, listener, output, progress)));
+    } finally {
+      staleAnalysisTracker.finish(trackedMonitor);
+    }
+  }
+
+  @Override
+  public AnalysisQueueMetrics getAnalysisQueueMetrics() {
+    return analysisScheduler;
+  }
+
+  private AnalysisResults doAnalyze(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
     setLogging(logOutput);
     LoggedErrorHandler errorHandler = new LoggedErrorHandler(configuration.inputFiles());
     SonarLintLogging.setErrorHandler(errorHandler);
+    BatchingIssueListener batchingIssueListener = new BatchingIssueListener(issueListener, globalConfig.getIssueBatchSize(), globalConfig.getIssueFlushLatencyMs());
     rwl.readLock().lock();
     try {
-      AnalysisResults results = globalContainer.analyze(configuration, issueListener, new ProgressWrapper(monitor));
+      AnalysisResults results = globalContainer.analyze(configuration, batchingIssueListener, new ProgressWrapper(monitor));
+      batchingIssueListener.awaitDelivery();
       errorHandler.getErrorFiles().forEach(results.failedAnalysisFiles()::add);
+      globalContainer.getComponentByType(AnalysisResultCache.class).invalidate(errorHandler.getErrorFiles());
       return results;
     } catch (RuntimeException e) {
       throw SonarLintWrappedException.wrap(e);
     } finally {
+      batchingIssueListener.awaitDeliveryQuietly();
       rwl.readLock().unlock();
     }
   }
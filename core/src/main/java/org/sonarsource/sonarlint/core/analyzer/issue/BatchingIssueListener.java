@@ -0,0 +1,201 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.issue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+
+/**
+ * Decouples analyzers from the client {@link IssueListener}. Issues are grouped in batches that are handed to the client
+ * by a scheduler shared by all analyses. Analyzers are blocked while too many batches wait for the client.
+ * Issues are delivered in the order they are reported, so order of issues of a given file is preserved.
+ * When batching is disabled (batch size of 0), issues are passed synchronously to the client.
+ */
+public class BatchingIssueListener implements IssueListener {
+
+  private static final int QUEUE_CAPACITY_IN_BATCHES = 4;
+  private static final int DELIVERY_THREADS = 2;
+  private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+  private static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+  private final IssueListener delegate;
+  private final int batchSize;
+  private final long flushLatencyMs;
+  private final ScheduledExecutorService scheduler;
+  private final Object lock = new Object();
+  private final Deque<List<Issue>> batches = new ArrayDeque<>();
+  private List<Issue> pending = new ArrayList<>();
+  // incremented each time the pending batch is flushed, so that a late latency flush does not split the next batch
+  private long batchSequence;
+  private boolean delivering;
+  private RuntimeException failure;
+  private boolean closed;
+
+  public BatchingIssueListener(IssueListener delegate, int batchSize, long flushLatencyMs) {
+    this(delegate, batchSize, flushLatencyMs, SCHEDULER);
+  }
+
+  BatchingIssueListener(IssueListener delegate, int batchSize, long flushLatencyMs, ScheduledExecutorService scheduler) {
+    this.delegate = delegate;
+    this.batchSize = batchSize;
+    this.flushLatencyMs = flushLatencyMs;
+    this.scheduler = scheduler;
+  }
+
+  private static ScheduledExecutorService createScheduler() {
+    AtomicInteger count = new AtomicInteger();
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(DELIVERY_THREADS, r -> {
+      Thread t = new Thread(r, "sonarlint-issue-delivery-" + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    executor.setKeepAliveTime(IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    executor.allowCoreThreadTimeOut(true);
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
+  @Override
+  public void handle(Issue issue) {
+    if (batchSize == 0) {
+      delegate.handle(issue);
+      return;
+    }
+    synchronized (lock) {
+      // Apply backpressure, but stop waiting if the client failed
+      while (failure == null && batches.size() >= QUEUE_CAPACITY_IN_BATCHES) {
+        waitForDelivery();
+      }
+      rethrowFailure();
+      pending.add(issue);
+      if (pending.size() >= batchSize) {
+        flushPending();
+      } else if (pending.size() == 1) {
+        long sequence = batchSequence;
+        scheduler.schedule(() -> flushAfterLatency(sequence), flushLatencyMs, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /**
+   * Wait for all reported issues to be delivered. Rethrows any exception raised by the client listener.
+   * Does nothing when called more than once.
+   */
+  public void awaitDelivery() {
+    if (batchSize == 0) {
+      return;
+    }
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (failure == null && !pending.isEmpty()) {
+        flushPending();
+      }
+      while (failure == null && (delivering || !batches.isEmpty())) {
+        waitForDelivery();
+      }
+      rethrowFailure();
+    }
+  }
+
+  /**
+   * Same as {@link #awaitDelivery()}, but ignores failures. To be used when the analysis already failed.
+   */
+  public void awaitDeliveryQuietly() {
+    try {
+      awaitDelivery();
+    } catch (RuntimeException e) {
+      // analysis already failed
+    }
+  }
+
+  private void waitForDelivery() {
+    try {
+      lock.wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while delivering issues", e);
+    }
+  }
+
+  private void rethrowFailure() {
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void flushAfterLatency(long sequence) {
+    synchronized (lock) {
+      if (sequence == batchSequence && failure == null && !pending.isEmpty()) {
+        flushPending();
+      }
+    }
+  }
+
+  private void flushPending() {
+    batches.add(pending);
+    pending = new ArrayList<>(batchSize);
+    batchSequence++;
+    if (!delivering) {
+      delivering = true;
+      scheduler.execute(this::deliver);
+    }
+  }
+
+  /**
+   * Hands queued batches to the client one after the other, and gives the thread back to the scheduler once the queue is empty.
+   */
+  private void deliver() {
+    while (true) {
+      List<Issue> batch;
+      synchronized (lock) {
+        batch = batches.poll();
+        if (batch == null) {
+          delivering = false;
+          lock.notifyAll();
+          return;
+        }
+        lock.notifyAll();
+      }
+      try {
+        delegate.handleBatch(batch);
+      } catch (RuntimeException e) {
+        synchronized (lock) {
+          failure = e;
+          batches.clear();
+          pending.clear();
+          delivering = false;
+          lock.notifyAll();
+        }
+        return;
+      }
+    }
+  }
+}
@@ -51,6 +51,24 @@ public final class DefaultClientIssue extends TextRangeLocation implements org.s
     this.flows = flows.stream().map(f -> new DefaultFlow(f.locations())).collect(Collectors.toList());
   }
 
+  private DefaultClientIssue(DefaultClientIssue other, @Nullable ClientInputFile clientInputFile) {
+    super(other.textRange);
+    this.severity = other.severity;
+    this.type = other.type;
+    this.activeRule = other.activeRule;
+    this.rule = other.rule;
+    this.primaryMessage = other.primaryMessage;
+    this.clientInputFile = clientInputFile;
+    this.flows = other.flows;
+  }
+
+  /**
+   * Copy of this issue, reported on another input file
+   */
+  public DefaultClientIssue withInputFile(@Nullable ClientInputFile clientInputFile) {
+    return new DefaultClientIssue(this, clientInputFile);
+  }
+
   @Override
   public String getSeverity() {
     return severity;
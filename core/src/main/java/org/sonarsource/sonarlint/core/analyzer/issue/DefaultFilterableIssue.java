@@ -31,6 +31,7 @@ public class DefaultFilterableIssue implements FilterableIssue {
   private final DefaultClientIssue rawIssue;
   private final Project project;
   private final InputComponent inputComponent;
+  private RuleKey ruleKey;
 
   public DefaultFilterableIssue(Project project, DefaultClientIssue rawIssue, InputComponent inputComponent) {
     this.project = project;
@@ -46,7 +47,11 @@ public class DefaultFilterableIssue implements FilterableIssue {
 
   @Override
   public RuleKey ruleKey() {
-    return RuleKey.parse(rawIssue.getRuleKey());
+    // filters usually check the rule key of every issue
+    if (ruleKey == null) {
+      ruleKey = RuleKey.parse(rawIssue.getRuleKey());
+    }
+    return ruleKey;
   }
 
   @Override
@@ -19,34 +19,41 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.issue;
 
-import com.google.common.collect.ImmutableList;
-import java.util.List;
+import javax.annotation.Nullable;
 import org.sonar.api.scan.issue.filter.FilterableIssue;
 import org.sonar.api.scan.issue.filter.IssueFilter;
 import org.sonar.api.scan.issue.filter.IssueFilterChain;
 
+/**
+ * Immutable chain of filters, built once and shared by all issues: each link passes the issue to its filter along with the next link.
+ */
 public class DefaultIssueFilterChain implements IssueFilterChain {
-  private final List<IssueFilter> filters;
+  @Nullable
+  private final IssueFilter filter;
+  @Nullable
+  private final DefaultIssueFilterChain next;
 
   public DefaultIssueFilterChain(IssueFilter... filters) {
-    this.filters = ImmutableList.copyOf(filters);
+    this(filters, 0);
   }
 
   public DefaultIssueFilterChain() {
-    this.filters = ImmutableList.of();
+    this(new IssueFilter[0]);
   }
 
-  private DefaultIssueFilterChain(List<IssueFilter> filters) {
-    this.filters = filters;
+  private DefaultIssueFilterChain(IssueFilter[] filters, int index) {
+    if (index < filters.length) {
+      this.filter = filters[index];
+      this.next = new DefaultIssueFilterChain(filters, index + 1);
+    } else {
+      this.filter = null;
+      this.next = null;
+    }
   }
 
   @Override
   public boolean accept(FilterableIssue issue) {
-    if (filters.isEmpty()) {
-      return true;
-    } else {
-      return filters.get(0).accept(issue, new DefaultIssueFilterChain(filters.subList(1, filters.size())));
-    }
+    return filter == null || filter.accept(issue, next);
   }
 
 }
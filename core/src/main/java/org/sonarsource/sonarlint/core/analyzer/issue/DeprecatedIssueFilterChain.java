@@ -19,8 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.issue;
 
-import com.google.common.collect.ImmutableList;
-import java.util.List;
+import javax.annotation.Nullable;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.batch.IssueFilter;
 import org.sonar.api.issue.batch.IssueFilterChain;
@@ -31,26 +30,31 @@ import org.sonar.api.issue.batch.IssueFilterChain;
 @Deprecated
 public class DeprecatedIssueFilterChain implements IssueFilterChain {
 
-  private final List<IssueFilter> filters;
+  @Nullable
+  private final IssueFilter filter;
+  @Nullable
+  private final DeprecatedIssueFilterChain next;
 
   public DeprecatedIssueFilterChain(IssueFilter... filters) {
-    this.filters = ImmutableList.copyOf(filters);
+    this(filters, 0);
   }
 
   public DeprecatedIssueFilterChain() {
-    this.filters = ImmutableList.of();
+    this(new IssueFilter[0]);
   }
 
-  private DeprecatedIssueFilterChain(List<IssueFilter> filters) {
-    this.filters = filters;
+  private DeprecatedIssueFilterChain(IssueFilter[] filters, int index) {
+    if (index < filters.length) {
+      this.filter = filters[index];
+      this.next = new DeprecatedIssueFilterChain(filters, index + 1);
+    } else {
+      this.filter = null;
+      this.next = null;
+    }
   }
 
   @Override
   public boolean accept(Issue issue) {
-    if (filters.isEmpty()) {
-      return true;
-    } else {
-      return filters.get(0).accept(issue, new DeprecatedIssueFilterChain(filters.subList(1, filters.size())));
-    }
+    return filter == null || filter.accept(issue, next);
   }
 }
@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.issue;
 
+import java.util.Arrays;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.resources.Project;
@@ -26,17 +27,40 @@ import org.sonar.api.scan.issue.filter.FilterableIssue;
 import org.sonar.api.scan.issue.filter.IssueFilter;
 import org.sonar.api.scan.issue.filter.IssueFilterChain;
 import org.sonarsource.api.sonarlint.SonarLintSide;
+import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.EnforceIssuesFilter;
+import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.IgnoreIssuesFilter;
 
+/**
+ * Filter chains are built once per analysis. Issues are only wrapped for filters when there are filters.
+ */
 @SonarLintSide
 public class IssueFilters {
-  private final IssueFilter[] filters;
-  private final org.sonar.api.issue.batch.IssueFilter[] deprecatedFilters;
+  private final boolean hasFilters;
+  private final boolean hasDeprecatedFilters;
+  private final IssueFilterChain filterChain;
+  private final DeprecatedIssueFilterChain deprecatedFilterChain;
   private final Project project;
 
   public IssueFilters(Project project, IssueFilter[] exclusionFilters, org.sonar.api.issue.batch.IssueFilter[] filters) {
     this.project = project;
-    this.filters = exclusionFilters;
-    this.deprecatedFilters = filters;
+    IssueFilter[] activeFilters = Arrays.stream(exclusionFilters).filter(IssueFilters::isActive).toArray(IssueFilter[]::new);
+    this.hasFilters = activeFilters.length > 0;
+    this.filterChain = new DefaultIssueFilterChain(activeFilters);
+    this.hasDeprecatedFilters = filters.length > 0;
+    this.deprecatedFilterChain = new DeprecatedIssueFilterChain(filters);
+  }
+
+  /**
+   * Issue exclusion and inclusion filters have nothing to do when no pattern is configured.
+   */
+  private static boolean isActive(IssueFilter filter) {
+    if (filter instanceof IgnoreIssuesFilter) {
+      return ((IgnoreIssuesFilter) filter).hasPatterns();
+    }
+    if (filter instanceof EnforceIssuesFilter) {
+      return ((EnforceIssuesFilter) filter).hasPatterns();
+    }
+    return true;
   }
 
   public IssueFilters(Project project, IssueFilter[] filters) {
@@ -52,17 +76,20 @@ public class IssueFilters {
   }
 
   public boolean accept(InputComponent inputComponent, DefaultClientIssue rawIssue) {
-    IssueFilterChain filterChain = new DefaultIssueFilterChain(filters);
-    FilterableIssue fIssue = new DefaultFilterableIssue(project, rawIssue, inputComponent);
-    if (filterChain.accept(fIssue)) {
-      return acceptDeprecated(inputComponent.key(), rawIssue);
+    if (hasFilters) {
+      FilterableIssue fIssue = new DefaultFilterableIssue(project, rawIssue, inputComponent);
+      if (!filterChain.accept(fIssue)) {
+        return false;
+      }
     }
-
-    return false;
+    return !hasDeprecatedFilters || acceptDeprecated(inputComponent.key(), rawIssue);
   }
 
   public boolean acceptDeprecated(String componentKey, DefaultClientIssue rawIssue) {
+    if (!hasDeprecatedFilters) {
+      return true;
+    }
     Issue issue = new DeprecatedIssueAdapterForFilter(project, rawIssue, componentKey);
-    return new DeprecatedIssueFilterChain(deprecatedFilters).accept(issue);
+    return deprecatedFilterChain.accept(issue);
   }
 }
@@ -19,12 +19,15 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.events.SensorsPhaseHandler;
+import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
 import org.sonar.api.resources.Project;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import org.sonarsource.sonarlint.core.util.StringUtils;
@@ -41,16 +44,20 @@ public class AllSensorsExecutor implements SensorsExecutor {
   private final SensorsPhaseHandler[] handlers;
   private final ProgressWrapper progress;
   private final SensorContext context;
+  private final FileContentReleaser fileContentReleaser;
 
-  public AllSensorsExecutor(SensorContext context, ScannerExtensionDictionnary selector, Project project, ProgressWrapper progress) {
-    this(context, selector, project, progress, new SensorsPhaseHandler[0]);
+  public AllSensorsExecutor(SensorContext context, ScannerExtensionDictionnary selector, Project project, ProgressWrapper progress,
+    FileContentReleaser fileContentReleaser) {
+    this(context, selector, project, progress, fileContentReleaser, new SensorsPhaseHandler[0]);
   }
 
-  public AllSensorsExecutor(SensorContext context, ScannerExtensionDictionnary selector, Project project, ProgressWrapper progress, SensorsPhaseHandler[] handlers) {
+  public AllSensorsExecutor(SensorContext context, ScannerExtensionDictionnary selector, Project project, ProgressWrapper progress,
+    FileContentReleaser fileContentReleaser, SensorsPhaseHandler[] handlers) {
     this.context = context;
     this.selector = selector;
     this.module = project;
     this.progress = progress;
+    this.fileContentReleaser = fileContentReleaser;
     this.handlers = handlers;
   }
 
@@ -62,9 +69,17 @@ public class AllSensorsExecutor implements SensorsExecutor {
       h.onSensorsPhase(new DefaultSensorsPhaseEvent(sensors, true));
     }
 
+    List<DefaultSensorDescriptor> descriptors = new ArrayList<>();
+    for (Sensor sensor : sensors) {
+      // sensors of the deprecated API are not described, so they may read any file
+      descriptors.add(sensor instanceof SensorWrapper ? ((SensorWrapper) sensor).descriptor() : null);
+    }
+    int executed = 0;
     for (Sensor sensor : sensors) {
       progress.checkCancel();
       executeSensor(context, sensor);
+      executed++;
+      fileContentReleaser.afterSensor(descriptors.subList(executed, descriptors.size()));
     }
 
     for (SensorsPhaseHandler h : handlers) {
@@ -78,11 +78,13 @@ public class DefaultSensorContext implements SensorContext {
 
   @Override
   public FileSystem fileSystem() {
+    progress.checkCancel();
     return fs;
   }
 
   @Override
   public ActiveRules activeRules() {
+    progress.checkCancel();
     return activeRules;
   }
 
@@ -93,6 +95,7 @@ public class DefaultSensorContext implements SensorContext {
 
   @Override
   public NewIssue newIssue() {
+    progress.checkCancel();
     return new DefaultIssue(sensorStorage);
   }
 
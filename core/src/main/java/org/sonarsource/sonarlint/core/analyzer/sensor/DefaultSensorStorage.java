@@ -20,8 +20,12 @@
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
 import com.google.common.base.Strings;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
@@ -43,25 +47,46 @@ import org.sonar.api.source.Symbol;
 import org.sonar.api.utils.MessageException;
 import org.sonarsource.sonarlint.core.analyzer.issue.DefaultClientIssue;
 import org.sonarsource.sonarlint.core.analyzer.issue.IssueFilters;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCacheSession;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 public class DefaultSensorStorage implements SensorStorage {
 
-  private final ActiveRules activeRules;
-  private final Rules rules;
   private final IssueFilters filters;
   private final IssueListener issueListener;
   private final DefaultAnalysisResult analysisResult;
+  private final ProgressWrapper progress;
+  private final AnalysisResultCacheSession analysisResultCache;
+  private final Map<RuleKey, RuleDescriptor> ruleDescriptors;
+  private final IssueLimiter issueLimiter;
 
-  public DefaultSensorStorage(ActiveRules activeRules, Rules rules, IssueFilters filters, IssueListener issueListener, DefaultAnalysisResult analysisResult) {
-    this.activeRules = activeRules;
-    this.rules = rules;
+  public DefaultSensorStorage(ActiveRules activeRules, Rules rules, IssueFilters filters, IssueListener issueListener, DefaultAnalysisResult analysisResult,
+    ProgressWrapper progress, AnalysisResultCacheSession analysisResultCache, AbstractGlobalConfiguration globalConfiguration) {
     this.filters = filters;
     this.issueListener = issueListener;
     this.analysisResult = analysisResult;
+    this.progress = progress;
+    this.analysisResultCache = analysisResultCache;
+    this.ruleDescriptors = buildRuleDescriptors(rules, activeRules);
+    this.issueLimiter = new IssueLimiter(globalConfiguration);
+  }
+
+  /**
+   * Resolve once per analysis everything an issue needs from its rule, so that storing an issue is a single lookup.
+   * Known but inactive rules are kept in the table (without active rule) to tell them apart from unknown rules.
+   */
+  private static Map<RuleKey, RuleDescriptor> buildRuleDescriptors(Rules rules, ActiveRules activeRules) {
+    Collection<Rule> allRules = rules.findAll();
+    Map<RuleKey, RuleDescriptor> descriptors = new HashMap<>(allRules.size() * 4 / 3 + 1);
+    for (Rule rule : allRules) {
+      descriptors.put(rule.key(), new RuleDescriptor((DefaultRule) rule, activeRules.find(rule.key())));
+    }
+    return descriptors;
   }
 
   @Override
@@ -71,37 +96,77 @@ public class DefaultSensorStorage implements SensorStorage {
 
   @Override
   public void store(Issue issue) {
+    progress.checkCancel();
     InputComponent inputComponent = issue.primaryLocation().inputComponent();
 
-    DefaultRule rule = validateRule(issue);
-    ActiveRule activeRule = activeRules.find(issue.ruleKey());
+    RuleDescriptor descriptor = validateRule(issue);
+    ActiveRule activeRule = descriptor.activeRule;
     if (activeRule == null) {
-      // rule does not exist or is not enabled -> ignore the issue
+      // rule is not enabled -> ignore the issue
       return;
     }
 
-    String primaryMessage = Strings.isNullOrEmpty(issue.primaryLocation().message()) ? rule.name() : issue.primaryLocation().message();
+    String primaryMessage = Strings.isNullOrEmpty(issue.primaryLocation().message()) ? descriptor.name : issue.primaryLocation().message();
     org.sonar.api.batch.rule.Severity overriddenSeverity = issue.overriddenSeverity();
-    String severity = overriddenSeverity != null ? overriddenSeverity.name() : activeRule.severity();
-    String type = rule.type();
+    String severity = overriddenSeverity != null ? overriddenSeverity.name() : descriptor.severity;
 
-    DefaultClientIssue newIssue = new DefaultClientIssue(severity, type, activeRule, rules.find(activeRule.ruleKey()), primaryMessage, issue.primaryLocation().textRange(),
-      inputComponent.isFile() ? ((SonarLintInputFile) inputComponent).getClientInputFile() : null, issue.flows());
+    ClientInputFile clientInputFile = inputComponent.isFile() ? ((SonarLintInputFile) inputComponent).getClientInputFile() : null;
+    TextRange textRange = issue.primaryLocation().textRange();
+    DefaultClientIssue newIssue = new DefaultClientIssue(severity, descriptor.type, activeRule, descriptor.rule, primaryMessage, textRange,
+      clientInputFile, issue.flows());
     if (filters.accept(inputComponent, newIssue)) {
+      if (clientInputFile != null) {
+        if (!checkLimits(clientInputFile, issue.ruleKey(), textRange, primaryMessage)) {
+          return;
+        }
+        analysisResultCache.record(clientInputFile, newIssue);
+      }
       issueListener.handle(newIssue);
     }
   }
 
-  private DefaultRule validateRule(Issue issue) {
+  private boolean checkLimits(ClientInputFile clientInputFile, RuleKey ruleKey, @Nullable TextRange textRange, String message) {
+    switch (issueLimiter.decide(clientInputFile, ruleKey, textRange, message)) {
+      case DUPLICATE:
+        return false;
+      case TRUNCATE:
+        analysisResult.addTruncatedIssue(clientInputFile);
+        // results of a truncated file are not cached, so that next analyses report the truncation too
+        analysisResultCache.discard(clientInputFile);
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  private RuleDescriptor validateRule(Issue issue) {
     RuleKey ruleKey = issue.ruleKey();
-    Rule rule = rules.find(ruleKey);
-    if (rule == null) {
+    RuleDescriptor descriptor = ruleDescriptors.get(ruleKey);
+    if (descriptor == null) {
       throw MessageException.of(String.format("The rule '%s' does not exist.", ruleKey));
     }
-    if (Strings.isNullOrEmpty(rule.name()) && Strings.isNullOrEmpty(issue.primaryLocation().message())) {
+    if (Strings.isNullOrEmpty(descriptor.name) && Strings.isNullOrEmpty(issue.primaryLocation().message())) {
       throw MessageException.of(String.format("The rule '%s' has no name and the related issue has no message.", ruleKey));
     }
-    return (DefaultRule) rule;
+    return descriptor;
+  }
+
+  private static class RuleDescriptor {
+    private final Rule rule;
+    @CheckForNull
+    private final ActiveRule activeRule;
+    private final String name;
+    private final String type;
+    @CheckForNull
+    private final String severity;
+
+    RuleDescriptor(DefaultRule rule, @Nullable ActiveRule activeRule) {
+      this.rule = rule;
+      this.activeRule = activeRule;
+      this.name = rule.name();
+      this.type = rule.type();
+      this.severity = activeRule != null ? activeRule.severity() : null;
+    }
   }
 
   @Override
@@ -0,0 +1,63 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.sensor;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileContentCache;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
+
+/**
+ * Releases the content of each file as soon as the last sensor that may read it has been executed, instead of keeping the content
+ * of all files until the end of the analysis.
+ */
+public class FileContentReleaser {
+
+  private final FileSystem fs;
+  private final FileContentCache fileContentCache;
+
+  public FileContentReleaser(FileSystem fs, FileContentCache fileContentCache) {
+    this.fs = fs;
+    this.fileContentCache = fileContentCache;
+  }
+
+  /**
+   * @param remainingSensors descriptors of the sensors still to be executed, or null for a sensor that is not described
+   */
+  public void afterSensor(List<DefaultSensorDescriptor> remainingSensors) {
+    Set<String> remainingLanguages = new HashSet<>();
+    for (DefaultSensorDescriptor descriptor : remainingSensors) {
+      if (descriptor == null || descriptor.languages().isEmpty()) {
+        // may read files of any language
+        return;
+      }
+      remainingLanguages.addAll(descriptor.languages());
+    }
+    for (InputFile inputFile : fs.inputFiles(fs.predicates().all())) {
+      if (!remainingLanguages.contains(inputFile.language())) {
+        fileContentCache.release(((SonarLintInputFile) inputFile).getClientInputFile());
+      }
+    }
+  }
+}
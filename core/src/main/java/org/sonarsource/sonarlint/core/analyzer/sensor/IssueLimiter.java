@@ -0,0 +1,114 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.sensor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.rule.RuleKey;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * Decides, for each issue of a file, whether it is reported: identical issues (same rule, text range and message) are reported once,
+ * and at most the configured number of issues are reported per rule and per file.
+ */
+class IssueLimiter {
+
+  enum Decision {
+    REPORT, DUPLICATE, TRUNCATE
+  }
+
+  private final int maxIssuesPerRulePerFile;
+  private final int maxIssuesPerFile;
+  private final Map<ClientInputFile, FileIssues> issuesByFile = new ConcurrentHashMap<>();
+
+  IssueLimiter(AbstractGlobalConfiguration globalConfiguration) {
+    this(globalConfiguration.getMaxIssuesPerRulePerFile(), globalConfiguration.getMaxIssuesPerFile());
+  }
+
+  IssueLimiter(int maxIssuesPerRulePerFile, int maxIssuesPerFile) {
+    this.maxIssuesPerRulePerFile = maxIssuesPerRulePerFile;
+    this.maxIssuesPerFile = maxIssuesPerFile;
+  }
+
+  Decision decide(ClientInputFile inputFile, RuleKey ruleKey, @Nullable TextRange textRange, String message) {
+    return issuesByFile.computeIfAbsent(inputFile, f -> new FileIssues()).decide(new IssueKey(ruleKey, textRange, message));
+  }
+
+  private class FileIssues {
+    private final Set<IssueKey> reported = new HashSet<>();
+    private final Map<RuleKey, Integer> countByRule = new HashMap<>();
+
+    synchronized Decision decide(IssueKey issueKey) {
+      if (reported.contains(issueKey)) {
+        return Decision.DUPLICATE;
+      }
+      if (maxIssuesPerFile > 0 && reported.size() >= maxIssuesPerFile) {
+        return Decision.TRUNCATE;
+      }
+      if (maxIssuesPerRulePerFile > 0) {
+        int ruleCount = countByRule.getOrDefault(issueKey.ruleKey, 0);
+        if (ruleCount >= maxIssuesPerRulePerFile) {
+          return Decision.TRUNCATE;
+        }
+        countByRule.put(issueKey.ruleKey, ruleCount + 1);
+      }
+      reported.add(issueKey);
+      return Decision.REPORT;
+    }
+  }
+
+  private static class IssueKey {
+    private final RuleKey ruleKey;
+    @Nullable
+    private final TextRange textRange;
+    private final String message;
+
+    IssueKey(RuleKey ruleKey, @Nullable TextRange textRange, String message) {
+      this.ruleKey = ruleKey;
+      this.textRange = textRange;
+      this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      IssueKey other = (IssueKey) o;
+      return ruleKey.equals(other.ruleKey) && Objects.equals(textRange, other.textRange) && message.equals(other.message);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(ruleKey, textRange, message);
+    }
+  }
+
+}
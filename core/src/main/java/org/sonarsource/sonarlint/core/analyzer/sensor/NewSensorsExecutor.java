@@ -19,6 +19,8 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.sensor.Sensor;
@@ -41,28 +43,38 @@ public class NewSensorsExecutor implements SensorsExecutor {
   private final ProgressWrapper progress;
   private final Sensor[] sensors;
   private final DefaultSensorContext context;
+  private final FileContentReleaser fileContentReleaser;
 
-  public NewSensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress) {
-    this(context, sensorOptimizer, progress, new Sensor[0]);
+  public NewSensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress, FileContentReleaser fileContentReleaser) {
+    this(context, sensorOptimizer, progress, fileContentReleaser, new Sensor[0]);
   }
 
-  public NewSensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress, Sensor[] sensors) {
+  public NewSensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress, FileContentReleaser fileContentReleaser,
+    Sensor[] sensors) {
     this.context = context;
     this.sensors = sensors;
     this.sensorOptimizer = sensorOptimizer;
     this.progress = progress;
+    this.fileContentReleaser = fileContentReleaser;
   }
 
   @Override
   public void execute() {
+    List<Sensor> toExecute = new ArrayList<>();
+    List<DefaultSensorDescriptor> descriptors = new ArrayList<>();
     for (Sensor sensor : sort(asList(sensors))) {
-      progress.checkCancel();
       DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
       sensor.describe(descriptor);
       if (sensorOptimizer.shouldExecute(descriptor)) {
-        executeSensor(context, sensor, descriptor);
+        toExecute.add(sensor);
+        descriptors.add(descriptor);
       }
     }
+    for (int i = 0; i < toExecute.size(); i++) {
+      progress.checkCancel();
+      executeSensor(context, toExecute.get(i), descriptors.get(i));
+      fileContentReleaser.afterSensor(descriptors.subList(i + 1, descriptors.size()));
+    }
   }
 
   private static void executeSensor(SensorContext context, Sensor sensor, DefaultSensorDescriptor descriptor) {
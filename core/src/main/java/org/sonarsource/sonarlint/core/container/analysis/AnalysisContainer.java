@@ -35,12 +35,15 @@ import org.sonarsource.sonarlint.core.analyzer.noop.NoOpTestableBuilder;
 import org.sonarsource.sonarlint.core.analyzer.perspectives.BatchPerspectives;
 import org.sonarsource.sonarlint.core.analyzer.sensor.DefaultSensorContext;
 import org.sonarsource.sonarlint.core.analyzer.sensor.DefaultSensorStorage;
+import org.sonarsource.sonarlint.core.analyzer.sensor.FileContentReleaser;
 import org.sonarsource.sonarlint.core.analyzer.sensor.LtsApiSensorContext;
 import org.sonarsource.sonarlint.core.analyzer.sensor.PhaseExecutor;
 import org.sonarsource.sonarlint.core.analyzer.sensor.ScannerExtensionDictionnary;
 import org.sonarsource.sonarlint.core.analyzer.sensor.SensorOptimizer;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCacheSession;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.DefaultLanguagesRepository;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileContentCache;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileIndexer;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputFileBuilder;
@@ -97,10 +100,13 @@ public class AnalysisContainer extends ComponentContainer {
       // file system
       InputPathCache.class,
       InputFileBuilder.class,
+      FileContentCache.class,
+      FileContentReleaser.class,
       FileMetadata.class,
       LanguageDetection.class,
       FileIndexer.class,
       SonarLintFileSystem.class,
+      AnalysisResultCacheSession.class,
 
       // Exclusions in connected mode
       ServerSettingsProvider.class,
@@ -139,6 +145,7 @@ public class AnalysisContainer extends ComponentContainer {
   protected void doAfterStart() {
     LOG.debug("Start analysis");
     getComponentByType(PhaseExecutor.class).execute();
+    getComponentByType(AnalysisResultCacheSession.class).commit();
   }
 
 }
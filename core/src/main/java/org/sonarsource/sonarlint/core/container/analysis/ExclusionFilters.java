@@ -37,6 +37,8 @@ public class ExclusionFilters {
   private PathPattern[] mainExclusions;
   private PathPattern[] testInclusions;
   private PathPattern[] testExclusions;
+  private PathPatternMatcher mainMatcher;
+  private PathPatternMatcher testMatcher;
 
   public ExclusionFilters(ServerSettingsProvider serverSettingsProvider) {
     this.exclusionSettings = new FileExclusions(serverSettingsProvider.getServerSettings());
@@ -51,6 +53,12 @@ public class ExclusionFilters {
     log("Excluded sources: ", mainExclusions);
     log("Included tests: ", testInclusions);
     log("Excluded tests: ", testExclusions);
+    mainMatcher = new PathPatternMatcher(toStrings(mainInclusions), toStrings(mainExclusions));
+    testMatcher = new PathPatternMatcher(toStrings(testInclusions), toStrings(testExclusions));
+  }
+
+  private static String[] toStrings(PathPattern[] patterns) {
+    return Arrays.stream(patterns).map(PathPattern::toString).toArray(String[]::new);
   }
 
   private static void log(String title, PathPattern[] patterns) {
@@ -63,35 +71,20 @@ public class ExclusionFilters {
   }
 
   public boolean accept(InputFile inputFile, InputFile.Type type) {
-    PathPattern[] inclusionPatterns;
-    PathPattern[] exclusionPatterns;
+    PathPatternMatcher matcher;
     if (InputFile.Type.MAIN == type) {
-      inclusionPatterns = mainInclusions;
-      exclusionPatterns = mainExclusions;
+      matcher = mainMatcher;
     } else if (InputFile.Type.TEST == type) {
-      inclusionPatterns = testInclusions;
-      exclusionPatterns = testExclusions;
+      matcher = testMatcher;
     } else {
       throw new IllegalArgumentException("Unknown file type: " + type);
     }
 
-    if (inclusionPatterns.length > 0) {
-      boolean matchInclusion = false;
-      for (PathPattern pattern : inclusionPatterns) {
-        matchInclusion |= pattern.match(inputFile);
-      }
-      if (!matchInclusion) {
-        return false;
-      }
-    }
-    if (exclusionPatterns.length > 0) {
-      for (PathPattern pattern : exclusionPatterns) {
-        if (pattern.match(inputFile)) {
-          return false;
-        }
-      }
+    int match = matcher.match(inputFile.absolutePath(), inputFile.relativePath());
+    if (matcher.hasInclusions() && (match & PathPatternMatcher.INCLUDED) == 0) {
+      return false;
     }
-    return true;
+    return (match & PathPatternMatcher.EXCLUDED) == 0;
   }
 
   PathPattern[] prepareMainInclusions() {
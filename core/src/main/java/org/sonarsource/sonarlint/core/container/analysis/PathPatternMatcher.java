@@ -0,0 +1,284 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * All inclusion and exclusion patterns of a file type compiled into a single automaton, with the same semantics as
+ * {@link org.sonar.api.batch.fs.internal.PathPattern}: patterns prefixed by "file:" are matched against the absolute path,
+ * others against the relative path.
+ * A path is read once, char by char, for all patterns together. States reached at the end of each directory are memoized,
+ * so that files of an already visited directory only have their name read.
+ */
+class PathPatternMatcher {
+
+  static final int INCLUDED = 1;
+  static final int EXCLUDED = 2;
+
+  private static final String ABSOLUTE_PREFIX = "file:";
+  private static final String SPECIAL_CHARS = "()[]^$.{}+|";
+
+  /**
+   * Consumes one given char
+   */
+  private static final byte LITERAL = 0;
+  /**
+   * ?: consumes one char, except a separator
+   */
+  private static final byte ONE_CHAR = 1;
+  /**
+   * *: consumes any number of chars, except separators
+   */
+  private static final byte STAR = 2;
+  /**
+   * ** not followed by a separator: consumes any number of chars
+   */
+  private static final byte GLOBSTAR = 3;
+  /**
+   * **&#47;: consumes nothing, or any number of chars ending with a separator
+   */
+  private static final byte DIRECTORIES = 4;
+  /**
+   * End of a pattern
+   */
+  private static final byte END = 5;
+
+  private final byte[] kinds;
+  private final char[] chars;
+  private final BitSet inclusionEnds = new BitSet();
+  private final BitSet exclusionEnds = new BitSet();
+  private final BitSet absoluteStarts = new BitSet();
+  private final BitSet relativeStarts = new BitSet();
+  private final BitSet allStarts;
+  private final boolean hasInclusions;
+
+  private final Map<String, BitSet> absoluteDirectoryStates = new ConcurrentHashMap<>();
+  private final Map<String, BitSet> relativeDirectoryStates = new ConcurrentHashMap<>();
+  private final Map<String, BitSet> allDirectoryStates = new ConcurrentHashMap<>();
+
+  PathPatternMatcher(String[] inclusions, String[] exclusions) {
+    StateBuilder builder = new StateBuilder();
+    for (String inclusion : inclusions) {
+      add(builder, inclusion, inclusionEnds);
+    }
+    for (String exclusion : exclusions) {
+      add(builder, exclusion, exclusionEnds);
+    }
+    this.kinds = builder.kinds();
+    this.chars = builder.chars();
+    this.hasInclusions = inclusions.length > 0;
+    closure(absoluteStarts);
+    closure(relativeStarts);
+    allStarts = (BitSet) absoluteStarts.clone();
+    allStarts.or(relativeStarts);
+  }
+
+  boolean hasInclusions() {
+    return hasInclusions;
+  }
+
+  /**
+   * @return a combination of {@link #INCLUDED} and {@link #EXCLUDED}, depending on which kind of patterns are matched by the file
+   */
+  int match(@Nullable String absolutePath, @Nullable String relativePath) {
+    if (kinds.length == 0) {
+      return 0;
+    }
+    BitSet ends;
+    if (absolutePath != null && absolutePath.equals(relativePath)) {
+      ends = run(allStarts, allDirectoryStates, absolutePath);
+    } else {
+      ends = new BitSet();
+      if (absolutePath != null && !absoluteStarts.isEmpty()) {
+        ends.or(run(absoluteStarts, absoluteDirectoryStates, absolutePath));
+      }
+      if (relativePath != null && !relativeStarts.isEmpty()) {
+        ends.or(run(relativeStarts, relativeDirectoryStates, relativePath));
+      }
+    }
+    int result = 0;
+    if (ends.intersects(inclusionEnds)) {
+      result |= INCLUDED;
+    }
+    if (ends.intersects(exclusionEnds)) {
+      result |= EXCLUDED;
+    }
+    return result;
+  }
+
+  private BitSet run(BitSet starts, Map<String, BitSet> directoryStates, String path) {
+    String value = StringUtils.removeEnd(StringUtils.removeStart(path, "/"), "/");
+    int nameStart = value.lastIndexOf('/') + 1;
+    BitSet states;
+    if (nameStart == 0) {
+      states = starts;
+    } else {
+      String directory = value.substring(0, nameStart);
+      states = directoryStates.computeIfAbsent(directory, d -> consume(starts, d, 0, d.length()));
+    }
+    return consume(states, value, nameStart, value.length());
+  }
+
+  private BitSet consume(BitSet initialStates, String value, int from, int to) {
+    BitSet states = initialStates;
+    for (int i = from; i < to && !states.isEmpty(); i++) {
+      states = step(states, value.charAt(i));
+    }
+    return states;
+  }
+
+  private BitSet step(BitSet states, char c) {
+    BitSet next = new BitSet(kinds.length);
+    for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+      switch (kinds[s]) {
+        case LITERAL:
+          if (chars[s] == c) {
+            next.set(s + 1);
+          }
+          break;
+        case ONE_CHAR:
+          if (c != '/') {
+            next.set(s + 1);
+          }
+          break;
+        case STAR:
+          if (c != '/') {
+            next.set(s);
+          }
+          break;
+        case GLOBSTAR:
+          if (!isLineTerminator(c)) {
+            next.set(s);
+          }
+          break;
+        case DIRECTORIES:
+          if (c == '/') {
+            next.set(s);
+            next.set(s + 1);
+          } else if (!isLineTerminator(c)) {
+            next.set(s);
+          }
+          break;
+        default:
+          // end of pattern
+          break;
+      }
+    }
+    closure(next);
+    return next;
+  }
+
+  /**
+   * Wildcards may match nothing, so the next state is also reached. Transitions only go forward, so one pass is enough.
+   */
+  private void closure(BitSet states) {
+    for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+      byte kind = kinds[s];
+      if (kind == STAR || kind == GLOBSTAR || kind == DIRECTORIES) {
+        states.set(s + 1);
+      }
+    }
+  }
+
+  /**
+   * Same as . in a regular expression
+   */
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static boolean isSlash(char c) {
+    return c == '/' || c == '\\';
+  }
+
+  private void add(StateBuilder builder, String pathPattern, BitSet ends) {
+    String trimmed = StringUtils.trim(pathPattern);
+    String pattern;
+    if (StringUtils.startsWithIgnoreCase(trimmed, ABSOLUTE_PREFIX)) {
+      pattern = trimmed.substring(ABSOLUTE_PREFIX.length());
+      absoluteStarts.set(builder.size());
+    } else {
+      pattern = trimmed;
+      relativeStarts.set(builder.size());
+    }
+    int i = pattern.startsWith("/") || pattern.startsWith("\\") ? 1 : 0;
+    while (i < pattern.length()) {
+      char ch = pattern.charAt(i);
+      if (SPECIAL_CHARS.indexOf(ch) != -1) {
+        builder.add(LITERAL, ch);
+      } else if (ch == '*') {
+        if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+          if (i + 2 < pattern.length() && isSlash(pattern.charAt(i + 2))) {
+            builder.add(DIRECTORIES, ch);
+            i += 2;
+          } else {
+            builder.add(GLOBSTAR, ch);
+            i += 1;
+          }
+        } else {
+          builder.add(STAR, ch);
+        }
+      } else if (ch == '?') {
+        builder.add(ONE_CHAR, ch);
+      } else if (isSlash(ch)) {
+        builder.add(LITERAL, '/');
+      } else {
+        builder.add(LITERAL, ch);
+      }
+      i++;
+    }
+    ends.set(builder.size());
+    builder.add(END, ' ');
+  }
+
+  private static class StateBuilder {
+    private byte[] kinds = new byte[16];
+    private char[] chars = new char[16];
+    private int size;
+
+    void add(byte kind, char c) {
+      if (size == kinds.length) {
+        kinds = Arrays.copyOf(kinds, size * 2);
+        chars = Arrays.copyOf(chars, size * 2);
+      }
+      kinds[size] = kind;
+      chars[size] = c;
+      size++;
+    }
+
+    int size() {
+      return size;
+    }
+
+    byte[] kinds() {
+      return Arrays.copyOf(kinds, size);
+    }
+
+    char[] chars() {
+      return Arrays.copyOf(chars, size);
+    }
+  }
+}
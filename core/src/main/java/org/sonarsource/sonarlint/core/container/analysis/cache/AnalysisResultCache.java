@@ -0,0 +1,142 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import org.sonarsource.sonarlint.core.analyzer.issue.DefaultClientIssue;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * Issues of previously analyzed files, by file key (see {@link AnalysisResultCacheSession}), and content hashes of files on disk,
+ * by path, so that unchanged files are not read again to compute their key.
+ * Least recently used entries are evicted when the configured size is reached. Shared by all analyses of an engine.
+ */
+public class AnalysisResultCache {
+
+  private final int maxSize;
+  private final Map<String, Entry> entries;
+  private final Map<String, ContentHash> contentHashes;
+
+  public AnalysisResultCache(AbstractGlobalConfiguration globalConfig) {
+    this(globalConfig.getAnalysisResultCacheSize());
+  }
+
+  AnalysisResultCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > AnalysisResultCache.this.maxSize;
+      }
+    };
+    this.contentHashes = new LinkedHashMap<String, ContentHash>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, ContentHash> eldest) {
+        return size() > AnalysisResultCache.this.maxSize;
+      }
+    };
+  }
+
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  @CheckForNull
+  public synchronized List<DefaultClientIssue> get(String fileKey) {
+    Entry entry = entries.get(fileKey);
+    return entry != null ? entry.issues : null;
+  }
+
+  public synchronized void put(String fileKey, String filePath, List<DefaultClientIssue> issues) {
+    entries.put(fileKey, new Entry(filePath, Collections.unmodifiableList(issues)));
+  }
+
+  /**
+   * Returns the content hash computed for the same size and last modification time of the file, or computes and stores it.
+   */
+  String contentHash(String filePath, long size, long lastModified, Supplier<String> hashSupplier) {
+    synchronized (this) {
+      ContentHash contentHash = contentHashes.get(filePath);
+      if (contentHash != null && contentHash.size == size && contentHash.lastModified == lastModified) {
+        return contentHash.hash;
+      }
+    }
+    // don't hold the lock while reading the file
+    String hash = hashSupplier.get();
+    synchronized (this) {
+      contentHashes.put(filePath, new ContentHash(size, lastModified, hash));
+    }
+    return hash;
+  }
+
+  /**
+   * Forget results of the given files, whatever the analysis settings were.
+   */
+  public synchronized void invalidate(Collection<ClientInputFile> inputFiles) {
+    if (inputFiles.isEmpty()) {
+      return;
+    }
+    Iterator<Entry> it = entries.values().iterator();
+    while (it.hasNext()) {
+      String filePath = it.next().filePath;
+      if (inputFiles.stream().anyMatch(f -> f.getPath().equals(filePath))) {
+        it.remove();
+      }
+    }
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  synchronized int contentHashCount() {
+    return contentHashes.size();
+  }
+
+  private static class Entry {
+    private final String filePath;
+    private final List<DefaultClientIssue> issues;
+
+    private Entry(String filePath, List<DefaultClientIssue> issues) {
+      this.filePath = filePath;
+      this.issues = issues;
+    }
+  }
+
+  private static class ContentHash {
+    private final long size;
+    private final long lastModified;
+    private final String hash;
+
+    private ContentHash(long size, long lastModified, String hash) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+  }
+}
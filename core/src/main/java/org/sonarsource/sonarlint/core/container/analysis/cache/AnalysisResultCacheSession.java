@@ -0,0 +1,290 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.sensor.Sensor;
+import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.analyzer.issue.DefaultClientIssue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.plugin.PluginInfo;
+import org.sonarsource.sonarlint.core.plugin.PluginRepository;
+
+/**
+ * Analysis side of the {@link AnalysisResultCache}. Files are identified by a key made of their path, type, language, charset
+ * and content hash, plus a fingerprint of the active rules, analysis properties and loaded plugins.
+ * Files on disk are only read to compute their content hash when their size or last modification time changed. The content of
+ * other files is read once and shared with sensors.
+ * Files found in the cache have their issues replayed and are not indexed. Issues of other files are recorded and put in the
+ * cache at the end of the analysis, unless the analysis failed or was cancelled.
+ */
+public class AnalysisResultCacheSession {
+
+  private static final Logger LOG = Loggers.get(AnalysisResultCacheSession.class);
+  private static final int STREAM_BUFFER_LENGTH = 8192;
+
+  private final AnalysisResultCache cache;
+  private final ComponentContainer container;
+  private final ActiveRules activeRules;
+  private final Settings settings;
+  private final PluginRepository pluginRepository;
+  private final IssueListener issueListener;
+  private final DefaultAnalysisResult analysisResult;
+
+  private final Map<ClientInputFile, PendingFile> pendingFiles = new HashMap<>();
+  private String analysisFingerprint;
+  private boolean allLanguagesExcluded;
+  private Set<String> excludedLanguages;
+
+  public AnalysisResultCacheSession(AnalysisResultCache cache, ComponentContainer container, ActiveRules activeRules, Settings settings,
+    PluginRepository pluginRepository, IssueListener issueListener, DefaultAnalysisResult analysisResult) {
+    this.cache = cache;
+    this.container = container;
+    this.activeRules = activeRules;
+    this.settings = settings;
+    this.pluginRepository = pluginRepository;
+    this.issueListener = issueListener;
+    this.analysisResult = analysisResult;
+  }
+
+  /**
+   * Replay cached issues of the given file, if any.
+   * @return true if issues were replayed, meaning that the file doesn't have to be analyzed
+   */
+  public boolean replay(SonarLintInputFile inputFile) {
+    if (!cache.isEnabled() || !isCacheable(inputFile.language())) {
+      return false;
+    }
+    ClientInputFile clientInputFile = inputFile.getClientInputFile();
+    String fileKey = fileKey(inputFile);
+    List<DefaultClientIssue> cachedIssues = cache.get(fileKey);
+    if (cachedIssues != null) {
+      LOG.debug("Issues of '{}' replayed from the analysis result cache", clientInputFile.getPath());
+      for (DefaultClientIssue issue : cachedIssues) {
+        issueListener.handle(issue.withInputFile(clientInputFile));
+      }
+      return true;
+    }
+    synchronized (pendingFiles) {
+      pendingFiles.put(clientInputFile, new PendingFile(fileKey));
+    }
+    return false;
+  }
+
+  /**
+   * Record an issue reported on a file that was not found in the cache.
+   */
+  public void record(ClientInputFile clientInputFile, DefaultClientIssue issue) {
+    synchronized (pendingFiles) {
+      PendingFile pendingFile = pendingFiles.get(clientInputFile);
+      if (pendingFile != null) {
+        pendingFile.issues.add(issue.withInputFile(null));
+      }
+    }
+  }
+
+  /**
+   * Don't put the results of the given file in the cache, for example because some of its issues were not reported.
+   */
+  public void discard(ClientInputFile clientInputFile) {
+    synchronized (pendingFiles) {
+      pendingFiles.remove(clientInputFile);
+    }
+  }
+
+  /**
+   * Put results of successfully analyzed files in the cache. To be called once all sensors are executed.
+   */
+  public void commit() {
+    Collection<ClientInputFile> failedFiles = analysisResult.failedAnalysisFiles();
+    synchronized (pendingFiles) {
+      for (Map.Entry<ClientInputFile, PendingFile> entry : pendingFiles.entrySet()) {
+        if (!failedFiles.contains(entry.getKey())) {
+          cache.put(entry.getValue().fileKey, entry.getKey().getPath(), entry.getValue().issues);
+        }
+      }
+      pendingFiles.clear();
+    }
+  }
+
+  private boolean isCacheable(@CheckForNull String language) {
+    if (excludedLanguages == null) {
+      collectExcludedLanguages();
+    }
+    return !allLanguagesExcluded && (language == null || !excludedLanguages.contains(language));
+  }
+
+  /**
+   * Sensors declared as global may compute issues of a file based on other files, so their languages can't be cached.
+   * Sensors of the deprecated API don't describe what they need, so they disable the cache.
+   */
+  private void collectExcludedLanguages() {
+    excludedLanguages = new HashSet<>();
+    for (Sensor sensor : getExtensions(container, Sensor.class)) {
+      DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
+      sensor.describe(descriptor);
+      if (descriptor.isGlobal()) {
+        if (descriptor.languages().isEmpty()) {
+          allLanguagesExcluded = true;
+        }
+        excludedLanguages.addAll(descriptor.languages());
+      }
+    }
+    if (!getExtensions(container, org.sonar.api.batch.Sensor.class).isEmpty()) {
+      allLanguagesExcluded = true;
+    }
+    if (allLanguagesExcluded) {
+      LOG.debug("Analysis result cache disabled: some sensors need cross-file context");
+    } else if (!excludedLanguages.isEmpty()) {
+      LOG.debug("Analysis result cache disabled for languages {}: some sensors need cross-file context", excludedLanguages);
+    }
+  }
+
+  private static <T> List<T> getExtensions(ComponentContainer container, Class<T> type) {
+    List<T> result = new ArrayList<>();
+    ComponentContainer current = container;
+    while (current != null) {
+      result.addAll(current.getComponentsByType(type));
+      current = current.getParent();
+    }
+    return result;
+  }
+
+  private String fileKey(SonarLintInputFile inputFile) {
+    MessageDigest digest = newDigest();
+    update(digest, analysisFingerprint());
+    update(digest, inputFile.getClientInputFile().getPath());
+    update(digest, inputFile.type().name());
+    update(digest, String.valueOf(inputFile.language()));
+    update(digest, inputFile.charset().name());
+    update(digest, contentHash(inputFile));
+    return toHex(digest.digest());
+  }
+
+  private String contentHash(SonarLintInputFile inputFile) {
+    ClientInputFile clientInputFile = inputFile.getClientInputFile();
+    if (clientInputFile.isContentOnDisk()) {
+      BasicFileAttributes attributes = readAttributes(clientInputFile);
+      if (attributes != null) {
+        return cache.contentHash(clientInputFile.getPath(), attributes.size(), attributes.lastModifiedTime().toMillis(), () -> hashContent(inputFile));
+      }
+    }
+    return hashContent(inputFile);
+  }
+
+  @CheckForNull
+  private static BasicFileAttributes readAttributes(ClientInputFile clientInputFile) {
+    try {
+      return Files.readAttributes(Paths.get(clientInputFile.getPath()), BasicFileAttributes.class);
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Unable to read attributes of file '{}': {}", clientInputFile.getPath(), e.getMessage());
+      return null;
+    }
+  }
+
+  private static String hashContent(SonarLintInputFile inputFile) {
+    MessageDigest digest = newDigest();
+    try (InputStream is = inputFile.inputStream()) {
+      byte[] buffer = new byte[STREAM_BUFFER_LENGTH];
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read file: " + inputFile.getClientInputFile().getPath(), e);
+    }
+    return toHex(digest.digest());
+  }
+
+  private String analysisFingerprint() {
+    if (analysisFingerprint == null) {
+      MessageDigest digest = newDigest();
+      Map<String, ActiveRule> sortedActiveRules = new TreeMap<>();
+      activeRules.findAll().forEach(ar -> sortedActiveRules.put(ar.ruleKey().toString(), ar));
+      for (ActiveRule activeRule : sortedActiveRules.values()) {
+        update(digest, activeRule.ruleKey().toString());
+        update(digest, activeRule.severity());
+        update(digest, String.valueOf(activeRule.templateRuleKey()));
+        update(digest, new TreeMap<>(activeRule.params()).toString());
+      }
+      update(digest, new TreeMap<>(settings.getProperties()).toString());
+      Map<String, String> pluginVersions = new TreeMap<>();
+      for (PluginInfo pluginInfo : pluginRepository.getPluginInfos()) {
+        pluginVersions.put(pluginInfo.getKey(), String.valueOf(pluginInfo.getVersion()));
+      }
+      update(digest, pluginVersions.toString());
+      analysisFingerprint = toHex(digest.digest());
+    }
+    return analysisFingerprint;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static String toHex(byte[] bytes) {
+    BigInteger bi = new BigInteger(1, bytes);
+    return String.format("%0" + (bytes.length << 1) + "x", bi);
+  }
+
+  private static class PendingFile {
+    private final String fileKey;
+    private final List<DefaultClientIssue> issues = new ArrayList<>();
+
+    private PendingFile(String fileKey) {
+      this.fileKey = fileKey;
+    }
+  }
+}
@@ -52,4 +52,9 @@ class AbsolutePathPredicate extends AbstractFilePredicate {
   public int priority() {
     return USE_INDEX;
   }
+
+  @Override
+  public int estimatedSize(Index index) {
+    return ((InputPathCache) index).inputFile(Paths.get(path)) != null ? 1 : 0;
+  }
 }
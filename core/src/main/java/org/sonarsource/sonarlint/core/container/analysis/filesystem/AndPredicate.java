@@ -82,10 +82,24 @@ class AndPredicate extends AbstractFilePredicate {
     if (predicates.isEmpty()) {
       return index.inputFiles();
     }
-    // Optimization, use get on first predicate then filter with next predicates
-    Iterable<InputFile> result = predicates.get(0).get(index);
-    for (int i = 1; i < predicates.size(); i++) {
-      result = predicates.get(i).filter(result);
+    // Optimization, use get on the most selective index, or on the first predicate, then filter with the other predicates.
+    // Only the files of the chosen predicate are built.
+    OptimizedFilePredicate first = predicates.get(0);
+    int smallest = Integer.MAX_VALUE;
+    for (OptimizedFilePredicate predicate : predicates) {
+      if (predicate.priority() >= USE_INDEX) {
+        int size = predicate.estimatedSize(index);
+        if (size < smallest) {
+          first = predicate;
+          smallest = size;
+        }
+      }
+    }
+    Iterable<InputFile> result = first.get(index);
+    for (OptimizedFilePredicate predicate : predicates) {
+      if (predicate != first) {
+        result = predicate.filter(result);
+      }
     }
     return result;
   }
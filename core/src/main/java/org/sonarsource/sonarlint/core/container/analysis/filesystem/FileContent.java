@@ -0,0 +1,128 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import javax.annotation.CheckForNull;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * Content of an input file, read at most once and decoded at most once.
+ * Files declared as being on disk and at least as big as the large file threshold are memory-mapped instead of being copied on the heap.
+ */
+class FileContent {
+
+  private final ClientInputFile clientInputFile;
+  private final Charset charset;
+  private final long mmapThreshold;
+  @CheckForNull
+  private ByteBuffer bytes;
+  @CheckForNull
+  private String contents;
+  @CheckForNull
+  private BasicFileAttributes attributes;
+
+  FileContent(ClientInputFile clientInputFile, Charset charset, long mmapThreshold) {
+    this.clientInputFile = clientInputFile;
+    this.charset = charset;
+    this.mmapThreshold = mmapThreshold;
+  }
+
+  /**
+   * Size in bytes. Files on disk are not read.
+   */
+  synchronized long size() throws IOException {
+    if (bytes == null && clientInputFile.isContentOnDisk()) {
+      return Files.size(Paths.get(clientInputFile.getPath()));
+    }
+    return bytes().remaining();
+  }
+
+  /**
+   * Attributes of a file on disk. Once the content is read, they are the ones read just before it, so that they never describe
+   * a newer version of the file than the content.
+   */
+  synchronized BasicFileAttributes diskAttributes() throws IOException {
+    if (bytes != null && attributes != null) {
+      return attributes;
+    }
+    return Files.readAttributes(Paths.get(clientInputFile.getPath()), BasicFileAttributes.class);
+  }
+
+  synchronized ByteBuffer bytes() throws IOException {
+    if (bytes == null) {
+      bytes = read().asReadOnlyBuffer();
+    }
+    return bytes.duplicate();
+  }
+
+  InputStream inputStream() throws IOException {
+    return new ByteBufferInputStream(bytes());
+  }
+
+  synchronized String contents() throws IOException {
+    if (contents == null) {
+      contents = charset.decode(bytes()).toString();
+    }
+    return contents;
+  }
+
+  /**
+   * Drop the content, which is read again if needed. Buffers already given to sensors stay valid: a mapping is only unmapped
+   * when garbage collected.
+   */
+  synchronized void release() {
+    bytes = null;
+    contents = null;
+    attributes = null;
+  }
+
+  private ByteBuffer read() throws IOException {
+    if (clientInputFile.isContentOnDisk()) {
+      Path path = Paths.get(clientInputFile.getPath());
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      long size = attributes.size();
+      if (size >= mmapThreshold) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+          return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+      }
+    }
+    try (InputStream stream = clientInputFile.inputStream()) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return ByteBuffer.wrap(out.toByteArray());
+    }
+  }
+}
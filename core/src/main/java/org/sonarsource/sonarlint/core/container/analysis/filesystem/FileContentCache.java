@@ -0,0 +1,63 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * Analysis scoped cache of file contents, so that metadata computation and sensors share a single read of each file.
+ * Buffers are released once the last sensor that may read the file has been executed, or at the latest when the analysis container is stopped.
+ */
+public class FileContentCache {
+
+  private final Map<ClientInputFile, FileContent> contents = new ConcurrentHashMap<>();
+  private final long largeFileThreshold;
+
+  public FileContentCache(AbstractGlobalConfiguration globalConfiguration) {
+    this(globalConfiguration.getLargeFileThreshold());
+  }
+
+  FileContentCache(long largeFileThreshold) {
+    this.largeFileThreshold = largeFileThreshold;
+  }
+
+  FileContent get(ClientInputFile clientInputFile, Charset charset) {
+    return contents.computeIfAbsent(clientInputFile, f -> new FileContent(f, charset, largeFileThreshold));
+  }
+
+  /**
+   * Content is read again if needed after being released.
+   */
+  public void release(ClientInputFile clientInputFile) {
+    FileContent content = contents.remove(clientInputFile);
+    if (content != null) {
+      content.release();
+    }
+  }
+
+  public void stop() {
+    contents.values().forEach(FileContent::release);
+    contents.clear();
+  }
+}
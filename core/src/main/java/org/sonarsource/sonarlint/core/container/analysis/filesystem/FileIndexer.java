@@ -19,20 +19,31 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
+import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputFile.Type;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.api.sonarlint.SonarLintSide;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.container.analysis.ExclusionFilters;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCacheSession;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 import org.sonarsource.sonarlint.core.util.ProgressReport;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 /**
  * Index input files into {@link InputPathCache}.
@@ -46,15 +57,24 @@ public class FileIndexer {
   private final StandaloneAnalysisConfiguration analysisConfiguration;
   private final DefaultAnalysisResult analysisResult;
   private final ExclusionFilters exclusionFilters;
+  private final ProgressWrapper progressWrapper;
+  private final AnalysisResultCacheSession analysisResultCache;
+  private final FileIndexingPool indexingPool;
+  private final AbstractGlobalConfiguration globalConfiguration;
 
   private ProgressReport progressReport;
 
   public FileIndexer(InputFileBuilder inputFileBuilder, ExclusionFilters exclusionFilters, StandaloneAnalysisConfiguration analysisConfiguration,
-    DefaultAnalysisResult analysisResult) {
+    DefaultAnalysisResult analysisResult, ProgressWrapper progressWrapper, AnalysisResultCacheSession analysisResultCache,
+    FileIndexingPool indexingPool, AbstractGlobalConfiguration globalConfiguration) {
     this.inputFileBuilder = inputFileBuilder;
     this.exclusionFilters = exclusionFilters;
     this.analysisConfiguration = analysisConfiguration;
     this.analysisResult = analysisResult;
+    this.progressWrapper = progressWrapper;
+    this.analysisResultCache = analysisResultCache;
+    this.indexingPool = indexingPool;
+    this.globalConfiguration = globalConfiguration;
   }
 
   void index(SonarLintFileSystem fileSystem) {
@@ -63,6 +83,7 @@ public class FileIndexer {
     exclusionFilters.prepare();
 
     Progress progress = new Progress();
+    progressReport.message(progress::message);
 
     try {
       indexFiles(fileSystem, progress, analysisConfiguration.inputFiles());
@@ -76,44 +97,107 @@ public class FileIndexer {
   }
 
   private void indexFiles(SonarLintFileSystem fileSystem, Progress progress, Iterable<ClientInputFile> inputFiles) {
-    for (ClientInputFile file : inputFiles) {
-      indexFile(fileSystem, progress, file);
+    List<ClientInputFile> files = new ArrayList<>();
+    inputFiles.forEach(files::add);
+    // Input files are built concurrently, but added to the file system in the order they were given
+    List<SonarLintInputFile> inputFilesToIndex = createInputFiles(progress, files);
+    files.stream().filter(progress.skipped::contains).forEach(analysisResult::addSkippedLargeFile);
+    for (SonarLintInputFile inputFile : inputFilesToIndex) {
+      if (inputFile != null && !analysisResultCache.replay(inputFile)) {
+        indexFile(fileSystem, progress, inputFile);
+      }
     }
   }
 
-  private void indexFile(SonarLintFileSystem fileSystem, Progress progress, ClientInputFile file) {
+  private List<SonarLintInputFile> createInputFiles(Progress progress, List<ClientInputFile> files) {
+    if (indexingPool.parallelism() == 1 || files.size() <= 1) {
+      return files.stream().map(file -> createInputFile(progress, file)).collect(Collectors.toList());
+    }
+    try {
+      return indexingPool.get().submit(() -> files.parallelStream().map(file -> createInputFile(progress, file)).collect(Collectors.toList())).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CanceledException();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Unable to index files", cause);
+    }
+  }
+
+  @CheckForNull
+  private SonarLintInputFile createInputFile(Progress progress, ClientInputFile file) {
+    progressWrapper.checkCancel();
     SonarLintInputFile inputFile = inputFileBuilder.create(file);
-    if (exclusionFilters.accept(inputFile, file.isTest() ? Type.TEST : Type.MAIN)) {
-      indexFile(fileSystem, progress, inputFile);
-    } else {
+    if (!exclusionFilters.accept(inputFile, file.isTest() ? Type.TEST : Type.MAIN)) {
       LOG.debug("{} ignored because of inclusion/exclusion patterns", file.getPath());
+      return null;
+    }
+    if (isTooLarge(inputFile)) {
+      progress.skipped.add(file);
+      return null;
     }
+    progress.markAsIndexed(inputFile);
+    return inputFile;
+  }
+
+  private boolean isTooLarge(SonarLintInputFile inputFile) {
+    long maxFileSize = globalConfiguration.getMaxFileSize(inputFile.language());
+    if (maxFileSize <= 0) {
+      return false;
+    }
+    long size;
+    try {
+      size = inputFile.contentSize();
+    } catch (IOException e) {
+      // let analyzers report the failure
+      LOG.debug("Unable to get size of file '{}': {}", inputFile.absolutePath(), e.getMessage());
+      return false;
+    }
+    if (size > maxFileSize) {
+      LOG.info("'{}' skipped because its size ({} bytes) exceeds the maximum file size ({} bytes)", inputFile.absolutePath(), size, maxFileSize);
+      return true;
+    }
+    return false;
   }
 
   private void indexFile(final SonarLintFileSystem fs, final Progress status, final SonarLintInputFile inputFile) {
     fs.add(inputFile);
-    if (status.count() == 0) {
+    if (!status.encodingSet) {
       LOG.debug("Setting filesystem encoding: " + inputFile.charset());
       fs.setEncoding(inputFile.charset());
+      status.encodingSet = true;
     }
-    status.markAsIndexed(inputFile);
     SonarLintInputDir inputDir = new SonarLintInputDir(inputFile.path().getParent());
     fs.add(inputDir);
   }
 
-  private class Progress {
-    private final Set<Path> indexed = new HashSet<>();
+  private static class Progress {
+    private final Set<Path> indexed = ConcurrentHashMap.newKeySet();
+    private final Set<ClientInputFile> skipped = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger count = new AtomicInteger();
+    private volatile String lastIndexed;
+    private boolean encodingSet;
 
-    synchronized void markAsIndexed(SonarLintInputFile inputFile) {
-      if (indexed.contains(inputFile.path())) {
+    void markAsIndexed(SonarLintInputFile inputFile) {
+      if (!indexed.add(inputFile.path())) {
         throw MessageException.of("File " + inputFile + " can't be indexed twice.");
       }
-      indexed.add(inputFile.path());
-      progressReport.message(indexed.size() + " files indexed...  (last one was " + inputFile.absolutePath() + ")");
+      count.incrementAndGet();
+      lastIndexed = inputFile.absolutePath();
+    }
+
+    String message() {
+      return count() + " files indexed...  (last one was " + lastIndexed + ")";
     }
 
     int count() {
-      return indexed.size();
+      return count.get();
     }
   }
 
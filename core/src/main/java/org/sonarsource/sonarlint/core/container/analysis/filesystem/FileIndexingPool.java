@@ -0,0 +1,60 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.CheckForNull;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+
+/**
+ * Threads used to index input files in parallel, created on first use and shared by all analyses of an engine.
+ */
+public class FileIndexingPool {
+
+  private final int parallelism;
+  @CheckForNull
+  private ForkJoinPool pool;
+
+  public FileIndexingPool(AbstractGlobalConfiguration globalConfig) {
+    this(globalConfig.getFileIndexingParallelism() > 0 ? globalConfig.getFileIndexingParallelism() : Runtime.getRuntime().availableProcessors());
+  }
+
+  FileIndexingPool(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  int parallelism() {
+    return parallelism;
+  }
+
+  synchronized ForkJoinPool get() {
+    if (pool == null) {
+      pool = new ForkJoinPool(parallelism);
+    }
+    return pool;
+  }
+
+  public synchronized void stop() {
+    if (pool != null) {
+      pool.shutdownNow();
+      pool = null;
+    }
+  }
+}
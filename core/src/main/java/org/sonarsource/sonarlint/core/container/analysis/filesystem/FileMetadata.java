@@ -19,9 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
-import com.google.common.primitives.Ints;
-
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -29,19 +27,25 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.input.BOMInputStream;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.api.sonarlint.SonarLintSide;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 /**
- * Computes hash of files. Ends of Lines are ignored, so files with
- * same content but different EOL encoding have the same hash.
+ * Computes lines and line offsets of files. Offsets are counted in chars, as if the file was read with the given encoding.
+ * <p>
+ * UTF-8, US-ASCII and ISO-8859-1 files are scanned directly on blocks of bytes, 8 bytes at a time when there is neither
+ * line end nor non ASCII byte. Other encodings, and UTF-8 files from the first malformed sequence, are decoded to blocks of chars.
  */
 @SonarLintSide
 public class FileMetadata {
@@ -50,165 +54,341 @@ public class FileMetadata {
 
   private static final char LINE_FEED = '\n';
   private static final char CARRIAGE_RETURN = '\r';
+  private static final char REPLACEMENT_CHAR = '\ufffd';
 
-  public abstract static class CharHandler {
+  static final int BLOCK_SIZE = 16 * 1024;
 
-    protected void handleAll(char c) {
-    }
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+  private static final long LF_WORD = ONES * LINE_FEED;
+  private static final long CR_WORD = ONES * CARRIAGE_RETURN;
 
-    protected void handleIgnoreEoL(char c) {
-    }
+  private final ProgressWrapper progress;
 
-    protected void newLine() {
-    }
+  public FileMetadata() {
+    this(new ProgressWrapper(null));
+  }
 
-    protected void eof() {
-    }
+  public FileMetadata(ProgressWrapper progress) {
+    this.progress = progress;
   }
 
-  private static class LineCounter extends CharHandler {
-    private int lines = 1;
-    boolean alreadyLoggedInvalidCharacter = false;
-    private final String filePath;
-    private final Charset encoding;
+  /**
+   * Compute metadata of a file.
+   * Maximum performance is needed.
+   */
+  public Metadata readMetadata(File file, Charset encoding) {
+    InputStream stream = streamFile(file);
+    return readMetadata(stream, encoding, file.getAbsolutePath());
+  }
 
-    LineCounter(String filePath, Charset encoding) {
-      this.filePath = filePath;
-      this.encoding = encoding;
+  /**
+   * Compute metadata of an inputStream.
+   * Maximum performance is needed.
+   */
+  public Metadata readMetadata(InputStream stream, Charset encoding, String filePath) {
+    Scanner scanner = new Scanner(filePath, encoding);
+    try (InputStream is = stream) {
+      if (StandardCharsets.UTF_8.equals(encoding)) {
+        scanUtf8(is, scanner);
+      } else if (StandardCharsets.US_ASCII.equals(encoding) || StandardCharsets.ISO_8859_1.equals(encoding)) {
+        scanSingleByte(is, scanner, StandardCharsets.US_ASCII.equals(encoding));
+      } else {
+        scanChars(new InputStreamReader(is, encoding), scanner);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", filePath, encoding), e);
     }
+    return scanner.eof();
+  }
 
-    @Override
-    protected void handleAll(char c) {
-      if (!alreadyLoggedInvalidCharacter && c == '\ufffd') {
-        LOG.warn("Invalid character encountered in file '{}' at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.",
-          filePath,
-          lines, encoding, CoreProperties.ENCODING_PROPERTY);
-        alreadyLoggedInvalidCharacter = true;
+  /**
+   * Compute metadata of the remaining bytes of a buffer, without copying them. Meant for memory-mapped files:
+   * UTF-8, US-ASCII and ISO-8859-1 content is scanned in place, without being decoded to chars.
+   */
+  public Metadata readMetadata(ByteBuffer content, Charset encoding, String filePath) {
+    Scanner scanner = new Scanner(filePath, encoding);
+    ByteBuffer bytes = content.slice().order(ByteOrder.LITTLE_ENDIAN);
+    try {
+      if (StandardCharsets.UTF_8.equals(encoding)) {
+        scanUtf8(bytes, scanner);
+      } else if (StandardCharsets.US_ASCII.equals(encoding) || StandardCharsets.ISO_8859_1.equals(encoding)) {
+        scanSingleByte(bytes, scanner, StandardCharsets.US_ASCII.equals(encoding));
+      } else {
+        scanChars(new InputStreamReader(new ByteBufferInputStream(bytes), encoding), scanner);
       }
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", filePath, encoding), e);
     }
+    return scanner.eof();
+  }
 
-    @Override
-    protected void newLine() {
-      lines++;
+  private static InputStream streamFile(File file) {
+    try {
+      return new BOMInputStream(new FileInputStream(file),
+        ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
+    } catch (FileNotFoundException e) {
+      throw new IllegalStateException("File not found: " + file.getAbsolutePath(), e);
     }
+  }
 
-    public int lines() {
-      return lines;
+  private void scanChars(Reader reader, Scanner scanner) throws IOException {
+    char[] buffer = new char[BLOCK_SIZE];
+    int read;
+    while ((read = reader.read(buffer)) != -1) {
+      progress.checkCancel();
+      for (int i = 0; i < read; i++) {
+        scanner.next(buffer[i]);
+      }
     }
-
   }
 
-  private static class LineOffsetCounter extends CharHandler {
-    private int currentOriginalOffset = 0;
-    private List<Integer> originalLineOffsets = new ArrayList<>();
-    private int lastValidOffset = 0;
-
-    public LineOffsetCounter() {
-      originalLineOffsets.add(0);
+  private void scanSingleByte(InputStream is, Scanner scanner, boolean ascii) throws IOException {
+    byte[] buffer = new byte[BLOCK_SIZE];
+    ByteBuffer bytes = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+    int read;
+    while ((read = is.read(buffer)) != -1) {
+      progress.checkCancel();
+      scanSingleByte(bytes, 0, read, scanner, ascii);
     }
+  }
 
-    @Override
-    protected void handleAll(char c) {
-      currentOriginalOffset++;
+  private void scanSingleByte(ByteBuffer bytes, Scanner scanner, boolean ascii) {
+    int end = bytes.limit();
+    for (int start = 0; start < end; start += BLOCK_SIZE) {
+      progress.checkCancel();
+      scanSingleByte(bytes, start, Math.min(end, start + BLOCK_SIZE), scanner, ascii);
     }
+  }
 
-    @Override
-    protected void newLine() {
-      originalLineOffsets.add(currentOriginalOffset);
+  /**
+   * Each byte is a char. In US-ASCII, bytes above 0x7F are decoded to the replacement char.
+   */
+  private static void scanSingleByte(ByteBuffer bytes, int start, int end, Scanner scanner, boolean ascii) {
+    int i = start;
+    while (i < end) {
+      if (i + 8 <= end && !scanner.afterCR && isPlainAsciiWord(bytes.getLong(i))) {
+        scanner.offset += 8;
+        i += 8;
+        continue;
+      }
+      int b = bytes.get(i) & 0xFF;
+      scanner.next(ascii && b > 0x7F ? REPLACEMENT_CHAR : (char) b);
+      i++;
     }
+  }
 
-    @Override
-    protected void eof() {
-      lastValidOffset = currentOriginalOffset;
+  private void scanUtf8(InputStream is, Scanner scanner) throws IOException {
+    byte[] buffer = new byte[BLOCK_SIZE];
+    ByteBuffer bytes = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+    int end = 0;
+    boolean eof = false;
+    while (true) {
+      int read = eof ? -1 : is.read(buffer, end, buffer.length - end);
+      if (read == -1) {
+        eof = true;
+        if (end == 0) {
+          return;
+        }
+      } else {
+        end += read;
+      }
+      progress.checkCancel();
+      int i = scanUtf8(bytes, 0, end, eof, scanner);
+      if (i < 0) {
+        // let the decoder replace malformed input exactly like when reading chars
+        int malformed = -i - 1;
+        InputStream remaining = new SequenceInputStream(new ByteArrayInputStream(buffer, malformed, end - malformed), is);
+        scanChars(new InputStreamReader(remaining, StandardCharsets.UTF_8), scanner);
+        return;
+      }
+      if (eof && i == end) {
+        return;
+      }
+      System.arraycopy(buffer, i, buffer, 0, end - i);
+      end -= i;
     }
+  }
 
-    public List<Integer> getOriginalLineOffsets() {
-      return originalLineOffsets;
+  private void scanUtf8(ByteBuffer bytes, Scanner scanner) throws IOException {
+    int end = bytes.limit();
+    int i = 0;
+    while (i < end) {
+      progress.checkCancel();
+      int blockEnd = Math.min(end, i + BLOCK_SIZE);
+      i = scanUtf8(bytes, i, blockEnd, blockEnd == end, scanner);
+      if (i < 0) {
+        ByteBuffer remaining = bytes.duplicate();
+        remaining.position(-i - 1);
+        scanChars(new InputStreamReader(new ByteBufferInputStream(remaining), StandardCharsets.UTF_8), scanner);
+        return;
+      }
     }
+  }
 
-    public int getLastValidOffset() {
-      return lastValidOffset;
+  /**
+   * Scans UTF-8 bytes from start to end. Unless eof, stops before a multi-byte sequence truncated by end.
+   * @return index of the first byte not scanned, or (-index - 1) of a malformed sequence, which should be decoded to chars
+   */
+  private static int scanUtf8(ByteBuffer bytes, int start, int end, boolean eof, Scanner scanner) {
+    int i = start;
+    while (i < end) {
+      if (i + 8 <= end && !scanner.afterCR && isPlainAsciiWord(bytes.getLong(i))) {
+        scanner.offset += 8;
+        i += 8;
+        continue;
+      }
+      int b = bytes.get(i);
+      if (b >= 0) {
+        scanner.next((char) b);
+        i++;
+        continue;
+      }
+      int length = utf8SequenceLength(bytes, i, end);
+      if (length == 0 && !eof) {
+        // sequence may be complete with next bytes
+        return i;
+      }
+      if (length <= 0) {
+        return -i - 1;
+      }
+      scanner.nextCodePoint(decodeUtf8(bytes, i, length));
+      i += length;
     }
-
+    return i;
   }
 
   /**
-   * Compute hash of a file ignoring line ends differences.
-   * Maximum performance is needed.
+   * True when none of the 8 bytes is a line end or a non ASCII byte.
    */
-  public Metadata readMetadata(File file, Charset encoding) {
-    InputStream stream = streamFile(file);
-    return readMetadata(stream, encoding, file.getAbsolutePath());
+  private static boolean isPlainAsciiWord(long word) {
+    return (word & HIGH_BITS) == 0 && !hasByte(word, LF_WORD) && !hasByte(word, CR_WORD);
+  }
+
+  private static boolean hasByte(long word, long pattern) {
+    long x = word ^ pattern;
+    return ((x - ONES) & ~x & HIGH_BITS) != 0;
   }
 
   /**
-   * Compute hash of an inputStream ignoring line ends differences.
-   * Maximum performance is needed.
+   * Length of the well-formed UTF-8 sequence starting with a non ASCII byte, with the same rules as the JDK decoder.
+   * @return 0 if the sequence is truncated by the end of the buffer, -1 if it is malformed
    */
-  public Metadata readMetadata(InputStream stream, Charset encoding, String filePath) {
-    LineCounter lineCounter = new LineCounter(filePath, encoding);
-    LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
-    try (Reader reader = new BufferedReader(new InputStreamReader(stream, encoding))) {
-      read(reader, lineCounter, lineOffsetCounter);
-    } catch (IOException e) {
-      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", filePath, encoding), e);
+  private static int utf8SequenceLength(ByteBuffer bytes, int start, int end) {
+    int lead = bytes.get(start) & 0xFF;
+    int length;
+    int minSecond = 0x80;
+    int maxSecond = 0xBF;
+    if (lead >= 0xC2 && lead <= 0xDF) {
+      length = 2;
+    } else if (lead >= 0xE0 && lead <= 0xEF) {
+      length = 3;
+      if (lead == 0xE0) {
+        minSecond = 0xA0;
+      } else if (lead == 0xED) {
+        maxSecond = 0x9F;
+      }
+    } else if (lead >= 0xF0 && lead <= 0xF4) {
+      length = 4;
+      if (lead == 0xF0) {
+        minSecond = 0x90;
+      } else if (lead == 0xF4) {
+        maxSecond = 0x8F;
+      }
+    } else {
+      return -1;
     }
-    return new Metadata(lineCounter.lines(), lineOffsetCounter.getOriginalLineOffsets(), lineOffsetCounter.getLastValidOffset());
+    for (int i = 1; i < length; i++) {
+      if (start + i >= end) {
+        return 0;
+      }
+      int b = bytes.get(start + i) & 0xFF;
+      if (i == 1 ? (b < minSecond || b > maxSecond) : (b < 0x80 || b > 0xBF)) {
+        return -1;
+      }
+    }
+    return length;
   }
 
-  private static InputStream streamFile(File file) {
-    try {
-      return new BOMInputStream(new FileInputStream(file),
-        ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
-    } catch (FileNotFoundException e) {
-      throw new IllegalStateException("File not found: " + file.getAbsolutePath(), e);
+  private static int decodeUtf8(ByteBuffer bytes, int start, int length) {
+    int codePoint = bytes.get(start) & (0xFF >> (length + 1));
+    for (int i = 1; i < length; i++) {
+      codePoint = (codePoint << 6) | (bytes.get(start + i) & 0x3F);
     }
+    return codePoint;
   }
 
-  private static void read(Reader reader, CharHandler... handlers) throws IOException {
-    char c;
-    int i = reader.read();
-    boolean afterCR = false;
-    while (i != -1) {
-      c = (char) i;
+  /**
+   * Line counting, line offsets and invalid char detection in a single pass.
+   * Lines are ended by LF, CR or CRLF.
+   */
+  private static class Scanner {
+    private final String filePath;
+    private final Charset encoding;
+    private int offset = 0;
+    private int[] lineOffsets = new int[64];
+    private int lines = 1;
+    private boolean afterCR = false;
+    private boolean alreadyLoggedInvalidCharacter = false;
+
+    Scanner(String filePath, Charset encoding) {
+      this.filePath = filePath;
+      this.encoding = encoding;
+    }
+
+    void next(char c) {
       if (afterCR) {
-        for (CharHandler handler : handlers) {
-          if (c == CARRIAGE_RETURN) {
-            handler.newLine();
-            handler.handleAll(c);
-          } else if (c == LINE_FEED) {
-            handler.handleAll(c);
-            handler.newLine();
-          } else {
-            handler.newLine();
-            handler.handleIgnoreEoL(c);
-            handler.handleAll(c);
-          }
+        afterCR = false;
+        if (c == LINE_FEED) {
+          offset++;
+          newLine();
+          return;
         }
-        afterCR = c == CARRIAGE_RETURN;
+        newLine();
       } else if (c == LINE_FEED) {
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
-          handler.newLine();
-        }
-      } else if (c == CARRIAGE_RETURN) {
+        offset++;
+        newLine();
+        return;
+      }
+      if (c == CARRIAGE_RETURN) {
         afterCR = true;
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
-        }
+      } else if (c == REPLACEMENT_CHAR) {
+        logInvalidCharacter();
+      }
+      offset++;
+    }
+
+    void nextCodePoint(int codePoint) {
+      if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+        // surrogate pair, never a line end nor an invalid char
+        next('a');
+        offset++;
       } else {
-        for (CharHandler handler : handlers) {
-          handler.handleIgnoreEoL(c);
-          handler.handleAll(c);
-        }
+        next((char) codePoint);
+      }
+    }
+
+    private void newLine() {
+      if (lines == lineOffsets.length) {
+        lineOffsets = Arrays.copyOf(lineOffsets, lines << 1);
       }
-      i = reader.read();
+      lineOffsets[lines] = offset;
+      lines++;
     }
-    for (CharHandler handler : handlers) {
+
+    private void logInvalidCharacter() {
+      if (!alreadyLoggedInvalidCharacter) {
+        LOG.warn("Invalid character encountered in file '{}' at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.",
+          filePath, lines, encoding, CoreProperties.ENCODING_PROPERTY);
+        alreadyLoggedInvalidCharacter = true;
+      }
+    }
+
+    Metadata eof() {
       if (afterCR) {
-        handler.newLine();
+        newLine();
       }
-      handler.eof();
+      return new Metadata(lines, Arrays.copyOf(lineOffsets, lines), offset);
     }
   }
 
@@ -217,9 +397,9 @@ public class FileMetadata {
     final int[] originalLineOffsets;
     final int lastValidOffset;
 
-    private Metadata(int lines, List<Integer> originalLineOffsets, int lastValidOffset) {
+    Metadata(int lines, int[] originalLineOffsets, int lastValidOffset) {
       this.lines = lines;
-      this.originalLineOffsets = Ints.toArray(originalLineOffsets);
+      this.originalLineOffsets = originalLineOffsets;
       this.lastValidOffset = lastValidOffset;
     }
   }
@@ -0,0 +1,176 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata.Metadata;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
+
+/**
+ * Line metadata of files read from disk, by canonical path, persisted in the work dir when the engine stops.
+ * An entry is only used if the size, last modification time and charset of the file did not change since it was computed.
+ * Least recently used entries are evicted when the configured size is reached. Shared by all analyses of an engine.
+ */
+public class FileMetadataCache {
+
+  private static final Logger LOG = Loggers.get(FileMetadataCache.class);
+  static final String FILE_NAME = "file_metadata.pb";
+
+  private final int maxSize;
+  private final Path storageFile;
+  private Map<String, Sonarlint.FileMetadataCache.Entry> entries;
+  private boolean dirty;
+
+  public FileMetadataCache(AbstractGlobalConfiguration globalConfig) {
+    this(globalConfig.getFileMetadataCacheSize(), globalConfig.getWorkDir().resolve(FILE_NAME));
+  }
+
+  FileMetadataCache(int maxSize, Path storageFile) {
+    this.maxSize = maxSize;
+    this.storageFile = storageFile;
+  }
+
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  /**
+   * Returns the metadata computed for the same content of the file, or computes and stores it.
+   * @param attributes read before the content used by the given supplier, so that an entry is never stored for a newer version
+   * of the file than the one it was computed from
+   */
+  Metadata computeIfAbsent(Path file, BasicFileAttributes attributes, Charset charset, Supplier<Metadata> metadataSupplier) {
+    String path;
+    try {
+      path = file.toRealPath().toString();
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Unable to resolve path of file '{}': {}", file, e.getMessage());
+      return metadataSupplier.get();
+    }
+    long lastModified = attributes.lastModifiedTime().toMillis();
+
+    Sonarlint.FileMetadataCache.Entry entry = get(path);
+    if (entry != null && entry.getSize() == attributes.size() && entry.getLastModified() == lastModified && entry.getCharset().equals(charset.name())) {
+      return toMetadata(entry);
+    }
+    Metadata metadata = metadataSupplier.get();
+    put(path, toEntry(path, attributes.size(), lastModified, charset, metadata));
+    return metadata;
+  }
+
+  private synchronized Sonarlint.FileMetadataCache.Entry get(String path) {
+    return entries().get(path);
+  }
+
+  private synchronized void put(String path, Sonarlint.FileMetadataCache.Entry entry) {
+    entries().put(path, entry);
+    dirty = true;
+  }
+
+  public synchronized void stop() {
+    if (!dirty) {
+      return;
+    }
+    Sonarlint.FileMetadataCache.Builder builder = Sonarlint.FileMetadataCache.newBuilder();
+    builder.addAllEntry(entries.values());
+    try {
+      Files.createDirectories(storageFile.getParent());
+      Path tmpFile = Files.createTempFile(storageFile.getParent(), FILE_NAME, ".tmp");
+      try {
+        ProtobufUtil.writeToFile(builder.build(), tmpFile);
+        Files.move(tmpFile, storageFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+      dirty = false;
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Unable to write file metadata cache " + storageFile, e);
+    }
+  }
+
+  synchronized int size() {
+    return entries().size();
+  }
+
+  private Map<String, Sonarlint.FileMetadataCache.Entry> entries() {
+    if (entries == null) {
+      entries = new LinkedHashMap<String, Sonarlint.FileMetadataCache.Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Sonarlint.FileMetadataCache.Entry> eldest) {
+          return size() > maxSize;
+        }
+      };
+      load();
+    }
+    return entries;
+  }
+
+  private void load() {
+    if (!Files.isRegularFile(storageFile)) {
+      return;
+    }
+    try {
+      Sonarlint.FileMetadataCache proto = ProtobufUtil.readFile(storageFile, Sonarlint.FileMetadataCache.parser());
+      for (Sonarlint.FileMetadataCache.Entry entry : proto.getEntryList()) {
+        entries.put(entry.getPath(), entry);
+      }
+    } catch (RuntimeException e) {
+      LOG.debug("Unable to read file metadata cache " + storageFile, e);
+    }
+  }
+
+  private static Sonarlint.FileMetadataCache.Entry toEntry(String path, long size, long lastModified, Charset charset, Metadata metadata) {
+    Sonarlint.FileMetadataCache.Entry.Builder builder = Sonarlint.FileMetadataCache.Entry.newBuilder()
+      .setPath(path)
+      .setSize(size)
+      .setLastModified(lastModified)
+      .setCharset(charset.name())
+      .setLines(metadata.lines)
+      .setLastValidOffset(metadata.lastValidOffset);
+    int previous = 0;
+    for (int offset : metadata.originalLineOffsets) {
+      builder.addLineOffsetDelta(offset - previous);
+      previous = offset;
+    }
+    return builder.build();
+  }
+
+  private static Metadata toMetadata(Sonarlint.FileMetadataCache.Entry entry) {
+    int[] offsets = new int[entry.getLineOffsetDeltaCount()];
+    int previous = 0;
+    for (int i = 0; i < offsets.length; i++) {
+      previous += entry.getLineOffsetDelta(i);
+      offsets[i] = previous;
+    }
+    return new Metadata(entry.getLines(), offsets, entry.getLastValidOffset());
+  }
+}
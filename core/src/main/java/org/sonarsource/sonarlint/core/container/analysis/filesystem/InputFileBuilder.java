@@ -20,23 +20,30 @@
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import javax.annotation.CheckForNull;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.InputFile.Type;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata.Metadata;
 
 public class InputFileBuilder {
   private static final Logger LOG = LoggerFactory.getLogger(InputFileBuilder.class);
   private final LanguageDetection langDetection;
   private final FileMetadata fileMetadata;
+  private final FileContentCache fileContentCache;
+  private final FileMetadataCache fileMetadataCache;
 
-  public InputFileBuilder(LanguageDetection langDetection, FileMetadata fileMetadata) {
+  public InputFileBuilder(LanguageDetection langDetection, FileMetadata fileMetadata, FileContentCache fileContentCache, FileMetadataCache fileMetadataCache) {
     this.langDetection = langDetection;
     this.fileMetadata = fileMetadata;
+    this.fileContentCache = fileContentCache;
+    this.fileMetadataCache = fileMetadataCache;
   }
 
   LanguageDetection langDetection() {
@@ -45,7 +52,9 @@ public class InputFileBuilder {
 
   @CheckForNull
   SonarLintInputFile create(ClientInputFile inputFile) {
-    SonarLintInputFile defaultInputFile = new SonarLintInputFile(inputFile);
+    Charset charset = inputFile.getCharset() != null ? inputFile.getCharset() : Charset.defaultCharset();
+    FileContent content = fileContentCache.get(inputFile, charset);
+    SonarLintInputFile defaultInputFile = new SonarLintInputFile(inputFile, content, () -> computeMetadata(inputFile, content, charset));
     defaultInputFile.setType(inputFile.isTest() ? Type.TEST : Type.MAIN);
     if (inputFile.language() != null) {
       LOG.debug("Language of file '{}' is set to '{}'", inputFile.getPath(), inputFile.language());
@@ -53,16 +62,35 @@ public class InputFileBuilder {
     } else {
       defaultInputFile.setLanguage(langDetection.language(defaultInputFile));
     }
+    return defaultInputFile;
+  }
+
+  /**
+   * Only called when a sensor needs line metadata, so that files no sensor reads are never scanned.
+   */
+  private Metadata computeMetadata(ClientInputFile inputFile, FileContent content, Charset charset) {
+    if (inputFile.isContentOnDisk() && fileMetadataCache.isEnabled()) {
+      BasicFileAttributes attributes;
+      try {
+        attributes = content.diskAttributes();
+      } catch (IOException e) {
+        LOG.debug("Unable to read attributes of file '{}': {}", inputFile.getPath(), e.getMessage());
+        return readMetadata(inputFile, content, charset);
+      }
+      return fileMetadataCache.computeIfAbsent(Paths.get(inputFile.getPath()), attributes, charset, () -> readMetadata(inputFile, content, charset));
+    }
+    return readMetadata(inputFile, content, charset);
+  }
 
-    Charset charset = inputFile.getCharset();
-    InputStream stream;
+  private Metadata readMetadata(ClientInputFile inputFile, FileContent content, Charset charset) {
+    ByteBuffer bytes;
     try {
-      stream = inputFile.inputStream();
+      bytes = content.bytes();
     } catch (IOException e) {
       throw new IllegalStateException("Failed to open a stream on file: " + inputFile.getPath(), e);
     }
-    defaultInputFile.init(fileMetadata.readMetadata(stream, charset != null ? charset : Charset.defaultCharset(), inputFile.getPath()));
-    return defaultInputFile;
+    // the content is entirely in memory, or memory-mapped for large files: scan it in place
+    return fileMetadata.readMetadata(bytes, charset, inputFile.getPath());
   }
 
 }
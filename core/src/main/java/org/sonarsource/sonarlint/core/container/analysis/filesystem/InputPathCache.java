@@ -20,7 +20,15 @@
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -28,20 +36,26 @@ import java.util.TreeSet;
 import org.sonar.api.batch.fs.InputDir;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
-import org.sonar.api.batch.fs.internal.FileExtensionPredicate;
-import org.sonar.api.batch.fs.internal.FilenamePredicate;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.SetMultimap;
-
+/**
+ * Files and directories of an analysis, with indexes used by file predicates.
+ * Indexes are lists in the order files were added, and paths share their segments, to keep the memory used by large analyses low.
+ * A file added with the path of a previous one replaces it.
+ */
 @SonarLintSide
 public class InputPathCache extends DefaultFileSystem.Cache {
 
-  private final Map<Path, InputFile> inputFileCache = new LinkedHashMap<>();
-  private final Map<Path, InputDir> inputDirCache = new LinkedHashMap<>();
-  private final SetMultimap<String, InputFile> filesByNameCache = LinkedHashMultimap.create();
-  private final SetMultimap<String, InputFile> filesByExtensionCache = LinkedHashMultimap.create();
+  private final PathTrie<InputFile> inputFileCache = new PathTrie<>();
+  private final PathTrie<InputDir> inputDirCache = new PathTrie<>();
+  // file names are mostly unique and rarely queried: built on first use
+  private Map<String, List<InputFile>> filesByNameCache;
+  private final Map<String, List<InputFile>> filesByExtensionCache = new HashMap<>();
+  private final Map<String, List<InputFile>> filesByLanguageCache = new HashMap<>();
+  private final Map<InputFile.Type, List<InputFile>> filesByTypeCache = new EnumMap<>(InputFile.Type.class);
+  private final Map<InputFile.Status, List<InputFile>> filesByStatusCache = new EnumMap<>(InputFile.Status.class);
+  // order of files that are not SonarLintInputFile
+  private final Map<InputFile, Integer> otherFilesIndexOrder = new IdentityHashMap<>();
   private final SortedSet<String> languages = new TreeSet<>();
 
   @Override
@@ -55,12 +69,74 @@ public class InputPathCache extends DefaultFileSystem.Cache {
 
   @Override
   public void doAdd(InputFile inputFile) {
+    int order = inputFileCache.values().size();
+    InputFile previous = inputFileCache.put(inputFile.path(), inputFile);
+    if (previous != null) {
+      // the file replaces the previous one at its position
+      order = indexOrder(previous);
+      unindex(previous);
+    }
+    if (inputFile instanceof SonarLintInputFile) {
+      ((SonarLintInputFile) inputFile).setIndexOrder(order);
+    } else {
+      otherFilesIndexOrder.put(inputFile, order);
+    }
     if (inputFile.language() != null) {
       languages.add(inputFile.language());
+      index(filesByLanguageCache, inputFile.language(), inputFile);
+    }
+    if (inputFile.type() != null) {
+      index(filesByTypeCache, inputFile.type(), inputFile);
+    }
+    if (inputFile.status() != null) {
+      index(filesByStatusCache, inputFile.status(), inputFile);
+    }
+    index(filesByExtensionCache, extension(filename(inputFile)), inputFile);
+    filesByNameCache = null;
+  }
+
+  private void unindex(InputFile inputFile) {
+    otherFilesIndexOrder.remove(inputFile);
+    unindex(filesByLanguageCache, inputFile);
+    unindex(filesByTypeCache, inputFile);
+    unindex(filesByStatusCache, inputFile);
+    unindex(filesByExtensionCache, inputFile);
+  }
+
+  /**
+   * Same as {@link org.sonar.api.batch.fs.internal.FilenamePredicate#getFilename(InputFile)}, without converting the path to a {@link java.io.File},
+   * which makes the path keep a copy of its string representation.
+   */
+  private static String filename(InputFile inputFile) {
+    Path fileName = inputFile.path().getFileName();
+    return fileName != null ? fileName.toString() : "";
+  }
+
+  /**
+   * Same as {@link org.sonar.api.batch.fs.internal.FileExtensionPredicate#getExtension(InputFile)}.
+   */
+  private static String extension(String filename) {
+    int index = filename.lastIndexOf('.');
+    return index < 0 ? "" : filename.substring(index + 1).toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Files are usually added in index order, so they are appended. A file replacing a previous one is inserted at its position.
+   */
+  private <K> void index(Map<K, List<InputFile>> index, K key, InputFile inputFile) {
+    List<InputFile> files = index.computeIfAbsent(key, k -> new ArrayList<>());
+    int position = files.size();
+    int order = indexOrder(inputFile);
+    while (position > 0 && indexOrder(files.get(position - 1)) > order) {
+      position--;
+    }
+    files.add(position, inputFile);
+  }
+
+  private static <K> void unindex(Map<K, List<InputFile>> index, InputFile inputFile) {
+    for (List<InputFile> files : index.values()) {
+      files.removeIf(f -> f == inputFile);
     }
-    inputFileCache.put(inputFile.path(), inputFile);
-    filesByNameCache.put(FilenamePredicate.getFilename(inputFile), inputFile);
-    filesByExtensionCache.put(FileExtensionPredicate.getExtension(inputFile), inputFile);
   }
 
   @Override
@@ -87,13 +163,48 @@ public class InputPathCache extends DefaultFileSystem.Cache {
   }
 
   @Override
-  public Iterable<InputFile> getFilesByName(String filename) {
-    return filesByNameCache.get(filename);
+  public synchronized Iterable<InputFile> getFilesByName(String filename) {
+    if (filesByNameCache == null) {
+      filesByNameCache = new HashMap<>();
+      inputFiles().forEach(f -> index(filesByNameCache, filename(f), f));
+    }
+    return indexed(filesByNameCache, filename);
   }
 
   @Override
   public Iterable<InputFile> getFilesByExtension(String extension) {
-    return filesByExtensionCache.get(extension);
+    return indexed(filesByExtensionCache, extension);
+  }
+
+  public Collection<InputFile> getFilesByLanguage(String language) {
+    return indexed(filesByLanguageCache, language);
+  }
+
+  public Collection<InputFile> getFilesByType(InputFile.Type type) {
+    return indexed(filesByTypeCache, type);
+  }
+
+  public Collection<InputFile> getFilesByStatus(InputFile.Status status) {
+    return indexed(filesByStatusCache, status);
+  }
+
+  private static <K> Collection<InputFile> indexed(Map<K, List<InputFile>> index, K key) {
+    List<InputFile> files = index.get(key);
+    return files != null ? Collections.unmodifiableList(files) : Collections.emptyList();
+  }
+
+  /**
+   * Order in which files were added, which is the order of {@link #inputFiles()} and of every index.
+   */
+  Comparator<InputFile> indexOrder() {
+    return Comparator.comparingInt(this::indexOrder);
+  }
+
+  private int indexOrder(InputFile inputFile) {
+    if (inputFile instanceof SonarLintInputFile) {
+      return ((SonarLintInputFile) inputFile).indexOrder();
+    }
+    return otherFilesIndexOrder.get(inputFile);
   }
 
   @Override
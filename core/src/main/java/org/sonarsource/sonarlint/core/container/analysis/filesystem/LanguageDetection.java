@@ -20,12 +20,18 @@
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.text.MessageFormat;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -48,17 +54,31 @@ public class LanguageDetection {
    */
   private final Map<String, PathPattern[]> patternsByLanguage = new LinkedHashMap<>();
   private final List<String> languagesToConsider = new ArrayList<>();
+  /**
+   * Lower-case extension -> languages, for the suffixes that can be matched without evaluating a pattern
+   */
+  private final Map<String, Set<String>> languagesByExtension = new HashMap<>();
+  /**
+   * Patterns of suffixes containing wildcards or separators, that still need to be evaluated
+   */
+  private final Map<String, List<PathPattern>> genericPatternsByLanguage = new HashMap<>();
 
   public LanguageDetection(LanguagesRepository languages) {
     for (Language language : languages.all()) {
-      String[] patterns = language.fileSuffixes().toArray(new String[language.fileSuffixes().size()]);
-      for (int i = 0; i < patterns.length; i++) {
-        String suffix = patterns[i];
-        String extension = sanitizeExtension(suffix);
-        patterns[i] = new StringBuilder().append("file:**/*.").append(extension).toString();
+      String[] extensions = language.fileSuffixes().stream().map(LanguageDetection::sanitizeExtension).toArray(String[]::new);
+      String[] patterns = new String[extensions.length];
+      for (int i = 0; i < extensions.length; i++) {
+        patterns[i] = new StringBuilder().append("file:**/*.").append(extensions[i]).toString();
       }
       PathPattern[] defaultLanguagePatterns = PathPattern.create(patterns);
       patternsByLanguage.put(language.key(), defaultLanguagePatterns);
+      for (int i = 0; i < extensions.length; i++) {
+        if (isPlainExtension(extensions[i])) {
+          languagesByExtension.computeIfAbsent(extensions[i], e -> new LinkedHashSet<>()).add(language.key());
+        } else {
+          genericPatternsByLanguage.computeIfAbsent(language.key(), l -> new ArrayList<>()).add(defaultLanguagePatterns[i]);
+        }
+      }
       if (LOG.isDebugEnabled()) {
         LOG.debug("Declared extensions of language {} were converted to {}", language, getDetails(language.key()));
       }
@@ -73,9 +93,10 @@ public class LanguageDetection {
 
   @CheckForNull
   String language(InputFile inputFile) {
+    Set<String> languagesMatchingExtension = languagesByExtension(inputFile.path());
     String detectedLanguage = null;
     for (String languageKey : languagesToConsider) {
-      if (isCandidateForLanguage(inputFile, languageKey)) {
+      if (languagesMatchingExtension.contains(languageKey) || isCandidateForLanguage(inputFile, languageKey)) {
         if (detectedLanguage == null) {
           detectedLanguage = languageKey;
         } else {
@@ -92,8 +113,37 @@ public class LanguageDetection {
     return null;
   }
 
+  /**
+   * A pattern file:**&#47;*.ext matches any file whose name ends with .ext, so every extension of the file name
+   * (b.c and c for a.b.c) is looked up. Like {@link PathPattern}, only the last extension is case insensitive.
+   */
+  private Set<String> languagesByExtension(@Nullable Path path) {
+    Path fileName = path != null ? path.getFileName() : null;
+    if (fileName == null || languagesByExtension.isEmpty()) {
+      return Collections.emptySet();
+    }
+    String name = fileName.toString();
+    int lastDot = name.lastIndexOf('.');
+    if (lastDot >= 0) {
+      name = name.substring(0, lastDot + 1) + StringUtils.lowerCase(name.substring(lastDot + 1));
+    }
+    Set<String> result = null;
+    int dot = name.indexOf('.');
+    while (dot >= 0) {
+      Set<String> languages = languagesByExtension.get(name.substring(dot + 1));
+      if (languages != null) {
+        if (result == null) {
+          result = new LinkedHashSet<>();
+        }
+        result.addAll(languages);
+      }
+      dot = name.indexOf('.', dot + 1);
+    }
+    return result != null ? result : Collections.emptySet();
+  }
+
   private boolean isCandidateForLanguage(InputFile inputFile, String languageKey) {
-    PathPattern[] patterns = patternsByLanguage.get(languageKey);
+    List<PathPattern> patterns = genericPatternsByLanguage.get(languageKey);
     if (patterns != null) {
       for (PathPattern pathPattern : patterns) {
         if (pathPattern.match(inputFile, false)) {
@@ -108,6 +158,10 @@ public class LanguageDetection {
     return detectedLanguage + ": " + Joiner.on(",").join(patternsByLanguage.get(detectedLanguage));
   }
 
+  private static boolean isPlainExtension(String extension) {
+    return StringUtils.containsNone(extension, "*?/\\");
+  }
+
   static String sanitizeExtension(String suffix) {
     return StringUtils.lowerCase(StringUtils.removeStart(suffix, "."));
   }
@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
+import org.sonar.api.batch.fs.FileSystem.Index;
 import org.sonar.api.batch.fs.InputFile;
 
 /**
@@ -35,4 +36,19 @@ class LanguagePredicate extends AbstractFilePredicate {
   public boolean apply(InputFile f) {
     return language.equals(f.language());
   }
+
+  @Override
+  public Iterable<InputFile> get(Index index) {
+    return ((InputPathCache) index).getFilesByLanguage(language);
+  }
+
+  @Override
+  public int priority() {
+    return USE_INDEX;
+  }
+
+  @Override
+  public int estimatedSize(Index index) {
+    return ((InputPathCache) index).getFilesByLanguage(language).size();
+  }
 }
@@ -46,4 +46,12 @@ public interface OptimizedFilePredicate extends FilePredicate, Comparable<Optimi
    * {@link RelativePathPredicate} and AbsolutePathPredicate have a high priority since they are using cache index.
    */
   int priority();
+
+  /**
+   * For optimization. Number of files returned by {@link #get(FileSystem.Index)} when it can be known without building them,
+   * used to choose the most selective index. {@link Integer#MAX_VALUE} when unknown.
+   */
+  default int estimatedSize(FileSystem.Index index) {
+    return Integer.MAX_VALUE;
+  }
 }
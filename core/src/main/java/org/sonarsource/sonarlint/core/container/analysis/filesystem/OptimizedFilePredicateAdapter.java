@@ -19,7 +19,9 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
+import java.util.Collection;
 import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FileSystem.Index;
 import org.sonar.api.batch.fs.InputFile;
 
 class OptimizedFilePredicateAdapter extends AbstractFilePredicate {
@@ -35,6 +37,39 @@ class OptimizedFilePredicateAdapter extends AbstractFilePredicate {
     return unoptimizedPredicate.apply(inputFile);
   }
 
+  /**
+   * Predicates of the plugin API, like the ones on file name and extension, may also use an index
+   */
+  @Override
+  public Iterable<InputFile> get(Index index) {
+    if (unoptimizedPredicate instanceof org.sonar.api.batch.fs.internal.OptimizedFilePredicate) {
+      return ((org.sonar.api.batch.fs.internal.OptimizedFilePredicate) unoptimizedPredicate).get(index);
+    }
+    return super.get(index);
+  }
+
+  @Override
+  public int priority() {
+    if (unoptimizedPredicate instanceof org.sonar.api.batch.fs.internal.OptimizedFilePredicate) {
+      return ((org.sonar.api.batch.fs.internal.OptimizedFilePredicate) unoptimizedPredicate).priority();
+    }
+    return super.priority();
+  }
+
+  /**
+   * Index lookups of the plugin API return their files directly
+   */
+  @Override
+  public int estimatedSize(Index index) {
+    if (priority() >= USE_INDEX) {
+      Iterable<InputFile> files = get(index);
+      if (files instanceof Collection) {
+        return ((Collection<InputFile>) files).size();
+      }
+    }
+    return super.estimatedSize(index);
+  }
+
   public static OptimizedFilePredicate create(FilePredicate predicate) {
     if (predicate instanceof OptimizedFilePredicate) {
       return (OptimizedFilePredicate) predicate;
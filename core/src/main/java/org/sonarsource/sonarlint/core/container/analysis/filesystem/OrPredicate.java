@@ -22,7 +22,11 @@ package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FileSystem.Index;
 import org.sonar.api.batch.fs.InputFile;
 
 /**
@@ -64,6 +68,56 @@ class OrPredicate extends AbstractFilePredicate {
     return false;
   }
 
+  /**
+   * When all predicates use an index, the union of their files is sorted back in index order.
+   */
+  @Override
+  public Iterable<InputFile> get(Index index) {
+    if (!usesIndex()) {
+      return super.get(index);
+    }
+    Set<InputFile> union = new LinkedHashSet<>();
+    for (FilePredicate predicate : predicates) {
+      for (InputFile inputFile : ((OptimizedFilePredicate) predicate).get(index)) {
+        union.add(inputFile);
+      }
+    }
+    List<InputFile> result = new ArrayList<>(union);
+    if (predicates.size() > 1) {
+      result.sort(((InputPathCache) index).indexOrder());
+    }
+    return result;
+  }
+
+  /**
+   * At most the sum of the sizes of the operands
+   */
+  @Override
+  public int estimatedSize(Index index) {
+    if (!usesIndex()) {
+      return super.estimatedSize(index);
+    }
+    long sum = 0;
+    for (FilePredicate predicate : predicates) {
+      sum += ((OptimizedFilePredicate) predicate).estimatedSize(index);
+    }
+    return (int) Math.min(sum, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int priority() {
+    return usesIndex() ? USE_INDEX : DEFAULT_PRIORITY;
+  }
+
+  private boolean usesIndex() {
+    for (FilePredicate predicate : predicates) {
+      if (!(predicate instanceof OptimizedFilePredicate) || ((OptimizedFilePredicate) predicate).priority() < USE_INDEX) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @VisibleForTesting
   Collection<FilePredicate> predicates() {
     return predicates;
@@ -0,0 +1,110 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+
+/**
+ * Values indexed by path. Paths are stored as a tree of segments, so that a directory is stored only once whatever the number of files
+ * it contains, and equal segments of different directories are the same String instance.
+ * Values are iterated in the order they were added.
+ */
+class PathTrie<V> {
+
+  private final Node<V> root = new Node<>();
+  private final Map<String, String> segments = new HashMap<>();
+  private final List<V> values = new ArrayList<>();
+
+  /**
+   * Replaces the value already associated to the path, if any, keeping its position in {@link #values()}.
+   * @return the value previously associated to the path
+   */
+  @CheckForNull
+  V put(Path path, V value) {
+    Node<V> node = root.child(intern(rootSegment(path)));
+    int count = path.getNameCount();
+    for (int i = 0; i < count; i++) {
+      String segment = path.getName(i).toString();
+      // the last segment is usually a file name, not worth interning
+      node = node.child(i < count - 1 ? intern(segment) : segment);
+    }
+    V previous = node.value;
+    node.value = value;
+    if (previous != null) {
+      values.set(node.position, value);
+    } else {
+      node.position = values.size();
+      values.add(value);
+    }
+    return previous;
+  }
+
+  @CheckForNull
+  V get(Path path) {
+    Node<V> node = root.get(rootSegment(path));
+    int count = path.getNameCount();
+    for (int i = 0; node != null && i < count; i++) {
+      node = node.get(path.getName(i).toString());
+    }
+    return node != null ? node.value : null;
+  }
+
+  List<V> values() {
+    return Collections.unmodifiableList(values);
+  }
+
+  private String intern(String segment) {
+    return segments.computeIfAbsent(segment, s -> s);
+  }
+
+  /**
+   * Relative paths don't share segments with absolute ones.
+   */
+  private static String rootSegment(Path path) {
+    Path pathRoot = path.getRoot();
+    return pathRoot != null ? pathRoot.toString() : "";
+  }
+
+  private static class Node<V> {
+    @CheckForNull
+    private Map<String, Node<V>> children;
+    @CheckForNull
+    private V value;
+    private int position;
+
+    @CheckForNull
+    Node<V> get(String segment) {
+      return children != null ? children.get(segment) : null;
+    }
+
+    Node<V> child(String segment) {
+      if (children == null) {
+        children = new HashMap<>(4);
+      }
+      return children.computeIfAbsent(segment, s -> new Node<>());
+    }
+  }
+}
@@ -19,9 +19,6 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
-import java.util.Arrays;
-import java.util.Collections;
-import org.sonar.api.batch.fs.FileSystem.Index;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.utils.PathUtils;
 
@@ -45,15 +42,4 @@ public class RelativePathPredicate extends AbstractFilePredicate {
     return path.equals(f.relativePath());
   }
 
-  @Override
-  public Iterable<InputFile> get(Index index) {
-    InputFile f = index.inputFile(this.path);
-    return f != null ? Arrays.asList(f) : Collections.<InputFile>emptyList();
-  }
-
-  @Override
-  public int priority() {
-    return USE_INDEX;
-  }
-
 }
@@ -20,8 +20,10 @@
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.io.File;
+import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.InputDir;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 
@@ -48,6 +50,15 @@ public class SonarLintFileSystem extends DefaultFileSystem {
     return moduleInputFileCache.inputDir(dir.toPath());
   }
 
+  /**
+   * Evaluated with SonarLint predicates, so that queries are served by the indexes of {@link InputPathCache}
+   */
+  @Override
+  public Iterable<InputFile> inputFiles(FilePredicate predicate) {
+    doPreloadFiles();
+    return OptimizedFilePredicateAdapter.create(predicate).get(moduleInputFileCache);
+  }
+
   @Override
   public FilePredicates predicates() {
     return filePredicates;
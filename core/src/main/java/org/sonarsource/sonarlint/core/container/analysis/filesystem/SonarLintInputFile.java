@@ -25,8 +25,10 @@ import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.function.Supplier;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 import org.sonar.api.batch.fs.internal.DefaultIndexedFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
@@ -37,12 +39,31 @@ import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata
 public class SonarLintInputFile extends DefaultInputFile {
 
   private final ClientInputFile clientInputFile;
+  private final FileContent content;
+  private final Path path;
+  private String absolutePath;
   private String language;
   private Type type;
+  private int indexOrder = -1;
 
   public SonarLintInputFile(ClientInputFile clientInputFile) {
-    super(new DefaultIndexedFile("", Paths.get(clientInputFile.getPath()), clientInputFile.getPath()), null);
+    this(clientInputFile, null, null);
+  }
+
+  /**
+   * @param metadataSupplier called the first time line metadata is needed, unless {@link #init(Metadata)} was called before
+   */
+  SonarLintInputFile(ClientInputFile clientInputFile, @Nullable FileContent content, @Nullable Supplier<Metadata> metadataSupplier) {
+    this(clientInputFile, Paths.get(clientInputFile.getPath()), content, metadataSupplier);
+  }
+
+  private SonarLintInputFile(ClientInputFile clientInputFile, Path path, @Nullable FileContent content, @Nullable Supplier<Metadata> metadataSupplier) {
+    super(new DefaultIndexedFile("", path, clientInputFile.getPath()),
+      metadataSupplier != null ? f -> ((SonarLintInputFile) f).init(metadataSupplier.get()) : null);
     this.clientInputFile = clientInputFile;
+    this.path = path;
+    // content not shared with a cache is never released, so it must not be memory-mapped
+    this.content = content != null ? content : new FileContent(clientInputFile, charset(), Long.MAX_VALUE);
   }
 
   public ClientInputFile getClientInputFile() {
@@ -75,27 +96,51 @@ public class SonarLintInputFile extends DefaultInputFile {
 
   @Override
   public String absolutePath() {
-    return PathUtils.sanitize(path().toString());
+    // racy single-check: at worst computed several times, to the same value
+    String result = absolutePath;
+    if (result == null) {
+      result = PathUtils.sanitize(path.toString());
+      absolutePath = result;
+    }
+    return result;
   }
 
   @Override
   public File file() {
-    return path().toFile();
+    return path.toFile();
   }
 
   @Override
   public Path path() {
-    return Paths.get(clientInputFile.getPath());
+    return path;
+  }
+
+  /**
+   * Position in the order files were added to {@link InputPathCache}, -1 if not added.
+   */
+  int indexOrder() {
+    return indexOrder;
+  }
+
+  void setIndexOrder(int indexOrder) {
+    this.indexOrder = indexOrder;
   }
 
   @Override
   public InputStream inputStream() throws IOException {
-    return clientInputFile.inputStream();
+    return content.inputStream();
   }
 
   @Override
   public String contents() throws IOException {
-    return clientInputFile.contents();
+    return content.contents();
+  }
+
+  /**
+   * Size of the content in bytes, without reading files located on disk.
+   */
+  long contentSize() throws IOException {
+    return content.size();
   }
 
   @Override
@@ -126,6 +171,14 @@ public class SonarLintInputFile extends DefaultInputFile {
     return charset != null ? charset : Charset.defaultCharset();
   }
 
+  /**
+   * Synchronized so that metadata is computed only once when sensors access the file concurrently.
+   */
+  @Override
+  public synchronized void checkMetadata() {
+    super.checkMetadata();
+  }
+
   public SonarLintInputFile init(Metadata metadata) {
     this.setMetadata(new org.sonar.api.batch.fs.internal.Metadata(
       metadata.lines, metadata.lines, "", metadata.originalLineOffsets, metadata.lastValidOffset));
@@ -144,17 +197,17 @@ public class SonarLintInputFile extends DefaultInputFile {
     }
 
     SonarLintInputFile that = (SonarLintInputFile) o;
-    return path().equals(that.path());
+    return path.equals(that.path);
   }
 
   @Override
   public int hashCode() {
-    return path().hashCode();
+    return path.hashCode();
   }
 
   @Override
   public String toString() {
-    return "[path=" + path() + "]";
+    return "[path=" + path + "]";
   }
 
   @Override
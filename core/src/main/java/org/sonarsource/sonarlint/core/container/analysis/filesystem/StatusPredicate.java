@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
+import org.sonar.api.batch.fs.FileSystem.Index;
 import org.sonar.api.batch.fs.InputFile;
 
 /**
@@ -37,4 +38,18 @@ class StatusPredicate extends AbstractFilePredicate {
     return status == f.status();
   }
 
+  @Override
+  public Iterable<InputFile> get(Index index) {
+    return ((InputPathCache) index).getFilesByStatus(status);
+  }
+
+  @Override
+  public int priority() {
+    return USE_INDEX;
+  }
+
+  @Override
+  public int estimatedSize(Index index) {
+    return ((InputPathCache) index).getFilesByStatus(status).size();
+  }
 }
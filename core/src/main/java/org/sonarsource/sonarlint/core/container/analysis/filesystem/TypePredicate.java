@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
+import org.sonar.api.batch.fs.FileSystem.Index;
 import org.sonar.api.batch.fs.InputFile;
 
 /**
@@ -37,4 +38,18 @@ class TypePredicate extends AbstractFilePredicate {
     return type == f.type();
   }
 
+  @Override
+  public Iterable<InputFile> get(Index index) {
+    return ((InputPathCache) index).getFilesByType(type);
+  }
+
+  @Override
+  public int priority() {
+    return USE_INDEX;
+  }
+
+  @Override
+  public int estimatedSize(Index index) {
+    return ((InputPathCache) index).getFilesByType(type).size();
+  }
 }
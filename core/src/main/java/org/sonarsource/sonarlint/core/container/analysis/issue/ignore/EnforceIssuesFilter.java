@@ -29,30 +29,33 @@ import org.sonar.api.scan.issue.filter.IssueFilterChain;
 import org.sonarsource.sonarlint.core.analyzer.issue.DefaultFilterableIssue;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueInclusionPatternInitializer;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssuePattern;
+import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssuePatternMatcher;
 
 public class EnforceIssuesFilter implements IssueFilter {
 
-  private IssueInclusionPatternInitializer patternInitializer;
+  private final IssuePatternMatcher matcher;
 
   private static final Logger LOG = LoggerFactory.getLogger(EnforceIssuesFilter.class);
 
   public EnforceIssuesFilter(IssueInclusionPatternInitializer patternInitializer) {
-    this.patternInitializer = patternInitializer;
+    this.matcher = new IssuePatternMatcher(patternInitializer.getMulticriteriaPatterns(), false);
+  }
+
+  public boolean hasPatterns() {
+    return !matcher.isEmpty();
   }
 
   @Override
   public boolean accept(FilterableIssue issue, IssueFilterChain chain) {
     InputComponent inputComponent = ((DefaultFilterableIssue) issue).getInputComponent();
 
-    for (IssuePattern pattern : patternInitializer.getMulticriteriaPatterns()) {
-      if (pattern.getRulePattern().match(issue.ruleKey().toString())
-        && inputComponent.isFile()
-        && !pattern.getPathPattern().match((InputFile) inputComponent)) {
+    if (inputComponent.isFile()) {
+      IssuePattern pattern = matcher.match((InputFile) inputComponent, issue.ruleKey().toString());
+      if (pattern != null) {
         LOG.debug("Issue {} ignored by enforce pattern {}", issue, pattern);
         return false;
       }
     }
-
     return chain.accept(issue);
   }
 }
@@ -29,26 +29,29 @@ import org.sonar.api.scan.issue.filter.IssueFilterChain;
 import org.sonarsource.sonarlint.core.analyzer.issue.DefaultFilterableIssue;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssuePattern;
+import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssuePatternMatcher;
 
 public class IgnoreIssuesFilter implements IssueFilter {
 
   private static final Logger LOG = LoggerFactory.getLogger(IgnoreIssuesFilter.class);
 
-  private final IssueExclusionPatternInitializer patternInitializer;
+  private final IssuePatternMatcher matcher;
 
   public IgnoreIssuesFilter(IssueExclusionPatternInitializer patternInitializer) {
-    this.patternInitializer = patternInitializer;
+    this.matcher = new IssuePatternMatcher(patternInitializer.getMulticriteriaPatterns(), true);
+  }
+
+  public boolean hasPatterns() {
+    return !matcher.isEmpty();
   }
 
   @Override
   public boolean accept(FilterableIssue issue, IssueFilterChain chain) {
-
     InputComponent inputComponent = ((DefaultFilterableIssue) issue).getInputComponent();
 
-    for (IssuePattern pattern : patternInitializer.getMulticriteriaPatterns()) {
-      if (pattern.getRulePattern().match(issue.ruleKey().toString())
-        && inputComponent.isFile()
-        && pattern.getPathPattern().match((InputFile) inputComponent)) {
+    if (inputComponent.isFile()) {
+      IssuePattern pattern = matcher.match((InputFile) inputComponent, issue.ruleKey().toString());
+      if (pattern != null) {
         LOG.debug("Issue {} ignored by exclusion pattern {}", issue, pattern);
         return false;
       }
@@ -0,0 +1,93 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Finds the first multicriteria pattern applying to an issue, with the same result as testing every pattern in order.
+ * <p>
+ * Path patterns are matched once per file, when its first issue is checked. Files to which the same patterns apply then share
+ * a memo of the first matching pattern by rule key, so that each issue is a lookup in two hash maps.
+ */
+public class IssuePatternMatcher {
+
+  private final List<IssuePattern> patterns;
+  private final boolean pathMatches;
+  private final Map<InputFile, RulePatterns> rulePatternsByFile = new ConcurrentHashMap<>();
+  private final Map<BitSet, RulePatterns> rulePatternsBySelection = new ConcurrentHashMap<>();
+
+  /**
+   * @param pathMatches true if a pattern applies to files matched by its path pattern, false if it applies to files not matched
+   */
+  public IssuePatternMatcher(List<IssuePattern> patterns, boolean pathMatches) {
+    this.patterns = new ArrayList<>(patterns);
+    this.pathMatches = pathMatches;
+  }
+
+  public boolean isEmpty() {
+    return patterns.isEmpty();
+  }
+
+  /**
+   * First pattern whose rule pattern matches the rule key and that applies to the file.
+   */
+  @CheckForNull
+  public IssuePattern match(InputFile file, String ruleKey) {
+    if (patterns.isEmpty()) {
+      return null;
+    }
+    return rulePatternsByFile.computeIfAbsent(file, this::rulePatterns).match(ruleKey);
+  }
+
+  private RulePatterns rulePatterns(InputFile file) {
+    BitSet selection = new BitSet(patterns.size());
+    for (int i = 0; i < patterns.size(); i++) {
+      if (patterns.get(i).getPathPattern().match(file) == pathMatches) {
+        selection.set(i);
+      }
+    }
+    return rulePatternsBySelection.computeIfAbsent(selection, RulePatterns::new);
+  }
+
+  private class RulePatterns {
+    private final List<IssuePattern> selected = new ArrayList<>();
+    private final Map<String, Optional<IssuePattern>> firstMatchByRuleKey = new ConcurrentHashMap<>();
+
+    RulePatterns(BitSet selection) {
+      selection.stream().forEach(i -> selected.add(patterns.get(i)));
+    }
+
+    @CheckForNull
+    IssuePattern match(String ruleKey) {
+      if (selected.isEmpty()) {
+        return null;
+      }
+      return firstMatchByRuleKey.computeIfAbsent(ruleKey, k -> selected.stream().filter(p -> p.getRulePattern().match(k)).findFirst()).orElse(null);
+    }
+  }
+}
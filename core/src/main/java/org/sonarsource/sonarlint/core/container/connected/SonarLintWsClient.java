@@ -27,10 +27,21 @@ import com.google.gson.JsonParser;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -38,10 +49,11 @@ import org.slf4j.LoggerFactory;
 import org.sonar.api.utils.System2;
 import org.sonarqube.ws.Common.Paging;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.container.connected.exceptions.NotFoundException;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.HttpValidators.Validator;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import org.sonarsource.sonarlint.core.util.ws.GetRequest;
-import org.sonarsource.sonarlint.core.util.ws.HttpConnector;
 import org.sonarsource.sonarlint.core.util.ws.PostRequest;
 import org.sonarsource.sonarlint.core.util.ws.WsConnector;
 import org.sonarsource.sonarlint.core.util.ws.WsResponse;
@@ -51,28 +63,34 @@ public class SonarLintWsClient {
   private static final Logger LOG = LoggerFactory.getLogger(SonarLintWsClient.class);
 
   public static final int PAGE_SIZE = 500;
+  public static final int PAGINATED_FETCH_PARALLELISM = 4;
 
   private final WsConnector client;
   private final String userAgent;
   private final String organizationKey;
 
   public SonarLintWsClient(ServerConfiguration serverConfig) {
+    this(serverConfig, WsConnectorRegistry.get());
+  }
+
+  SonarLintWsClient(ServerConfiguration serverConfig, WsConnectorRegistry connectorRegistry) {
     this.userAgent = serverConfig.getUserAgent();
     this.organizationKey = serverConfig.getOrganizationKey();
-    client = buildClient(serverConfig);
+    client = connectorRegistry.connectorFor(serverConfig);
+  }
+
+  /**
+   * Keep the connections to the server open for the next clients, until the owner releases them
+   */
+  public static void holdConnections(Object owner, ServerConfiguration serverConfig) {
+    WsConnectorRegistry.get().hold(owner, serverConfig);
   }
 
-  private static WsConnector buildClient(ServerConfiguration serverConfig) {
-    return HttpConnector.newBuilder().url(serverConfig.getUrl())
-      .userAgent(serverConfig.getUserAgent())
-      .credentials(serverConfig.getLogin(), serverConfig.getPassword())
-      .proxy(serverConfig.getProxy())
-      .proxyCredentials(serverConfig.getProxyLogin(), serverConfig.getProxyPassword())
-      .readTimeoutMilliseconds(serverConfig.getReadTimeoutMs())
-      .connectTimeoutMilliseconds(serverConfig.getConnectTimeoutMs())
-      .setSSLSocketFactory(serverConfig.getSSLSocketFactory())
-      .setTrustManager(serverConfig.getTrustManager())
-      .build();
+  /**
+   * Release the connections held by the owner, unless other owners still hold them
+   */
+  public static void releaseConnections(Object owner) {
+    WsConnectorRegistry.get().release(owner);
   }
 
   public WsResponse get(String path) {
@@ -109,8 +127,16 @@ public class SonarLintWsClient {
    * Execute GET and don't check response
    */
   public WsResponse rawGet(String path) {
+    return rawGet(path, Collections.emptyMap());
+  }
+
+  /**
+   * Execute GET with additional HTTP headers and don't check response
+   */
+  public WsResponse rawGet(String path, Map<String, String> headers) {
     long startTime = System2.INSTANCE.now();
     GetRequest request = new GetRequest(path);
+    headers.forEach(request::setHeader);
     WsResponse response = client.call(request);
     long duration = System2.INSTANCE.now() - startTime;
     if (LOG.isDebugEnabled()) {
@@ -119,6 +145,46 @@ public class SonarLintWsClient {
     return response;
   }
 
+  /**
+   * Execute a conditional GET, sending back the validators of a previous response
+   * @return the response, or <code>null</code> if the server answered that the previous response is still up to date
+   */
+  @CheckForNull
+  public WsResponse getIfModified(String path, Validator validator) {
+    Map<String, String> headers = new HashMap<>();
+    if (!validator.getEtag().isEmpty()) {
+      headers.put("If-None-Match", validator.getEtag());
+    }
+    if (!validator.getLastModified().isEmpty()) {
+      headers.put("If-Modified-Since", validator.getLastModified());
+    }
+    WsResponse response = rawGet(path, headers);
+    if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+      response.close();
+      return null;
+    }
+    if (!response.isSuccessful()) {
+      throw handleError(response);
+    }
+    return response;
+  }
+
+  /**
+   * Validators to send back with {@link #getIfModified(String, Validator)}. Empty if the server didn't return any.
+   */
+  public static Validator validatorOf(WsResponse response) {
+    Validator.Builder builder = Validator.newBuilder();
+    String etag = response.header("ETag");
+    if (etag != null) {
+      builder.setEtag(etag);
+    }
+    String lastModified = response.header("Last-Modified");
+    if (lastModified != null) {
+      builder.setLastModified(lastModified);
+    }
+    return builder.build();
+  }
+
   public static RuntimeException handleError(WsResponse toBeClosed) {
     try (WsResponse failedResponse = toBeClosed) {
       if (failedResponse.code() == HttpURLConnection.HTTP_UNAUTHORIZED) {
@@ -177,28 +243,136 @@ public class SonarLintWsClient {
    */
   public static <G, F> void getPaginated(SonarLintWsClient client, String baseUrl, CheckedFunction<InputStream, G> responseParser, Function<G, Paging> getPaging,
     Function<G, List<F>> itemExtractor, Consumer<F> itemConsumer, ProgressWrapper progress) {
-    int page = 0;
-    boolean stop = false;
-    int loaded = 0;
-    do {
-      page++;
-      WsResponse response = client.get(baseUrl + (baseUrl.contains("?") ? "&" : "?") + "ps=" + PAGE_SIZE + "&p=" + page);
-      try (InputStream stream = response.contentStream()) {
-        G protoBufResponse = responseParser.apply(stream);
-        List<F> items = itemExtractor.apply(protoBufResponse);
-        for (F item : items) {
-          itemConsumer.accept(item);
-          loaded++;
+    getPaginated(client, baseUrl, responseParser, getPaging, itemExtractor, itemConsumer, progress, PAGINATED_FETCH_PARALLELISM);
+  }
+
+  public static <G, F> void getPaginated(SonarLintWsClient client, String baseUrl, CheckedFunction<InputStream, G> responseParser, Function<G, Paging> getPaging,
+    Function<G, List<F>> itemExtractor, Consumer<F> itemConsumer, ProgressWrapper progress, int parallelism) {
+    String separator = baseUrl.contains("?") ? "&" : "?";
+    getPaginatedPages(client, page -> baseUrl + separator + "ps=" + PAGE_SIZE + "&p=" + page, responseParser, getPaging,
+      r -> itemExtractor.apply(r).size(), r -> itemExtractor.apply(r).forEach(itemConsumer), progress, parallelism);
+  }
+
+  /**
+   * Fetch all pages of a WS whose page size is {@link #PAGE_SIZE}. Once the total is known from the first page, up to <code>parallelism</code>
+   * of the remaining pages are requested concurrently. Pages are always given to <code>pageConsumer</code> in order, on the calling thread.
+   *
+   * @param pageUrl build the URL of a page from its 1-based index
+   * @param itemCount number of elements in the protobuf message, <code>0</code> meaning there is no more page
+   */
+  public static <G> void getPaginatedPages(SonarLintWsClient client, IntFunction<String> pageUrl, CheckedFunction<InputStream, G> responseParser,
+    Function<G, Paging> getPaging, ToIntFunction<G> itemCount, Consumer<G> pageConsumer, ProgressWrapper progress, int parallelism) {
+    new PaginatedFetch<>(client, pageUrl, responseParser, getPaging, itemCount, pageConsumer, progress, parallelism).run();
+  }
+
+  private static class PaginatedFetch<G> {
+    private final SonarLintWsClient client;
+    private final IntFunction<String> pageUrl;
+    private final CheckedFunction<InputStream, G> responseParser;
+    private final Function<G, Paging> getPaging;
+    private final ToIntFunction<G> itemCount;
+    private final Consumer<G> pageConsumer;
+    private final ProgressWrapper progress;
+    private final int parallelism;
+    private ExecutorService executor;
+    private int loaded;
+
+    PaginatedFetch(SonarLintWsClient client, IntFunction<String> pageUrl, CheckedFunction<InputStream, G> responseParser, Function<G, Paging> getPaging,
+      ToIntFunction<G> itemCount, Consumer<G> pageConsumer, ProgressWrapper progress, int parallelism) {
+      this.client = client;
+      this.pageUrl = pageUrl;
+      this.responseParser = responseParser;
+      this.getPaging = getPaging;
+      this.itemCount = itemCount;
+      this.pageConsumer = pageConsumer;
+      this.progress = progress;
+      this.parallelism = parallelism;
+    }
+
+    void run() {
+      try {
+        int page = 1;
+        G response = fetch(page);
+        boolean stop = consume(page, response);
+        while (!stop) {
+          int total = getPaging.apply(response).getTotal();
+          int lastPage = total > 0 ? ((total - 1) / PAGE_SIZE + 1) : 0;
+          if (parallelism > 1 && lastPage > page + 1) {
+            Deque<Future<G>> inFlight = new ArrayDeque<>();
+            int next = page + 1;
+            while (inFlight.size() < parallelism && next <= lastPage) {
+              inFlight.add(submit(next++));
+            }
+            while (!stop && !inFlight.isEmpty()) {
+              page++;
+              response = await(inFlight.poll());
+              stop = consume(page, response);
+              if (next <= lastPage) {
+                inFlight.add(submit(next++));
+              }
+            }
+            inFlight.forEach(f -> f.cancel(true));
+          } else {
+            page++;
+            response = fetch(page);
+            stop = consume(page, response);
+          }
+        }
+      } finally {
+        if (executor != null) {
+          executor.shutdownNow();
         }
-        boolean isEmpty = items.isEmpty();
-        Paging paging = getPaging.apply(protoBufResponse);
-        // SONAR-9150 Some WS used to miss the paging information, so iterate until response is empty
-        stop = isEmpty || (paging.getTotal() > 0 && page * PAGE_SIZE >= paging.getTotal());
-        progress.setProgressAndCheckCancel("Page " + page, loaded / (float) paging.getTotal());
+      }
+    }
+
+    private boolean consume(int page, G response) {
+      pageConsumer.accept(response);
+      int count = itemCount.applyAsInt(response);
+      loaded += count;
+      Paging paging = getPaging.apply(response);
+      // SONAR-9150 Some WS used to miss the paging information, so iterate until response is empty
+      boolean stop = count == 0 || (paging.getTotal() > 0 && page * PAGE_SIZE >= paging.getTotal());
+      progress.setProgressAndCheckCancel("Page " + page, loaded / (float) paging.getTotal());
+      return stop;
+    }
+
+    private G fetch(int page) {
+      WsResponse response = client.get(pageUrl.apply(page));
+      try (InputStream stream = response.contentStream()) {
+        return responseParser.apply(stream);
       } catch (IOException e) {
         throw new IllegalStateException("Failed to process paginated WS", e);
       }
-    } while (!stop);
+    }
+
+    private Future<G> submit(int page) {
+      if (executor == null) {
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+          Thread thread = new Thread(r, "sonarlint-paginated-fetch");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      return executor.submit(() -> fetch(page));
+    }
+
+    private static <T> T await(Future<T> future) {
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CanceledException();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException("Failed to process paginated WS", cause);
+      }
+    }
   }
 
   @FunctionalInterface
@@ -0,0 +1,144 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import org.sonar.api.utils.System2;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
+import org.sonarsource.sonarlint.core.util.ws.HttpConnector;
+import org.sonarsource.sonarlint.core.util.ws.WsConnector;
+
+/**
+ * Keeps one {@link WsConnector} per server, so that the {@link SonarLintWsClient} created for each update, partial update or
+ * notification check reuse the open connections and TLS sessions of the previous ones.
+ * All connectors share the same connection pool and dispatcher. A connector not requested for {@link #IDLE_TIMEOUT_MS} is evicted.
+ * A connector held by engines is also evicted once all of them released it, its idle connections being closed by the pool.
+ */
+class WsConnectorRegistry {
+
+  static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+
+  private static final WsConnectorRegistry INSTANCE = new WsConnectorRegistry(System2.INSTANCE, IDLE_TIMEOUT_MS);
+
+  private final System2 system2;
+  private final long idleTimeoutMs;
+  private final ConnectionPool connectionPool = new ConnectionPool();
+  private final Dispatcher dispatcher = new Dispatcher();
+  private final Map<Key, Entry> connectors = new HashMap<>();
+
+  WsConnectorRegistry(System2 system2, long idleTimeoutMs) {
+    this.system2 = system2;
+    this.idleTimeoutMs = idleTimeoutMs;
+  }
+
+  static WsConnectorRegistry get() {
+    return INSTANCE;
+  }
+
+  synchronized WsConnector connectorFor(ServerConfiguration serverConfig) {
+    return entryFor(serverConfig).connector;
+  }
+
+  /**
+   * Keep the connector of the server until the owner releases it, or it is idle
+   */
+  synchronized void hold(Object owner, ServerConfiguration serverConfig) {
+    entryFor(serverConfig).owners.add(owner);
+  }
+
+  /**
+   * Forget the connectors, with the credentials of their configuration, that are no longer held by any owner.
+   * Connectors of other servers are left to idle eviction.
+   */
+  synchronized void release(Object owner) {
+    connectors.values().removeIf(e -> e.owners.remove(owner) && e.owners.isEmpty());
+  }
+
+  synchronized int size() {
+    return connectors.size();
+  }
+
+  private Entry entryFor(ServerConfiguration serverConfig) {
+    long now = system2.now();
+    connectors.values().removeIf(e -> now - e.lastUsed > idleTimeoutMs);
+    Entry entry = connectors.computeIfAbsent(new Key(serverConfig), k -> new Entry(buildConnector(serverConfig)));
+    entry.lastUsed = now;
+    return entry;
+  }
+
+  private WsConnector buildConnector(ServerConfiguration serverConfig) {
+    return HttpConnector.newBuilder().url(serverConfig.getUrl())
+      .userAgent(serverConfig.getUserAgent())
+      .credentials(serverConfig.getLogin(), serverConfig.getPassword())
+      .proxy(serverConfig.getProxy())
+      .proxyCredentials(serverConfig.getProxyLogin(), serverConfig.getProxyPassword())
+      .readTimeoutMilliseconds(serverConfig.getReadTimeoutMs())
+      .connectTimeoutMilliseconds(serverConfig.getConnectTimeoutMs())
+      .setSSLSocketFactory(serverConfig.getSSLSocketFactory())
+      .setTrustManager(serverConfig.getTrustManager())
+      .connectionPool(connectionPool)
+      .dispatcher(dispatcher)
+      .build();
+  }
+
+  private static class Entry {
+    private final WsConnector connector;
+    private final Set<Object> owners = new HashSet<>();
+    private long lastUsed;
+
+    Entry(WsConnector connector) {
+      this.connector = connector;
+    }
+  }
+
+  /**
+   * {@link ServerConfiguration#equals(Object)} ignores the SSL socket factory and trust manager, which must not be shared
+   * between connectors of different configurations.
+   */
+  private static class Key {
+    private final ServerConfiguration serverConfig;
+
+    Key(ServerConfiguration serverConfig) {
+      this.serverConfig = serverConfig;
+    }
+
+    @Override
+    public int hashCode() {
+      return serverConfig.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      ServerConfiguration other = ((Key) obj).serverConfig;
+      return serverConfig.equals(other)
+        && serverConfig.getSSLSocketFactory() == other.getSSLSocketFactory()
+        && serverConfig.getTrustManager() == other.getTrustManager();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected.update;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.HttpValidators;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.HttpValidators.Validator;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.StorageStatus;
+import org.sonarsource.sonarlint.core.util.VersionUtils;
+import org.sonarsource.sonarlint.core.util.ws.WsResponse;
+
+/**
+ * Conditional requests based on the ETag and Last-Modified validators stored with a storage. When the server answers
+ * that a response didn't change, the file of the storage that was built from it can be kept as is.
+ * Validators of the responses received are collected, to be written with the new storage.
+ */
+public class ConditionalDownloads {
+  private static final Logger LOG = LoggerFactory.getLogger(ConditionalDownloads.class);
+
+  private final Path storageRoot;
+  private final Map<String, Validator> storedValidators;
+  private final Map<String, Validator> validators = new ConcurrentHashMap<>();
+
+  public ConditionalDownloads(Path storageRoot) {
+    this.storageRoot = storageRoot;
+    this.storedValidators = readStoredValidators(storageRoot);
+  }
+
+  /**
+   * A storage that can't be read is downloaded again entirely
+   */
+  private static Map<String, Validator> readStoredValidators(Path storageRoot) {
+    Path validatorsPath = storageRoot.resolve(StoragePaths.HTTP_VALIDATORS_PB);
+    try {
+      if (Files.exists(validatorsPath) && isWrittenByThisVersion(storageRoot)) {
+        return ProtobufUtil.readFile(validatorsPath, HttpValidators.parser()).getValidatorsByUrlMap();
+      }
+    } catch (StorageException e) {
+      LOG.warn("Unable to read HTTP validators of the storage, all files will be downloaded", e);
+    }
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Files written by another version may not be computed the same way from the responses
+   */
+  private static boolean isWrittenByThisVersion(Path storageRoot) {
+    Path storageStatusPath = storageRoot.resolve(StoragePaths.STORAGE_STATUS_PB);
+    if (!Files.exists(storageStatusPath)) {
+      return false;
+    }
+    StorageStatus storageStatus = ProtobufUtil.readFile(storageStatusPath, StorageStatus.parser());
+    return StoragePaths.STORAGE_VERSION.equals(storageStatus.getStorageVersion())
+      && VersionUtils.getLibraryVersion().equals(storageStatus.getSonarlintCoreVersion());
+  }
+
+  /**
+   * @param storedFile file of the storage built from the response, relative to the storage root
+   * @return the response, or <code>null</code> if the stored file is still up to date
+   */
+  @CheckForNull
+  public WsResponse get(SonarLintWsClient wsClient, String url, String storedFile) {
+    Validator validator = storedValidators.get(url);
+    if (validator == null || !Files.exists(storageRoot.resolve(storedFile))) {
+      validator = Validator.getDefaultInstance();
+    }
+    WsResponse response = wsClient.getIfModified(url, validator);
+    if (response == null) {
+      validators.put(url, validator);
+      return null;
+    }
+    Validator received = SonarLintWsClient.validatorOf(response);
+    if (!received.equals(Validator.getDefaultInstance())) {
+      validators.put(url, received);
+    }
+    return response;
+  }
+
+  /**
+   * Copy a file that is still up to date from the storage to the new one
+   */
+  public void copyStored(String storedFile, Path destDir) {
+    try {
+      Files.copy(storageRoot.resolve(storedFile), destDir.resolve(storedFile), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to copy " + storedFile + " from storage", e);
+    }
+  }
+
+  public void writeTo(Path destDir) {
+    ProtobufUtil.writeToFile(HttpValidators.newBuilder().putAllValidatorsByUrl(validators).build(), destDir.resolve(StoragePaths.HTTP_VALIDATORS_PB));
+  }
+}
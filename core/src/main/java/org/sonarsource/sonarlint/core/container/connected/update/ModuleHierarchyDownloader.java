@@ -23,13 +23,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import javax.annotation.CheckForNull;
 import org.sonarqube.ws.WsComponents;
 import org.sonarqube.ws.WsComponents.Component;
 import org.sonarqube.ws.WsComponents.ShowWsResponse;
@@ -63,15 +65,13 @@ public class ModuleHierarchyDownloader {
       WsComponents.TreeWsResponse::getPaging,
       WsComponents.TreeWsResponse::getComponentsList,
       modules::add,
-      progress);
-
-    // doesn't include root
-    Map<String, Component> modulesById = modules.stream().collect(Collectors.toMap(Component::getId, Function.identity()));
+      progress.subProgress(0f, 0.5f, "Fetching modules"));
 
     // component -> ancestorComponent. Doesn't include root
     Map<Component, Component> ancestors = new HashMap<>();
-    for (Component c : modules) {
-      ancestors.put(c, modulesById.get(fetchAncestorId(c.getId())));
+    fetchAncestorsByLevel(moduleKey, modules, ancestors, progress.subProgress(0.5f, 1f, "Resolving module hierarchy"));
+    if (ancestors.size() < modules.size()) {
+      fetchAncestorsByModule(modules, ancestors);
     }
 
     // module key -> path from root project base directory
@@ -83,6 +83,57 @@ public class ModuleHierarchyDownloader {
 
   }
 
+  /**
+   * Walk down the hierarchy from the root, level by level, requesting the direct children of one module at a time. A flat project only needs
+   * a single request. Stops as soon as all modules are found, or when fewer modules remain to be found than modules to explore, since
+   * they are then cheaper to resolve one by one with {@link #fetchAncestorsByModule(List, Map)}.
+   */
+  private void fetchAncestorsByLevel(String rootKey, List<Component> modules, Map<Component, Component> ancestors, ProgressWrapper progress) {
+    Map<String, Component> modulesByKey = modules.stream().collect(Collectors.toMap(Component::getKey, Function.identity()));
+    Deque<String> parentKeys = new ArrayDeque<>();
+    parentKeys.add(rootKey);
+
+    while (!parentKeys.isEmpty() && parentKeys.size() <= modules.size() - ancestors.size()) {
+      String parentKey = parentKeys.poll();
+      Component parent = modulesByKey.get(parentKey);
+      SonarLintWsClient.getPaginated(wsClient,
+        "api/components/tree.protobuf?qualifiers=BRC&strategy=children&baseComponentKey=" + StringUtils.urlEncode(parentKey),
+        WsComponents.TreeWsResponse::parseFrom,
+        WsComponents.TreeWsResponse::getPaging,
+        WsComponents.TreeWsResponse::getComponentsList,
+        child -> {
+          Component module = modulesByKey.get(child.getKey());
+          if (module != null && !ancestors.containsKey(module)) {
+            ancestors.put(module, parent);
+            parentKeys.add(module.getKey());
+          }
+        },
+        progress);
+    }
+  }
+
+  /**
+   * Resolve the modules not found yet, requesting the ancestors of one module at a time. The ancestors of a module are all resolved
+   * by the same request.
+   */
+  private void fetchAncestorsByModule(List<Component> modules, Map<Component, Component> ancestors) {
+    // doesn't include root
+    Map<String, Component> modulesById = modules.stream().collect(Collectors.toMap(Component::getId, Function.identity()));
+
+    for (Component c : modules) {
+      if (ancestors.containsKey(c)) {
+        continue;
+      }
+      Component module = c;
+      Iterator<String> ancestorIds = fetchAncestorIds(c.getId()).iterator();
+      while (module != null && !ancestors.containsKey(module)) {
+        Component ancestor = ancestorIds.hasNext() ? modulesById.get(ancestorIds.next()) : null;
+        ancestors.put(module, ancestor);
+        module = ancestor;
+      }
+    }
+  }
+
   private static String findPathFromRoot(Component component, Map<Component, Component> ancestors) {
     Component c = component;
     Path path = Paths.get("");
@@ -95,12 +146,14 @@ public class ModuleHierarchyDownloader {
     return toSonarQubePath(path.toString());
   }
 
-  @CheckForNull
-  private String fetchAncestorId(String moduleId) {
+  /**
+   * @return ids of the ancestors, from the parent to the root
+   */
+  private List<String> fetchAncestorIds(String moduleId) {
     try (WsResponse response = wsClient.get("api/components/show.protobuf?id=" + StringUtils.urlEncode(moduleId))) {
       InputStream stream = response.contentStream();
       ShowWsResponse showResponse = WsComponents.ShowWsResponse.parseFrom(stream);
-      return showResponse.getAncestorsList().stream().map(Component::getId).findFirst().orElse(null);
+      return showResponse.getAncestorsList().stream().map(Component::getId).collect(Collectors.toList());
     } catch (IOException e) {
       throw new IllegalStateException("Failed to load module hierarchy", e);
     }
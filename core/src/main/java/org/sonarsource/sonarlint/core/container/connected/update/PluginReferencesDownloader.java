@@ -21,22 +21,30 @@ package org.sonarsource.sonarlint.core.container.connected.update;
 
 import static java.lang.String.format;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nullable;
 
-import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.SonarAnalyzer;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
 import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.plugin.Version;
 import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache.CopyStream;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.PluginReferences;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.PluginReferences.Builder;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.PluginReferences.PluginReference;
@@ -48,10 +56,16 @@ public class PluginReferencesDownloader {
 
   private final PluginCache pluginCache;
   private final SonarLintWsClient wsClient;
+  private final int downloadParallelism;
 
-  public PluginReferencesDownloader(SonarLintWsClient wsClient, PluginCache pluginCache) {
+  public PluginReferencesDownloader(SonarLintWsClient wsClient, PluginCache pluginCache, ConnectedGlobalConfiguration globalConfiguration) {
+    this(wsClient, pluginCache, globalConfiguration.getPluginDownloadParallelism());
+  }
+
+  PluginReferencesDownloader(SonarLintWsClient wsClient, PluginCache pluginCache, int downloadParallelism) {
     this.wsClient = wsClient;
     this.pluginCache = pluginCache;
+    this.downloadParallelism = downloadParallelism;
   }
 
   public PluginReferences fetchPlugins(List<SonarAnalyzer> analyzers) {
@@ -84,14 +98,62 @@ public class PluginReferencesDownloader {
 
   public PluginReferences fetchPluginsTo(Path dest, List<SonarAnalyzer> analyzers) {
     PluginReferences refs = fetchPlugins(analyzers);
+    List<Callable<Path>> downloads = new ArrayList<>();
     for (PluginReference ref : refs.getReferenceList()) {
-      pluginCache.get(ref.getFilename(), ref.getHash(), new SonarQubeServerPluginDownloader(ref.getKey()));
+      if (pluginCache.get(ref.getFilename(), ref.getHash()) == null) {
+        downloads.add(() -> pluginCache.get(ref.getFilename(), ref.getHash(), new SonarQubeServerPluginDownloader(ref.getKey())));
+      }
     }
+    download(downloads);
     ProtobufUtil.writeToFile(refs, dest.resolve(StoragePaths.PLUGIN_REFERENCES_PB));
     return refs;
   }
 
-  private class SonarQubeServerPluginDownloader implements PluginCache.Copier {
+  private void download(List<Callable<Path>> downloads) {
+    int threads = Math.min(downloadParallelism, downloads.size());
+    if (threads <= 1) {
+      for (Callable<Path> download : downloads) {
+        call(download);
+      }
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "sonarlint-plugin-download");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      for (Future<Path> future : executor.invokeAll(downloads)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CanceledException();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Unable to download plugins", cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void call(Callable<Path> download) {
+    try {
+      download.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException("Unable to download plugins", e);
+    }
+  }
+
+  private class SonarQubeServerPluginDownloader implements PluginCache.StreamCopier {
     private String key;
 
     SonarQubeServerPluginDownloader(String key) {
@@ -99,18 +161,31 @@ public class PluginReferencesDownloader {
     }
 
     @Override
-    public void copy(String filename, Path toFile) throws IOException {
+    public CopyStream open(String filename, long offset) {
       String url = format("/deploy/plugins/%s/%s", key, filename);
-      if (LOG.isDebugEnabled()) {
-        LOG.debug("Download plugin {} to {}", filename, toFile);
+      if (offset > 0) {
+        LOG.info("Resume download of {} at byte {}", filename, offset);
+        WsResponse response = wsClient.rawGet(url, Collections.singletonMap("Range", "bytes=" + offset + "-"));
+        if (isPartialContentFrom(response, offset)) {
+          return CopyStream.resumed(response.contentStream(), offset);
+        }
+        if (response.isSuccessful()) {
+          // range not supported by the server, whole content is returned
+          return CopyStream.of(response.contentStream());
+        }
+        // for example 416 when the range is not satisfiable, download again the whole file
+        response.close();
+      } else if (LOG.isDebugEnabled()) {
+        LOG.debug("Download plugin {}", filename);
       } else {
         LOG.info("Download {}", filename);
       }
+      return CopyStream.of(wsClient.get(url).contentStream());
+    }
 
-      WsResponse response = wsClient.get(url);
-      try (InputStream stream = response.contentStream()) {
-        FileUtils.copyInputStreamToFile(stream, toFile.toFile());
-      }
+    private boolean isPartialContentFrom(WsResponse response, long offset) {
+      String contentRange = response.header("Content-Range");
+      return response.code() == HttpURLConnection.HTTP_PARTIAL && contentRange != null && contentRange.startsWith("bytes " + offset + "-");
     }
   }
 
@@ -22,6 +22,7 @@ package org.sonarsource.sonarlint.core.container.connected.update;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
+import javax.annotation.CheckForNull;
 import org.sonarqube.ws.QualityProfiles;
 import org.sonarqube.ws.QualityProfiles.SearchWsResponse;
 import org.sonarqube.ws.QualityProfiles.SearchWsResponse.QualityProfile;
@@ -31,6 +32,7 @@ import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.QProfiles;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.QProfiles.QProfile;
 import org.sonarsource.sonarlint.core.util.StringUtils;
+import org.sonarsource.sonarlint.core.util.ws.WsResponse;
 
 public class QualityProfilesDownloader {
   private static final String DEFAULT_QP_SEARCH_URL = "/api/qualityprofiles/search.protobuf";
@@ -40,18 +42,43 @@ public class QualityProfilesDownloader {
     this.wsClient = wsClient;
   }
 
-  public void fetchQualityProfilesTo(Path destDir) {
-    ProtobufUtil.writeToFile(fetchQualityProfiles(), destDir.resolve(StoragePaths.QUALITY_PROFILES_PB));
+  /**
+   * Keep the quality profiles of the current storage if they didn't change on the server
+   */
+  public void fetchQualityProfilesTo(Path destDir, ConditionalDownloads downloads) {
+    QProfiles qProfiles = fetchQualityProfilesIfModified(downloads);
+    if (qProfiles == null) {
+      downloads.copyStored(StoragePaths.QUALITY_PROFILES_PB, destDir);
+    } else {
+      ProtobufUtil.writeToFile(qProfiles, destDir.resolve(StoragePaths.QUALITY_PROFILES_PB));
+    }
   }
 
   public QProfiles fetchQualityProfiles() {
-    QProfiles.Builder qProfileBuilder = QProfiles.newBuilder();
+    return readQualityProfiles(wsClient.get(searchUrl()));
+  }
+
+  /**
+   * @return <code>null</code> if the quality profiles of the storage are still up to date
+   */
+  @CheckForNull
+  public QProfiles fetchQualityProfilesIfModified(ConditionalDownloads downloads) {
+    WsResponse response = downloads.get(wsClient, searchUrl(), StoragePaths.QUALITY_PROFILES_PB);
+    return response != null ? readQualityProfiles(response) : null;
+  }
 
+  private String searchUrl() {
     String searchUrl = DEFAULT_QP_SEARCH_URL;
     if (wsClient.getOrganizationKey() != null) {
       searchUrl += "?organization=" + StringUtils.urlEncode(wsClient.getOrganizationKey());
     }
-    try (InputStream contentStream = wsClient.get(searchUrl).contentStream()) {
+    return searchUrl;
+  }
+
+  private static QProfiles readQualityProfiles(WsResponse response) {
+    QProfiles.Builder qProfileBuilder = QProfiles.newBuilder();
+
+    try (InputStream contentStream = response.contentStream()) {
       SearchWsResponse qpResponse = QualityProfiles.SearchWsResponse.parseFrom(contentStream);
       for (QualityProfile qp : qpResponse.getProfilesList()) {
         QProfile.Builder qpBuilder = QProfile.newBuilder();
@@ -27,6 +27,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import javax.annotation.CheckForNull;
 import org.sonar.api.rule.RuleKey;
+import org.sonarqube.ws.Common.Paging;
 import org.sonarqube.ws.Common.RuleType;
 import org.sonarqube.ws.Rules.Active.Param;
 import org.sonarqube.ws.Rules.ActiveList;
@@ -41,16 +42,21 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint.Rules;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.Rules.Rule.Builder;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import org.sonarsource.sonarlint.core.util.StringUtils;
-import org.sonarsource.sonarlint.core.util.ws.WsResponse;
 
 public class RulesDownloader {
   static final String RULES_SEARCH_URL = "/api/rules/search.protobuf?f=repo,name,severity,lang,htmlDesc,htmlNote,internalKey,isTemplate,templateKey,"
     + "actives&statuses=BETA,DEPRECATED,READY";
 
   private final SonarLintWsClient wsClient;
+  private final int parallelism;
 
   public RulesDownloader(SonarLintWsClient wsClient) {
+    this(wsClient, SonarLintWsClient.PAGINATED_FETCH_PARALLELISM);
+  }
+
+  RulesDownloader(SonarLintWsClient wsClient, int parallelism) {
     this.wsClient = wsClient;
+    this.parallelism = parallelism;
   }
 
   public void fetchRulesTo(Path destDir, ProgressWrapper progress) {
@@ -67,42 +73,38 @@ public class RulesDownloader {
   }
 
   private void fetchRulesAndActiveRules(Rules.Builder rulesBuilder, Map<String, ActiveRules.Builder> activeRulesBuildersByQProfile, ProgressWrapper progress) {
-    int page = 0;
-    int pageSize = 500;
-    int loaded = 0;
-
-    while (true) {
-      page++;
-      SearchResponse response = loadFromStream(wsClient.get(getUrl(page, pageSize)));
-      readPage(rulesBuilder, activeRulesBuildersByQProfile, response);
-      loaded += response.getPs();
-
-      if (response.getTotal() <= loaded) {
-        break;
-      }
-      progress.setProgressAndCheckCancel("Loading page " + page, loaded / (float) response.getTotal());
-    }
+    SonarLintWsClient.getPaginatedPages(wsClient, this::getUrl, RulesDownloader::parse, RulesDownloader::paging, SearchResponse::getRulesCount,
+      response -> readPage(rulesBuilder, activeRulesBuildersByQProfile, response), progress, parallelism);
   }
 
-  private String getUrl(int page, int pageSize) {
+  private String getUrl(int page) {
     StringBuilder builder = new StringBuilder(1024);
     builder.append(RULES_SEARCH_URL);
     if (wsClient.getOrganizationKey() != null) {
       builder.append("&organization=").append(StringUtils.urlEncode(wsClient.getOrganizationKey()));
     }
     builder.append("&p=").append(page);
-    builder.append("&ps=").append(pageSize);
+    builder.append("&ps=").append(SonarLintWsClient.PAGE_SIZE);
     return builder.toString();
   }
 
-  private static SearchResponse loadFromStream(WsResponse response) {
-    try (InputStream is = response.contentStream()) {
+  private static SearchResponse parse(InputStream is) {
+    try {
       return SearchResponse.parseFrom(is);
     } catch (IOException e) {
       throw new IllegalStateException("Failed to load rules", e);
     }
   }
 
+  // api/rules/search returns its paging as top level fields
+  private static Paging paging(SearchResponse response) {
+    return Paging.newBuilder()
+      .setPageIndex((int) response.getP())
+      .setPageSize((int) response.getPs())
+      .setTotal((int) response.getTotal())
+      .build();
+  }
+
   private static void readPage(Rules.Builder rulesBuilder, Map<String, ActiveRules.Builder> activeRulesBuildersByQProfile, SearchResponse response) {
     Builder ruleBuilder = Rules.Rule.newBuilder();
     for (Rule r : response.getRulesList()) {
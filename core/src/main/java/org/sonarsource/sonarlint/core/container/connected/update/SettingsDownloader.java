@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonarqube.ws.Settings.FieldValues.Value;
 import org.sonarqube.ws.Settings.Setting;
@@ -51,8 +52,16 @@ public class SettingsDownloader {
     this.wsClient = wsClient;
   }
 
-  public void fetchGlobalSettingsTo(String serverVersion, Path dest) {
-    ProtobufUtil.writeToFile(fetchGlobalSettings(serverVersion), dest.resolve(StoragePaths.PROPERTIES_PB));
+  /**
+   * Keep the global settings of the current storage if they didn't change on the server
+   */
+  public void fetchGlobalSettingsTo(String serverVersion, Path dest, ConditionalDownloads downloads) {
+    GlobalProperties globalProperties = fetchGlobalSettingsIfModified(serverVersion, downloads);
+    if (globalProperties == null) {
+      downloads.copyStored(StoragePaths.PROPERTIES_PB, dest);
+    } else {
+      ProtobufUtil.writeToFile(globalProperties, dest.resolve(StoragePaths.PROPERTIES_PB));
+    }
   }
 
   public GlobalProperties fetchGlobalSettings(String serverVersion) {
@@ -61,24 +70,56 @@ public class SettingsDownloader {
     return builder.build();
   }
 
+  /**
+   * @return <code>null</code> if the global settings of the storage are still up to date
+   */
+  @CheckForNull
+  public GlobalProperties fetchGlobalSettingsIfModified(String serverVersion, ConditionalDownloads downloads) {
+    WsResponse response = downloads.get(wsClient, settingsUrl(serverVersion, null), StoragePaths.PROPERTIES_PB);
+    if (response == null) {
+      return null;
+    }
+    GlobalProperties.Builder builder = GlobalProperties.newBuilder();
+    readSettings(serverVersion, response, (k, v) -> true, builder::putProperties);
+    return builder.build();
+  }
+
   public void fetchProjectSettings(String serverVersion, String moduleKey, GlobalProperties globalProps, ModuleConfiguration.Builder projectConfigurationBuilder) {
     fetchSettings(serverVersion, moduleKey, (k, v) -> !v.equals(globalProps.getPropertiesMap().get(k)), projectConfigurationBuilder::putProperties);
   }
 
   private void fetchSettings(String serverVersion, @Nullable String moduleKey, BiPredicate<String, String> filter, BiConsumer<String, String> consumer) {
-    if (Version.create(serverVersion).compareToIgnoreQualifier(Version.create("6.3")) >= 0) {
-      fetchUsingSettingsWS(moduleKey, consumer);
-    } else {
-      fetchUsingPropertiesWS(moduleKey, filter, consumer);
-    }
+    readSettings(serverVersion, wsClient.get(settingsUrl(serverVersion, moduleKey)), filter, consumer);
+  }
+
+  private static boolean supportsSettingsWS(String serverVersion) {
+    return Version.create(serverVersion).compareToIgnoreQualifier(Version.create("6.3")) >= 0;
   }
 
-  private void fetchUsingSettingsWS(@Nullable String moduleKey, BiConsumer<String, String> consumer) {
-    String url = API_SETTINGS_PATH;
+  private static String settingsUrl(String serverVersion, @Nullable String moduleKey) {
+    if (supportsSettingsWS(serverVersion)) {
+      String url = API_SETTINGS_PATH;
+      if (moduleKey != null) {
+        url += "?component=" + StringUtils.urlEncode(moduleKey);
+      }
+      return url;
+    }
+    String url = API_PROPERTIES_PATH;
     if (moduleKey != null) {
-      url += "?component=" + StringUtils.urlEncode(moduleKey);
+      url += "&resource=" + StringUtils.urlEncode(moduleKey);
+    }
+    return url;
+  }
+
+  private void readSettings(String serverVersion, WsResponse response, BiPredicate<String, String> filter, BiConsumer<String, String> consumer) {
+    if (supportsSettingsWS(serverVersion)) {
+      readUsingSettingsWS(response, consumer);
+    } else {
+      readUsingPropertiesWS(response, filter, consumer);
     }
-    WsResponse response = wsClient.get(url);
+  }
+
+  private void readUsingSettingsWS(WsResponse response, BiConsumer<String, String> consumer) {
     try (InputStream is = response.contentStream()) {
       ValuesWsResponse values = ValuesWsResponse.parseFrom(is);
       for (Setting s : values.getSettingsList()) {
@@ -121,12 +162,8 @@ public class SettingsDownloader {
     consumer.accept(s.getKey(), Joiner.on(',').join(ids));
   }
 
-  private void fetchUsingPropertiesWS(@Nullable String moduleKey, BiPredicate<String, String> filter, BiConsumer<String, String> consumer) {
-    String url = API_PROPERTIES_PATH;
-    if (moduleKey != null) {
-      url += "&resource=" + StringUtils.urlEncode(moduleKey);
-    }
-    try (WsResponse response = wsClient.get(url)) {
+  private static void readUsingPropertiesWS(WsResponse wsResponse, BiPredicate<String, String> filter, BiConsumer<String, String> consumer) {
+    try (WsResponse response = wsResponse) {
       try (JsonReader reader = new JsonReader(response.contentReader())) {
         reader.beginArray();
         while (reader.hasNext()) {
@@ -32,6 +32,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueInclusionPatternInitializer;
+import org.sonarsource.sonarlint.core.container.connected.update.ConditionalDownloads;
 import org.sonarsource.sonarlint.core.container.connected.update.SettingsDownloader;
 import org.sonarsource.sonarlint.core.container.storage.StorageReader;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
@@ -58,8 +59,12 @@ public class GlobalSettingsUpdateChecker {
     this.globalPropertiesDownloader = globalPropertiesDownloader;
   }
 
-  public void checkForUpdates(String serverVersion, DefaultStorageUpdateCheckResult result) {
-    GlobalProperties serverGlobalProperties = globalPropertiesDownloader.fetchGlobalSettings(serverVersion);
+  public void checkForUpdates(String serverVersion, ConditionalDownloads downloads, DefaultStorageUpdateCheckResult result) {
+    GlobalProperties serverGlobalProperties = globalPropertiesDownloader.fetchGlobalSettingsIfModified(serverVersion, downloads);
+    if (serverGlobalProperties == null) {
+      // not modified since the storage was updated
+      return;
+    }
     GlobalProperties storageGlobalProperties = storageReader.readGlobalProperties();
     MapDifference<String, String> propDiff = Maps.difference(filter(storageGlobalProperties.getPropertiesMap()), filter(serverGlobalProperties.getPropertiesMap()));
     if (!propDiff.areEqual()) {
@@ -23,8 +23,10 @@ import java.util.List;
 
 import org.sonarsource.sonarlint.core.client.api.connected.SonarAnalyzer;
 import org.sonarsource.sonarlint.core.client.api.connected.StorageUpdateCheckResult;
+import org.sonarsource.sonarlint.core.container.connected.update.ConditionalDownloads;
 import org.sonarsource.sonarlint.core.container.connected.update.PluginListDownloader;
 import org.sonarsource.sonarlint.core.container.connected.validate.ServerVersionAndStatusChecker;
+import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerInfos;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
@@ -35,14 +37,16 @@ public class GlobalStorageUpdateChecker {
   private final ServerVersionAndStatusChecker statusChecker;
   private final QualityProfilesUpdateChecker qualityProfilesUpdateChecker;
   private final PluginListDownloader pluginListDownloader;
+  private final StoragePaths storagePaths;
 
   public GlobalStorageUpdateChecker(ServerVersionAndStatusChecker statusChecker, PluginsUpdateChecker pluginsUpdateChecker, PluginListDownloader pluginListDownloader,
-    GlobalSettingsUpdateChecker globalSettingsUpdateChecker, QualityProfilesUpdateChecker qualityProfilesUpdateChecker) {
+    GlobalSettingsUpdateChecker globalSettingsUpdateChecker, QualityProfilesUpdateChecker qualityProfilesUpdateChecker, StoragePaths storagePaths) {
     this.statusChecker = statusChecker;
     this.pluginsUpdateChecker = pluginsUpdateChecker;
     this.pluginListDownloader = pluginListDownloader;
     this.globalSettingsUpdateChecker = globalSettingsUpdateChecker;
     this.qualityProfilesUpdateChecker = qualityProfilesUpdateChecker;
+    this.storagePaths = storagePaths;
   }
 
   public StorageUpdateCheckResult checkForUpdate(ProgressWrapper progress) {
@@ -51,16 +55,17 @@ public class GlobalStorageUpdateChecker {
     progress.setProgressAndCheckCancel("Checking server version and status", 0.1f);
     ServerInfos serverStatus = statusChecker.checkVersionAndStatus();
     // Currently with don't check server version change since it is unlikely to have impact on SL
+    ConditionalDownloads downloads = new ConditionalDownloads(storagePaths.getGlobalStorageRoot());
 
     progress.setProgressAndCheckCancel("Checking global properties", 0.3f);
-    globalSettingsUpdateChecker.checkForUpdates(serverStatus.getVersion(), result);
+    globalSettingsUpdateChecker.checkForUpdates(serverStatus.getVersion(), downloads, result);
 
     progress.setProgressAndCheckCancel("Checking plugins", 0.5f);
     List<SonarAnalyzer> pluginList = pluginListDownloader.downloadPluginList(serverStatus.getVersion());
     pluginsUpdateChecker.checkForUpdates(result, pluginList);
 
     progress.setProgressAndCheckCancel("Checking quality profiles", 0.7f);
-    qualityProfilesUpdateChecker.checkForUpdates(result);
+    qualityProfilesUpdateChecker.checkForUpdates(downloads, result);
 
     progress.setProgressAndCheckCancel("Done", 1.0f);
 
@@ -26,8 +26,10 @@ import java.util.Map;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.client.api.connected.StorageUpdateCheckResult;
+import org.sonarsource.sonarlint.core.container.connected.update.ConditionalDownloads;
 import org.sonarsource.sonarlint.core.container.connected.update.ModuleConfigurationDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.SettingsDownloader;
+import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.container.storage.StorageReader;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ModuleConfiguration;
@@ -40,17 +42,23 @@ public class ModuleStorageUpdateChecker {
   private final StorageReader storageReader;;
   private final ModuleConfigurationDownloader moduleConfigurationDownloader;
   private final SettingsDownloader settingsDownloader;
+  private final StoragePaths storagePaths;
 
-  public ModuleStorageUpdateChecker(StorageReader storageReader, ModuleConfigurationDownloader moduleConfigurationDownloader, SettingsDownloader settingsDownloader) {
+  public ModuleStorageUpdateChecker(StorageReader storageReader, ModuleConfigurationDownloader moduleConfigurationDownloader, SettingsDownloader settingsDownloader,
+    StoragePaths storagePaths) {
     this.storageReader = storageReader;
     this.moduleConfigurationDownloader = moduleConfigurationDownloader;
     this.settingsDownloader = settingsDownloader;
+    this.storagePaths = storagePaths;
   }
 
   public StorageUpdateCheckResult checkForUpdates(String moduleKey, ProgressWrapper progress) {
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
     String serverVersion = storageReader.readServerInfos().getVersion();
-    GlobalProperties globalProps = settingsDownloader.fetchGlobalSettings(serverVersion);
+    GlobalProperties globalProps = settingsDownloader.fetchGlobalSettingsIfModified(serverVersion, new ConditionalDownloads(storagePaths.getGlobalStorageRoot()));
+    if (globalProps == null) {
+      globalProps = storageReader.readGlobalProperties();
+    }
 
     ModuleConfiguration serverModuleConfiguration = moduleConfigurationDownloader.fetchModuleConfiguration(serverVersion, moduleKey, globalProps, progress);
     ModuleConfiguration storageModuleConfiguration = storageReader.readModuleConfig(moduleKey);
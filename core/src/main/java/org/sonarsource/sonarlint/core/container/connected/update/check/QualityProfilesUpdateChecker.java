@@ -23,6 +23,7 @@ import com.google.common.collect.MapDifference;
 import com.google.common.collect.MapDifference.ValueDifference;
 import com.google.common.collect.Maps;
 import java.util.Map;
+import org.sonarsource.sonarlint.core.container.connected.update.ConditionalDownloads;
 import org.sonarsource.sonarlint.core.container.connected.update.QualityProfilesDownloader;
 import org.sonarsource.sonarlint.core.container.storage.StorageReader;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.QProfiles;
@@ -38,8 +39,12 @@ public class QualityProfilesUpdateChecker {
     this.qualityProfilesDownloader = qualityProfilesDownloader;
   }
 
-  public void checkForUpdates(DefaultStorageUpdateCheckResult result) {
-    QProfiles serverQualityProfiles = qualityProfilesDownloader.fetchQualityProfiles();
+  public void checkForUpdates(ConditionalDownloads downloads, DefaultStorageUpdateCheckResult result) {
+    QProfiles serverQualityProfiles = qualityProfilesDownloader.fetchQualityProfilesIfModified(downloads);
+    if (serverQualityProfiles == null) {
+      // not modified since the storage was updated
+      return;
+    }
     QProfiles storageQProfiles = storageReader.readQProfiles();
     Map<String, QProfile> serverPluginHashes = serverQualityProfiles.getQprofilesByKeyMap();
     Map<String, QProfile> storagePluginHashes = storageQProfiles.getQprofilesByKeyMap();
@@ -0,0 +1,67 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected.update.perform;
+
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+/**
+ * Progress of a step running on a worker thread. Messages and fractions are only recorded, and forwarded by the thread
+ * waiting for the step, so that the client's {@link ProgressMonitor} keeps being called from a single thread.
+ * Cancellation is read from the client's monitor.
+ */
+class DeferredProgressMonitor extends ProgressMonitor {
+
+  private final ProgressWrapper target;
+  private volatile String message;
+  private volatile float fraction;
+  private volatile boolean changed;
+
+  DeferredProgressMonitor(ProgressWrapper target) {
+    this.target = target;
+  }
+
+  @Override
+  public boolean isCanceled() {
+    return target.isCanceled();
+  }
+
+  @Override
+  public void setMessage(String msg) {
+    this.message = msg;
+  }
+
+  @Override
+  public void setFraction(float fraction) {
+    this.fraction = fraction;
+    this.changed = true;
+  }
+
+  /**
+   * Forward the last recorded progress to the target, if it changed since the previous call.
+   */
+  void flush() {
+    if (changed) {
+      changed = false;
+      target.setProgress(message, fraction);
+    }
+  }
+
+}
@@ -20,12 +20,25 @@
 package org.sonarsource.sonarlint.core.container.connected.update.perform;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.utils.TempFolder;
 import org.sonarsource.sonarlint.core.client.api.connected.SonarAnalyzer;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
+import org.sonarsource.sonarlint.core.container.connected.update.ConditionalDownloads;
 import org.sonarsource.sonarlint.core.container.connected.update.ModuleListDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.PluginListDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.PluginReferencesDownloader;
@@ -40,8 +53,23 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint.StorageStatus;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import org.sonarsource.sonarlint.core.util.VersionUtils;
 
+/**
+ * Downloads the global storage in a temp dir, then replaces the current storage with it.
+ * Once the server version is known, the other downloads run concurrently, except plugin references that need the plugin list.
+ * Global settings and quality profiles are requested conditionally, and copied from the current storage when they didn't change.
+ * Progress is reported by the calling thread, following the order of the steps.
+ */
 public class GlobalStorageUpdateExecutor {
 
+  private static final Logger LOG = LoggerFactory.getLogger(GlobalStorageUpdateExecutor.class);
+
+  /**
+   * Enough for all the downloads that only depend on the server version to run at the same time.
+   */
+  static final int DEFAULT_PARALLELISM = 5;
+  private static final long POLL_INTERVAL_MS = 100;
+  private static final long TERMINATION_TIMEOUT_MS = 60_000;
+
   private final StoragePaths storageManager;
   private final PluginReferencesDownloader pluginReferenceDownloader;
   private final SettingsDownloader globalSettingsDownloader;
@@ -52,10 +80,19 @@ public class GlobalStorageUpdateExecutor {
   private final SonarLintWsClient wsClient;
   private final QualityProfilesDownloader qualityProfilesDownloader;
   private final PluginListDownloader pluginListDownloader;
+  private final int parallelism;
 
   public GlobalStorageUpdateExecutor(StoragePaths storageManager, SonarLintWsClient wsClient, ServerVersionAndStatusChecker statusChecker,
     PluginReferencesDownloader pluginReferenceDownloader, SettingsDownloader globalPropertiesDownloader, RulesDownloader rulesDownloader,
     ModuleListDownloader moduleListDownloader, QualityProfilesDownloader qualityProfilesDownloader, PluginListDownloader pluginListDownloader, TempFolder tempFolder) {
+    this(storageManager, wsClient, statusChecker, pluginReferenceDownloader, globalPropertiesDownloader, rulesDownloader, moduleListDownloader,
+      qualityProfilesDownloader, pluginListDownloader, tempFolder, DEFAULT_PARALLELISM);
+  }
+
+  GlobalStorageUpdateExecutor(StoragePaths storageManager, SonarLintWsClient wsClient, ServerVersionAndStatusChecker statusChecker,
+    PluginReferencesDownloader pluginReferenceDownloader, SettingsDownloader globalPropertiesDownloader, RulesDownloader rulesDownloader,
+    ModuleListDownloader moduleListDownloader, QualityProfilesDownloader qualityProfilesDownloader, PluginListDownloader pluginListDownloader, TempFolder tempFolder,
+    int parallelism) {
     this.storageManager = storageManager;
     this.wsClient = wsClient;
     this.statusChecker = statusChecker;
@@ -66,33 +103,60 @@ public class GlobalStorageUpdateExecutor {
     this.qualityProfilesDownloader = qualityProfilesDownloader;
     this.pluginListDownloader = pluginListDownloader;
     this.tempFolder = tempFolder;
+    this.parallelism = parallelism;
   }
 
   public List<SonarAnalyzer> update(ProgressWrapper progress) {
     Path temp = tempFolder.newDir().toPath();
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+      Thread thread = new Thread(r, "sonarlint-storage-update");
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<CompletableFuture<?>> steps = new ArrayList<>();
 
     try {
       progress.setProgressAndCheckCancel("Checking server version and status", 0.1f);
       ServerInfos serverStatus = statusChecker.checkVersionAndStatus();
+      String serverVersion = serverStatus.getVersion();
+      ConditionalDownloads downloads = new ConditionalDownloads(storageManager.getGlobalStorageRoot());
+
+      DeferredProgressMonitor rulesProgress = new DeferredProgressMonitor(progress);
+      DeferredProgressMonitor modulesProgress = new DeferredProgressMonitor(progress);
+      CompletableFuture<List<SonarAnalyzer>> analyzersStep = supplyStep(executor, steps, progress,
+        () -> pluginListDownloader.downloadPluginList(serverVersion));
+      CompletableFuture<?> settingsStep = runStep(executor, steps, progress,
+        () -> globalSettingsDownloader.fetchGlobalSettingsTo(serverVersion, temp, downloads));
+      CompletableFuture<?> pluginsStep = analyzersStep.thenApplyAsync(analyzers -> {
+        checkCancelInStep(progress);
+        return pluginReferenceDownloader.fetchPluginsTo(temp, analyzers);
+      }, executor);
+      steps.add(pluginsStep);
+      CompletableFuture<?> rulesStep = runStep(executor, steps, progress,
+        () -> rulesDownloader.fetchRulesTo(temp, new ProgressWrapper(rulesProgress).subProgress(0.4f, 0.6f, "Fetching rules")));
+      CompletableFuture<?> qualityProfilesStep = runStep(executor, steps, progress,
+        () -> qualityProfilesDownloader.fetchQualityProfilesTo(temp, downloads));
+      CompletableFuture<?> modulesStep = runStep(executor, steps, progress,
+        () -> moduleListDownloader.fetchModulesListTo(temp, serverVersion, new ProgressWrapper(modulesProgress).subProgress(0.8f, 1.0f, "Fetching list of modules")));
 
       progress.setProgressAndCheckCancel("Fetching list of analyzers", 0.12f);
-      List<SonarAnalyzer> analyzers = pluginListDownloader.downloadPluginList(serverStatus.getVersion());
+      List<SonarAnalyzer> analyzers = await(analyzersStep, progress, null);
       ProtobufUtil.writeToFile(serverStatus, temp.resolve(StoragePaths.SERVER_INFO_PB));
 
       progress.setProgressAndCheckCancel("Fetching global properties", 0.15f);
-      globalSettingsDownloader.fetchGlobalSettingsTo(serverStatus.getVersion(), temp);
+      await(settingsStep, progress, null);
 
       progress.setProgressAndCheckCancel("Fetching analyzers", 0.25f);
-      pluginReferenceDownloader.fetchPluginsTo(temp, analyzers);
+      await(pluginsStep, progress, null);
 
       progress.setProgressAndCheckCancel("Fetching rules", 0.4f);
-      rulesDownloader.fetchRulesTo(temp, progress.subProgress(0.4f, 0.6f, "Fetching rules"));
+      await(rulesStep, progress, rulesProgress);
 
       progress.setProgressAndCheckCancel("Fetching quality profiles", 0.6f);
-      qualityProfilesDownloader.fetchQualityProfilesTo(temp);
+      await(qualityProfilesStep, progress, null);
 
       progress.setProgressAndCheckCancel("Fetching list of modules", 0.8f);
-      moduleListDownloader.fetchModulesListTo(temp, serverStatus.getVersion(), progress.subProgress(0.8f, 1.0f, "Fetching list of modules"));
+      await(modulesStep, progress, modulesProgress);
 
       progress.startNonCancelableSection();
       progress.setProgressAndCheckCancel("Finalizing...", 1.0f);
@@ -104,6 +168,7 @@ public class GlobalStorageUpdateExecutor {
         .setUpdateTimestamp(new Date().getTime())
         .build();
       ProtobufUtil.writeToFile(storageStatus, temp.resolve(StoragePaths.STORAGE_STATUS_PB));
+      downloads.writeTo(temp);
 
       Path dest = storageManager.getGlobalStorageRoot();
       FileUtils.deleteRecursively(dest);
@@ -111,12 +176,89 @@ public class GlobalStorageUpdateExecutor {
       FileUtils.moveDir(temp, dest);
       return analyzers;
     } catch (RuntimeException e) {
+      stop(executor, steps);
       try {
         FileUtils.deleteRecursively(temp);
       } catch (RuntimeException ignore) {
         // ignore because we want to throw original exception
       }
       throw e;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static <T> CompletableFuture<T> supplyStep(ExecutorService executor, List<CompletableFuture<?>> steps, ProgressWrapper progress, Supplier<T> step) {
+    CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+      checkCancelInStep(progress);
+      return step.get();
+    }, executor);
+    steps.add(future);
+    return future;
+  }
+
+  private static CompletableFuture<Void> runStep(ExecutorService executor, List<CompletableFuture<?>> steps, ProgressWrapper progress, Runnable step) {
+    return supplyStep(executor, steps, progress, () -> {
+      step.run();
+      return null;
+    });
+  }
+
+  /**
+   * Steps run in worker threads, so they don't report the cancellation to the progress monitor of the client.
+   */
+  private static void checkCancelInStep(ProgressWrapper progress) {
+    if (progress.isCanceled()) {
+      throw new CanceledException();
+    }
+  }
+
+  /**
+   * Wait for a step, checking for cancellation and forwarding the progress of the step meanwhile.
+   */
+  private static <T> T await(CompletableFuture<T> step, ProgressWrapper progress, @Nullable DeferredProgressMonitor stepProgress) {
+    try {
+      while (true) {
+        try {
+          return step.get(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+          progress.checkCancel();
+          if (stepProgress != null) {
+            stepProgress.flush();
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CanceledException();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Unable to update storage", cause);
+    } finally {
+      if (stepProgress != null) {
+        stepProgress.flush();
+      }
+    }
+  }
+
+  /**
+   * Don't start remaining steps, and wait for running ones so that they don't write in the temp dir once it is deleted.
+   */
+  private static void stop(ExecutorService executor, List<CompletableFuture<?>> steps) {
+    steps.forEach(step -> step.cancel(false));
+    executor.shutdownNow();
+    try {
+      if (!executor.awaitTermination(TERMINATION_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        LOG.warn("Some storage update tasks are still running");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 }
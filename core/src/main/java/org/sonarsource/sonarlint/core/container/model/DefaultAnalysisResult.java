@@ -20,7 +20,9 @@
 package org.sonarsource.sonarlint.core.container.model;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
@@ -28,6 +30,8 @@ import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile
 
 public class DefaultAnalysisResult implements AnalysisResults {
   private Set<ClientInputFile> failedAnalysisFiles = new LinkedHashSet<>();
+  private Set<ClientInputFile> skippedLargeFiles = new LinkedHashSet<>();
+  private Map<ClientInputFile, Integer> truncatedIssues = new LinkedHashMap<>();
   private int fileCount;
 
   public DefaultAnalysisResult setFileCount(int fileCount) {
@@ -39,6 +43,18 @@ public class DefaultAnalysisResult implements AnalysisResults {
     failedAnalysisFiles.add(inputFile);
   }
 
+  public void addSkippedLargeFile(ClientInputFile inputFile) {
+    skippedLargeFiles.add(inputFile);
+  }
+
+  public synchronized void addTruncatedIssue(ClientInputFile inputFile) {
+    addTruncatedIssues(inputFile, 1);
+  }
+
+  public synchronized void addTruncatedIssues(ClientInputFile inputFile, int count) {
+    truncatedIssues.merge(inputFile, count, Integer::sum);
+  }
+
   @Override
   public int fileCount() {
     return fileCount;
@@ -49,4 +65,14 @@ public class DefaultAnalysisResult implements AnalysisResults {
     return failedAnalysisFiles;
   }
 
+  @Override
+  public Collection<ClientInputFile> skippedLargeFiles() {
+    return skippedLargeFiles;
+  }
+
+  @Override
+  public Map<ClientInputFile, Integer> truncatedIssues() {
+    return truncatedIssues;
+  }
+
 }
@@ -31,8 +31,6 @@ import org.sonar.api.batch.rule.internal.DefaultRule;
 import org.sonar.api.internal.ApiVersion;
 import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.rule.RuleKey;
-import org.sonar.api.server.rule.RulesDefinition.Context;
-import org.sonar.api.server.rule.RulesDefinition.Repository;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.UriReader;
 import org.sonar.api.utils.Version;
@@ -44,12 +42,17 @@ import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisCo
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
 import org.sonarsource.sonarlint.core.container.analysis.AnalysisContainer;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCache;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileIndexingPool;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadataCache;
 import org.sonarsource.sonarlint.core.container.connected.validate.PluginVersionChecker;
 import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
 import org.sonarsource.sonarlint.core.container.global.GlobalTempFolderProvider;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 import org.sonarsource.sonarlint.core.container.model.DefaultRuleDetails;
 import org.sonarsource.sonarlint.core.container.standalone.rule.StandaloneRuleRepositoryContainer;
+import org.sonarsource.sonarlint.core.container.standalone.rule.StandaloneRulesSnapshot;
+import org.sonarsource.sonarlint.core.container.standalone.rule.StandaloneRulesSnapshotStore;
 import org.sonarsource.sonarlint.core.plugin.DefaultPluginJarExploder;
 import org.sonarsource.sonarlint.core.plugin.PluginCacheLoader;
 import org.sonarsource.sonarlint.core.plugin.PluginClassloaderFactory;
@@ -63,7 +66,7 @@ public class StandaloneGlobalContainer extends ComponentContainer {
 
   private Rules rules;
   private ActiveRules activeRules;
-  private Context rulesDefinitions;
+  private StandaloneRulesSnapshot rulesSnapshot;
 
   public static StandaloneGlobalContainer create(StandaloneGlobalConfiguration globalConfig) {
     StandaloneGlobalContainer container = new StandaloneGlobalContainer();
@@ -84,6 +87,10 @@ public class StandaloneGlobalContainer extends ComponentContainer {
       PluginClassloaderFactory.class,
       DefaultPluginJarExploder.class,
       ExtensionInstaller.class,
+      AnalysisResultCache.class,
+      FileMetadataCache.class,
+      FileIndexingPool.class,
+      StandaloneRulesSnapshotStore.class,
       new SonarQubeVersion(version),
       SonarRuntimeImpl.forSonarLint(version),
 
@@ -108,11 +115,16 @@ public class StandaloneGlobalContainer extends ComponentContainer {
   }
 
   private void loadRulesAndActiveRulesFromPlugins() {
-    StandaloneRuleRepositoryContainer container = new StandaloneRuleRepositoryContainer(this);
-    container.execute();
-    rules = container.getRules();
-    activeRules = container.getActiveRules();
-    rulesDefinitions = container.getRulesDefinitions();
+    StandaloneRulesSnapshotStore snapshotStore = getComponentByType(StandaloneRulesSnapshotStore.class);
+    rulesSnapshot = snapshotStore.read();
+    if (rulesSnapshot == null) {
+      StandaloneRuleRepositoryContainer container = new StandaloneRuleRepositoryContainer(this);
+      container.execute();
+      rulesSnapshot = StandaloneRulesSnapshot.create(snapshotStore.key(), container.getRules(), container.getRulesDefinitions(), container.getActiveRules());
+      snapshotStore.write(rulesSnapshot);
+    }
+    rules = rulesSnapshot.getRules();
+    activeRules = rulesSnapshot.getActiveRules();
   }
 
   public AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, ProgressWrapper progress) {
@@ -134,10 +146,8 @@ public class StandaloneGlobalContainer extends ComponentContainer {
     if (rule == null) {
       throw new IllegalArgumentException("Unable to find rule with key " + ruleKey);
     }
-    Repository repo = rulesDefinitions.repository(rule.key().repository());
-
     return new DefaultRuleDetails(ruleKeyStr, rule.name(), rule.description(), rule.severity(), rule.type(),
-      repo.language(), repo.rule(rule.key().rule()).tags(), "");
+      rulesSnapshot.getLanguage(ruleKey), rulesSnapshot.getTags(ruleKey), "");
   }
 
   public Collection<String> getActiveRuleKeys() {
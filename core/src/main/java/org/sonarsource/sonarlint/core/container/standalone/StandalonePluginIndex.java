@@ -22,11 +22,9 @@ package org.sonarsource.sonarlint.core.container.standalone;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.nio.file.Path;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -42,17 +40,24 @@ public class StandalonePluginIndex implements PluginIndex {
   private static final Logger LOG = Loggers.get(StandalonePluginIndex.class);
   private final StandalonePluginUrls pluginUrls;
   private final PluginCache fileCache;
+  private List<PluginReference> references;
 
   public StandalonePluginIndex(StandalonePluginUrls pluginUrls, PluginCache fileCache) {
     this.pluginUrls = pluginUrls;
     this.fileCache = fileCache;
   }
 
+  /**
+   * Plugins are hashed and copied to the cache on first call only.
+   */
   @Override
-  public List<PluginReference> references() {
-    return pluginUrls.urls().stream()
-      .map(this::getFromCacheOrCopy)
-      .collect(Collectors.toList());
+  public synchronized List<PluginReference> references() {
+    if (references == null) {
+      references = pluginUrls.urls().stream()
+        .map(this::getFromCacheOrCopy)
+        .collect(Collectors.toList());
+    }
+    return references;
   }
 
   private PluginReference getFromCacheOrCopy(final URL pluginUrl) {
@@ -68,7 +73,7 @@ public class StandalonePluginIndex implements PluginIndex {
     }
   }
 
-  private static class FileCopier implements PluginCache.Copier {
+  private static class FileCopier implements PluginCache.StreamCopier {
     private final URL url;
 
     FileCopier(URL pluginUrl) {
@@ -76,14 +81,14 @@ public class StandalonePluginIndex implements PluginIndex {
     }
 
     @Override
-    public void copy(String filename, Path toFile) throws IOException {
+    public PluginCache.CopyStream open(String filename, long offset) throws IOException {
       if (LOG.isDebugEnabled()) {
-        LOG.debug("Copy plugin {} to {}", url, toFile);
+        LOG.debug("Copy plugin {}", url);
       } else {
         LOG.info("Copy {}", StringUtils.substringAfterLast(url.getFile(), "/"));
       }
 
-      FileUtils.copyURLToFile(url, toFile.toFile());
+      return PluginCache.CopyStream.of(url.openStream());
     }
   }
 }
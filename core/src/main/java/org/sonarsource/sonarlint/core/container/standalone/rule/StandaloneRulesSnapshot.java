@@ -0,0 +1,150 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.standalone.rule;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.Rule;
+import org.sonar.api.batch.rule.RuleParam;
+import org.sonar.api.batch.rule.Rules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.DefaultRule;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.rule.internal.NewRule;
+import org.sonar.api.batch.rule.internal.RulesBuilder;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.server.rule.RulesDefinition;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
+
+import static com.google.common.base.Strings.emptyToNull;
+import static com.google.common.base.Strings.nullToEmpty;
+
+/**
+ * Rules and active rules loaded from the plugins, in a form that can be persisted to skip the execution of
+ * plugins {@link RulesDefinition} and {@link org.sonar.api.profiles.ProfileDefinition} on next start.
+ */
+public class StandaloneRulesSnapshot {
+
+  private final Sonarlint.StandaloneRules proto;
+  private Rules rules;
+  private ActiveRules activeRules;
+
+  public StandaloneRulesSnapshot(Sonarlint.StandaloneRules proto) {
+    this.proto = proto;
+  }
+
+  public static StandaloneRulesSnapshot create(String key, Rules rules, RulesDefinition.Context rulesDefinitions, ActiveRules activeRules) {
+    Sonarlint.StandaloneRules.Builder builder = Sonarlint.StandaloneRules.newBuilder().setKey(key);
+    for (Rule r : rules.findAll()) {
+      DefaultRule rule = (DefaultRule) r;
+      RuleKey ruleKey = rule.key();
+      RulesDefinition.Repository repo = rulesDefinitions.repository(ruleKey.repository());
+      Sonarlint.StandaloneRules.Rule.Builder ruleBuilder = Sonarlint.StandaloneRules.Rule.newBuilder()
+        .setRepo(ruleKey.repository())
+        .setKey(ruleKey.rule())
+        .setName(nullToEmpty(rule.name()))
+        .setSeverity(nullToEmpty(rule.severity()))
+        .setLang(nullToEmpty(repo.language()))
+        .setInternalKey(nullToEmpty(rule.internalKey()))
+        .setHtmlDesc(nullToEmpty(rule.description()))
+        .setType(nullToEmpty(rule.type()))
+        .addAllTags(repo.rule(ruleKey.rule()).tags());
+      for (RuleParam param : rule.params()) {
+        ruleBuilder.addParam(Sonarlint.StandaloneRules.Param.newBuilder()
+          .setKey(param.key())
+          .setDescription(nullToEmpty(param.description())));
+      }
+      builder.putRulesByKey(ruleKey.toString(), ruleBuilder.build());
+    }
+    for (ActiveRule activeRule : activeRules.findAll()) {
+      builder.putActiveRulesByKey(activeRule.ruleKey().toString(), Sonarlint.StandaloneRules.ActiveRule.newBuilder()
+        .setRepo(activeRule.ruleKey().repository())
+        .setKey(activeRule.ruleKey().rule())
+        .setSeverity(nullToEmpty(activeRule.severity()))
+        .setLang(nullToEmpty(activeRule.language()))
+        .setInternalKey(nullToEmpty(activeRule.internalKey()))
+        .setTemplateKey(nullToEmpty(activeRule.templateRuleKey()))
+        .putAllParams(activeRule.params())
+        .build());
+    }
+    return new StandaloneRulesSnapshot(builder.build());
+  }
+
+  public Sonarlint.StandaloneRules getProto() {
+    return proto;
+  }
+
+  public Rules getRules() {
+    if (rules == null) {
+      RulesBuilder builder = new RulesBuilder();
+      for (Sonarlint.StandaloneRules.Rule r : proto.getRulesByKeyMap().values()) {
+        NewRule newRule = builder.add(RuleKey.of(r.getRepo(), r.getKey()))
+          .setInternalKey(emptyToNull(r.getInternalKey()))
+          .setDescription(emptyToNull(r.getHtmlDesc()))
+          .setSeverity(emptyToNull(r.getSeverity()))
+          .setType(emptyToNull(r.getType()))
+          .setName(emptyToNull(r.getName()));
+        for (Sonarlint.StandaloneRules.Param p : r.getParamList()) {
+          newRule.addParam(p.getKey())
+            .setDescription(emptyToNull(p.getDescription()));
+        }
+      }
+      rules = builder.build();
+    }
+    return rules;
+  }
+
+  public ActiveRules getActiveRules() {
+    if (activeRules == null) {
+      ActiveRulesBuilder builder = new ActiveRulesBuilder();
+      for (Map.Entry<String, Sonarlint.StandaloneRules.ActiveRule> entry : proto.getActiveRulesByKeyMap().entrySet()) {
+        Sonarlint.StandaloneRules.ActiveRule ar = entry.getValue();
+        Sonarlint.StandaloneRules.Rule rule = proto.getRulesByKeyMap().get(entry.getKey());
+        NewActiveRule newAr = builder.create(RuleKey.of(ar.getRepo(), ar.getKey()))
+          .setLanguage(emptyToNull(ar.getLang()))
+          .setName(rule != null ? emptyToNull(rule.getName()) : null)
+          .setSeverity(emptyToNull(ar.getSeverity()))
+          .setInternalKey(emptyToNull(ar.getInternalKey()))
+          .setTemplateRuleKey(emptyToNull(ar.getTemplateKey()));
+        for (Map.Entry<String, String> param : ar.getParamsMap().entrySet()) {
+          newAr.setParam(param.getKey(), param.getValue());
+        }
+        newAr.activate();
+      }
+      activeRules = builder.build();
+    }
+    return activeRules;
+  }
+
+  @CheckForNull
+  public String getLanguage(RuleKey ruleKey) {
+    Sonarlint.StandaloneRules.Rule rule = proto.getRulesByKeyMap().get(ruleKey.toString());
+    return rule != null ? emptyToNull(rule.getLang()) : null;
+  }
+
+  public Set<String> getTags(RuleKey ruleKey) {
+    Sonarlint.StandaloneRules.Rule rule = proto.getRulesByKeyMap().get(ruleKey.toString());
+    return rule != null ? new TreeSet<>(rule.getTagsList()) : new TreeSet<>();
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.standalone.rule;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+import org.sonarsource.sonarlint.core.container.standalone.StandalonePluginIndex;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.plugin.PluginIndex.PluginReference;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
+import org.sonarsource.sonarlint.core.util.StringUtils;
+import org.sonarsource.sonarlint.core.util.VersionUtils;
+
+/**
+ * Persists the {@link StandaloneRulesSnapshot} in the SonarLint user home. A snapshot is identified by the hashes of the plugin jars
+ * and the version of SonarLint Core, so plugins rules are loaded again when any plugin is added, removed or updated.
+ * The user home is shared by all engines of the user, which may have different plugins, so the {@value #DEFAULT_MAX_SNAPSHOTS} most
+ * recently used snapshots are kept.
+ */
+public class StandaloneRulesSnapshotStore {
+
+  private static final Logger LOG = Loggers.get(StandaloneRulesSnapshotStore.class);
+  private static final String SNAPSHOT_EXTENSION = ".pb";
+  static final int DEFAULT_MAX_SNAPSHOTS = 5;
+
+  private final Path snapshotDir;
+  private final StandalonePluginIndex pluginIndex;
+  private final int maxSnapshots;
+  private String key;
+
+  public StandaloneRulesSnapshotStore(AbstractGlobalConfiguration globalConfiguration, StandalonePluginIndex pluginIndex) {
+    this(globalConfiguration.getSonarLintUserHome().resolve("rules"), pluginIndex, DEFAULT_MAX_SNAPSHOTS);
+  }
+
+  StandaloneRulesSnapshotStore(Path snapshotDir, StandalonePluginIndex pluginIndex, int maxSnapshots) {
+    this.snapshotDir = snapshotDir;
+    this.pluginIndex = pluginIndex;
+    this.maxSnapshots = maxSnapshots;
+  }
+
+  public synchronized String key() {
+    if (key == null) {
+      List<String> pluginHashes = pluginIndex.references().stream()
+        .map(PluginReference::getHash)
+        .sorted()
+        .collect(Collectors.toList());
+      key = StringUtils.md5(VersionUtils.getLibraryVersion() + pluginHashes);
+    }
+    return key;
+  }
+
+  /**
+   * @return the snapshot matching the current plugins, or null if there is none or if it can't be read
+   */
+  @CheckForNull
+  public StandaloneRulesSnapshot read() {
+    Path snapshotFile = snapshotFile();
+    if (!Files.isRegularFile(snapshotFile)) {
+      return null;
+    }
+    try {
+      Sonarlint.StandaloneRules proto = ProtobufUtil.readFile(snapshotFile, Sonarlint.StandaloneRules.parser());
+      if (!key().equals(proto.getKey())) {
+        return null;
+      }
+      LOG.debug("Load rules from {}", snapshotFile);
+      markUsed(snapshotFile);
+      return new StandaloneRulesSnapshot(proto);
+    } catch (RuntimeException e) {
+      LOG.debug("Unable to read rules snapshot " + snapshotFile, e);
+      return null;
+    }
+  }
+
+  private static void markUsed(Path snapshotFile) {
+    try {
+      Files.setLastModifiedTime(snapshotFile, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      LOG.debug("Unable to update modification time of rules snapshot {}: {}", snapshotFile, e.getMessage());
+    }
+  }
+
+  /**
+   * Replace any previous snapshot of the same plugins. Failures are logged and ignored: rules will be loaded from plugins again on next start.
+   */
+  public void write(StandaloneRulesSnapshot snapshot) {
+    Path snapshotFile = snapshotFile();
+    try {
+      Files.createDirectories(snapshotDir);
+      Path tmpFile = Files.createTempFile(snapshotDir, key(), ".tmp");
+      try {
+        ProtobufUtil.writeToFile(snapshot.getProto(), tmpFile);
+        Files.move(tmpFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+      deleteLeastRecentlyUsedSnapshots(snapshotFile);
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Unable to write rules snapshot " + snapshotFile, e);
+    }
+  }
+
+  private void deleteLeastRecentlyUsedSnapshots(Path snapshotFile) throws IOException {
+    List<Path> others = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(snapshotDir, "*" + SNAPSHOT_EXTENSION)) {
+      for (Path file : stream) {
+        if (!file.equals(snapshotFile)) {
+          others.add(file);
+        }
+      }
+    }
+    if (others.size() < maxSnapshots) {
+      return;
+    }
+    others.sort(Comparator.comparing(StandaloneRulesSnapshotStore::lastModified).reversed());
+    for (Path file : others.subList(maxSnapshots - 1, others.size())) {
+      LOG.debug("Delete least recently used rules snapshot {}", file);
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static FileTime lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch (IOException e) {
+      // deleted by another engine
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  private Path snapshotFile() {
+    return snapshotDir.resolve(key() + SNAPSHOT_EXTENSION);
+  }
+}
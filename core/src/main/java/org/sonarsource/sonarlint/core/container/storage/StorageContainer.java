@@ -34,6 +34,9 @@ import org.sonar.api.utils.Version;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.GlobalStorageStatus;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCache;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileIndexingPool;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadataCache;
 import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
 import org.sonarsource.sonarlint.core.container.connected.validate.PluginVersionChecker;
 import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
@@ -87,6 +90,9 @@ public class StorageContainer extends ComponentContainer {
 
       // analysis
       StorageAnalyzer.class,
+      AnalysisResultCache.class,
+      FileMetadataCache.class,
+      FileIndexingPool.class,
 
       // needed during analysis (immutable)
       UriReader.class,
@@ -45,6 +45,7 @@ public class StoragePaths {
   public static final String ACTIVE_RULES_FOLDER = "active_rules";
   public static final String MODULE_LIST_PB = "module_list.pb";
   public static final String SERVER_ISSUES_DIR = "server_issues";
+  public static final String HTTP_VALIDATORS_PB = "http_validators.pb";
 
   private final Path serverStorageRoot;
   private final Path globalStorageRoot;
@@ -20,10 +20,17 @@
 package org.sonarsource.sonarlint.core.plugin.cache;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import javax.annotation.CheckForNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +43,9 @@ import org.slf4j.LoggerFactory;
 public class PluginCache {
 
   private static final Logger LOG = LoggerFactory.getLogger(PluginCache.class);
+  private static final String PART_FILE_SUFFIX = ".part";
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+  static final int MAX_COPY_ATTEMPTS = 3;
 
   private final Path cacheDir;
   private final Path tmpDirInCacheDir;
@@ -77,24 +87,170 @@ public class PluginCache {
     void copy(String filename, Path toFile) throws IOException;
   }
 
+  /**
+   * {@link Copier} providing the file as a stream, so that its hash is computed while it is written in the cache.
+   * When a previous copy of the same file was interrupted, the copier is asked for the remaining bytes only.
+   */
+  public interface StreamCopier extends Copier {
+
+    /**
+     * Open the content of the file. When {@code offset} is greater than 0, implementations able to skip the first {@code offset} bytes
+     * should return {@link CopyStream#resumed(InputStream, long)}, others the whole content with {@link CopyStream#of(InputStream)}.
+     */
+    CopyStream open(String filename, long offset) throws IOException;
+
+    @Override
+    default void copy(String filename, Path toFile) throws IOException {
+      try (InputStream stream = open(filename, 0).stream()) {
+        Files.copy(stream, toFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+  }
+
+  public static final class CopyStream {
+    private final InputStream stream;
+    private final long offset;
+
+    private CopyStream(InputStream stream, long offset) {
+      this.stream = stream;
+      this.offset = offset;
+    }
+
+    public static CopyStream of(InputStream stream) {
+      return new CopyStream(stream, 0);
+    }
+
+    public static CopyStream resumed(InputStream stream, long offset) {
+      return new CopyStream(stream, offset);
+    }
+
+    public InputStream stream() {
+      return stream;
+    }
+
+    /**
+     * Position of the first byte of the stream in the file
+     */
+    public long offset() {
+      return offset;
+    }
+  }
+
   public Path get(String filename, String hash, Copier copier) {
     // Does not fail if another process tries to create the directory at the same time.
     Path hashDir = hashDir(hash);
     Path targetFile = hashDir.resolve(filename);
     if (Files.notExists(targetFile)) {
-      Path tempFile = newTempFile();
-      copy(copier, filename, tempFile);
-      String downloadedHash = hashes.of(tempFile);
-      if (!hash.equals(downloadedHash)) {
-        throw new IllegalStateException("INVALID HASH: File " + tempFile + " was expected to have hash " + hash
-          + " but was copied with hash " + downloadedHash);
+      if (copier instanceof StreamCopier) {
+        Path partFile = tmpDirInCacheDir.resolve(hash + "-" + filename + PART_FILE_SUFFIX);
+        if (!streamCopy((StreamCopier) copier, filename, hash, partFile, targetFile)) {
+          // the same file is being copied by another process or thread, don't share its partial copy
+          streamCopy((StreamCopier) copier, filename, hash, newTempFile(), targetFile);
+        }
+      } else {
+        Path tempFile = newTempFile();
+        copy(copier, filename, tempFile);
+        moveToCache(tempFile, hash, hashes.of(tempFile), targetFile);
       }
-      createDirIfNeeded(hashDir, "target directory in cache");
-      renameQuietly(tempFile, targetFile);
     }
     return targetFile;
   }
 
+  /**
+   * Copy the file, resuming from the bytes already in the given file, and retrying when the copy is interrupted.
+   * The lock on the given file is held until it is moved into the cache, so that another copy never resumes from a file that was moved.
+   * @return false if the given file is locked by another copy
+   */
+  private static boolean streamCopy(StreamCopier copier, String filename, String hash, Path toFile, Path targetFile) {
+    try (FileChannel channel = FileChannel.open(toFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      FileLock lock = tryLock(channel)) {
+      if (lock == null) {
+        return false;
+      }
+      if (Files.exists(targetFile)) {
+        // moved into the cache by another copy while this one was opening the file
+        return true;
+      }
+      moveToCache(toFile, hash, streamCopy(copier, filename, channel), targetFile);
+      return true;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to copy " + filename + " to " + toFile, e);
+    }
+  }
+
+  private static String streamCopy(StreamCopier copier, String filename, FileChannel channel) throws IOException {
+    for (int attempt = 1;; attempt++) {
+      try {
+        return copyOnce(copier, filename, channel);
+      } catch (IOException e) {
+        if (attempt >= MAX_COPY_ATTEMPTS || !channel.isOpen()) {
+          throw e;
+        }
+        LOG.debug("Copy of {} interrupted after {} bytes, resuming", filename, channel.size(), e);
+      }
+    }
+  }
+
+  private static void moveToCache(Path tempFile, String hash, String downloadedHash, Path targetFile) {
+    if (!hash.equals(downloadedHash)) {
+      deleteQuietly(tempFile);
+      throw new IllegalStateException("INVALID HASH: File " + tempFile + " was expected to have hash " + hash
+        + " but was copied with hash " + downloadedHash);
+    }
+    createDirIfNeeded(targetFile.getParent(), "target directory in cache");
+    renameQuietly(tempFile, targetFile);
+  }
+
+  private static String copyOnce(StreamCopier copier, String filename, FileChannel channel) throws IOException {
+    MessageDigest digest = PluginHashes.newDigest();
+    ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+    long existing = channel.size();
+    CopyStream source = copier.open(filename, existing);
+    try (InputStream stream = source.stream()) {
+      if (existing > 0 && source.offset() == existing) {
+        // hash the bytes of the interrupted copy, then append the rest
+        channel.position(0);
+        while (channel.read(buffer) > 0) {
+          buffer.flip();
+          digest.update(buffer);
+          buffer.clear();
+        }
+      } else if (source.offset() == 0) {
+        channel.truncate(0);
+        channel.position(0);
+      } else {
+        throw new IllegalStateException("Unable to resume copy of " + filename + " at offset " + source.offset());
+      }
+      byte[] bytes = buffer.array();
+      int read;
+      while ((read = stream.read(bytes)) != -1) {
+        digest.update(bytes, 0, read);
+        ByteBuffer chunk = ByteBuffer.wrap(bytes, 0, read);
+        while (chunk.hasRemaining()) {
+          channel.write(chunk);
+        }
+      }
+    }
+    return PluginHashes.toHex(digest.digest());
+  }
+
+  @CheckForNull
+  private static FileLock tryLock(FileChannel channel) throws IOException {
+    try {
+      return channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      return null;
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Unable to delete {}", file, e);
+    }
+  }
+
   private static void copy(Copier copier, String filename, Path tempFile) {
     try {
       copier.copy(filename, tempFile);
@@ -25,6 +25,7 @@ import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * Hashes used to store files in the cache directory.
@@ -46,7 +47,7 @@ public class PluginHashes {
    */
   public String of(InputStream input) {
     try (InputStream is = input) {
-      MessageDigest digest = MessageDigest.getInstance("MD5");
+      MessageDigest digest = newDigest();
       byte[] hash = digest(is, digest);
       return toHex(hash);
     } catch (Exception e) {
@@ -64,6 +65,18 @@ public class PluginHashes {
     return digest.digest();
   }
 
+  /**
+   * Digest to be updated with the content of a file, to compute its hash without reading it again.
+   * @see #toHex(byte[])
+   */
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 algorithm not available", e);
+    }
+  }
+
   static String toHex(byte[] bytes) {
     BigInteger bi = new BigInteger(1, bytes);
     return String.format("%0" + (bytes.length << 1) + "x", bi);
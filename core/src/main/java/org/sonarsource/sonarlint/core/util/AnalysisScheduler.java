@@ -0,0 +1,398 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisQueueMetrics;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
+
+/**
+ * Limits the number of analyses running at the same time. Analyses wait on the caller's thread and are started in FIFO order.
+ * A request with the same key as a waiting one joins it: the analysis runs once, on the thread and with the configuration of one
+ * of the callers. Issues, logs and progress are forwarded to every caller, and each caller gets its own result
+ * (see {@link Caller#resultOf(Object)}). The analysis is only cancelled when all callers cancel it.
+ */
+public class AnalysisScheduler implements AnalysisQueueMetrics {
+
+  private static final long CANCELLATION_CHECK_INTERVAL_MS = 100;
+
+  private final int maxConcurrent;
+  private final Object lock = new Object();
+  private final Deque<Request> queue = new ArrayDeque<>();
+  private final Map<Object, Request> waitingByKey = new HashMap<>();
+
+  private int running;
+  private long requested;
+  private long coalesced;
+  private long totalWaitTimeNanos;
+  private long maxWaitTimeNanos;
+
+  /**
+   * @param maxConcurrent maximum number of analyses running at the same time, or 0 for no limit
+   */
+  public AnalysisScheduler(int maxConcurrent) {
+    this.maxConcurrent = maxConcurrent;
+  }
+
+  /**
+   * Wait for a slot and run the analysis, or wait for the result of an identical request.
+   * @param keySupplier gives the key identifying identical requests, or null if the request must never be coalesced. Only called
+   * when the request has to wait, since requests are only coalesced while waiting.
+   * @throws CanceledException if the calling thread is interrupted or the caller cancels while waiting, or if the caller cancelled
+   * an analysis that was run for other callers too
+   */
+  public <T> T schedule(Supplier<Object> keySupplier, Caller<T> caller) {
+    Object key = mustWait() ? keySupplier.get() : null;
+    Request request;
+    List<Caller<?>> callers;
+    synchronized (lock) {
+      requested++;
+      request = key != null ? waitingByKey.get(key) : null;
+      if (request != null) {
+        coalesced++;
+      } else {
+        request = new Request(key);
+        queue.add(request);
+        if (key != null) {
+          waitingByKey.put(key, request);
+        }
+        dispatch();
+      }
+      request.callers.add(caller);
+      awaitTurn(request, caller);
+      if (request.done) {
+        return resultFor(request, caller);
+      }
+      request.claimed = true;
+      request.runBy = caller;
+      callers = new ArrayList<>(request.callers);
+    }
+
+    try {
+      if (callers.size() == 1) {
+        request.value = caller.analyze(caller.issueListener, caller.logOutput, caller.monitor);
+      } else {
+        request.value = caller.analyze(new FanOutIssueListener(callers), FanOutLogOutput.of(callers), new FanOutProgressMonitor(callers));
+      }
+    } catch (RuntimeException | Error e) {
+      request.failure = e;
+    } finally {
+      synchronized (lock) {
+        request.done = true;
+        running--;
+        dispatch();
+        lock.notifyAll();
+      }
+    }
+    return resultFor(request, caller);
+  }
+
+  private boolean mustWait() {
+    synchronized (lock) {
+      return !queue.isEmpty() || (maxConcurrent > 0 && running >= maxConcurrent);
+    }
+  }
+
+  private static <T> T resultFor(Request request, Caller<T> caller) {
+    T value = request.result();
+    if (request.callers.size() > 1 && caller.isCanceled()) {
+      // the analysis went on for the other callers
+      throw new CanceledException();
+    }
+    return caller == request.runBy ? value : caller.resultOf(value);
+  }
+
+  /**
+   * A caller that cancels while waiting, for example because a newer analysis of the same files superseded it, leaves the queue
+   */
+  private void awaitTurn(Request request, Caller<?> caller) {
+    try {
+      while (!request.done && (!request.granted || request.claimed)) {
+        if (caller.isCanceled()) {
+          leave(request, caller);
+          throw new CanceledException();
+        }
+        lock.wait(CANCELLATION_CHECK_INTERVAL_MS);
+      }
+    } catch (InterruptedException e) {
+      leave(request, caller);
+      Thread.currentThread().interrupt();
+      throw new CanceledException();
+    }
+    if (!request.done && caller.isCanceled()) {
+      leave(request, caller);
+      throw new CanceledException();
+    }
+  }
+
+  private void leave(Request request, Caller<?> caller) {
+    request.callers.remove(caller);
+    if (request.callers.isEmpty() && !request.claimed) {
+      abandon(request);
+    }
+  }
+
+  private void abandon(Request request) {
+    if (request.granted) {
+      running--;
+    } else {
+      queue.remove(request);
+      removeWaiting(request);
+    }
+    dispatch();
+  }
+
+  private void dispatch() {
+    boolean granted = false;
+    while (!queue.isEmpty() && (maxConcurrent <= 0 || running < maxConcurrent)) {
+      Request next = queue.poll();
+      removeWaiting(next);
+      next.granted = true;
+      running++;
+      long waitTime = System.nanoTime() - next.enqueuedAt;
+      totalWaitTimeNanos += waitTime;
+      maxWaitTimeNanos = Math.max(maxWaitTimeNanos, waitTime);
+      granted = true;
+    }
+    if (granted) {
+      lock.notifyAll();
+    }
+  }
+
+  private void removeWaiting(Request request) {
+    if (request.key != null) {
+      waitingByKey.remove(request.key, request);
+    }
+  }
+
+  @Override
+  public int queueDepth() {
+    synchronized (lock) {
+      return queue.size();
+    }
+  }
+
+  @Override
+  public int runningAnalyses() {
+    synchronized (lock) {
+      return running;
+    }
+  }
+
+  @Override
+  public long requestedAnalyses() {
+    synchronized (lock) {
+      return requested;
+    }
+  }
+
+  @Override
+  public long coalescedAnalyses() {
+    synchronized (lock) {
+      return coalesced;
+    }
+  }
+
+  @Override
+  public long totalWaitTimeMs() {
+    synchronized (lock) {
+      return TimeUnit.NANOSECONDS.toMillis(totalWaitTimeNanos);
+    }
+  }
+
+  @Override
+  public long maxWaitTimeMs() {
+    synchronized (lock) {
+      return TimeUnit.NANOSECONDS.toMillis(maxWaitTimeNanos);
+    }
+  }
+
+  /**
+   * A request to analyze, with the listener, log output and progress monitor of the caller.
+   */
+  public abstract static class Caller<T> {
+    private final IssueListener issueListener;
+    private final LogOutput logOutput;
+    private final ProgressMonitor monitor;
+
+    protected Caller(IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
+      this.issueListener = issueListener;
+      this.logOutput = logOutput;
+      this.monitor = monitor;
+    }
+
+    /**
+     * Run the analysis with the configuration of this caller.
+     */
+    protected abstract T analyze(IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor);
+
+    /**
+     * Result to return to this caller, when the analysis was run by another caller of the same request.
+     */
+    protected T resultOf(T sharedResult) {
+      return sharedResult;
+    }
+
+    private boolean isCanceled() {
+      return monitor != null && monitor.isCanceled();
+    }
+  }
+
+  private static class Request {
+    private final Object key;
+    private final long enqueuedAt = System.nanoTime();
+    private final List<Caller<?>> callers = new ArrayList<>();
+    private boolean granted;
+    private boolean claimed;
+    private boolean done;
+    private Caller<?> runBy;
+    private Object value;
+    private Throwable failure;
+
+    private Request(@Nullable Object key) {
+      this.key = key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T result() {
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+      return (T) value;
+    }
+  }
+
+  /**
+   * Issues are not given anymore to callers that cancelled the analysis.
+   */
+  private static class FanOutIssueListener implements IssueListener {
+    private final List<Caller<?>> callers;
+
+    private FanOutIssueListener(List<Caller<?>> callers) {
+      this.callers = callers;
+    }
+
+    @Override
+    public void handle(Issue issue) {
+      for (Caller<?> caller : callers) {
+        if (!caller.isCanceled()) {
+          caller.issueListener.handle(issue);
+        }
+      }
+    }
+
+    @Override
+    public void handleBatch(List<Issue> issues) {
+      for (Caller<?> caller : callers) {
+        if (!caller.isCanceled()) {
+          caller.issueListener.handleBatch(issues);
+        }
+      }
+    }
+  }
+
+  private static class FanOutLogOutput implements LogOutput {
+    private final List<LogOutput> outputs;
+
+    private FanOutLogOutput(List<LogOutput> outputs) {
+      this.outputs = outputs;
+    }
+
+    @CheckForNull
+    private static LogOutput of(List<Caller<?>> callers) {
+      // callers may share the same output
+      List<LogOutput> outputs = callers.stream()
+        .map(c -> c.logOutput)
+        .filter(o -> o != null)
+        .distinct()
+        .collect(Collectors.toList());
+      if (outputs.isEmpty()) {
+        return null;
+      }
+      return outputs.size() == 1 ? outputs.get(0) : new FanOutLogOutput(outputs);
+    }
+
+    @Override
+    public void log(String formattedMessage, Level level) {
+      outputs.forEach(o -> o.log(formattedMessage, level));
+    }
+  }
+
+  private static class FanOutProgressMonitor extends ProgressMonitor {
+    private final List<ProgressMonitor> monitors;
+    private final boolean cancelable;
+
+    private FanOutProgressMonitor(List<Caller<?>> callers) {
+      this.monitors = callers.stream()
+        .map(c -> c.monitor)
+        .filter(m -> m != null)
+        .collect(Collectors.toList());
+      // a caller without monitor never cancels
+      this.cancelable = monitors.size() == callers.size();
+    }
+
+    @Override
+    public boolean isCanceled() {
+      return cancelable && monitors.stream().allMatch(ProgressMonitor::isCanceled);
+    }
+
+    @Override
+    public void setMessage(String msg) {
+      monitors.forEach(m -> m.setMessage(msg));
+    }
+
+    @Override
+    public void setFraction(float fraction) {
+      monitors.forEach(m -> m.setFraction(fraction));
+    }
+
+    @Override
+    public void setIndeterminate(boolean indeterminate) {
+      monitors.forEach(m -> m.setIndeterminate(indeterminate));
+    }
+
+    @Override
+    public void startNonCancelableSection() {
+      monitors.forEach(ProgressMonitor::startNonCancelableSection);
+    }
+
+    @Override
+    public void finishNonCancelableSection() {
+      monitors.forEach(ProgressMonitor::finishNonCancelableSection);
+    }
+  }
+}
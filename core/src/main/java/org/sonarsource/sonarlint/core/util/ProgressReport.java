@@ -22,13 +22,14 @@ package org.sonarsource.sonarlint.core.util;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
 public class ProgressReport implements Runnable {
 
   private static final Logger LOG = Loggers.get(ProgressReport.class);
   private final long period;
-  private String message = "";
+  private volatile Supplier<String> message = () -> "";
   private final Thread thread;
   private String stopMessage = null;
 
@@ -44,7 +45,7 @@ public class ProgressReport implements Runnable {
     while (!Thread.interrupted()) {
       try {
         Thread.sleep(period);
-        log(message);
+        log(message.get());
       } catch (InterruptedException e) {
         break;
       }
@@ -60,6 +61,13 @@ public class ProgressReport implements Runnable {
   }
 
   public void message(String message) {
+    this.message = () -> message;
+  }
+
+  /**
+   * The supplier is only called when the message is logged, which avoids building a message that is never displayed.
+   */
+  public void message(Supplier<String> message) {
     this.message = message;
   }
 
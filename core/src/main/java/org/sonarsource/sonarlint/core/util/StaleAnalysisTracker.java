@@ -0,0 +1,128 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * Keeps track of in-flight analyses by set of analyzed files, so that a new analysis of the same files
+ * can cancel the outdated one (for example when the user keeps typing in the editor).
+ */
+public class StaleAnalysisTracker {
+
+  private final boolean enabled;
+  private final Map<Set<String>, SupersedableProgressMonitor> inFlight = new HashMap<>();
+
+  public StaleAnalysisTracker(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Register a new analysis. Any in-flight analysis of the same set of files is marked as superseded.
+   * @return the monitor to be used by the new analysis
+   */
+  @Nullable
+  public ProgressMonitor start(Iterable<ClientInputFile> inputFiles, @Nullable ProgressMonitor clientMonitor) {
+    if (!enabled) {
+      return clientMonitor;
+    }
+    Set<String> key = new TreeSet<>();
+    for (ClientInputFile inputFile : inputFiles) {
+      key.add(inputFile.getPath());
+    }
+    SupersedableProgressMonitor monitor = new SupersedableProgressMonitor(key, clientMonitor);
+    synchronized (inFlight) {
+      SupersedableProgressMonitor previous = inFlight.put(key, monitor);
+      if (previous != null) {
+        previous.supersede();
+      }
+    }
+    return monitor;
+  }
+
+  /**
+   * Unregister an analysis previously registered with {@link #start(Iterable, ProgressMonitor)}.
+   */
+  public void finish(@Nullable ProgressMonitor monitor) {
+    if (!(monitor instanceof SupersedableProgressMonitor)) {
+      return;
+    }
+    SupersedableProgressMonitor supersedable = (SupersedableProgressMonitor) monitor;
+    synchronized (inFlight) {
+      inFlight.remove(supersedable.key, supersedable);
+    }
+  }
+
+  static class SupersedableProgressMonitor extends ProgressMonitor {
+    private final Set<String> key;
+    private final ProgressMonitor delegate;
+    private volatile boolean superseded;
+
+    SupersedableProgressMonitor(Set<String> key, @Nullable ProgressMonitor delegate) {
+      this.key = key;
+      this.delegate = delegate != null ? delegate : new ProgressMonitor() {
+      };
+    }
+
+    void supersede() {
+      superseded = true;
+    }
+
+    boolean isSuperseded() {
+      return superseded;
+    }
+
+    @Override
+    public boolean isCanceled() {
+      return superseded || delegate.isCanceled();
+    }
+
+    @Override
+    public void setMessage(String msg) {
+      delegate.setMessage(msg);
+    }
+
+    @Override
+    public void setFraction(float fraction) {
+      delegate.setFraction(fraction);
+    }
+
+    @Override
+    public void setIndeterminate(boolean indeterminate) {
+      delegate.setIndeterminate(indeterminate);
+    }
+
+    @Override
+    public void startNonCancelableSection() {
+      delegate.startNonCancelableSection();
+    }
+
+    @Override
+    public void finishNonCancelableSection() {
+      delegate.finishNonCancelableSection();
+    }
+  }
+}
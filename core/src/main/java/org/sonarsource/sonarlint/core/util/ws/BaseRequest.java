@@ -22,7 +22,9 @@ package org.sonarsource.sonarlint.core.util.ws;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -42,6 +44,7 @@ abstract class BaseRequest<SELF extends BaseRequest> implements WsRequest {
   private String mediaType = MediaTypes.JSON;
 
   private final DefaultParameters parameters = new DefaultParameters();
+  private final Map<String, String> headers = new LinkedHashMap<>();
 
   BaseRequest(String path) {
     this.path = path;
@@ -116,6 +119,21 @@ abstract class BaseRequest<SELF extends BaseRequest> implements WsRequest {
     return parameters;
   }
 
+  public SELF setHeader(String name, @Nullable String value) {
+    checkArgument(!isNullOrEmpty(name), "a header name cannot be null");
+    if (value == null) {
+      headers.remove(name);
+    } else {
+      headers.put(name, value);
+    }
+    return (SELF) this;
+  }
+
+  @Override
+  public Map<String, String> getHeaders() {
+    return headers;
+  }
+
   private static class DefaultParameters implements Parameters {
     // preserve insertion order
     private final ListMultimap<String, String> keyValues = LinkedListMultimap.create();
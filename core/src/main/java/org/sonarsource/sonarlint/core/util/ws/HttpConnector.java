@@ -27,7 +27,9 @@ import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.X509TrustManager;
 
 import okhttp3.Call;
+import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
 import okhttp3.Headers;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
@@ -82,6 +84,8 @@ public class HttpConnector implements WsConnector {
     okHttpClientBuilder.setReadTimeoutMs(builder.readTimeoutMs);
     okHttpClientBuilder.setSSLSocketFactory(builder.sslSocketFactory);
     okHttpClientBuilder.setTrustManager(builder.sslTrustManager);
+    okHttpClientBuilder.setConnectionPool(builder.connectionPool);
+    okHttpClientBuilder.setDispatcher(builder.dispatcher);
     this.okHttpClient = okHttpClientBuilder.build();
   }
 
@@ -167,6 +171,7 @@ public class HttpConnector implements WsConnector {
     if (credentials != null) {
       okHttpRequestBuilder.header("Authorization", credentials);
     }
+    getRequest.getHeaders().forEach(okHttpRequestBuilder::header);
     return okHttpRequestBuilder;
   }
 
@@ -199,6 +204,8 @@ public class HttpConnector implements WsConnector {
     private int readTimeoutMs = DEFAULT_READ_TIMEOUT_MILLISECONDS;
     private SSLSocketFactory sslSocketFactory = null;
     private X509TrustManager sslTrustManager = null;
+    private ConnectionPool connectionPool = null;
+    private Dispatcher dispatcher = null;
 
     /**
      * Private since 5.5.
@@ -277,6 +284,22 @@ public class HttpConnector implements WsConnector {
       return this;
     }
 
+    /**
+     * Optional connection pool shared with other connectors. If not set, the connector gets its own pool.
+     */
+    public Builder connectionPool(@Nullable ConnectionPool connectionPool) {
+      this.connectionPool = connectionPool;
+      return this;
+    }
+
+    /**
+     * Optional dispatcher shared with other connectors. If not set, the connector gets its own dispatcher.
+     */
+    public Builder dispatcher(@Nullable Dispatcher dispatcher) {
+      this.dispatcher = dispatcher;
+      return this;
+    }
+
     public Builder proxy(@Nullable Proxy proxy) {
       this.proxy = proxy;
       return this;
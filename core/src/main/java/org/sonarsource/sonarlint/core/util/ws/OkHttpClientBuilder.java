@@ -39,8 +39,10 @@ import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
+import okhttp3.ConnectionPool;
 import okhttp3.ConnectionSpec;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -68,6 +70,8 @@ public class OkHttpClientBuilder {
   private long readTimeoutMs = -1;
   private SSLSocketFactory sslSocketFactory = null;
   private X509TrustManager sslTrustManager = null;
+  private ConnectionPool connectionPool = null;
+  private Dispatcher dispatcher = null;
 
   /**
    * Optional User-Agent. If set, then all the requests sent by the
@@ -96,6 +100,24 @@ public class OkHttpClientBuilder {
     return this;
   }
 
+  /**
+   * Optional connection pool, to share connections with other {@link OkHttpClient}.
+   * If not set, the client gets its own pool.
+   */
+  public OkHttpClientBuilder setConnectionPool(@Nullable ConnectionPool connectionPool) {
+    this.connectionPool = connectionPool;
+    return this;
+  }
+
+  /**
+   * Optional dispatcher, to share the executor of asynchronous calls with other {@link OkHttpClient}.
+   * If not set, the client gets its own dispatcher.
+   */
+  public OkHttpClientBuilder setDispatcher(@Nullable Dispatcher dispatcher) {
+    this.dispatcher = dispatcher;
+    return this;
+  }
+
   /**
    * Optional proxy. If set, then all the requests sent by the
    * {@link OkHttpClient} will reach the proxy. If not set,
@@ -151,6 +173,12 @@ public class OkHttpClientBuilder {
   public OkHttpClient build() {
     OkHttpClient.Builder builder = new OkHttpClient.Builder();
     builder.proxy(proxy);
+    if (connectionPool != null) {
+      builder.connectionPool(connectionPool);
+    }
+    if (dispatcher != null) {
+      builder.dispatcher(dispatcher);
+    }
     if (connectTimeoutMs >= 0) {
       builder.connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS);
     }
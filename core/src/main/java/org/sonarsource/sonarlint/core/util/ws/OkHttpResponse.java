@@ -49,6 +49,11 @@ class OkHttpResponse extends BaseResponse {
     return okResponse.header("Content-Type");
   }
 
+  @Override
+  public String header(String name) {
+    return okResponse.header(name);
+  }
+
   /**
    * Get stream of bytes
    */
@@ -22,6 +22,7 @@ package org.sonarsource.sonarlint.core.util.ws;
 import java.io.Closeable;
 import java.io.InputStream;
 import java.io.Reader;
+import javax.annotation.CheckForNull;
 
 /**
  * @since 5.3
@@ -51,6 +52,12 @@ public interface WsResponse extends Closeable {
 
   String contentType();
 
+  /**
+   * Value of the given response header, if present
+   */
+  @CheckForNull
+  String header(String name);
+
   boolean hasContent();
 
   InputStream contentStream();
@@ -0,0 +1,110 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.Rule;
+import org.sonarsource.sonarlint.core.analyzer.issue.DefaultClientIssue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.util.AnalysisScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ScheduledAnalysisTest {
+
+  private final List<Object> configuration = Arrays.asList("baseDir", "workDir", Collections.emptyMap());
+
+  @Test
+  public void same_key_for_same_files_on_disk() {
+    ClientInputFile file1 = TestUtils.createInputFile(Paths.get("Foo.java"), false);
+    ClientInputFile file2 = TestUtils.createInputFile(Paths.get("Foo.java"), false);
+
+    assertThat(ScheduledAnalysis.coalescingKey(configuration, Collections.singletonList(file1)))
+      .isEqualTo(ScheduledAnalysis.coalescingKey(configuration, Collections.singletonList(file2)));
+    assertThat(ScheduledAnalysis.coalescingKey(configuration, Collections.singletonList(file1)))
+      .isNotEqualTo(ScheduledAnalysis.coalescingKey(configuration, Collections.singletonList(TestUtils.createInputFile(Paths.get("Foo.java"), true))))
+      .isNotEqualTo(ScheduledAnalysis.coalescingKey(Arrays.asList("other baseDir", "workDir", Collections.emptyMap()), Collections.singletonList(file1)));
+  }
+
+  @Test
+  public void key_depends_on_content_of_unsaved_files() throws IOException {
+    Object key1 = ScheduledAnalysis.coalescingKey(configuration, Collections.singletonList(unsavedFile("class Foo {}")));
+    Object key2 = ScheduledAnalysis.coalescingKey(configuration, Collections.singletonList(unsavedFile("class Foo {}")));
+    Object key3 = ScheduledAnalysis.coalescingKey(configuration, Collections.singletonList(unsavedFile("class Foo { int i; }")));
+
+    assertThat(key1).isEqualTo(key2).isNotEqualTo(key3);
+  }
+
+  @Test
+  public void no_key_when_unsaved_file_cant_be_read() throws IOException {
+    ClientInputFile file = unsavedFile("");
+    when(file.inputStream()).thenThrow(new IOException());
+
+    assertThat(ScheduledAnalysis.coalescingKey(configuration, Collections.singletonList(file))).isNull();
+  }
+
+  @Test
+  public void bind_issues_and_results_to_own_input_files() {
+    ClientInputFile runnerFile = TestUtils.createInputFile(Paths.get("Foo.java"), false);
+    ClientInputFile ownFile = TestUtils.createInputFile(Paths.get("Foo.java"), false);
+    DefaultClientIssue issue = new DefaultClientIssue("MAJOR", null, mock(ActiveRule.class), mock(Rule.class), "msg", null, runnerFile, Collections.emptyList());
+    List<Issue> issues = new ArrayList<>();
+    ScheduledAnalysis analysis = new ScheduledAnalysis(Collections.singletonList(ownFile), issues::add, null, null, (listener, logOutput, monitor) -> {
+      listener.handle(issue);
+      return new DefaultAnalysisResult();
+    });
+
+    new AnalysisScheduler(0).schedule(() -> null, analysis);
+
+    assertThat(issues).extracting(Issue::getInputFile).containsExactly(ownFile);
+
+    DefaultAnalysisResult sharedResult = new DefaultAnalysisResult().setFileCount(1);
+    sharedResult.addFailedAnalysisFile(runnerFile);
+    sharedResult.addTruncatedIssues(runnerFile, 3);
+    AnalysisResults result = analysis.resultOf(sharedResult);
+    assertThat(result.fileCount()).isEqualTo(1);
+    assertThat(result.failedAnalysisFiles()).containsExactly(ownFile);
+    assertThat(result.truncatedIssues()).containsEntry(ownFile, 3);
+    assertThat(sharedResult.failedAnalysisFiles()).containsExactly(runnerFile);
+  }
+
+  private static ClientInputFile unsavedFile(String content) throws IOException {
+    ClientInputFile file = mock(ClientInputFile.class);
+    when(file.getPath()).thenReturn("Foo.java");
+    when(file.getCharset()).thenReturn(StandardCharsets.UTF_8);
+    when(file.isContentOnDisk()).thenReturn(false);
+    when(file.inputStream()).thenReturn(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    return file;
+  }
+}
@@ -80,4 +80,9 @@ public class TestClientInputFile implements ClientInputFile {
   public String contents() throws IOException {
     return new String(Files.readAllBytes(path), encoding);
   }
+
+  @Override
+  public boolean isContentOnDisk() {
+    return true;
+  }
 }
@@ -0,0 +1,170 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.issue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class BatchingIssueListenerTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private final List<Issue> handled = Collections.synchronizedList(new ArrayList<>());
+  private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+  private final IssueListener recordingListener = new IssueListener() {
+    @Override
+    public void handle(Issue issue) {
+      handled.add(issue);
+    }
+
+    @Override
+    public void handleBatch(List<Issue> issues) {
+      batchSizes.add(issues.size());
+      IssueListener.super.handleBatch(issues);
+    }
+  };
+
+  @Test
+  public void should_deliver_synchronously_when_batching_disabled() {
+    BatchingIssueListener listener = new BatchingIssueListener(recordingListener, 0, 50);
+    Issue issue = mock(Issue.class);
+
+    listener.handle(issue);
+
+    assertThat(handled).containsExactly(issue);
+    assertThat(batchSizes).isEmpty();
+    listener.awaitDelivery();
+  }
+
+  @Test
+  public void should_deliver_all_issues_in_order_and_in_batches() {
+    BatchingIssueListener listener = new BatchingIssueListener(recordingListener, 10, 1000);
+    List<Issue> reported = new ArrayList<>();
+    for (int i = 0; i < 95; i++) {
+      Issue issue = mock(Issue.class);
+      reported.add(issue);
+      listener.handle(issue);
+    }
+
+    listener.awaitDelivery();
+
+    assertThat(handled).containsExactlyElementsOf(reported);
+    assertThat(batchSizes).allMatch(size -> size <= 10);
+    assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(95);
+  }
+
+  @Test
+  public void should_share_scheduler_between_listeners() {
+    ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+    try {
+      List<List<Issue>> handledByListener = new ArrayList<>();
+      List<BatchingIssueListener> listeners = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        List<Issue> issues = Collections.synchronizedList(new ArrayList<>());
+        handledByListener.add(issues);
+        listeners.add(new BatchingIssueListener(issues::add, 3, 1000, scheduler));
+      }
+      List<Issue> reported = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        Issue issue = mock(Issue.class);
+        reported.add(issue);
+        listeners.forEach(l -> l.handle(issue));
+      }
+
+      listeners.forEach(BatchingIssueListener::awaitDelivery);
+
+      handledByListener.forEach(issues -> assertThat(issues).containsExactlyElementsOf(reported));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void should_flush_incomplete_batch_after_latency() throws InterruptedException {
+    CountDownLatch delivered = new CountDownLatch(1);
+    BatchingIssueListener listener = new BatchingIssueListener(new IssueListener() {
+      @Override
+      public void handle(Issue issue) {
+        delivered.countDown();
+      }
+    }, 100, 10);
+
+    listener.handle(mock(Issue.class));
+
+    assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+    listener.awaitDelivery();
+  }
+
+  @Test
+  public void should_block_analyzer_when_client_lags() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    BatchingIssueListener listener = new BatchingIssueListener(issue -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, 1, 0);
+    AtomicBoolean allReported = new AtomicBoolean();
+    Thread analyzer = new Thread(() -> {
+      for (int i = 0; i < 20; i++) {
+        listener.handle(mock(Issue.class));
+      }
+      allReported.set(true);
+    });
+    analyzer.start();
+
+    analyzer.join(500);
+    assertThat(allReported.get()).isFalse();
+
+    release.countDown();
+    analyzer.join(5000);
+    assertThat(allReported.get()).isTrue();
+    listener.awaitDelivery();
+  }
+
+  @Test
+  public void should_propagate_client_failure() {
+    BatchingIssueListener listener = new BatchingIssueListener(issue -> {
+      throw new IllegalStateException("client failure");
+    }, 5, 0);
+    listener.handle(mock(Issue.class));
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("client failure");
+    listener.awaitDelivery();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.issue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputComponent;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.Rule;
+import org.sonar.api.resources.Project;
+import org.sonar.api.scan.issue.filter.FilterableIssue;
+import org.sonar.api.scan.issue.filter.IssueFilter;
+import org.sonar.api.scan.issue.filter.IssueFilterChain;
+import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.IgnoreIssuesFilter;
+
+public class IssueFiltersTest {
+
+  private final Project project = mock(Project.class);
+  private final InputComponent component = mock(InputComponent.class);
+  private final DefaultClientIssue issue = new DefaultClientIssue("MAJOR", null, mock(ActiveRule.class), mock(Rule.class), "msg", null, null,
+    Collections.emptyList());
+
+  @Test
+  public void should_accept_without_wrapping_when_no_filter() {
+    IssueFilters filters = new IssueFilters(project);
+
+    assertThat(filters.accept(component, issue)).isTrue();
+    verifyZeroInteractions(component);
+  }
+
+  @Test
+  public void should_skip_exclusion_filter_without_patterns() {
+    IgnoreIssuesFilter ignoreFilter = mock(IgnoreIssuesFilter.class);
+    when(ignoreFilter.hasPatterns()).thenReturn(false);
+
+    IssueFilters filters = new IssueFilters(project, new IssueFilter[] {ignoreFilter});
+
+    assertThat(filters.accept(component, issue)).isTrue();
+    verify(ignoreFilter, never()).accept(any(FilterableIssue.class), any(IssueFilterChain.class));
+  }
+
+  @Test
+  public void should_share_chain_between_issues() {
+    List<IssueFilterChain> chains = new ArrayList<>();
+    IssueFilter recording = (i, chain) -> {
+      chains.add(chain);
+      return chain.accept(i);
+    };
+    IssueFilter refusing = (i, chain) -> false;
+
+    IssueFilters filters = new IssueFilters(project, new IssueFilter[] {recording, recording, refusing});
+
+    assertThat(filters.accept(component, issue)).isFalse();
+    assertThat(filters.accept(component, issue)).isFalse();
+    assertThat(chains).hasSize(4);
+    assertThat(chains.get(2)).isSameAs(chains.get(0));
+    assertThat(chains.get(3)).isSameAs(chains.get(1));
+    assertThat(chains.get(1)).isNotSameAs(chains.get(0));
+  }
+
+  @Test
+  public void should_apply_deprecated_filters_after_filters() {
+    IssueFilter accepting = (i, chain) -> chain.accept(i);
+    org.sonar.api.issue.batch.IssueFilter refusing = (i, chain) -> false;
+    when(component.key()).thenReturn("key");
+
+    IssueFilters filters = new IssueFilters(project, new IssueFilter[] {accepting}, new org.sonar.api.issue.batch.IssueFilter[] {refusing});
+
+    assertThat(filters.accept(component, issue)).isFalse();
+    assertThat(new IssueFilters(project, new IssueFilter[] {accepting}).accept(component, issue)).isTrue();
+  }
+}
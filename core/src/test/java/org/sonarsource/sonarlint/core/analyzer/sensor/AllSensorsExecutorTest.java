@@ -54,7 +54,7 @@ public class AllSensorsExecutorTest {
     project = mock(Project.class);
     SensorsPhaseHandler[] handlers = {handler};
     context = mock(SensorContext.class);
-    executor = new AllSensorsExecutor(context, dict, project, new ProgressWrapper(null), handlers);
+    executor = new AllSensorsExecutor(context, dict, project, new ProgressWrapper(null), mock(FileContentReleaser.class), handlers);
 
     when(dict.select(Sensor.class, project, true)).thenReturn(Collections.singletonList(sensor));
   }
@@ -35,9 +35,12 @@ import org.sonarsource.sonarlint.core.analyzer.sensor.noop.NoOpNewCpdTokens;
 import org.sonarsource.sonarlint.core.analyzer.sensor.noop.NoOpNewHighlighting;
 import org.sonarsource.sonarlint.core.analyzer.sensor.noop.NoOpNewMeasure;
 import org.sonarsource.sonarlint.core.analyzer.sensor.noop.NoOpNewSymbolTable;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -96,4 +99,14 @@ public class DefaultSensorContextTest {
     verifyZeroInteractions(activeRules);
     verifyZeroInteractions(sensorStorage);
   }
+
+  @Test(expected = CanceledException.class)
+  public void testCancelledOnAccess() {
+    ProgressMonitor monitor = mock(ProgressMonitor.class);
+    when(monitor.isCanceled()).thenReturn(true);
+    ctx = new DefaultSensorContext(module, settings, fs, activeRules, sensorStorage, sqRuntime, new ProgressWrapper(monitor));
+
+    assertThat(ctx.isCancelled()).isTrue();
+    ctx.newIssue();
+  }
 }
@@ -0,0 +1,211 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.sensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Collections;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.batch.fs.InputComponent;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.fs.internal.DefaultTextPointer;
+import org.sonar.api.batch.fs.internal.DefaultTextRange;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.Rules;
+import org.sonar.api.batch.rule.Severity;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.RulesBuilder;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.issue.IssueLocation;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.MessageException;
+import org.sonarsource.sonarlint.core.TestClientInputFile;
+import org.sonarsource.sonarlint.core.analyzer.issue.IssueFilters;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCacheSession;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+public class DefaultSensorStorageTest {
+
+  private static final RuleKey ACTIVE = RuleKey.of("squid", "active");
+  private static final RuleKey INACTIVE = RuleKey.of("squid", "inactive");
+  private static final RuleKey NO_NAME = RuleKey.of("squid", "noname");
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private Rules rules;
+  private ActiveRules activeRules;
+  private IssueListener issueListener = mock(IssueListener.class);
+  private IssueFilters filters = mock(IssueFilters.class);
+  private DefaultAnalysisResult analysisResult = new DefaultAnalysisResult();
+  private AnalysisResultCacheSession analysisResultCache = mock(AnalysisResultCacheSession.class);
+  private DefaultSensorStorage storage;
+
+  @Before
+  public void prepare() {
+    RulesBuilder rulesBuilder = new RulesBuilder();
+    rulesBuilder.add(ACTIVE).setName("Active rule").setType("BUG");
+    rulesBuilder.add(INACTIVE).setName("Inactive rule");
+    rulesBuilder.add(NO_NAME);
+    rules = spy(rulesBuilder.build());
+    activeRules = spy(new ActiveRulesBuilder()
+      .create(ACTIVE).setSeverity("MAJOR").activate()
+      .create(NO_NAME).setSeverity("MINOR").activate()
+      .build());
+
+    when(filters.accept(any(), any())).thenReturn(true);
+    storage = newStorage(StandaloneGlobalConfiguration.builder().build());
+  }
+
+  private DefaultSensorStorage newStorage(StandaloneGlobalConfiguration globalConfiguration) {
+    return new DefaultSensorStorage(activeRules, rules, filters, issueListener, analysisResult, mock(ProgressWrapper.class), analysisResultCache,
+      globalConfiguration);
+  }
+
+  @Test
+  public void should_build_issue_from_rule_descriptor() {
+    storage.store(newIssue(ACTIVE, null, null));
+    storage.store(newIssue(ACTIVE, "message", Severity.BLOCKER));
+
+    ArgumentCaptor<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue> captor = ArgumentCaptor
+      .forClass(org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.class);
+    verify(issueListener, times(2)).handle(captor.capture());
+    assertThat(captor.getAllValues()).extracting("ruleKey", "ruleName", "message", "severity", "type").containsExactly(
+      tuple("squid:active", "Active rule", "Active rule", "MAJOR", "BUG"),
+      tuple("squid:active", "Active rule", "message", "BLOCKER", "BUG"));
+  }
+
+  @Test
+  public void should_not_query_rules_when_storing_issues() {
+    reset(rules, activeRules);
+
+    storage.store(newIssue(ACTIVE, "message", null));
+    storage.store(newIssue(INACTIVE, "message", null));
+
+    verifyZeroInteractions(rules, activeRules);
+  }
+
+  @Test
+  public void should_ignore_issue_of_inactive_rule() {
+    storage.store(newIssue(INACTIVE, "message", null));
+
+    verifyZeroInteractions(issueListener);
+  }
+
+  @Test
+  public void should_fail_on_unknown_rule() {
+    thrown.expect(MessageException.class);
+    thrown.expectMessage("The rule 'squid:unknown' does not exist.");
+
+    storage.store(newIssue(RuleKey.of("squid", "unknown"), "message", null));
+  }
+
+  @Test
+  public void should_fail_on_rule_without_name_and_issue_without_message() {
+    thrown.expect(MessageException.class);
+    thrown.expectMessage("The rule 'squid:noname' has no name and the related issue has no message.");
+
+    storage.store(newIssue(NO_NAME, null, null));
+  }
+
+  @Test
+  public void should_report_identical_issues_once() {
+    ClientInputFile file = new TestClientInputFile(Paths.get("src/Foo.java"), false, StandardCharsets.UTF_8);
+    SonarLintInputFile inputFile = new SonarLintInputFile(file);
+
+    storage.store(newIssue(ACTIVE, inputFile, range(1), "message", null));
+    storage.store(newIssue(ACTIVE, inputFile, range(1), "message", Severity.BLOCKER));
+    storage.store(newIssue(ACTIVE, inputFile, range(1), "other message", null));
+    storage.store(newIssue(ACTIVE, inputFile, range(2), "message", null));
+    storage.store(newIssue(NO_NAME, inputFile, range(1), "message", null));
+
+    verify(issueListener, times(4)).handle(any());
+    assertThat(analysisResult.truncatedIssues()).isEmpty();
+    verify(analysisResultCache, never()).discard(any());
+  }
+
+  @Test
+  public void should_cap_issues_per_rule_and_per_file() {
+    storage = newStorage(StandaloneGlobalConfiguration.builder().setMaxIssuesPerRulePerFile(2).setMaxIssuesPerFile(3).build());
+    ClientInputFile file1 = new TestClientInputFile(Paths.get("src/Foo.java"), false, StandardCharsets.UTF_8);
+    ClientInputFile file2 = new TestClientInputFile(Paths.get("src/Bar.java"), false, StandardCharsets.UTF_8);
+    SonarLintInputFile inputFile1 = new SonarLintInputFile(file1);
+    SonarLintInputFile inputFile2 = new SonarLintInputFile(file2);
+
+    for (int line = 1; line <= 5; line++) {
+      storage.store(newIssue(ACTIVE, inputFile1, range(line), "message", null));
+      storage.store(newIssue(NO_NAME, inputFile1, range(line), "message", null));
+    }
+    storage.store(newIssue(ACTIVE, inputFile2, range(1), "message", null));
+    storage.store(newIssue(ACTIVE, inputFile2, range(2), "message", null));
+
+    verify(issueListener, times(5)).handle(any());
+    assertThat(analysisResult.truncatedIssues()).containsOnly(entry(file1, 7));
+    verify(analysisResultCache, atLeastOnce()).discard(file1);
+    verify(analysisResultCache, never()).discard(file2);
+  }
+
+  private static TextRange range(int line) {
+    return new DefaultTextRange(new DefaultTextPointer(line, 0), new DefaultTextPointer(line, 5));
+  }
+
+  private static Issue newIssue(RuleKey ruleKey, @Nullable String message, @Nullable Severity overriddenSeverity) {
+    return newIssue(ruleKey, mock(InputComponent.class), null, message, overriddenSeverity);
+  }
+
+  private static Issue newIssue(RuleKey ruleKey, InputComponent component, @Nullable TextRange textRange, @Nullable String message,
+    @Nullable Severity overriddenSeverity) {
+    IssueLocation location = mock(IssueLocation.class);
+    when(location.inputComponent()).thenReturn(component);
+    when(location.textRange()).thenReturn(textRange);
+    when(location.message()).thenReturn(message);
+    Issue issue = mock(Issue.class);
+    when(issue.ruleKey()).thenReturn(ruleKey);
+    when(issue.primaryLocation()).thenReturn(location);
+    when(issue.overriddenSeverity()).thenReturn(overriddenSeverity);
+    when(issue.flows()).thenReturn(Collections.emptyList());
+    return issue;
+  }
+
+}
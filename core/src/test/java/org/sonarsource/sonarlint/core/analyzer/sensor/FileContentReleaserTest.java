@@ -0,0 +1,84 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.sensor;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
+import org.sonarsource.sonarlint.core.TestClientInputFile;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileContentCache;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class FileContentReleaserTest {
+
+  private FileContentCache fileContentCache = mock(FileContentCache.class);
+  private SonarLintInputFile javaFile = inputFile("Foo.java", "java");
+  private SonarLintInputFile jsFile = inputFile("foo.js", "js");
+  private FileContentReleaser releaser;
+
+  @Before
+  public void setUp() {
+    DefaultFileSystem fs = new DefaultFileSystem(Paths.get("."));
+    fs.add(javaFile);
+    fs.add(jsFile);
+    releaser = new FileContentReleaser(fs, fileContentCache);
+  }
+
+  @Test
+  public void release_files_of_languages_no_remaining_sensor_reads() {
+    releaser.afterSensor(Collections.singletonList(new DefaultSensorDescriptor().onlyOnLanguage("java")));
+
+    verify(fileContentCache).release(jsFile.getClientInputFile());
+    verify(fileContentCache, never()).release(javaFile.getClientInputFile());
+  }
+
+  @Test
+  public void release_all_files_after_last_sensor() {
+    releaser.afterSensor(Collections.emptyList());
+
+    verify(fileContentCache).release(jsFile.getClientInputFile());
+    verify(fileContentCache).release(javaFile.getClientInputFile());
+  }
+
+  @Test
+  public void keep_all_files_while_a_sensor_may_read_any_language() {
+    releaser.afterSensor(Arrays.asList(new DefaultSensorDescriptor().onlyOnLanguage("java"), new DefaultSensorDescriptor()));
+    releaser.afterSensor(Collections.singletonList(null));
+
+    verify(fileContentCache, never()).release(jsFile.getClientInputFile());
+    verify(fileContentCache, never()).release(javaFile.getClientInputFile());
+  }
+
+  private static SonarLintInputFile inputFile(String name, String language) {
+    SonarLintInputFile inputFile = new SonarLintInputFile(new TestClientInputFile(Paths.get(name).toAbsolutePath(), false, null, language));
+    inputFile.setLanguage(language);
+    inputFile.setType(InputFile.Type.MAIN);
+    return inputFile;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+import org.sonar.api.utils.WildcardPattern;
+
+public class PathPatternMatcherTest {
+
+  private static final String[] PATTERNS = {
+    "file:**/*.java",
+    "**/test/**",
+    "file:/home/**/generated/*.js",
+    "file:**/src/?oo.php",
+    "**/*Test.java",
+    "file:**/a**b",
+    "file:**\\legacy\\*.c",
+    "**/(x)[y].{z}+|^$.txt",
+    "file:**/build/",
+    "file:/home/user/project/README"
+  };
+
+  private static final String[] PATHS = {
+    "/home/user/project/src/Foo.java",
+    "/home/user/project/src/FooTest.java",
+    "/home/user/project/test/resources/data.xml",
+    "/home/user/project/target/generated/bundle.js",
+    "/home/user/project/target/generated/nested/bundle.js",
+    "/home/user/project/src/foo.php",
+    "/home/user/project/src/fooo.php",
+    "/home/user/project/src/sub/foo.php",
+    "/home/user/project/ab",
+    "/home/user/project/a/x/b",
+    "/home/user/project/legacy/main.c",
+    "/home/user/project/docs/(x)[y].{z}+|^$.txt",
+    "/home/user/project/docs/x.txt",
+    "/home/user/project/build/",
+    "/home/user/project/build/out.o",
+    "/home/user/project/README",
+    "/home/user/project/README.md",
+    "/home/user/project/test",
+    "relative.java",
+    "/"
+  };
+
+  @Test
+  public void should_match_like_path_patterns() {
+    for (String pattern : PATTERNS) {
+      PathPatternMatcher inclusion = new PathPatternMatcher(new String[] {pattern}, new String[0]);
+      PathPatternMatcher exclusion = new PathPatternMatcher(new String[0], new String[] {pattern});
+      for (int i = 0; i < 2; i++) {
+        // second round uses memoized directory states
+        for (String path : PATHS) {
+          boolean expected = wildcard(pattern).match(path);
+          assertThat(inclusion.match(path, path)).as(pattern + " on " + path).isEqualTo(expected ? PathPatternMatcher.INCLUDED : 0);
+          assertThat(exclusion.match(path, path)).as(pattern + " on " + path).isEqualTo(expected ? PathPatternMatcher.EXCLUDED : 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void should_match_all_patterns_in_one_pass() {
+    PathPatternMatcher matcher = new PathPatternMatcher(new String[] {"file:**/*.java", "file:**/*.js"}, new String[] {"**/test/**", "**/*Test.java"});
+
+    assertThat(matcher.hasInclusions()).isTrue();
+    assertThat(matcher.match("/project/src/Foo.java", "/project/src/Foo.java")).isEqualTo(PathPatternMatcher.INCLUDED);
+    assertThat(matcher.match("/project/src/FooTest.java", "/project/src/FooTest.java"))
+      .isEqualTo(PathPatternMatcher.INCLUDED | PathPatternMatcher.EXCLUDED);
+    assertThat(matcher.match("/project/test/foo.js", "/project/test/foo.js")).isEqualTo(PathPatternMatcher.INCLUDED | PathPatternMatcher.EXCLUDED);
+    assertThat(matcher.match("/project/test/foo.php", "/project/test/foo.php")).isEqualTo(PathPatternMatcher.EXCLUDED);
+    assertThat(matcher.match("/project/src/foo.php", "/project/src/foo.php")).isZero();
+  }
+
+  @Test
+  public void should_match_absolute_and_relative_patterns_on_their_own_path() {
+    PathPatternMatcher matcher = new PathPatternMatcher(new String[] {"file:/project/src/**"}, new String[] {"src/generated/**"});
+
+    assertThat(matcher.match("/project/src/generated/Foo.java", "src/generated/Foo.java")).isEqualTo(PathPatternMatcher.INCLUDED | PathPatternMatcher.EXCLUDED);
+    assertThat(matcher.match("/project/src/Foo.java", "src/Foo.java")).isEqualTo(PathPatternMatcher.INCLUDED);
+    assertThat(matcher.match("/project/src/generated/Foo.java", null)).isEqualTo(PathPatternMatcher.INCLUDED);
+  }
+
+  @Test
+  public void should_match_nothing_without_patterns() {
+    PathPatternMatcher matcher = new PathPatternMatcher(new String[0], new String[0]);
+
+    assertThat(matcher.hasInclusions()).isFalse();
+    assertThat(matcher.match("/project/src/Foo.java", "/project/src/Foo.java")).isZero();
+  }
+
+  private static WildcardPattern wildcard(String pattern) {
+    return WildcardPattern.create(StringUtils.removeStartIgnoreCase(pattern, "file:"));
+  }
+}
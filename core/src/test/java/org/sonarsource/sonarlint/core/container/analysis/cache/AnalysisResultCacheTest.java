@@ -0,0 +1,83 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.cache;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnalysisResultCacheTest {
+
+  @Test
+  public void disabledWhenSizeIsZero() {
+    assertThat(new AnalysisResultCache(0).isEnabled()).isFalse();
+    assertThat(new AnalysisResultCache(1).isEnabled()).isTrue();
+  }
+
+  @Test
+  public void evictLeastRecentlyUsed() {
+    AnalysisResultCache cache = new AnalysisResultCache(2);
+    cache.put("k1", "a.js", Collections.emptyList());
+    cache.put("k2", "b.js", Collections.emptyList());
+    assertThat(cache.get("k1")).isEmpty();
+
+    cache.put("k3", "c.js", Collections.emptyList());
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.get("k1")).isNotNull();
+    assertThat(cache.get("k2")).isNull();
+    assertThat(cache.get("k3")).isEmpty();
+  }
+
+  @Test
+  public void invalidateByPath() {
+    AnalysisResultCache cache = new AnalysisResultCache(10);
+    cache.put("k1", "a.js", Collections.emptyList());
+    cache.put("k2", "a.js", Collections.emptyList());
+    cache.put("k3", "b.js", Collections.emptyList());
+    ClientInputFile file = mock(ClientInputFile.class);
+    when(file.getPath()).thenReturn("a.js");
+
+    cache.invalidate(Collections.singletonList(file));
+
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.get("k3")).isNotNull();
+  }
+
+  @Test
+  public void reuseContentHashWhileSizeAndLastModificationDontChange() {
+    AnalysisResultCache cache = new AnalysisResultCache(10);
+    AtomicInteger reads = new AtomicInteger();
+
+    assertThat(cache.contentHash("a.js", 10, 1000, () -> "h" + reads.incrementAndGet())).isEqualTo("h1");
+    assertThat(cache.contentHash("a.js", 10, 1000, () -> "h" + reads.incrementAndGet())).isEqualTo("h1");
+    assertThat(cache.contentHash("a.js", 10, 2000, () -> "h" + reads.incrementAndGet())).isEqualTo("h2");
+    assertThat(cache.contentHash("a.js", 11, 2000, () -> "h" + reads.incrementAndGet())).isEqualTo("h3");
+    assertThat(cache.contentHash("b.js", 11, 2000, () -> "h" + reads.incrementAndGet())).isEqualTo("h4");
+
+    assertThat(reads.get()).isEqualTo(4);
+    assertThat(cache.contentHashCount()).isEqualTo(2);
+  }
+}
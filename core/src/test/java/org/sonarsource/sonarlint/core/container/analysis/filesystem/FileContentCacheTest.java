@@ -0,0 +1,178 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.TestClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+public class FileContentCacheTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private static final int LARGE_FILE_THRESHOLD = 1024;
+
+  private FileContentCache cache = new FileContentCache(LARGE_FILE_THRESHOLD);
+
+  @Test
+  public void should_read_and_decode_once() throws IOException {
+    Path path = temp.newFile().toPath();
+    Files.write(path, "line1\nline2 é".getBytes(StandardCharsets.UTF_8));
+    ClientInputFile inputFile = spy(new TestClientInputFile(path, false, StandardCharsets.UTF_8));
+
+    FileContent content = cache.get(inputFile, StandardCharsets.UTF_8);
+    assertThat(cache.get(inputFile, StandardCharsets.UTF_8)).isSameAs(content);
+
+    assertThat(read(content.inputStream())).isEqualTo("line1line2 é");
+    assertThat(read(content.inputStream())).isEqualTo("line1line2 é");
+    String contents = content.contents();
+    assertThat(contents).isEqualTo("line1\nline2 é");
+    assertThat(content.contents()).isSameAs(contents);
+
+    verify(inputFile, times(1)).inputStream();
+    verify(inputFile, never()).contents();
+  }
+
+  @Test
+  public void should_map_large_files_on_disk() throws IOException {
+    Path path = temp.newFile().toPath();
+    byte[] data = new byte[LARGE_FILE_THRESHOLD + 1];
+    Arrays.fill(data, (byte) 'a');
+    Files.write(path, data);
+    ClientInputFile inputFile = spy(new TestClientInputFile(path, false, StandardCharsets.UTF_8));
+
+    FileContent content = cache.get(inputFile, StandardCharsets.UTF_8);
+
+    assertThat(content.size()).isEqualTo(data.length);
+    assertThat(content.bytes().isDirect()).isTrue();
+    assertThat(content.bytes().remaining()).isEqualTo(data.length);
+    assertThat(content.contents()).hasSize(data.length);
+    verify(inputFile, never()).inputStream();
+  }
+
+  @Test
+  public void should_not_read_files_on_disk_to_get_their_size() throws IOException {
+    Path path = temp.newFile().toPath();
+    Files.write(path, "test".getBytes(StandardCharsets.UTF_8));
+    ClientInputFile onDisk = spy(new TestClientInputFile(path, false, StandardCharsets.UTF_8));
+    ClientInputFile inMemory = spy(new TestClientInputFile(path, false, StandardCharsets.UTF_8) {
+      @Override
+      public boolean isContentOnDisk() {
+        return false;
+      }
+    });
+
+    assertThat(cache.get(onDisk, StandardCharsets.UTF_8).size()).isEqualTo(4);
+    assertThat(cache.get(inMemory, StandardCharsets.UTF_8).size()).isEqualTo(4);
+
+    verify(onDisk, never()).inputStream();
+    verify(inMemory, times(1)).inputStream();
+  }
+
+  @Test
+  public void should_release_contents_on_stop() throws IOException {
+    Path path = temp.newFile().toPath();
+    Files.write(path, "test".getBytes(StandardCharsets.UTF_8));
+    ClientInputFile inputFile = spy(new TestClientInputFile(path, false, StandardCharsets.UTF_8));
+
+    FileContent content = cache.get(inputFile, StandardCharsets.UTF_8);
+    content.contents();
+    cache.stop();
+
+    assertThat(cache.get(inputFile, StandardCharsets.UTF_8)).isNotSameAs(content);
+  }
+
+  @Test
+  public void should_read_again_released_file() throws IOException {
+    Path path = temp.newFile().toPath();
+    byte[] data = new byte[LARGE_FILE_THRESHOLD + 1];
+    Arrays.fill(data, (byte) 'a');
+    Files.write(path, data);
+    ClientInputFile inputFile = new TestClientInputFile(path, false, StandardCharsets.UTF_8);
+
+    FileContent content = cache.get(inputFile, StandardCharsets.UTF_8);
+    assertThat(content.bytes().isDirect()).isTrue();
+    cache.release(inputFile);
+
+    Arrays.fill(data, (byte) 'b');
+    Files.write(path, data);
+    assertThat(content.contents()).startsWith("b");
+    assertThat(cache.get(inputFile, StandardCharsets.UTF_8)).isNotSameAs(content);
+    content.release();
+  }
+
+  @Test
+  public void should_keep_buffers_given_before_release_readable() throws IOException {
+    Path path = temp.newFile().toPath();
+    byte[] data = new byte[LARGE_FILE_THRESHOLD + 1];
+    Arrays.fill(data, (byte) 'a');
+    Files.write(path, data);
+    ClientInputFile inputFile = new TestClientInputFile(path, false, StandardCharsets.UTF_8);
+
+    FileContent content = cache.get(inputFile, StandardCharsets.UTF_8);
+    ByteBuffer bytes = content.bytes();
+    InputStream stream = content.inputStream();
+    cache.release(inputFile);
+
+    assertThat(bytes.isDirect()).isTrue();
+    assertThat(bytes.get(LARGE_FILE_THRESHOLD)).isEqualTo((byte) 'a');
+    assertThat(read(stream)).hasSize(data.length);
+  }
+
+  @Test
+  public void should_give_attributes_read_before_content() throws IOException {
+    Path path = temp.newFile().toPath();
+    Files.write(path, "test".getBytes(StandardCharsets.UTF_8));
+    ClientInputFile inputFile = new TestClientInputFile(path, false, StandardCharsets.UTF_8);
+
+    FileContent content = cache.get(inputFile, StandardCharsets.UTF_8);
+    content.bytes();
+    Files.write(path, "changed".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(content.diskAttributes().size()).isEqualTo(4);
+    content.release();
+    assertThat(content.diskAttributes().size()).isEqualTo(7);
+  }
+
+  private static String read(InputStream stream) throws IOException {
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+      return reader.lines().collect(Collectors.joining());
+    }
+  }
+}
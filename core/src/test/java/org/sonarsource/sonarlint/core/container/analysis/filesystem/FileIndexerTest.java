@@ -0,0 +1,160 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.MessageException;
+import org.sonarsource.sonarlint.core.TestClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
+import org.sonarsource.sonarlint.core.container.analysis.ExclusionFilters;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCacheSession;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+public class FileIndexerTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException exception = ExpectedException.none();
+
+  private ExclusionFilters exclusionFilters = mock(ExclusionFilters.class);
+  private AnalysisResultCacheSession analysisResultCache = mock(AnalysisResultCacheSession.class);
+  private DefaultAnalysisResult analysisResult = new DefaultAnalysisResult();
+  private InputPathCache inputPathCache = new InputPathCache();
+
+  @Test
+  public void should_index_files_in_parallel_and_keep_order() throws IOException {
+    List<ClientInputFile> files = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      files.add(newFile("file" + i + ".txt"));
+    }
+    when(exclusionFilters.accept(any(InputFile.class), any(InputFile.Type.class)))
+      .thenAnswer(invocation -> !((InputFile) invocation.getArguments()[0]).path().endsWith("file7.txt"));
+
+    index(files, 4);
+
+    List<String> indexed = StreamSupport.stream(inputPathCache.inputFiles().spliterator(), false)
+      .map(f -> f.path().getFileName().toString())
+      .collect(Collectors.toList());
+    List<String> expected = files.stream()
+      .map(f -> Paths.get(f.getPath()).getFileName().toString())
+      .filter(name -> !name.equals("file7.txt"))
+      .collect(Collectors.toList());
+    assertThat(indexed).containsExactlyElementsOf(expected);
+    assertThat(analysisResult.fileCount()).isEqualTo(199);
+  }
+
+  @Test
+  public void should_index_files_sequentially() throws IOException {
+    when(exclusionFilters.accept(any(InputFile.class), any(InputFile.Type.class))).thenReturn(true);
+
+    index(Collections.singletonList(newFile("file.txt")), 1);
+
+    assertThat(inputPathCache.inputFiles()).hasSize(1);
+    assertThat(analysisResult.fileCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_fail_when_file_is_indexed_twice() throws IOException {
+    when(exclusionFilters.accept(any(InputFile.class), any(InputFile.Type.class))).thenReturn(true);
+    ClientInputFile file = newFile("file.txt");
+
+    exception.expect(MessageException.class);
+    exception.expectMessage("can't be indexed twice");
+    index(Arrays.asList(newFile("other.txt"), file, file), 2);
+  }
+
+  @Test
+  public void should_skip_files_bigger_than_max_size_of_their_language() throws IOException {
+    when(exclusionFilters.accept(any(InputFile.class), any(InputFile.Type.class))).thenReturn(true);
+    ClientInputFile small = newFile("small.txt", "txt", 10);
+    ClientInputFile large = newFile("large.txt", "txt", 100);
+    ClientInputFile largeJs = newFile("large.js", "js", 100);
+    ClientInputFile hugeJs = newFile("huge.js", "js", 1000);
+
+    index(Arrays.asList(hugeJs, small, large, largeJs), StandaloneGlobalConfiguration.builder()
+      .setFileIndexingParallelism(2)
+      .setMaxFileSize(50)
+      .setMaxFileSize("js", 500));
+
+    assertThat(inputPathCache.inputFiles()).extracting(InputFile::path).containsExactly(Paths.get(small.getPath()), Paths.get(largeJs.getPath()));
+    assertThat(analysisResult.skippedLargeFiles()).containsExactly(hugeJs, large);
+    assertThat(analysisResult.fileCount()).isEqualTo(2);
+  }
+
+  private ClientInputFile newFile(String name) throws IOException {
+    Path path = temp.getRoot().toPath().resolve(name);
+    Files.write(path, "line1\nline2".getBytes(StandardCharsets.UTF_8));
+    return new TestClientInputFile(path, false, StandardCharsets.UTF_8, "txt");
+  }
+
+  private ClientInputFile newFile(String name, String language, int size) throws IOException {
+    Path path = temp.getRoot().toPath().resolve(name);
+    byte[] content = new byte[size];
+    Arrays.fill(content, (byte) 'a');
+    Files.write(path, content);
+    return new TestClientInputFile(path, false, StandardCharsets.UTF_8, language);
+  }
+
+  private void index(List<ClientInputFile> files, int parallelism) {
+    index(files, StandaloneGlobalConfiguration.builder().setFileIndexingParallelism(parallelism));
+  }
+
+  private void index(List<ClientInputFile> files, StandaloneGlobalConfiguration.Builder globalConfiguration) {
+    StandaloneAnalysisConfiguration analysisConfiguration = new StandaloneAnalysisConfiguration(temp.getRoot().toPath(), temp.getRoot().toPath(), files,
+      Collections.emptyMap());
+    InputFileBuilder inputFileBuilder = new InputFileBuilder(mock(LanguageDetection.class), new FileMetadata(), new FileContentCache(AbstractGlobalConfiguration.DEFAULT_LARGE_FILE_THRESHOLD),
+      mock(FileMetadataCache.class));
+    StandaloneGlobalConfiguration config = globalConfiguration.build();
+    FileIndexingPool indexingPool = new FileIndexingPool(config);
+    FileIndexer indexer = new FileIndexer(inputFileBuilder, exclusionFilters, analysisConfiguration, analysisResult, new ProgressWrapper(null), analysisResultCache,
+      indexingPool, config);
+    SonarLintFileSystem fileSystem = new SonarLintFileSystem(analysisConfiguration, inputPathCache, indexer);
+    try {
+      indexer.index(fileSystem);
+    } finally {
+      indexingPool.stop();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileIndexingPoolTest {
+
+  @Test
+  public void sequential_by_default() {
+    assertThat(new FileIndexingPool(StandaloneGlobalConfiguration.builder().build()).parallelism()).isEqualTo(1);
+  }
+
+  @Test
+  public void use_available_processors_when_parallelism_is_zero() {
+    FileIndexingPool indexingPool = new FileIndexingPool(StandaloneGlobalConfiguration.builder().setFileIndexingParallelism(0).build());
+
+    assertThat(indexingPool.parallelism()).isEqualTo(Runtime.getRuntime().availableProcessors());
+  }
+
+  @Test
+  public void reuse_pool_until_stopped() {
+    FileIndexingPool indexingPool = new FileIndexingPool(3);
+
+    ForkJoinPool pool = indexingPool.get();
+    assertThat(pool.getParallelism()).isEqualTo(3);
+    assertThat(indexingPool.get()).isSameAs(pool);
+
+    indexingPool.stop();
+    assertThat(pool.isShutdown()).isTrue();
+    assertThat(indexingPool.get()).isNotSameAs(pool);
+    indexingPool.stop();
+  }
+}
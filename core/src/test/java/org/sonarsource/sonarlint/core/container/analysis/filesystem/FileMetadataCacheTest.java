@@ -0,0 +1,198 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata.Metadata;
+
+public class FileMetadataCacheTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path storageFile;
+  private AtomicInteger computations = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    storageFile = temp.newFolder().toPath().resolve(FileMetadataCache.FILE_NAME);
+  }
+
+  @Test
+  public void should_reuse_metadata_of_unchanged_files() throws IOException {
+    FileMetadataCache cache = new FileMetadataCache(10, storageFile);
+    Path file = newFile("file.txt", "line1\nline2\r\nline3");
+
+    Metadata metadata = compute(cache, file);
+    Metadata cached = compute(cache, file);
+
+    assertThat(computations.get()).isEqualTo(1);
+    assertThat(cached.lines).isEqualTo(metadata.lines).isEqualTo(3);
+    assertThat(cached.lastValidOffset).isEqualTo(metadata.lastValidOffset);
+    assertThat(cached.originalLineOffsets).containsExactly(metadata.originalLineOffsets);
+  }
+
+  @Test
+  public void should_compute_again_when_file_changes() throws IOException {
+    FileMetadataCache cache = new FileMetadataCache(10, storageFile);
+    Path file = newFile("file.txt", "line1\nline2");
+    compute(cache, file);
+
+    Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 10_000));
+    compute(cache, file);
+    Files.write(file, "line1\nline2\nline3".getBytes(StandardCharsets.UTF_8));
+    Metadata metadata = compute(cache, file);
+
+    assertThat(computations.get()).isEqualTo(3);
+    assertThat(metadata.lines).isEqualTo(3);
+  }
+
+  @Test
+  public void should_compute_again_when_charset_changes() throws IOException {
+    FileMetadataCache cache = new FileMetadataCache(10, storageFile);
+    Path file = newFile("file.txt", "line1\nline2");
+    compute(cache, file);
+
+    cache.computeIfAbsent(file, Files.readAttributes(file, BasicFileAttributes.class), StandardCharsets.ISO_8859_1, () -> {
+      computations.incrementAndGet();
+      return new FileMetadata().readMetadata(new ByteArrayInputStream(new byte[0]), StandardCharsets.ISO_8859_1, file.toString());
+    });
+
+    assertThat(computations.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void should_persist_entries_on_stop() throws IOException {
+    FileMetadataCache cache = new FileMetadataCache(10, storageFile);
+    Path file = newFile("file.txt", "line1\r\nline2 with more text\nline3\n");
+    Metadata metadata = compute(cache, file);
+    cache.stop();
+    assertThat(storageFile).exists();
+
+    FileMetadataCache reloaded = new FileMetadataCache(10, storageFile);
+    Metadata restored = compute(reloaded, file);
+
+    assertThat(computations.get()).isEqualTo(1);
+    assertThat(restored.lines).isEqualTo(metadata.lines);
+    assertThat(restored.lastValidOffset).isEqualTo(metadata.lastValidOffset);
+    assertThat(restored.originalLineOffsets).containsExactly(metadata.originalLineOffsets);
+  }
+
+  @Test
+  public void should_evict_least_recently_used_entries() throws IOException {
+    FileMetadataCache cache = new FileMetadataCache(2, storageFile);
+    Path file1 = newFile("file1.txt", "1");
+    Path file2 = newFile("file2.txt", "2");
+    Path file3 = newFile("file3.txt", "3");
+
+    compute(cache, file1);
+    compute(cache, file2);
+    compute(cache, file1);
+    compute(cache, file3);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(computations.get()).isEqualTo(3);
+
+    compute(cache, file1);
+    assertThat(computations.get()).isEqualTo(3);
+    compute(cache, file2);
+    assertThat(computations.get()).isEqualTo(4);
+  }
+
+  @Test
+  public void should_ignore_corrupted_storage() throws IOException {
+    Files.write(storageFile, "not a protobuf file".getBytes(StandardCharsets.UTF_8));
+    FileMetadataCache cache = new FileMetadataCache(10, storageFile);
+    Path file = newFile("file.txt", "line1");
+
+    compute(cache, file);
+    compute(cache, file);
+
+    assertThat(computations.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_compute_when_file_does_not_exist() {
+    FileMetadataCache cache = new FileMetadataCache(10, storageFile);
+    Path file = temp.getRoot().toPath().resolve("missing.txt");
+
+    cache.computeIfAbsent(file, mock(BasicFileAttributes.class), StandardCharsets.UTF_8, () -> {
+      computations.incrementAndGet();
+      return null;
+    });
+
+    assertThat(computations.get()).isEqualTo(1);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void should_store_entry_under_attributes_read_before_content() throws IOException {
+    FileMetadataCache cache = new FileMetadataCache(10, storageFile);
+    Path file = newFile("file.txt", "line1\nline2");
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    Files.write(file, "line1\nline2\nline3".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(attributes.lastModifiedTime().toMillis() + 10_000));
+
+    cache.computeIfAbsent(file, attributes, StandardCharsets.UTF_8, () -> {
+      computations.incrementAndGet();
+      return new FileMetadata().readMetadata(new ByteArrayInputStream("line1\nline2".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, file.toString());
+    });
+    Metadata metadata = compute(cache, file);
+
+    assertThat(computations.get()).isEqualTo(2);
+    assertThat(metadata.lines).isEqualTo(3);
+  }
+
+  private Metadata compute(FileMetadataCache cache, Path file) {
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return cache.computeIfAbsent(file, attributes, StandardCharsets.UTF_8, () -> {
+      computations.incrementAndGet();
+      try {
+        return new FileMetadata().readMetadata(Files.newInputStream(file), StandardCharsets.UTF_8, file.toString());
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  private Path newFile(String name, String content) throws IOException {
+    Path file = temp.getRoot().toPath().resolve(name);
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+}
@@ -19,10 +19,18 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
+import com.google.common.primitives.Ints;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
 import org.junit.AfterClass;
 import org.junit.Rule;
 import org.junit.Test;
@@ -30,8 +38,13 @@ import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class FileMetadataTest {
 
@@ -218,4 +231,93 @@ public class FileMetadataTest {
       "glyphicons-halflings-regular.woff' at line 1 for encoding UTF-8. Please fix file content or configure the encoding to be used using property 'sonar.sourceEncoding'.");
   }
 
+
+  @Test
+  public void supplementary_characters_count_for_two_chars() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, "a\uD83D\uDE00b\nc", StandardCharsets.UTF_8, true);
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8);
+    assertThat(metadata.originalLineOffsets).containsOnly(0, 5);
+    assertThat(metadata.lastValidOffset).isEqualTo(6);
+  }
+
+  @Test
+  public void invalid_ascii_character() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.writeByteArrayToFile(tempFile, new byte[] {'a', '\n', (byte) 0xE9, 'b'});
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.US_ASCII);
+    assertThat(metadata.originalLineOffsets).containsOnly(0, 2);
+    assertThat(metadata.lastValidOffset).isEqualTo(4);
+    assertThat(logTester.logs(LoggerLevel.WARN).get(0)).contains("at line 2 for encoding US-ASCII");
+  }
+
+  @Test
+  public void same_offsets_as_decoded_content_across_blocks() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    // line ends and multi-bytes characters on block boundaries
+    sb.append(StringUtils.repeat("x", FileMetadata.BLOCK_SIZE - 1)).append("\r\n");
+    sb.append(StringUtils.repeat("x", FileMetadata.BLOCK_SIZE - 2)).append("\u00e9\u20ac\uD83D\uDE00\r");
+    sb.append(StringUtils.repeat("ab\r\n\r\rc\n\u00e0", 5000));
+    byte[] content = sb.toString().getBytes(StandardCharsets.UTF_8);
+    for (Charset charset : new Charset[] {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII, StandardCharsets.UTF_16LE}) {
+      assertSameAsDecoded(content, charset);
+    }
+
+    byte[] binary = new byte[3 * FileMetadata.BLOCK_SIZE];
+    new Random(42).nextBytes(binary);
+    assertSameAsDecoded(binary, StandardCharsets.UTF_8);
+    // malformed sequence after some valid ones
+    byte[] truncated = Arrays.copyOf(content, content.length + 2);
+    truncated[content.length] = (byte) 0xE2;
+    truncated[content.length + 1] = (byte) 0x82;
+    assertSameAsDecoded(truncated, StandardCharsets.UTF_8);
+  }
+
+  private static void assertSameAsDecoded(byte[] content, Charset charset) {
+    String decoded = new String(content, charset);
+    List<Integer> expectedOffsets = new ArrayList<>();
+    expectedOffsets.add(0);
+    for (int i = 0; i < decoded.length(); i++) {
+      char c = decoded.charAt(i);
+      if (c == '\n' || (c == '\r' && (i + 1 == decoded.length() || decoded.charAt(i + 1) != '\n'))) {
+        expectedOffsets.add(i + 1);
+      }
+    }
+
+    assertMetadata(new FileMetadata().readMetadata(new ByteArrayInputStream(content), charset, "file"), charset, expectedOffsets, decoded);
+    assertMetadata(new FileMetadata().readMetadata(ByteBuffer.wrap(content), charset, "file"), charset, expectedOffsets, decoded);
+    // off-heap, like memory-mapped files, and not starting at position 0
+    ByteBuffer direct = ByteBuffer.allocateDirect(content.length + 3);
+    direct.put(new byte[] {'\n', '\r', 'a'}).put(content).flip().position(3);
+    assertMetadata(new FileMetadata().readMetadata(direct, charset, "file"), charset, expectedOffsets, decoded);
+  }
+
+  private static void assertMetadata(FileMetadata.Metadata metadata, Charset charset, List<Integer> expectedOffsets, String decoded) {
+    assertThat(metadata.originalLineOffsets).as(charset.name()).containsExactly(Ints.toArray(expectedOffsets));
+    assertThat(metadata.lines).isEqualTo(expectedOffsets.size());
+    assertThat(metadata.lastValidOffset).isEqualTo(decoded.length());
+  }
+
+  @Test
+  public void should_stop_reading_when_cancelled() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, StringUtils.repeat("foo\n", 100_000), StandardCharsets.UTF_8, true);
+    ProgressMonitor monitor = mock(ProgressMonitor.class);
+    when(monitor.isCanceled()).thenReturn(true);
+
+    thrown.expect(CanceledException.class);
+    new FileMetadata(new ProgressWrapper(monitor)).readMetadata(tempFile, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void should_stop_scanning_buffer_when_cancelled() throws Exception {
+    ByteBuffer content = ByteBuffer.wrap(StringUtils.repeat("foo\n", 100_000).getBytes(StandardCharsets.UTF_8));
+    ProgressMonitor monitor = mock(ProgressMonitor.class);
+    when(monitor.isCanceled()).thenReturn(true);
+
+    thrown.expect(CanceledException.class);
+    new FileMetadata(new ProgressWrapper(monitor)).readMetadata(content, StandardCharsets.UTF_8, "file");
+  }
 }
@@ -21,12 +21,17 @@ package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.sonarsource.sonarlint.core.client.api.util.FileUtils.toSonarQubePath;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -38,6 +43,7 @@ import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonarsource.sonarlint.core.TestClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 
 public class InputFileBuilderTest {
@@ -57,7 +63,7 @@ public class InputFileBuilderTest {
     Files.write(path, "test".getBytes(StandardCharsets.ISO_8859_1));
     ClientInputFile file = new TestClientInputFile(path, true, StandardCharsets.ISO_8859_1);
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, new FileContentCache(AbstractGlobalConfiguration.DEFAULT_LARGE_FILE_THRESHOLD), mock(FileMetadataCache.class));
     SonarLintInputFile inputFile = builder.create(file);
 
     assertThat(inputFile.type()).isEqualTo(InputFile.Type.TEST);
@@ -76,7 +82,7 @@ public class InputFileBuilderTest {
     Files.write(path, "test".getBytes(StandardCharsets.ISO_8859_1));
     ClientInputFile file = new TestClientInputFile(path, true, StandardCharsets.ISO_8859_1, "cpp");
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, new FileContentCache(AbstractGlobalConfiguration.DEFAULT_LARGE_FILE_THRESHOLD), mock(FileMetadataCache.class));
     SonarLintInputFile inputFile = builder.create(file);
 
     assertThat(inputFile.language()).isEqualTo("cpp");
@@ -88,10 +94,29 @@ public class InputFileBuilderTest {
     when(langDetection.language(any(InputFile.class))).thenReturn("java");
     ClientInputFile file = new TestClientInputFile(Paths.get("INVALID"), true, StandardCharsets.ISO_8859_1);
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, new FileContentCache(AbstractGlobalConfiguration.DEFAULT_LARGE_FILE_THRESHOLD), mock(FileMetadataCache.class));
+    SonarLintInputFile inputFile = builder.create(file);
 
     exception.expect(IllegalStateException.class);
     exception.expectMessage("Failed to open a stream on file");
-    builder.create(file);
+    inputFile.lines();
+  }
+
+  @Test
+  public void testMetadataComputedOnFirstAccess() throws IOException {
+    when(langDetection.language(any(InputFile.class))).thenReturn("java");
+
+    Path path = temp.getRoot().toPath().resolve("file");
+    Files.write(path, "line1\nline2".getBytes(StandardCharsets.UTF_8));
+    ClientInputFile file = new TestClientInputFile(path, false, StandardCharsets.UTF_8);
+    FileMetadata spiedMetadata = spy(metadata);
+
+    InputFileBuilder builder = new InputFileBuilder(langDetection, spiedMetadata, new FileContentCache(AbstractGlobalConfiguration.DEFAULT_LARGE_FILE_THRESHOLD), mock(FileMetadataCache.class));
+    SonarLintInputFile inputFile = builder.create(file);
+    verifyZeroInteractions(spiedMetadata);
+
+    assertThat(inputFile.lines()).isEqualTo(2);
+    assertThat(inputFile.selectLine(2).end().lineOffset()).isEqualTo(5);
+    verify(spiedMetadata, times(1)).readMetadata(any(ByteBuffer.class), eq(StandardCharsets.UTF_8), eq(path.toString()));
   }
 }
@@ -24,12 +24,14 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.batch.fs.InputDir;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.TestClientInputFile;
 
 public class InputPathCacheTest {
   private InputPathCache cache;
@@ -62,10 +64,13 @@ public class InputPathCacheTest {
     when(file1.path()).thenReturn(Paths.get("file1.java"));
     when(file1.file()).thenReturn(new File("file1.java"));
     when(file1.language()).thenReturn("lang1");
+    when(file1.type()).thenReturn(InputFile.Type.MAIN);
+    when(file1.status()).thenReturn(InputFile.Status.ADDED);
     InputFile file2 = mock(InputFile.class);
     when(file2.path()).thenReturn(Paths.get("file2"));
     when(file2.file()).thenReturn(new File("file2"));
     when(file2.language()).thenReturn("lang2");
+    when(file2.type()).thenReturn(InputFile.Type.TEST);
 
     cache.doAdd(file1);
     cache.doAdd(file2);
@@ -79,8 +84,54 @@ public class InputPathCacheTest {
     assertThat(cache.getFilesByExtension("java")).containsOnly(file1);
     assertThat(cache.getFilesByExtension("")).containsOnly(file2);
     assertThat(cache.getFilesByName("file1.java")).containsOnly(file1);
+    assertThat(cache.getFilesByName("file3")).isEmpty();
 
     assertThat(cache.languages()).containsExactly("lang1", "lang2");
+    assertThat(cache.getFilesByLanguage("lang1")).containsOnly(file1);
+    assertThat(cache.getFilesByLanguage("lang3")).isEmpty();
+    assertThat(cache.getFilesByType(InputFile.Type.TEST)).containsOnly(file2);
+    assertThat(cache.getFilesByStatus(InputFile.Status.ADDED)).containsOnly(file1);
+    assertThat(cache.getFilesByStatus(InputFile.Status.CHANGED)).isEmpty();
+    assertThat(cache.indexOrder().compare(file2, file1)).isPositive();
+
+    InputFile file3 = mock(InputFile.class);
+    when(file3.path()).thenReturn(Paths.get("dir/file3"));
+    cache.doAdd(file3);
+    assertThat(cache.getFilesByName("file3")).containsOnly(file3);
+    assertThat(cache.inputFile(Paths.get("dir/file3"))).isEqualTo(file3);
+    assertThat(cache.inputFile(Paths.get("dir"))).isNull();
+    assertThat(cache.inputFile(Paths.get("/dir/file3"))).isNull();
 
   }
+
+  @Test
+  public void should_replace_file_with_same_path() {
+    SonarLintInputFile file1 = inputFile("/project/File1.java", "java");
+    SonarLintInputFile file2 = inputFile("/project/File2.java", "java");
+    SonarLintInputFile file1Again = inputFile("/project/File1.java", "kotlin");
+    SonarLintInputDir dir = new SonarLintInputDir(Paths.get("/project"));
+    SonarLintInputDir dirAgain = new SonarLintInputDir(Paths.get("/project"));
+
+    cache.doAdd(file1);
+    cache.doAdd(file2);
+    cache.doAdd(file1Again);
+    cache.doAdd(dir);
+    cache.doAdd(dirAgain);
+
+    assertThat(cache.inputFiles()).containsExactly(file1Again, file2);
+    assertThat(cache.inputFile(Paths.get("/project/File1.java"))).isSameAs(file1Again);
+    assertThat(cache.getFilesByLanguage("java")).containsExactly(file2);
+    assertThat(cache.getFilesByLanguage("kotlin")).containsExactly(file1Again);
+    assertThat(cache.getFilesByType(InputFile.Type.MAIN)).containsExactly(file1Again, file2);
+    assertThat(cache.getFilesByExtension("java")).containsExactly(file1Again, file2);
+    assertThat(cache.indexOrder().compare(file1Again, file2)).isNegative();
+    assertThat(cache.allDirs()).containsExactly(dirAgain);
+  }
+
+  private static SonarLintInputFile inputFile(String path, String language) {
+    SonarLintInputFile file = new SonarLintInputFile(new TestClientInputFile(Paths.get(path), false, StandardCharsets.UTF_8));
+    file.setLanguage(language);
+    file.setType(InputFile.Type.MAIN);
+    return file;
+  }
 }
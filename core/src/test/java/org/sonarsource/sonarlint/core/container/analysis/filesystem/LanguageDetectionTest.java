@@ -69,6 +69,30 @@ public class LanguageDetectionTest {
     assertThat(detection.language(newInputFile("abc"))).isNull();
   }
 
+  @Test
+  public void search_by_compound_file_extension() throws Exception {
+    LanguagesRepository languages = new DefaultLanguagesRepository(new Languages(new MockLanguage("twig", "html.twig"), new MockLanguage("web", "html")));
+    LanguageDetection detection = new LanguageDetection(languages);
+
+    assertThat(detection.language(newInputFile("page.html.twig"))).isEqualTo("twig");
+    assertThat(detection.language(newInputFile("page.html.Twig"))).isEqualTo("twig");
+    // only the last extension is case insensitive
+    assertThat(detection.language(newInputFile("page.HTML.twig"))).isNull();
+    assertThat(detection.language(newInputFile("page.Html"))).isEqualTo("web");
+    assertThat(detection.language(newInputFile("page.twig"))).isNull();
+    assertThat(detection.language(newInputFile("page.html"))).isEqualTo("web");
+  }
+
+  @Test
+  public void search_by_pattern_for_suffixes_with_wildcards() throws Exception {
+    LanguagesRepository languages = new DefaultLanguagesRepository(new Languages(new MockLanguage("docker", "*file"), new MockLanguage("java", "java")));
+    LanguageDetection detection = new LanguageDetection(languages);
+
+    assertThat(detection.language(newInputFile("src/app.dockerfile"))).isEqualTo("docker");
+    assertThat(detection.language(newInputFile("src/Foo.java"))).isEqualTo("java");
+    assertThat(detection.language(newInputFile("src/file"))).isNull();
+  }
+
   @Test
   public void should_not_fail_if_no_language() throws Exception {
     LanguageDetection detection = spy(new LanguageDetection(new DefaultLanguagesRepository(new Languages())));
@@ -98,6 +122,16 @@ public class LanguageDetectionTest {
     }
   }
 
+  @Test
+  public void fail_if_conflicting_compound_language_suffix() throws Exception {
+    LanguagesRepository languages = new DefaultLanguagesRepository(new Languages(new MockLanguage("php", "php"), new MockLanguage("blade", "blade.php")));
+    LanguageDetection detection = new LanguageDetection(languages);
+
+    thrown.expect(MessageException.class);
+    thrown.expectMessage("Language of file 'view.blade.php' can not be decided as the file matches patterns of both php: file:**/*.php and blade: file:**/*.blade.php");
+    detection.language(newInputFile("view.blade.php"));
+  }
+
   private InputFile newInputFile(String path) throws IOException {
     File basedir = temp.newFolder();
     return new TestInputFileBuilder("foo", path).setModuleBaseDir(basedir.toPath()).build();
@@ -0,0 +1,114 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.TestClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
+
+public class SonarLintFileSystemTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private InputPathCache cache = new InputPathCache();
+  private SonarLintFileSystem fs;
+  private FilePredicates p;
+  private SonarLintInputFile mainJava;
+  private SonarLintInputFile testJava;
+  private SonarLintInputFile mainJs;
+  private SonarLintInputFile mainXml;
+
+  @Before
+  public void setUp() throws IOException {
+    StandaloneAnalysisConfiguration config = new StandaloneAnalysisConfiguration(temp.getRoot().toPath(), temp.newFolder().toPath(), Collections.emptyList(),
+      Collections.emptyMap());
+    fs = new SonarLintFileSystem(config, cache, mock(FileIndexer.class));
+    p = fs.predicates();
+    mainJava = add("Foo.java", "java", false);
+    mainJs = add("foo.js", "js", false);
+    testJava = add("FooTest.java", "java", true);
+    mainXml = add("pom.xml", "xml", false);
+  }
+
+  @Test
+  public void should_query_language_and_type_indexes() {
+    assertThat(fs.inputFiles(p.hasLanguage("java"))).containsExactly(mainJava, testJava);
+    assertThat(fs.inputFiles(p.hasType(InputFile.Type.TEST))).containsExactly(testJava);
+    assertThat(fs.inputFiles(p.and(p.hasType(InputFile.Type.MAIN), p.hasLanguage("java")))).containsExactly(mainJava);
+    assertThat(fs.inputFiles(p.and(p.hasLanguage("java"), p.hasType(InputFile.Type.MAIN), p.hasExtension("java")))).containsExactly(mainJava);
+    assertThat(fs.inputFiles(p.and(p.hasLanguage("php"), p.hasType(InputFile.Type.MAIN)))).isEmpty();
+    assertThat(fs.hasFiles(p.and(p.hasLanguages("js", "java"), p.hasType(InputFile.Type.TEST)))).isTrue();
+    assertThat(fs.hasFiles(p.and(p.hasLanguages("js", "xml"), p.hasType(InputFile.Type.TEST)))).isFalse();
+  }
+
+  @Test
+  public void should_keep_index_order_for_union_of_indexes() {
+    assertThat(fs.inputFiles(p.hasLanguages("xml", "java"))).containsExactly(mainJava, testJava, mainXml);
+    assertThat(fs.inputFiles(p.or(p.hasType(InputFile.Type.TEST), p.hasLanguage("js"), p.hasLanguage("java")))).containsExactly(mainJava, mainJs, testJava);
+  }
+
+  @Test
+  public void should_only_get_files_of_most_selective_index() {
+    OptimizedFilePredicate languages = spy((OptimizedFilePredicate) p.hasLanguages("java", "js"));
+    OptimizedFilePredicate test = spy((OptimizedFilePredicate) p.hasType(InputFile.Type.TEST));
+
+    assertThat(fs.inputFiles(p.and(languages, test))).containsExactly(testJava);
+    assertThat(languages.estimatedSize(cache)).isEqualTo(3);
+    verify(languages, never()).get(any(FileSystem.Index.class));
+  }
+
+  @Test
+  public void should_filter_predicates_without_index() {
+    assertThat(fs.inputFiles(p.and(p.hasLanguage("java"), p.not(p.hasType(InputFile.Type.MAIN))))).containsExactly(testJava);
+    assertThat(fs.inputFiles(p.or(p.hasLanguage("xml"), p.matchesPathPattern("**/*Test.java")))).containsExactly(testJava, mainXml);
+    assertThat(fs.inputFiles(p.hasFilename("foo.js"))).containsExactly(mainJs);
+    assertThat(fs.inputFiles(p.hasAbsolutePath(mainXml.absolutePath()))).containsExactly(mainXml);
+    assertThat(fs.inputFiles(p.hasRelativePath(mainXml.relativePath()))).containsExactly(mainXml);
+  }
+
+  private SonarLintInputFile add(String name, String language, boolean isTest) throws IOException {
+    Path path = temp.getRoot().toPath().resolve(name);
+    Files.write(path, "content".getBytes(StandardCharsets.UTF_8));
+    SonarLintInputFile inputFile = new SonarLintInputFile(new TestClientInputFile(path, isTest, StandardCharsets.UTF_8, language));
+    inputFile.setLanguage(language);
+    inputFile.setType(isTest ? InputFile.Type.TEST : InputFile.Type.MAIN);
+    fs.add(inputFile);
+    return inputFile;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+public class IssuePatternMatcherTest {
+
+  private static final List<IssuePattern> PATTERNS = Arrays.asList(
+    new IssuePattern("**/generated/**", "*"),
+    new IssuePattern("**/*.js", "javascript:S1"),
+    new IssuePattern("file:/workspace/legacy/**", "squid:S1*"),
+    new IssuePattern("src/**/Foo?.java", "squid:?2"),
+    new IssuePattern("**/*.java", "squid:S12"));
+
+  private static final List<String> RULE_KEYS = Arrays.asList("javascript:S1", "javascript:S2", "squid:S1", "squid:S12", "squid:S2", "squid:X2", "common-java:S1");
+
+  private static final List<String> PATHS = Arrays.asList("project/src/main/Foo1.java", "project/src/main/Foo12.java", "project/generated/a.js",
+    "project/web/app.js", "legacy/Bar.java", "legacy/generated/Baz.java", "other/README");
+
+  @Test
+  public void should_match_like_every_pattern_in_order() {
+    for (boolean pathMatches : new boolean[] {true, false}) {
+      IssuePatternMatcher matcher = new IssuePatternMatcher(PATTERNS, pathMatches);
+      for (String path : PATHS) {
+        InputFile file = new TestInputFileBuilder("key", path).setModuleBaseDir(Paths.get("/workspace")).build();
+        for (String ruleKey : RULE_KEYS) {
+          IssuePattern expected = PATTERNS.stream()
+            .filter(p -> p.getRulePattern().match(ruleKey) && p.getPathPattern().match(file) == pathMatches)
+            .findFirst()
+            .orElse(null);
+          // twice, to also check memoized results
+          assertThat(matcher.match(file, ruleKey)).as(pathMatches + " " + path + " " + ruleKey).isSameAs(expected);
+          assertThat(matcher.match(file, ruleKey)).as(pathMatches + " " + path + " " + ruleKey).isSameAs(expected);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void should_match_path_patterns_once_per_file() {
+    InputFile file = mock(InputFile.class);
+    when(file.absolutePath()).thenReturn("/workspace/legacy/Bar.java");
+    when(file.relativePath()).thenReturn("legacy/Bar.java");
+    IssuePatternMatcher matcher = new IssuePatternMatcher(PATTERNS, true);
+
+    assertThat(matcher.match(file, "squid:S1")).isSameAs(PATTERNS.get(2));
+    verify(file, atLeastOnce()).absolutePath();
+    verify(file, atLeastOnce()).relativePath();
+
+    for (String ruleKey : RULE_KEYS) {
+      matcher.match(file, ruleKey);
+    }
+    verifyNoMoreInteractions(file);
+  }
+
+  @Test
+  public void should_never_match_without_patterns() {
+    IssuePatternMatcher matcher = new IssuePatternMatcher(Collections.emptyList(), true);
+
+    assertThat(matcher.isEmpty()).isTrue();
+    assertThat(matcher.match(mock(InputFile.class), "squid:S1")).isNull();
+  }
+}
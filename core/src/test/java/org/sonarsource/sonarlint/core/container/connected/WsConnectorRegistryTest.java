@@ -0,0 +1,150 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import java.io.IOException;
+import okhttp3.internal.tls.HeldCertificate;
+import okhttp3.internal.tls.SslClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
+import org.sonarsource.sonarlint.core.util.ws.WsConnector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WsConnectorRegistryTest {
+
+  private SslClient sslClient;
+  private MockWebServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    HeldCertificate root = new HeldCertificate.Builder().serialNumber("1").ca(1).commonName("root").build();
+    HeldCertificate localhost = new HeldCertificate.Builder().serialNumber("2").issuedBy(root).commonName("localhost").build();
+    sslClient = new SslClient.Builder()
+      .certificateChain(localhost, root)
+      .addTrustedCertificate(root.certificate)
+      .build();
+    server = new MockWebServer();
+    server.useHttps(sslClient.socketFactory, false);
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void clients_of_same_server_reuse_tls_connection() throws Exception {
+    WsConnectorRegistry registry = new WsConnectorRegistry(System2.INSTANCE, WsConnectorRegistry.IDLE_TIMEOUT_MS);
+    for (int i = 0; i < 3; i++) {
+      // a new configuration and client each time, like successive updates and notification checks
+      SonarLintWsClient client = new SonarLintWsClient(serverConfig("UT"), registry);
+      server.enqueue(new MockResponse().setBody("ok"));
+      assertThat(client.get("api/system/status").content()).isEqualTo("ok");
+    }
+
+    assertThat(newConnections(3)).isEqualTo(1);
+  }
+
+  @Test
+  public void share_connector_of_equal_configurations() {
+    WsConnectorRegistry registry = new WsConnectorRegistry(System2.INSTANCE, WsConnectorRegistry.IDLE_TIMEOUT_MS);
+
+    assertThat(registry.connectorFor(serverConfig("UT"))).isSameAs(registry.connectorFor(serverConfig("UT")));
+    assertThat(registry.connectorFor(serverConfig("UT"))).isNotSameAs(registry.connectorFor(serverConfig("other agent")));
+    assertThat(registry.connectorFor(serverConfig("UT")))
+      .isNotSameAs(registry.connectorFor(ServerConfiguration.builder().url(server.url("/").toString()).userAgent("UT").build()));
+    assertThat(registry.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void evict_idle_connectors() throws Exception {
+    System2 system2 = mock(System2.class);
+    WsConnectorRegistry registry = new WsConnectorRegistry(system2, 1000);
+
+    when(system2.now()).thenReturn(0L);
+    WsConnector connector = registry.connectorFor(serverConfig("UT"));
+    when(system2.now()).thenReturn(1000L);
+    assertThat(registry.connectorFor(serverConfig("UT"))).isSameAs(connector);
+    when(system2.now()).thenReturn(1500L);
+    registry.connectorFor(serverConfig("other agent"));
+    assertThat(registry.size()).isEqualTo(2);
+
+    when(system2.now()).thenReturn(2001L);
+    assertThat(registry.connectorFor(serverConfig("UT"))).isNotSameAs(connector);
+    assertThat(registry.size()).isEqualTo(2);
+    when(system2.now()).thenReturn(3001L);
+    registry.connectorFor(serverConfig("UT"));
+    assertThat(registry.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void release_connectors_no_longer_held() {
+    WsConnectorRegistry registry = new WsConnectorRegistry(System2.INSTANCE, WsConnectorRegistry.IDLE_TIMEOUT_MS);
+    Object engine1 = new Object();
+    Object engine2 = new Object();
+    registry.hold(engine1, serverConfig("UT"));
+    registry.hold(engine2, serverConfig("UT"));
+    registry.hold(engine1, serverConfig("other agent"));
+    WsConnector shared = registry.connectorFor(serverConfig("UT"));
+    WsConnector notHeld = registry.connectorFor(serverConfig("third agent"));
+
+    registry.release(engine1);
+
+    assertThat(registry.size()).isEqualTo(2);
+    assertThat(registry.connectorFor(serverConfig("UT"))).isSameAs(shared);
+    assertThat(registry.connectorFor(serverConfig("third agent"))).isSameAs(notHeld);
+
+    registry.release(engine2);
+
+    assertThat(registry.size()).isEqualTo(1);
+    assertThat(registry.connectorFor(serverConfig("UT"))).isNotSameAs(shared);
+  }
+
+  private ServerConfiguration serverConfig(String userAgent) {
+    return ServerConfiguration.builder()
+      .url(server.url("/").toString())
+      .userAgent(userAgent)
+      .sslSocketFactory(sslClient.socketFactory)
+      .trustManager(sslClient.trustManager)
+      .build();
+  }
+
+  /**
+   * The sequence number of a request restarts from 0 on each new connection
+   */
+  private int newConnections(int requestCount) throws InterruptedException {
+    int connections = 0;
+    for (int i = 0; i < requestCount; i++) {
+      if (server.takeRequest().getSequenceNumber() == 0) {
+        connections++;
+      }
+    }
+    return connections;
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected.update;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarqube.ws.QualityProfiles.SearchWsResponse;
+import org.sonarqube.ws.Settings.Setting;
+import org.sonarqube.ws.Settings.ValuesWsResponse;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
+import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.HttpValidators;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.QProfiles;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.StorageStatus;
+import org.sonarsource.sonarlint.core.util.VersionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConditionalDownloadsTest {
+  private static final String ETAG = "\"qp-1\"";
+  private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private MockWebServer server;
+  private SonarLintWsClient wsClient;
+  private AtomicInteger notModified = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    server = new MockWebServer();
+    // honors validators: quality profiles have an ETag, settings a modification date
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if (request.getPath().startsWith("/api/qualityprofiles/search.protobuf")) {
+          if (ETAG.equals(request.getHeader("If-None-Match"))) {
+            return notModified();
+          }
+          SearchWsResponse response = SearchWsResponse.newBuilder()
+            .addProfiles(SearchWsResponse.QualityProfile.newBuilder().setKey("java-qp").setLanguage("java").setIsDefault(true))
+            .build();
+          return new MockResponse().setHeader("ETag", ETAG).setBody(new Buffer().write(response.toByteArray()));
+        }
+        if (request.getPath().startsWith("/api/settings/values.protobuf")) {
+          if (LAST_MODIFIED.equals(request.getHeader("If-Modified-Since"))) {
+            return notModified();
+          }
+          ValuesWsResponse response = ValuesWsResponse.newBuilder()
+            .addSettings(Setting.newBuilder().setKey("sonar.exclusions").setValue("**/generated/**"))
+            .build();
+          return new MockResponse().setHeader("Last-Modified", LAST_MODIFIED).setBody(new Buffer().write(response.toByteArray()));
+        }
+        return new MockResponse().setResponseCode(404);
+      }
+    });
+    server.start();
+    wsClient = new SonarLintWsClient(ServerConfiguration.builder().url(server.url("").toString()).userAgent("UT").build());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  private MockResponse notModified() {
+    notModified.incrementAndGet();
+    return new MockResponse().setResponseCode(304);
+  }
+
+  @Test
+  public void keep_stored_files_when_not_modified() throws Exception {
+    Path firstStorage = update(temp.newFolder().toPath());
+    assertThat(notModified.get()).isEqualTo(0);
+    HttpValidators validators = ProtobufUtil.readFile(firstStorage.resolve(StoragePaths.HTTP_VALIDATORS_PB), HttpValidators.parser());
+    assertThat(validators.getValidatorsByUrlMap().get("/api/qualityprofiles/search.protobuf").getEtag()).isEqualTo(ETAG);
+    assertThat(validators.getValidatorsByUrlMap().get("/api/settings/values.protobuf").getLastModified()).isEqualTo(LAST_MODIFIED);
+
+    Path secondStorage = update(firstStorage);
+
+    assertThat(notModified.get()).isEqualTo(2);
+    assertThat(secondStorage.resolve(StoragePaths.QUALITY_PROFILES_PB)).hasSameContentAs(firstStorage.resolve(StoragePaths.QUALITY_PROFILES_PB));
+    assertThat(secondStorage.resolve(StoragePaths.PROPERTIES_PB)).hasSameContentAs(firstStorage.resolve(StoragePaths.PROPERTIES_PB));
+    assertThat(ProtobufUtil.readFile(secondStorage.resolve(StoragePaths.QUALITY_PROFILES_PB), QProfiles.parser()).getDefaultQProfilesByLanguageMap())
+      .containsEntry("java", "java-qp");
+    assertThat(ProtobufUtil.readFile(secondStorage.resolve(StoragePaths.PROPERTIES_PB), GlobalProperties.parser()).getPropertiesMap())
+      .containsEntry("sonar.exclusions", "**/generated/**");
+    // validators are kept for the next update
+    assertThat(ProtobufUtil.readFile(secondStorage.resolve(StoragePaths.HTTP_VALIDATORS_PB), HttpValidators.parser())).isEqualTo(validators);
+  }
+
+  @Test
+  public void return_null_when_not_modified() throws Exception {
+    Path storage = update(temp.newFolder().toPath());
+
+    ConditionalDownloads downloads = new ConditionalDownloads(storage);
+    assertThat(new QualityProfilesDownloader(wsClient).fetchQualityProfilesIfModified(downloads)).isNull();
+    assertThat(new SettingsDownloader(wsClient).fetchGlobalSettingsIfModified("6.3", downloads)).isNull();
+  }
+
+  @Test
+  public void ignore_validators_of_storage_written_by_another_version() throws Exception {
+    Path storage = update(temp.newFolder().toPath());
+    writeStorageStatus(storage, "0.1");
+
+    update(storage);
+
+    assertThat(notModified.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void ignore_validators_when_stored_file_is_missing() throws Exception {
+    Path storage = update(temp.newFolder().toPath());
+    Files.delete(storage.resolve(StoragePaths.QUALITY_PROFILES_PB));
+
+    Path newStorage = update(storage);
+
+    assertThat(notModified.get()).isEqualTo(1);
+    assertThat(newStorage.resolve(StoragePaths.QUALITY_PROFILES_PB)).exists();
+  }
+
+  @Test
+  public void ignore_corrupted_validators() throws Exception {
+    Path storage = update(temp.newFolder().toPath());
+    Files.write(storage.resolve(StoragePaths.HTTP_VALIDATORS_PB), "foo bar".getBytes());
+
+    Path newStorage = update(storage);
+
+    assertThat(notModified.get()).isEqualTo(0);
+    HttpValidators validators = ProtobufUtil.readFile(newStorage.resolve(StoragePaths.HTTP_VALIDATORS_PB), HttpValidators.parser());
+    assertThat(validators.getValidatorsByUrlMap().get("/api/qualityprofiles/search.protobuf").getEtag()).isEqualTo(ETAG);
+  }
+
+  @Test
+  public void ignore_validators_when_storage_status_is_corrupted() throws Exception {
+    Path storage = update(temp.newFolder().toPath());
+    Files.write(storage.resolve(StoragePaths.STORAGE_STATUS_PB), "foo bar".getBytes());
+
+    update(storage);
+
+    assertThat(notModified.get()).isEqualTo(0);
+  }
+
+  private Path update(Path storage) throws IOException {
+    Path dest = temp.newFolder().toPath();
+    ConditionalDownloads downloads = new ConditionalDownloads(storage);
+    new QualityProfilesDownloader(wsClient).fetchQualityProfilesTo(dest, downloads);
+    new SettingsDownloader(wsClient).fetchGlobalSettingsTo("6.3", dest, downloads);
+    downloads.writeTo(dest);
+    writeStorageStatus(dest, VersionUtils.getLibraryVersion());
+    return dest;
+  }
+
+  private static void writeStorageStatus(Path storage, String sonarlintCoreVersion) {
+    ProtobufUtil.writeToFile(StorageStatus.newBuilder()
+      .setStorageVersion(StoragePaths.STORAGE_VERSION)
+      .setSonarlintCoreVersion(sonarlintCoreVersion)
+      .build(), storage.resolve(StoragePaths.STORAGE_STATUS_PB));
+  }
+}
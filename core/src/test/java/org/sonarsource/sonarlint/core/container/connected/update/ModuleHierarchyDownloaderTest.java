@@ -31,13 +31,21 @@ import org.sonarqube.ws.WsComponents.TreeWsResponse;
 import org.sonarsource.sonarlint.core.WsClientTestUtils;
 import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+import org.sonarsource.sonarlint.core.util.StringUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.sonarsource.sonarlint.core.container.connected.update.ModuleHierarchyDownloader.PAGE_SIZE;
 
 public class ModuleHierarchyDownloaderTest {
+  private static final String CHILDREN_URL = "api/components/tree.protobuf?qualifiers=BRC&strategy=children&baseComponentKey=";
+
   private SonarLintWsClient wsClient;
   private ModuleHierarchyDownloader downloader;
 
@@ -52,20 +60,52 @@ public class ModuleHierarchyDownloaderTest {
   }
 
   @Test
-  public void simpleTest() {
-    WsClientTestUtils
-      .addStreamResponse(wsClient, "api/components/tree.protobuf?qualifiers=BRC&baseComponentKey=testRoot&ps=500&p=1",
-        "/update/tree.pb");
-    WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=AVeumyM5SDj1uJJMtck2",
-      "/update/show_module1.pb");
-    WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=AVeumyM5SDj1uJJMtck3",
-      "/update/show_module1_module11.pb");
-    WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=AVeumyM5SDj1uJJMtck6",
-      "/update/show_module1_module12.pb");
-    WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=AVeumyM5SDj1uJJMtck9",
-      "/update/show_module2.pb");
+  public void simpleTest() throws IOException {
+    mockTree();
+    mockChildren("testRoot", "testRoot:module1", "testRoot:module2");
+    mockChildren("testRoot:module1", "testRoot:module1:module11", "testRoot:module1:module12");
+
+    Map<String, String> fetchModuleHierarchy = downloader.fetchModuleHierarchy("testRoot", new ProgressWrapper(null));
+    assertThat(fetchModuleHierarchy).containsOnly(
+      entry("testRoot", ""),
+      entry("testRoot:module1", "module1"),
+      entry("testRoot:module2", "module2"),
+      entry("testRoot:module1:module12", "module1/module12"),
+      entry("testRoot:module1:module11", "module1/module11"));
+    // all modules are found once children of module1 are known
+    verify(wsClient, never()).get(startsWith("api/components/tree.protobuf?qualifiers=BRC&strategy=children&baseComponentKey=testRoot%3Amodule2"));
+    verify(wsClient, never()).get(startsWith("api/components/show.protobuf"));
+  }
+
+  @Test
+  public void resolveRemainingModulesOneByOneWhenCheaper() throws IOException {
+    mockTree();
+    mockShow();
+    mockChildren("testRoot", "testRoot:module1", "testRoot:module2");
+    mockChildren("testRoot:module1", "testRoot:module1:module11");
+
     Map<String, String> fetchModuleHierarchy = downloader.fetchModuleHierarchy("testRoot", new ProgressWrapper(null));
-    assertThat(fetchModuleHierarchy).contains(
+    assertThat(fetchModuleHierarchy).containsOnly(
+      entry("testRoot", ""),
+      entry("testRoot:module1", "module1"),
+      entry("testRoot:module2", "module2"),
+      entry("testRoot:module1:module12", "module1/module12"),
+      entry("testRoot:module1:module11", "module1/module11"));
+    // module12 is the only module left to find, while module2 and module11 are left to explore
+    verify(wsClient, never()).get(startsWith(CHILDREN_URL + "testRoot%3Amodule2"));
+    verify(wsClient, never()).get(startsWith(CHILDREN_URL + "testRoot%3Amodule1%3Amodule11"));
+    verify(wsClient).get("api/components/show.protobuf?id=AVeumyM5SDj1uJJMtck6");
+    verify(wsClient, times(4)).get(anyString());
+  }
+
+  @Test
+  public void fallbackToShowForModulesNotFoundAsChildren() throws IOException {
+    mockTree();
+    mockShow();
+    mockChildren("testRoot");
+
+    Map<String, String> fetchModuleHierarchy = downloader.fetchModuleHierarchy("testRoot", new ProgressWrapper(null));
+    assertThat(fetchModuleHierarchy).containsOnly(
       entry("testRoot", ""),
       entry("testRoot:module1", "module1"),
       entry("testRoot:module2", "module2"),
@@ -81,14 +121,16 @@ public class ModuleHierarchyDownloaderTest {
       responseBuilder.addComponents(Component.newBuilder()
         .setId("id" + i)
         .setKey("testRoot" + i));
-      WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=id" + i, "/update/show_module1.pb");
     }
 
     WsClientTestUtils
       .addResponse(wsClient, "api/components/tree.protobuf?qualifiers=BRC&baseComponentKey=testRoot&ps=500&p=1", responseBuilder.build());
+    WsClientTestUtils
+      .addResponse(wsClient, CHILDREN_URL + "testRoot&ps=500&p=1", responseBuilder.build());
 
     Map<String, String> fetchModuleHierarchy = downloader.fetchModuleHierarchy("testRoot", new ProgressWrapper(null));
     assertThat(fetchModuleHierarchy).hasSize(PAGE_SIZE + 1 /* root module */);
+    verify(wsClient, times(2)).get(anyString());
   }
 
   @Test
@@ -99,11 +141,12 @@ public class ModuleHierarchyDownloaderTest {
       responseBuilder.addComponents(Component.newBuilder()
         .setId("id" + i)
         .setKey("testRoot" + i));
-      WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=id" + i, "/update/show_module1.pb");
     }
 
     WsClientTestUtils
       .addResponse(wsClient, "api/components/tree.protobuf?qualifiers=BRC&baseComponentKey=testRoot&ps=500&p=1", responseBuilder.build());
+    WsClientTestUtils
+      .addResponse(wsClient, CHILDREN_URL + "testRoot&ps=500&p=1", responseBuilder.build());
 
     responseBuilder = TreeWsResponse.newBuilder()
       .setPaging(Paging.newBuilder().setPageIndex(2).setTotal(501));
@@ -111,10 +154,11 @@ public class ModuleHierarchyDownloaderTest {
       responseBuilder.addComponents(Component.newBuilder()
         .setId("id" + i)
         .setKey("testRoot" + i));
-      WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=id" + i, "/update/show_module1.pb");
     }
     WsClientTestUtils
       .addResponse(wsClient, "api/components/tree.protobuf?qualifiers=BRC&baseComponentKey=testRoot&ps=500&p=2", responseBuilder.build());
+    WsClientTestUtils
+      .addResponse(wsClient, CHILDREN_URL + "testRoot&ps=500&p=2", responseBuilder.build());
 
     Map<String, String> fetchModuleHierarchy = downloader.fetchModuleHierarchy("testRoot", new ProgressWrapper(null));
     assertThat(fetchModuleHierarchy).hasSize(501 + 1);
@@ -140,4 +184,30 @@ public class ModuleHierarchyDownloaderTest {
     exception.expectMessage("Failed to process paginated WS");
     downloader.fetchModuleHierarchy("testRoot", new ProgressWrapper(null));
   }
+
+  private void mockTree() {
+    WsClientTestUtils
+      .addStreamResponse(wsClient, "api/components/tree.protobuf?qualifiers=BRC&baseComponentKey=testRoot&ps=500&p=1",
+        "/update/tree.pb");
+  }
+
+  private void mockShow() {
+    WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=AVeumyM5SDj1uJJMtck2",
+      "/update/show_module1.pb");
+    WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=AVeumyM5SDj1uJJMtck3",
+      "/update/show_module1_module11.pb");
+    WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=AVeumyM5SDj1uJJMtck6",
+      "/update/show_module1_module12.pb");
+    WsClientTestUtils.addStreamResponse(wsClient, "api/components/show.protobuf?id=AVeumyM5SDj1uJJMtck9",
+      "/update/show_module2.pb");
+  }
+
+  private void mockChildren(String parentKey, String... childKeys) throws IOException {
+    TreeWsResponse.Builder responseBuilder = TreeWsResponse.newBuilder()
+      .setPaging(Paging.newBuilder().setPageIndex(1).setTotal(childKeys.length));
+    for (String childKey : childKeys) {
+      responseBuilder.addComponents(Component.newBuilder().setKey(childKey));
+    }
+    WsClientTestUtils.addResponse(wsClient, CHILDREN_URL + StringUtils.urlEncode(parentKey) + "&ps=500&p=1", responseBuilder.build());
+  }
 }
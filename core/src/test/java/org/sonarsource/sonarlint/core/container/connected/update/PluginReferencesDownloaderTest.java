@@ -24,12 +24,18 @@ import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -44,7 +50,10 @@ import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
 import org.sonarsource.sonarlint.core.plugin.cache.PluginCache.Copier;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache.CopyStream;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache.StreamCopier;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.PluginReferences;
+import org.sonarsource.sonarlint.core.util.ws.WsResponse;
 
 public class PluginReferencesDownloaderTest {
   private PluginCache pluginCache;
@@ -62,7 +71,7 @@ public class PluginReferencesDownloaderTest {
     pluginCache = mock(PluginCache.class);
     dest = temp.newFolder().toPath();
     pluginList = new LinkedList<>();
-    pluginUpdate = new PluginReferencesDownloader(wsClient, pluginCache);
+    pluginUpdate = new PluginReferencesDownloader(wsClient, pluginCache, 1);
   }
 
   @Test
@@ -122,7 +131,7 @@ public class PluginReferencesDownloaderTest {
     pluginList.add(new DefaultSonarAnalyzer("groovy", "sonar-groovy-plugin-1.2.jar", "14908dd5f3a9b9d795dbc103f0af546f", "1.2", true));
     pluginList.add(new DefaultSonarAnalyzer("java", "sonar-java-plugin-3.12-SNAPSHOT.jar", "de5308f43260d357acc97712ce4c5475", "3.12-SNAPSHOT", true));
 
-    PluginReferencesDownloader pluginUpdate = new PluginReferencesDownloader(wsClient, pluginCache);
+    PluginReferencesDownloader pluginUpdate = new PluginReferencesDownloader(wsClient, pluginCache, 1);
     pluginUpdate.fetchPluginsTo(dest, pluginList);
 
     PluginReferences pluginReferences = ProtobufUtil.readFile(dest.resolve(StoragePaths.PLUGIN_REFERENCES_PB), PluginReferences.parser());
@@ -134,4 +143,67 @@ public class PluginReferencesDownloaderTest {
     verify(pluginCache).get(eq("sonar-java-plugin-3.12-SNAPSHOT.jar"), eq("de5308f43260d357acc97712ce4c5475"), any(Copier.class));
   }
 
+
+  @Test
+  public void download_missing_plugins_concurrently() throws Exception {
+    pluginList.add(new DefaultSonarAnalyzer("javascript", "sonar-javascript-plugin-2.10.jar", "79dba9cab72d8d31767f47c03d169598", "2.10", true));
+    pluginList.add(new DefaultSonarAnalyzer("csharp", "sonar-csharp-plugin-4.4.jar", "e78bc8ac2e376c4a7a2a2cae914bdc52", "4.4", true));
+    pluginList.add(new DefaultSonarAnalyzer("groovy", "sonar-groovy-plugin-1.2.jar", "14908dd5f3a9b9d795dbc103f0af546f", "1.2", true));
+    pluginList.add(new DefaultSonarAnalyzer("java", "sonar-java-plugin-3.12-SNAPSHOT.jar", "de5308f43260d357acc97712ce4c5475", "3.12-SNAPSHOT", true));
+    pluginList.add(new DefaultSonarAnalyzer("php", "sonar-php-plugin-2.9.jar", "fe3adc1ba2ac39d1ea3bf2ab6e5ec8cc", "2.9", true));
+    when(pluginCache.get("sonar-groovy-plugin-1.2.jar", "14908dd5f3a9b9d795dbc103f0af546f")).thenReturn(dest);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    when(pluginCache.get(any(String.class), any(String.class), any(Copier.class))).then(invocation -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      Thread.sleep(100);
+      running.decrementAndGet();
+      return dest;
+    });
+
+    new PluginReferencesDownloader(wsClient, pluginCache, 2).fetchPluginsTo(dest, pluginList);
+
+    verify(pluginCache).get(eq("sonar-php-plugin-2.9.jar"), eq("fe3adc1ba2ac39d1ea3bf2ab6e5ec8cc"), any(Copier.class));
+    verify(pluginCache, never()).get(eq("sonar-groovy-plugin-1.2.jar"), eq("14908dd5f3a9b9d795dbc103f0af546f"), any(Copier.class));
+    assertThat(maxRunning.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void resume_download_with_range_request() throws Exception {
+    pluginList.add(new DefaultSonarAnalyzer("java", "sonar-java-plugin-3.12-SNAPSHOT.jar", "de5308f43260d357acc97712ce4c5475", "3.12-SNAPSHOT", true));
+    pluginUpdate.fetchPluginsTo(dest, pluginList);
+    ArgumentCaptor<Copier> downloaderCaptor = ArgumentCaptor.forClass(Copier.class);
+    verify(pluginCache).get(eq("sonar-java-plugin-3.12-SNAPSHOT.jar"), eq("de5308f43260d357acc97712ce4c5475"), downloaderCaptor.capture());
+    StreamCopier downloader = (StreamCopier) downloaderCaptor.getValue();
+
+    WsResponse partialResponse = mock(WsResponse.class);
+    when(partialResponse.code()).thenReturn(206);
+    when(partialResponse.header("Content-Range")).thenReturn("bytes 3-6/7");
+    when(partialResponse.contentStream()).thenReturn(new ByteArrayInputStream("tent".getBytes(StandardCharsets.UTF_8)));
+    when(wsClient.rawGet("/deploy/plugins/java/test.jar", Collections.singletonMap("Range", "bytes=3-"))).thenReturn(partialResponse);
+
+    CopyStream stream = downloader.open("test.jar", 3);
+    assertThat(stream.offset()).isEqualTo(3);
+    assertThat(stream.stream()).hasSameContentAs(new ByteArrayInputStream("tent".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void download_whole_file_when_range_not_supported() throws Exception {
+    pluginList.add(new DefaultSonarAnalyzer("java", "sonar-java-plugin-3.12-SNAPSHOT.jar", "de5308f43260d357acc97712ce4c5475", "3.12-SNAPSHOT", true));
+    pluginUpdate.fetchPluginsTo(dest, pluginList);
+    ArgumentCaptor<Copier> downloaderCaptor = ArgumentCaptor.forClass(Copier.class);
+    verify(pluginCache).get(eq("sonar-java-plugin-3.12-SNAPSHOT.jar"), eq("de5308f43260d357acc97712ce4c5475"), downloaderCaptor.capture());
+    StreamCopier downloader = (StreamCopier) downloaderCaptor.getValue();
+
+    WsResponse fullResponse = mock(WsResponse.class);
+    when(fullResponse.code()).thenReturn(200);
+    when(fullResponse.isSuccessful()).thenReturn(true);
+    when(fullResponse.contentStream()).thenReturn(new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)));
+    when(wsClient.rawGet("/deploy/plugins/java/test.jar", Collections.singletonMap("Range", "bytes=3-"))).thenReturn(fullResponse);
+
+    CopyStream stream = downloader.open("test.jar", 3);
+    assertThat(stream.offset()).isZero();
+    assertThat(stream.stream()).hasSameContentAs(new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)));
+  }
+
 }
@@ -23,11 +23,8 @@ import java.io.IOException;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
-import org.junit.rules.TemporaryFolder;
 import org.sonarsource.sonarlint.core.WsClientTestUtils;
 import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
-import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
-import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.QProfiles;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -40,16 +37,11 @@ public class QualityProfilesDownloaderTest {
   @Rule
   public ExpectedException exception = ExpectedException.none();
 
-  @Rule
-  public TemporaryFolder temp = new TemporaryFolder();
-
   @Test
   public void test() {
     SonarLintWsClient wsClient = WsClientTestUtils.createMockWithStreamResponse("/api/qualityprofiles/search.protobuf", "/update/qualityprofiles.pb");
     qProfilesDownloader = new QualityProfilesDownloader(wsClient);
-    qProfilesDownloader.fetchQualityProfilesTo(temp.getRoot().toPath());
-
-    QProfiles qProfiles = ProtobufUtil.readFile(temp.getRoot().toPath().resolve(StoragePaths.QUALITY_PROFILES_PB), QProfiles.parser());
+    QProfiles qProfiles = qProfilesDownloader.fetchQualityProfiles();
     assertThat(qProfiles.getQprofilesByKeyMap()).containsOnlyKeys(
       "cs-sonar-way-58886",
       "java-sonar-way-74592",
@@ -68,9 +60,7 @@ public class QualityProfilesDownloaderTest {
     SonarLintWsClient wsClient = WsClientTestUtils.createMockWithStreamResponse("/api/qualityprofiles/search.protobuf?organization=myOrg", "/update/qualityprofiles.pb");
     when(wsClient.getOrganizationKey()).thenReturn("myOrg");
     qProfilesDownloader = new QualityProfilesDownloader(wsClient);
-    qProfilesDownloader.fetchQualityProfilesTo(temp.getRoot().toPath());
-
-    QProfiles qProfiles = ProtobufUtil.readFile(temp.getRoot().toPath().resolve(StoragePaths.QUALITY_PROFILES_PB), QProfiles.parser());
+    QProfiles qProfiles = qProfilesDownloader.fetchQualityProfiles();
     assertThat(qProfiles.getQprofilesByKeyMap()).containsOnlyKeys(
       "cs-sonar-way-58886",
       "java-sonar-way-74592",
@@ -92,7 +82,7 @@ public class QualityProfilesDownloaderTest {
 
     exception.expect(IllegalStateException.class);
     exception.expectMessage("Failed to load default quality profiles");
-    qProfilesDownloader.fetchQualityProfilesTo(temp.getRoot().toPath());
+    qProfilesDownloader.fetchQualityProfiles();
 
   }
 
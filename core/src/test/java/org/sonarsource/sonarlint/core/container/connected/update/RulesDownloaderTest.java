@@ -24,6 +24,15 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -31,6 +40,8 @@ import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.server.rule.RulesDefinition.Context;
 import org.sonarsource.sonarlint.core.WsClientTestUtils;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
 import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
 import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
@@ -43,6 +54,8 @@ import static org.mockito.Mockito.when;
 import static org.sonarsource.sonarlint.core.container.connected.update.RulesDownloader.RULES_SEARCH_URL;
 
 public class RulesDownloaderTest {
+  private static final long LATENCY_MS = 100;
+
   @Rule
   public ExpectedException exception = ExpectedException.none();
 
@@ -99,6 +112,7 @@ public class RulesDownloaderTest {
   public void unknown_type() throws IOException {
     org.sonarqube.ws.Rules.SearchResponse response = org.sonarqube.ws.Rules.SearchResponse.newBuilder()
       .addRules(org.sonarqube.ws.Rules.Rule.newBuilder().setKey("S:101").build())
+      .setTotal(1)
       .build();
     SonarLintWsClient wsClient = WsClientTestUtils.createMock();
     WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&p=1&ps=500", response);
@@ -124,4 +138,56 @@ public class RulesDownloaderTest {
     exception.expectMessage("Failed to load rules");
     rulesUpdate.fetchRulesTo(tempDir.toPath(), new ProgressWrapper(null));
   }
+
+  @Test
+  public void remaining_pages_are_fetched_concurrently_and_consumed_in_order() throws Exception {
+    int pages = 21;
+    try (MockWebServer server = new MockWebServer()) {
+      server.setDispatcher(new Dispatcher() {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+          int page = Integer.parseInt(HttpUrl.parse("http://localhost" + request.getPath()).queryParameter("p"));
+          // first pages answer last, to check that they are still consumed in order
+          Thread.sleep(LATENCY_MS + (pages - page) * 5L);
+          org.sonarqube.ws.Rules.SearchResponse.Builder response = org.sonarqube.ws.Rules.SearchResponse.newBuilder()
+            .setTotal(pages * SonarLintWsClient.PAGE_SIZE)
+            .setP(page)
+            .setPs(SonarLintWsClient.PAGE_SIZE);
+          for (int i = 0; i < SonarLintWsClient.PAGE_SIZE; i++) {
+            response.addRules(org.sonarqube.ws.Rules.Rule.newBuilder().setKey("java:S" + ((page - 1) * SonarLintWsClient.PAGE_SIZE + i)));
+          }
+          return new MockResponse().setBody(new Buffer().write(response.build().toByteArray()));
+        }
+      });
+      server.start();
+      SonarLintWsClient wsClient = new SonarLintWsClient(ServerConfiguration.builder().url(server.url("").toString()).userAgent("UT").build());
+
+      List<String> sequentialPages = new ArrayList<>();
+      long sequentialDuration = timeRulesUpdate(wsClient, 1, sequentialPages);
+      List<String> parallelPages = new ArrayList<>();
+      long parallelDuration = timeRulesUpdate(wsClient, SonarLintWsClient.PAGINATED_FETCH_PARALLELISM, parallelPages);
+
+      assertThat(server.getRequestCount()).isEqualTo(2 * pages);
+      assertThat(parallelPages).isEqualTo(sequentialPages).hasSize(pages).startsWith("Page 1", "Page 2").endsWith("Page " + pages);
+      assertThat(sequentialDuration).isGreaterThanOrEqualTo(pages * LATENCY_MS);
+      assertThat(parallelDuration).isLessThan(sequentialDuration / 2);
+    }
+  }
+
+  private long timeRulesUpdate(SonarLintWsClient wsClient, int parallelism, List<String> pages) throws IOException {
+    RulesDownloader rulesUpdate = new RulesDownloader(wsClient, parallelism);
+    File tempDir = temp.newFolder();
+    long start = System.nanoTime();
+    rulesUpdate.fetchRulesTo(tempDir.toPath(), new ProgressWrapper(new ProgressMonitor() {
+      @Override
+      public void setMessage(String msg) {
+        pages.add(msg);
+      }
+    }));
+    long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    Rules rules = ProtobufUtil.readFile(tempDir.toPath().resolve(StoragePaths.RULES_PB), Rules.parser());
+    assertThat(rules.getRulesByKeyMap()).hasSize(pages.size() * SonarLintWsClient.PAGE_SIZE).containsKeys("java:S0", "java:S10499");
+    return duration;
+  }
 }
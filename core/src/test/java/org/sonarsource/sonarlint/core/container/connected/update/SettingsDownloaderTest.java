@@ -20,15 +20,10 @@
 package org.sonarsource.sonarlint.core.container.connected.update;
 
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.StringReader;
-import java.nio.file.Path;
-import org.junit.Before;
-import org.junit.Rule;
 import org.junit.Test;
-import org.junit.rules.TemporaryFolder;
 import org.sonarqube.ws.Settings;
 import org.sonarqube.ws.Settings.FieldValues;
 import org.sonarqube.ws.Settings.FieldValues.Value;
@@ -37,8 +32,6 @@ import org.sonarqube.ws.Settings.Values;
 import org.sonarqube.ws.Settings.ValuesWsResponse;
 import org.sonarsource.sonarlint.core.WsClientTestUtils;
 import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
-import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
-import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ModuleConfiguration;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ModuleConfiguration.Builder;
@@ -48,16 +41,6 @@ import static org.assertj.core.api.Assertions.entry;
 
 public class SettingsDownloaderTest {
 
-  @Rule
-  public TemporaryFolder temp = new TemporaryFolder();
-
-  private Path destDir;
-
-  @Before
-  public void setUp() throws IOException {
-    destDir = temp.newFolder().toPath();
-  }
-
   @Test
   public void testFetchGlobalSettings() throws Exception {
     SonarLintWsClient wsClient = WsClientTestUtils.createMock();
@@ -79,9 +62,7 @@ public class SettingsDownloaderTest {
     out.close();
     WsClientTestUtils.addResponse(wsClient, "/api/settings/values.protobuf", in);
 
-    new SettingsDownloader(wsClient).fetchGlobalSettingsTo("6.3", destDir);
-
-    GlobalProperties properties = ProtobufUtil.readFile(destDir.resolve(StoragePaths.PROPERTIES_PB), GlobalProperties.parser());
+    GlobalProperties properties = new SettingsDownloader(wsClient).fetchGlobalSettings("6.3");
     assertThat(properties.getPropertiesMap()).containsOnly(
       entry("sonar.core.treemap.sizemetric", "ncloc"),
       entry("views.servers", "135817900907501"));
@@ -135,7 +116,7 @@ public class SettingsDownloaderTest {
     SonarLintWsClient wsClient = WsClientTestUtils.createMock();
     WsClientTestUtils.addResponse(wsClient, "/api/settings/values.protobuf", new ByteArrayInputStream("foo bar".getBytes()));
 
-    new SettingsDownloader(wsClient).fetchGlobalSettingsTo("6.3", destDir);
+    new SettingsDownloader(wsClient).fetchGlobalSettings("6.3");
   }
 
   @Test
@@ -145,9 +126,7 @@ public class SettingsDownloaderTest {
         + "{\"key\": \"sonar.core.treemap.sizemetric\",\"value\": \"ncloc\"},"
         + "{\"key\": \"views.servers\",\"value\": \"135817900907501\",\"values\": [\"135817900907501\"]}]"));
 
-    new SettingsDownloader(wsClient).fetchGlobalSettingsTo("6.2", destDir);
-
-    GlobalProperties properties = ProtobufUtil.readFile(destDir.resolve(StoragePaths.PROPERTIES_PB), GlobalProperties.parser());
+    GlobalProperties properties = new SettingsDownloader(wsClient).fetchGlobalSettings("6.2");
     assertThat(properties.getPropertiesMap()).containsOnly(entry("sonar.core.treemap.colormetric", "violations_density"),
       entry("sonar.core.treemap.sizemetric", "ncloc"),
       entry("views.servers", "135817900907501"));
@@ -182,7 +161,7 @@ public class SettingsDownloaderTest {
   public void invalidResponseProperties() throws Exception {
     SonarLintWsClient wsClient = WsClientTestUtils.createMockWithReaderResponse("/api/properties?format=json", new StringReader("foo bar"));
 
-    new SettingsDownloader(wsClient).fetchGlobalSettingsTo("6.2", destDir);
+    new SettingsDownloader(wsClient).fetchGlobalSettings("6.2");
   }
 
 }
@@ -26,13 +26,16 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonarsource.sonarlint.core.container.connected.update.ConditionalDownloads;
 import org.sonarsource.sonarlint.core.container.connected.update.SettingsDownloader;
 import org.sonarsource.sonarlint.core.container.storage.StorageReader;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class GlobalSettingsUpdateCheckerTest {
@@ -41,6 +44,7 @@ public class GlobalSettingsUpdateCheckerTest {
   private GlobalSettingsUpdateChecker checker;
   private StorageReader storageReader;
   private SettingsDownloader globalPropertiesDownloader;
+  private ConditionalDownloads downloads = mock(ConditionalDownloads.class);
 
   @Rule
   public LogTester logTester = new LogTester();
@@ -51,7 +55,7 @@ public class GlobalSettingsUpdateCheckerTest {
     globalPropertiesDownloader = mock(SettingsDownloader.class);
 
     when(storageReader.readGlobalProperties()).thenReturn(GlobalProperties.newBuilder().build());
-    when(globalPropertiesDownloader.fetchGlobalSettings(anyString())).thenReturn(GlobalProperties.newBuilder().build());
+    when(globalPropertiesDownloader.fetchGlobalSettingsIfModified(anyString(), any(ConditionalDownloads.class))).thenReturn(GlobalProperties.newBuilder().build());
 
     checker = new GlobalSettingsUpdateChecker(storageReader, globalPropertiesDownloader);
   }
@@ -62,10 +66,20 @@ public class GlobalSettingsUpdateCheckerTest {
     new LogTester().setLevel(LoggerLevel.TRACE);
   }
 
+  @Test
+  public void testNotModified() {
+    when(globalPropertiesDownloader.fetchGlobalSettingsIfModified(SQ_VERSION, downloads)).thenReturn(null);
+    DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
+    checker.checkForUpdates(SQ_VERSION, downloads, result);
+
+    assertThat(result.needUpdate()).isFalse();
+    verifyZeroInteractions(storageReader);
+  }
+
   @Test
   public void testNoChanges() {
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(SQ_VERSION, result);
+    checker.checkForUpdates(SQ_VERSION, downloads, result);
 
     assertThat(result.needUpdate()).isFalse();
     assertThat(result.changelog()).isEmpty();
@@ -73,10 +87,10 @@ public class GlobalSettingsUpdateCheckerTest {
 
   @Test
   public void ignore_unused_props() {
-    when(globalPropertiesDownloader.fetchGlobalSettings(SQ_VERSION)).thenReturn(GlobalProperties.newBuilder().putProperties("sonar.foo", "value").build());
+    when(globalPropertiesDownloader.fetchGlobalSettingsIfModified(SQ_VERSION, downloads)).thenReturn(GlobalProperties.newBuilder().putProperties("sonar.foo", "value").build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(SQ_VERSION, result);
+    checker.checkForUpdates(SQ_VERSION, downloads, result);
 
     assertThat(result.needUpdate()).isFalse();
     assertThat(result.changelog()).isEmpty();
@@ -85,10 +99,10 @@ public class GlobalSettingsUpdateCheckerTest {
 
   @Test
   public void addedProp() {
-    when(globalPropertiesDownloader.fetchGlobalSettings(SQ_VERSION)).thenReturn(GlobalProperties.newBuilder().putProperties("sonar.test.inclusions", "value").build());
+    when(globalPropertiesDownloader.fetchGlobalSettingsIfModified(SQ_VERSION, downloads)).thenReturn(GlobalProperties.newBuilder().putProperties("sonar.test.inclusions", "value").build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(SQ_VERSION, result);
+    checker.checkForUpdates(SQ_VERSION, downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Global settings updated");
@@ -97,10 +111,10 @@ public class GlobalSettingsUpdateCheckerTest {
 
   @Test
   public void addedPropObfuscateSecured() {
-    when(globalPropertiesDownloader.fetchGlobalSettings(SQ_VERSION)).thenReturn(GlobalProperties.newBuilder().putProperties("sonar.java.license.secured", "value").build());
+    when(globalPropertiesDownloader.fetchGlobalSettingsIfModified(SQ_VERSION, downloads)).thenReturn(GlobalProperties.newBuilder().putProperties("sonar.java.license.secured", "value").build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(SQ_VERSION, result);
+    checker.checkForUpdates(SQ_VERSION, downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Global settings updated");
@@ -109,11 +123,11 @@ public class GlobalSettingsUpdateCheckerTest {
 
   @Test
   public void addedPropAbbreviateValue() {
-    when(globalPropertiesDownloader.fetchGlobalSettings(SQ_VERSION))
+    when(globalPropertiesDownloader.fetchGlobalSettingsIfModified(SQ_VERSION, downloads))
       .thenReturn(GlobalProperties.newBuilder().putProperties("sonar.issue.enforce.allFiles", StringUtils.repeat("abcde", 10)).build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(SQ_VERSION, result);
+    checker.checkForUpdates(SQ_VERSION, downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Global settings updated");
@@ -125,7 +139,7 @@ public class GlobalSettingsUpdateCheckerTest {
     when(storageReader.readGlobalProperties()).thenReturn(GlobalProperties.newBuilder().putProperties("sonar.issue.ignore.allFiles", "value").build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(SQ_VERSION, result);
+    checker.checkForUpdates(SQ_VERSION, downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Global settings updated");
@@ -135,10 +149,10 @@ public class GlobalSettingsUpdateCheckerTest {
   @Test
   public void changedProp() {
     when(storageReader.readGlobalProperties()).thenReturn(GlobalProperties.newBuilder().putProperties("sonar.exclusions", "old").build());
-    when(globalPropertiesDownloader.fetchGlobalSettings(SQ_VERSION)).thenReturn(GlobalProperties.newBuilder().putProperties("sonar.exclusions", "new").build());
+    when(globalPropertiesDownloader.fetchGlobalSettingsIfModified(SQ_VERSION, downloads)).thenReturn(GlobalProperties.newBuilder().putProperties("sonar.exclusions", "new").build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(SQ_VERSION, result);
+    checker.checkForUpdates(SQ_VERSION, downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Global settings updated");
@@ -149,11 +163,11 @@ public class GlobalSettingsUpdateCheckerTest {
   public void changedPropDiffAbbreviateEnd() {
     when(storageReader.readGlobalProperties())
       .thenReturn(GlobalProperties.newBuilder().putProperties("sonar.exclusions", "one,two,three,four,five,six,seven,eight").build());
-    when(globalPropertiesDownloader.fetchGlobalSettings(SQ_VERSION))
+    when(globalPropertiesDownloader.fetchGlobalSettingsIfModified(SQ_VERSION, downloads))
       .thenReturn(GlobalProperties.newBuilder().putProperties("sonar.exclusions", "four,five,six,seven,eight").build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(SQ_VERSION, result);
+    checker.checkForUpdates(SQ_VERSION, downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Global settings updated");
@@ -164,11 +178,11 @@ public class GlobalSettingsUpdateCheckerTest {
   public void changedPropDiffAbbreviateBeginEnd() {
     when(storageReader.readGlobalProperties())
       .thenReturn(GlobalProperties.newBuilder().putProperties("sonar.exclusions", "one,two,three,four,five,six,seven,eight").build());
-    when(globalPropertiesDownloader.fetchGlobalSettings(SQ_VERSION))
+    when(globalPropertiesDownloader.fetchGlobalSettingsIfModified(SQ_VERSION, downloads))
       .thenReturn(GlobalProperties.newBuilder().putProperties("sonar.exclusions", "one,four,five,six,seven,eight").build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(SQ_VERSION, result);
+    checker.checkForUpdates(SQ_VERSION, downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Global settings updated");
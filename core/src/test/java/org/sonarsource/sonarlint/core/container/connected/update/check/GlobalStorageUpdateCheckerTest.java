@@ -24,10 +24,13 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonarsource.sonarlint.core.client.api.connected.StorageUpdateCheckResult;
 import org.sonarsource.sonarlint.core.container.connected.update.PluginListDownloader;
 import org.sonarsource.sonarlint.core.container.connected.validate.ServerVersionAndStatusChecker;
+import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerInfos;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
@@ -36,12 +39,17 @@ public class GlobalStorageUpdateCheckerTest {
   private GlobalStorageUpdateChecker checker;
   private ServerVersionAndStatusChecker statusChecker;
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   @Before
   public void prepare() {
     statusChecker = mock(ServerVersionAndStatusChecker.class);
     when(statusChecker.checkVersionAndStatus()).thenReturn(ServerInfos.newBuilder().build());
+    StoragePaths storagePaths = mock(StoragePaths.class);
+    when(storagePaths.getGlobalStorageRoot()).thenReturn(temp.getRoot().toPath());
     checker = new GlobalStorageUpdateChecker(statusChecker, mock(PluginsUpdateChecker.class),
-      mock(PluginListDownloader.class), mock(GlobalSettingsUpdateChecker.class), mock(QualityProfilesUpdateChecker.class));
+      mock(PluginListDownloader.class), mock(GlobalSettingsUpdateChecker.class), mock(QualityProfilesUpdateChecker.class), storagePaths);
   }
 
   @Test
@@ -23,11 +23,14 @@ import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonarsource.sonarlint.core.client.api.connected.StorageUpdateCheckResult;
+import org.sonarsource.sonarlint.core.container.connected.update.ConditionalDownloads;
 import org.sonarsource.sonarlint.core.container.connected.update.ModuleConfigurationDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.SettingsDownloader;
+import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.container.storage.StorageReader;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ModuleConfiguration;
@@ -47,6 +50,9 @@ public class ModuleStorageUpdateCheckerTest {
   @Rule
   public LogTester logTester = new LogTester();
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   private static final String MODULE_KEY = "foo";
   private ModuleStorageUpdateChecker checker;
   private StorageReader storageReader;
@@ -63,8 +69,10 @@ public class ModuleStorageUpdateCheckerTest {
       .thenReturn(ModuleConfiguration.newBuilder().build());
 
     SettingsDownloader settingsDownloader = mock(SettingsDownloader.class);
-    when(settingsDownloader.fetchGlobalSettings(SERVER_VERSION)).thenReturn(GlobalProperties.newBuilder().build());
-    checker = new ModuleStorageUpdateChecker(storageReader, moduleConfigurationDownloader, settingsDownloader);
+    when(settingsDownloader.fetchGlobalSettingsIfModified(eq(SERVER_VERSION), any(ConditionalDownloads.class))).thenReturn(GlobalProperties.newBuilder().build());
+    StoragePaths storagePaths = mock(StoragePaths.class);
+    when(storagePaths.getGlobalStorageRoot()).thenReturn(temp.getRoot().toPath());
+    checker = new ModuleStorageUpdateChecker(storageReader, moduleConfigurationDownloader, settingsDownloader, storagePaths);
   }
 
   @AfterClass
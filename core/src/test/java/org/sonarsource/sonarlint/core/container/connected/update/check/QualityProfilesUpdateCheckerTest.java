@@ -21,6 +21,7 @@ package org.sonarsource.sonarlint.core.container.connected.update.check;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.sonarsource.sonarlint.core.container.connected.update.ConditionalDownloads;
 import org.sonarsource.sonarlint.core.container.connected.update.QualityProfilesDownloader;
 import org.sonarsource.sonarlint.core.container.storage.StorageReader;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.QProfiles;
@@ -28,6 +29,7 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint.QProfiles.QProfile;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class QualityProfilesUpdateCheckerTest {
@@ -35,6 +37,7 @@ public class QualityProfilesUpdateCheckerTest {
   private QualityProfilesUpdateChecker checker;
   private StorageReader storageReader;
   private QualityProfilesDownloader qualityProfilesDownloader;
+  private ConditionalDownloads downloads = mock(ConditionalDownloads.class);
 
   @Before
   public void prepare() {
@@ -43,15 +46,25 @@ public class QualityProfilesUpdateCheckerTest {
     qualityProfilesDownloader = mock(QualityProfilesDownloader.class);
 
     when(storageReader.readQProfiles()).thenReturn(QProfiles.newBuilder().build());
-    when(qualityProfilesDownloader.fetchQualityProfiles()).thenReturn(QProfiles.newBuilder().build());
+    when(qualityProfilesDownloader.fetchQualityProfilesIfModified(downloads)).thenReturn(QProfiles.newBuilder().build());
 
     checker = new QualityProfilesUpdateChecker(storageReader, qualityProfilesDownloader);
   }
 
+  @Test
+  public void testNotModified() {
+    when(qualityProfilesDownloader.fetchQualityProfilesIfModified(downloads)).thenReturn(null);
+    DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
+    checker.checkForUpdates(downloads, result);
+
+    assertThat(result.needUpdate()).isFalse();
+    verifyZeroInteractions(storageReader);
+  }
+
   @Test
   public void testNoChanges() {
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(result);
+    checker.checkForUpdates(downloads, result);
 
     assertThat(result.needUpdate()).isFalse();
     assertThat(result.changelog()).isEmpty();
@@ -59,12 +72,12 @@ public class QualityProfilesUpdateCheckerTest {
 
   @Test
   public void addedQProfile() {
-    when(qualityProfilesDownloader.fetchQualityProfiles())
+    when(qualityProfilesDownloader.fetchQualityProfilesIfModified(downloads))
       .thenReturn(QProfiles.newBuilder().putQprofilesByKey("java-123", QProfile.newBuilder().setKey("java-123").setName("Sonar Way")
         .setLanguageName("Java").build()).build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(result);
+    checker.checkForUpdates(downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Quality profile 'Sonar Way' for language 'Java' added");
@@ -77,7 +90,7 @@ public class QualityProfilesUpdateCheckerTest {
         .setLanguageName("Java").build()).build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(result);
+    checker.checkForUpdates(downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Quality profile 'Sonar Way' for language 'Java' removed");
@@ -85,7 +98,7 @@ public class QualityProfilesUpdateCheckerTest {
 
   @Test
   public void updatedQProfile_rules_updated_at() {
-    when(qualityProfilesDownloader.fetchQualityProfiles())
+    when(qualityProfilesDownloader.fetchQualityProfilesIfModified(downloads))
       .thenReturn(QProfiles.newBuilder().putQprofilesByKey("java-123",
         QProfile.newBuilder()
           .setKey("java-123")
@@ -105,7 +118,7 @@ public class QualityProfilesUpdateCheckerTest {
         .build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(result);
+    checker.checkForUpdates(downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Quality profile 'Sonar Way' for language 'Java' updated");
@@ -113,7 +126,7 @@ public class QualityProfilesUpdateCheckerTest {
 
   @Test
   public void updatedQProfile_user_updated_at() {
-    when(qualityProfilesDownloader.fetchQualityProfiles())
+    when(qualityProfilesDownloader.fetchQualityProfilesIfModified(downloads))
       .thenReturn(QProfiles.newBuilder().putQprofilesByKey("java-123",
         QProfile.newBuilder()
           .setKey("java-123")
@@ -134,7 +147,7 @@ public class QualityProfilesUpdateCheckerTest {
         .build());
 
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    checker.checkForUpdates(result);
+    checker.checkForUpdates(downloads, result);
 
     assertThat(result.needUpdate()).isTrue();
     assertThat(result.changelog()).containsOnly("Quality profile 'Sonar Way' for language 'Java' updated");
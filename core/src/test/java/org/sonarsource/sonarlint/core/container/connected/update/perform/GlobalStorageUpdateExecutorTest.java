@@ -23,12 +23,25 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.TempFolder;
 import org.sonarsource.sonarlint.core.WsClientTestUtils;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
 import org.sonarsource.sonarlint.core.container.connected.update.ModuleListDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.PluginListDownloader;
@@ -36,9 +49,11 @@ import org.sonarsource.sonarlint.core.container.connected.update.PluginReference
 import org.sonarsource.sonarlint.core.container.connected.update.QualityProfilesDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.RulesDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.SettingsDownloader;
+import org.sonarsource.sonarlint.core.container.connected.validate.PluginVersionChecker;
 import org.sonarsource.sonarlint.core.container.connected.validate.ServerVersionAndStatusChecker;
 import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerInfos;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.StorageStatus;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
@@ -52,6 +67,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 public class GlobalStorageUpdateExecutorTest {
+  private static final long LATENCY_MS = 200;
+
   private TempFolder tempFolder;
   private StoragePaths storageManager;
   private SonarLintWsClient wsClient;
@@ -113,4 +130,79 @@ public class GlobalStorageUpdateExecutorTest {
     }
 
   }
+
+  @Test
+  public void independentDownloadsOverlap() throws Exception {
+    try (MockWebServer server = new MockWebServer()) {
+      server.setDispatcher(new Dispatcher() {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+          Thread.sleep(LATENCY_MS);
+          if (request.getPath().startsWith("/api/system/status")) {
+            return new MockResponse().setBody("{\"id\": \"20160308094653\",\"version\": \"6.7\",\"status\": \"UP\"}");
+          }
+          // empty plugin list, and empty protobuf messages for other web services
+          return new MockResponse().setBody("");
+        }
+      });
+      server.start();
+      SonarLintWsClient client = new SonarLintWsClient(ServerConfiguration.builder().url(server.url("").toString()).userAgent("UT").build());
+
+      long sequentialDuration = timeUpdate(client, 1);
+      int sequentialRequests = server.getRequestCount();
+      long parallelDuration = timeUpdate(client, GlobalStorageUpdateExecutor.DEFAULT_PARALLELISM);
+
+      assertThat(server.getRequestCount()).isEqualTo(2 * sequentialRequests);
+      assertThat(sequentialDuration).isGreaterThanOrEqualTo(sequentialRequests * LATENCY_MS);
+      // server status, then all other downloads at the same time
+      assertThat(parallelDuration).isLessThan(sequentialDuration / 2);
+    }
+  }
+
+  @Test
+  public void dontReportCancellationFromSteps() {
+    Thread caller = Thread.currentThread();
+    AtomicBoolean canceled = new AtomicBoolean();
+    List<Thread> reportingThreads = new CopyOnWriteArrayList<>();
+    ProgressMonitor monitor = new ProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return canceled.get();
+      }
+
+      @Override
+      public void setMessage(String msg) {
+        reportingThreads.add(Thread.currentThread());
+      }
+    };
+    PluginListDownloader pluginListDownloader = mock(PluginListDownloader.class);
+    when(pluginListDownloader.downloadPluginList(any())).then(invocation -> {
+      canceled.set(true);
+      return Collections.emptyList();
+    });
+    globalUpdate = new GlobalStorageUpdateExecutor(storageManager, wsClient, new ServerVersionAndStatusChecker(wsClient),
+      mock(PluginReferencesDownloader.class), mock(SettingsDownloader.class), rulesDownloader, mock(ModuleListDownloader.class),
+      mock(QualityProfilesDownloader.class), pluginListDownloader, tempFolder, 1);
+
+    try {
+      globalUpdate.update(new ProgressWrapper(monitor));
+      fail("Expected exception");
+    } catch (CanceledException e) {
+      assertThat(reportingThreads).containsOnly(caller);
+    }
+  }
+
+  private long timeUpdate(SonarLintWsClient client, int parallelism) throws IOException {
+    File tmp = temp.newFolder();
+    when(tempFolder.newDir()).thenReturn(tmp);
+    GlobalStorageUpdateExecutor executor = new GlobalStorageUpdateExecutor(storageManager, client, new ServerVersionAndStatusChecker(client),
+      new PluginReferencesDownloader(client, mock(PluginCache.class), ConnectedGlobalConfiguration.builder().build()), new SettingsDownloader(client), new RulesDownloader(client), new ModuleListDownloader(client),
+      new QualityProfilesDownloader(client), new PluginListDownloader(client, new PluginVersionChecker()), tempFolder, parallelism);
+    long start = System.nanoTime();
+    executor.update(new ProgressWrapper(null));
+    long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertThat(destDir.toPath().resolve(StoragePaths.RULES_PB)).exists();
+    assertThat(destDir.toPath().resolve(StoragePaths.MODULE_LIST_PB)).exists();
+    return duration;
+  }
 }
@@ -0,0 +1,192 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.standalone.rule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.Rules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.DefaultRule;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.server.rule.RulesDefinition;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
+import org.sonarsource.sonarlint.core.container.standalone.StandalonePluginIndex;
+import org.sonarsource.sonarlint.core.plugin.PluginIndex.PluginReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StandaloneRulesSnapshotStoreTest {
+
+  private static final RuleKey RULE_KEY = RuleKey.of("squid", "S123");
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path userHome;
+  private StandalonePluginIndex pluginIndex = mock(StandalonePluginIndex.class);
+
+  @Before
+  public void setUp() throws IOException {
+    userHome = temp.newFolder().toPath();
+    when(pluginIndex.references()).thenReturn(Arrays.asList(new PluginReference("hash1", "plugin1.jar"), new PluginReference("hash2", "plugin2.jar")));
+  }
+
+  @Test
+  public void no_snapshot_by_default() {
+    assertThat(newStore().read()).isNull();
+  }
+
+  @Test
+  public void write_and_read_snapshot() {
+    StandaloneRulesSnapshotStore store = newStore();
+    store.write(createSnapshot(store.key()));
+
+    StandaloneRulesSnapshot snapshot = newStore().read();
+
+    assertThat(snapshot).isNotNull();
+    Rules rules = snapshot.getRules();
+    assertThat(rules.findAll()).hasSize(2);
+    DefaultRule rule = (DefaultRule) rules.find(RULE_KEY);
+    assertThat(rule.name()).isEqualTo("Rule name");
+    assertThat(rule.description()).isEqualTo("<p>desc</p>");
+    assertThat(rule.severity()).isEqualTo("BLOCKER");
+    assertThat(rule.type()).isEqualTo("BUG");
+    assertThat(rule.internalKey()).isEqualTo("internal");
+    assertThat(rule.param("max").description()).isEqualTo("Maximum");
+    assertThat(rules.find(RuleKey.of("squid", "S456")).internalKey()).isNull();
+    assertThat(snapshot.getLanguage(RULE_KEY)).isEqualTo("java");
+    assertThat(snapshot.getTags(RULE_KEY)).containsExactly("cert", "misra");
+
+    ActiveRules activeRules = snapshot.getActiveRules();
+    assertThat(activeRules.findAll()).hasSize(1);
+    ActiveRule activeRule = activeRules.find(RULE_KEY);
+    assertThat(activeRule.severity()).isEqualTo("MINOR");
+    assertThat(activeRule.language()).isEqualTo("java");
+    assertThat(activeRule.internalKey()).isEqualTo("internal");
+    assertThat(activeRule.templateRuleKey()).isNull();
+    assertThat(activeRule.params()).containsOnly(entry("max", "10"));
+  }
+
+  @Test
+  public void ignore_snapshot_of_other_plugins() {
+    StandaloneRulesSnapshotStore store = newStore();
+    store.write(createSnapshot(store.key()));
+
+    when(pluginIndex.references()).thenReturn(Arrays.asList(new PluginReference("hash1", "plugin1.jar"), new PluginReference("hash3", "plugin2.jar")));
+    StandaloneRulesSnapshotStore updatedStore = newStore();
+    assertThat(updatedStore.key()).isNotEqualTo(store.key());
+    assertThat(updatedStore.read()).isNull();
+
+    updatedStore.write(createSnapshot(updatedStore.key()));
+    assertThat(updatedStore.read()).isNotNull();
+    assertThat(userHome.resolve("rules").toFile().list()).containsOnly(store.key() + ".pb", updatedStore.key() + ".pb");
+  }
+
+  @Test
+  public void evict_least_recently_used_snapshots() throws IOException {
+    Path snapshotDir = userHome.resolve("rules");
+    StandaloneRulesSnapshotStore first = newStore(snapshotDir, "hash1");
+    first.write(createSnapshot(first.key()));
+    StandaloneRulesSnapshotStore second = newStore(snapshotDir, "hash2");
+    second.write(createSnapshot(second.key()));
+    Files.setLastModifiedTime(snapshotDir.resolve(first.key() + ".pb"), FileTime.fromMillis(1000));
+    Files.setLastModifiedTime(snapshotDir.resolve(second.key() + ".pb"), FileTime.fromMillis(2000));
+
+    // reading marks the snapshot as recently used
+    assertThat(first.read()).isNotNull();
+    StandaloneRulesSnapshotStore third = newStore(snapshotDir, "hash3");
+    third.write(createSnapshot(third.key()));
+
+    assertThat(snapshotDir.toFile().list()).containsOnly(first.key() + ".pb", third.key() + ".pb");
+  }
+
+  @Test
+  public void key_does_not_depend_on_plugin_order() {
+    String key = newStore().key();
+    when(pluginIndex.references()).thenReturn(Arrays.asList(new PluginReference("hash2", "plugin2.jar"), new PluginReference("hash1", "plugin1.jar")));
+    assertThat(newStore().key()).isEqualTo(key);
+  }
+
+  @Test
+  public void ignore_corrupted_snapshot() throws IOException {
+    StandaloneRulesSnapshotStore store = newStore();
+    Files.createDirectories(userHome.resolve("rules"));
+    Files.write(userHome.resolve("rules").resolve(store.key() + ".pb"), new byte[] {1, 2, 3});
+
+    assertThat(store.read()).isNull();
+  }
+
+  private StandaloneRulesSnapshotStore newStore() {
+    StandaloneGlobalConfiguration config = StandaloneGlobalConfiguration.builder().setSonarLintUserHome(userHome).build();
+    return new StandaloneRulesSnapshotStore(config, pluginIndex);
+  }
+
+  private static StandaloneRulesSnapshotStore newStore(Path snapshotDir, String pluginHash) {
+    StandalonePluginIndex index = mock(StandalonePluginIndex.class);
+    when(index.references()).thenReturn(Arrays.asList(new PluginReference(pluginHash, "plugin.jar")));
+    return new StandaloneRulesSnapshotStore(snapshotDir, index, 2);
+  }
+
+  private static StandaloneRulesSnapshot createSnapshot(String key) {
+    RulesDefinition.Context context = new RulesDefinition.Context();
+    RulesDefinition.NewRepository repo = context.createRepository("squid", "java");
+    RulesDefinition.NewRule rule = repo.createRule("S123")
+      .setName("Rule name")
+      .setHtmlDescription("<p>desc</p>")
+      .setSeverity("BLOCKER")
+      .setType(RuleType.BUG)
+      .setInternalKey("internal")
+      .setTags("misra", "cert");
+    rule.createParam("max").setDescription("Maximum");
+    repo.createRule("S456")
+      .setName("Other rule")
+      .setHtmlDescription("<p>other</p>");
+    repo.done();
+
+    StandaloneRuleDefinitionsLoader loader = mock(StandaloneRuleDefinitionsLoader.class);
+    when(loader.getContext()).thenReturn(context);
+    Rules rules = new StandaloneRulesProvider().provide(loader);
+
+    ActiveRulesBuilder activeRulesBuilder = new ActiveRulesBuilder();
+    activeRulesBuilder.create(RULE_KEY)
+      .setLanguage("java")
+      .setName("Rule name")
+      .setSeverity("MINOR")
+      .setInternalKey("internal")
+      .setParam("max", "10")
+      .setParam("min", null)
+      .activate();
+
+    return StandaloneRulesSnapshot.create(key, rules, context, activeRulesBuilder.build());
+  }
+}
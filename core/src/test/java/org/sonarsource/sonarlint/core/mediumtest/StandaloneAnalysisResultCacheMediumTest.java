@@ -0,0 +1,115 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.mediumtest;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.StandaloneSonarLintEngineImpl;
+import org.sonarsource.sonarlint.core.TestUtils;
+import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneSonarLintEngine;
+import org.sonarsource.sonarlint.core.util.PluginLocator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class StandaloneAnalysisResultCacheMediumTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  private StandaloneSonarLintEngine sonarlint;
+  private File baseDir;
+  private List<String> logs;
+
+  @Before
+  public void prepare() throws IOException {
+    logs = new CopyOnWriteArrayList<>();
+    StandaloneGlobalConfiguration config = StandaloneGlobalConfiguration.builder()
+      .addPlugin(PluginLocator.getJavaScriptPluginUrl())
+      .setLogOutput((msg, level) -> logs.add(msg))
+      .setAnalysisResultCacheSize(10)
+      .build();
+    sonarlint = new StandaloneSonarLintEngineImpl(config);
+    baseDir = temp.newFolder();
+  }
+
+  @After
+  public void stop() {
+    sonarlint.stop();
+  }
+
+  @Test
+  public void replayIssuesOfUnchangedFile() throws Exception {
+    ClientInputFile inputFile = prepareInputFile("foo.js", "function foo() {\n  var x;\n  var y; //NOSONAR\n}");
+
+    List<Issue> firstIssues = analyze(inputFile);
+    assertThat(firstIssues).extracting("ruleKey", "startLine", "inputFile.path").containsOnly(tuple("javascript:UnusedVariable", 2, inputFile.getPath()));
+    assertThat(replayed()).isFalse();
+
+    List<Issue> secondIssues = analyze(inputFile);
+    assertThat(secondIssues).extracting("ruleKey", "startLine", "message", "severity", "inputFile")
+      .containsExactly(tuple(firstIssues.get(0).getRuleKey(), firstIssues.get(0).getStartLine(), firstIssues.get(0).getMessage(), firstIssues.get(0).getSeverity(),
+        inputFile));
+    assertThat(replayed()).isTrue();
+  }
+
+  @Test
+  public void analyzeAgainWhenContentChanges() throws Exception {
+    ClientInputFile inputFile = prepareInputFile("foo.js", "function foo() {\n  var x;\n}");
+    assertThat(analyze(inputFile)).hasSize(1);
+
+    inputFile = prepareInputFile("foo.js", "function foo() {\n  var x;\n  var y;\n}");
+    assertThat(analyze(inputFile)).extracting("startLine").containsOnly(2, 3);
+    assertThat(replayed()).isFalse();
+  }
+
+  private List<Issue> analyze(ClientInputFile inputFile) throws IOException {
+    logs.clear();
+    List<Issue> issues = new ArrayList<>();
+    sonarlint.analyze(new StandaloneAnalysisConfiguration(baseDir.toPath(), temp.newFolder().toPath(), Arrays.asList(inputFile), ImmutableMap.of()),
+      issues::add, null, null);
+    return issues;
+  }
+
+  private boolean replayed() {
+    return logs.stream().anyMatch(l -> l.contains("replayed from the analysis result cache"));
+  }
+
+  private ClientInputFile prepareInputFile(String relativePath, String content) throws IOException {
+    final File file = new File(baseDir, relativePath);
+    FileUtils.write(file, content);
+    return TestUtils.createInputFile(file.toPath(), false);
+  }
+}
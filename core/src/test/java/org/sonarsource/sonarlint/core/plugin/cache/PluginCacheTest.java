@@ -19,18 +19,30 @@
  */
 package org.sonarsource.sonarlint.core.plugin.cache;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache.CopyStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class PluginCacheTest {
@@ -115,4 +127,100 @@ public class PluginCacheTest {
     assertThat(cachedFile.getParentFile().getParentFile()).isEqualTo(cache.getCacheDir().toFile());
     assertThat(FileUtils.readFileToString(cachedFile)).contains("downloaded by");
   }
+
+  @Test
+  public void stream_download_is_hashed_while_copied() throws IOException {
+    PluginHashes hashes = mock(PluginHashes.class);
+    PluginCache cache = new PluginCache(tempFolder.newFolder().toPath(), hashes);
+
+    PluginCache.StreamCopier downloader = (filename, offset) -> CopyStream.of(stream("body"));
+    File cachedFile = cache.get("sonar-foo-plugin-1.5.jar", hash("body"), downloader).toFile();
+
+    assertThat(FileUtils.readFileToString(cachedFile)).isEqualTo("body");
+    verify(hashes, never()).of(any(Path.class));
+  }
+
+  @Test
+  public void resume_interrupted_stream_download() throws IOException {
+    PluginCache cache = PluginCache.create(tempFolder.newFolder().toPath());
+    List<Long> offsets = new ArrayList<>();
+
+    PluginCache.StreamCopier downloader = (filename, offset) -> {
+      offsets.add(offset);
+      if (offset == 0) {
+        return CopyStream.of(failingAfter("01234"));
+      }
+      return CopyStream.resumed(stream("0123456789".substring((int) offset)), offset);
+    };
+    File cachedFile = cache.get("sonar-foo-plugin-1.5.jar", hash("0123456789"), downloader).toFile();
+
+    assertThat(offsets).containsExactly(0L, 5L);
+    assertThat(FileUtils.readFileToString(cachedFile)).isEqualTo("0123456789");
+  }
+
+  @Test
+  public void resume_stream_download_of_previous_attempt() throws IOException {
+    PluginCache cache = PluginCache.create(tempFolder.newFolder().toPath());
+    String hash = hash("0123456789");
+    PluginCache.StreamCopier interrupted = (filename, offset) -> CopyStream.of(failingAfter("0123"));
+    try {
+      cache.get("sonar-foo-plugin-1.5.jar", hash, interrupted);
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageStartingWith("Fail to copy sonar-foo-plugin-1.5.jar");
+    }
+
+    List<Long> offsets = new ArrayList<>();
+    PluginCache.StreamCopier rangeNotSupported = (filename, offset) -> {
+      offsets.add(offset);
+      return CopyStream.of(stream("0123456789"));
+    };
+    File cachedFile = cache.get("sonar-foo-plugin-1.5.jar", hash, rangeNotSupported).toFile();
+
+    assertThat(offsets).containsExactly(4L);
+    assertThat(FileUtils.readFileToString(cachedFile)).isEqualTo("0123456789");
+    assertThat(Files.list(cache.getCacheDir().resolve("_tmp"))).isEmpty();
+  }
+
+  @Test
+  public void dont_share_part_file_locked_by_another_copy() throws IOException {
+    PluginCache cache = PluginCache.create(tempFolder.newFolder().toPath());
+    String hash = hash("0123456789");
+    Path partFile = cache.getCacheDir().resolve("_tmp").resolve(hash + "-sonar-foo-plugin-1.5.jar.part");
+    Files.write(partFile, "01".getBytes(StandardCharsets.UTF_8));
+
+    try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+      List<Long> offsets = new ArrayList<>();
+      PluginCache.StreamCopier downloader = (filename, offset) -> {
+        offsets.add(offset);
+        return CopyStream.of(stream("0123456789"));
+      };
+      File cachedFile = cache.get("sonar-foo-plugin-1.5.jar", hash, downloader).toFile();
+
+      assertThat(offsets).containsExactly(0L);
+      assertThat(FileUtils.readFileToString(cachedFile)).isEqualTo("0123456789");
+    }
+    assertThat(Files.readAllBytes(partFile)).isEqualTo("01".getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String hash(String content) {
+    return new PluginHashes().of(stream(content));
+  }
+
+  private static InputStream stream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static InputStream failingAfter(String content) {
+    InputStream delegate = stream(content);
+    return new InputStream() {
+      @Override
+      public int read() throws IOException {
+        int b = delegate.read();
+        if (b == -1) {
+          throw new IOException("Connection reset");
+        }
+        return b;
+      }
+    };
+  }
 }
@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.telemetry;
 
+import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -49,6 +50,12 @@ public class TelemetryClientTest {
   @Rule
   public LogTester logTester = new LogTester();
 
+  @AfterClass
+  public static void after() {
+    // to avoid conflicts with SonarLintLogging
+    new LogTester().setLevel(LoggerLevel.TRACE);
+  }
+
   @Before
   public void setUp() {
     http = mock(HttpConnector.class, RETURNS_DEEP_STUBS);
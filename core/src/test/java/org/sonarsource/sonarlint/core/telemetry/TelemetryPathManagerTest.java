@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -48,6 +49,12 @@ public class TelemetryPathManagerTest {
   private Path oldPath;
   private Path newPath;
 
+  @AfterClass
+  public static void after() {
+    // to avoid conflicts with SonarLintLogging
+    new LogTester().setLevel(LoggerLevel.TRACE);
+  }
+
   @Before
   public void setUp() throws IOException {
     oldPath = temp.newFile().toPath();
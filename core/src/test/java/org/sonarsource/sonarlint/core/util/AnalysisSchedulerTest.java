@@ -0,0 +1,364 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnalysisSchedulerTest {
+
+  private final IssueListener listener = mock(IssueListener.class);
+
+  @Test
+  public void unbounded_runs_immediately() throws Exception {
+    AnalysisScheduler scheduler = new AnalysisScheduler(0);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> first = async(() -> scheduler.schedule(() -> null, caller(listener, l -> await(release, "first"))));
+    waitUntil(() -> scheduler.runningAnalyses() == 1);
+
+    assertThat(scheduler.<String>schedule(() -> null, caller(listener, l -> "second"))).isEqualTo("second");
+    assertThat(scheduler.queueDepth()).isZero();
+
+    release.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    assertThat(scheduler.runningAnalyses()).isZero();
+    assertThat(scheduler.requestedAnalyses()).isEqualTo(2);
+  }
+
+  @Test
+  public void queue_when_all_slots_are_busy_and_run_in_fifo_order() throws Exception {
+    AnalysisScheduler scheduler = new AnalysisScheduler(1);
+    List<String> order = new CopyOnWriteArrayList<>();
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> first = async(() -> scheduler.schedule(() -> null, caller(listener, l -> await(release, "first"))));
+    waitUntil(() -> scheduler.runningAnalyses() == 1);
+    CompletableFuture<String> second = async(() -> scheduler.schedule(() -> null, caller(listener, l -> record(order, "second"))));
+    waitUntil(() -> scheduler.queueDepth() == 1);
+    CompletableFuture<String> third = async(() -> scheduler.schedule(() -> null, caller(listener, l -> record(order, "third"))));
+    waitUntil(() -> scheduler.queueDepth() == 2);
+
+    release.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("third");
+    assertThat(order).containsExactly("second", "third");
+    assertThat(scheduler.queueDepth()).isZero();
+    assertThat(scheduler.maxWaitTimeMs()).isLessThanOrEqualTo(scheduler.totalWaitTimeMs());
+  }
+
+  @Test
+  public void compute_key_only_when_request_has_to_wait() throws Exception {
+    AnalysisScheduler scheduler = new AnalysisScheduler(1);
+    AtomicInteger keys = new AtomicInteger();
+    Supplier<Object> key = () -> {
+      keys.incrementAndGet();
+      return "key";
+    };
+    assertThat(scheduler.<String>schedule(key, caller(listener, l -> "first"))).isEqualTo("first");
+    assertThat(keys.get()).isZero();
+
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> second = async(() -> scheduler.schedule(key, caller(listener, l -> await(release, "second"))));
+    waitUntil(() -> scheduler.runningAnalyses() == 1);
+    CompletableFuture<String> third = async(() -> scheduler.schedule(key, caller(listener, l -> "third")));
+    waitUntil(() -> scheduler.queueDepth() == 1);
+    assertThat(keys.get()).isEqualTo(1);
+
+    release.countDown();
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("third");
+  }
+
+  @Test
+  public void coalesce_identical_waiting_requests() throws Exception {
+    AnalysisScheduler scheduler = new AnalysisScheduler(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> first = async(() -> scheduler.schedule(() -> "key", caller(listener, l -> await(release, "first"))));
+    waitUntil(() -> scheduler.runningAnalyses() == 1);
+
+    AtomicInteger runs = new AtomicInteger();
+    Issue issue = mock(Issue.class);
+    IssueListener listener2 = mock(IssueListener.class);
+    IssueListener listener3 = mock(IssueListener.class);
+    CompletableFuture<String> second = async(() -> scheduler.schedule(() -> "key", caller(listener2, l -> {
+      runs.incrementAndGet();
+      l.handle(issue);
+      return "coalesced";
+    })));
+    waitUntil(() -> scheduler.queueDepth() == 1);
+    CompletableFuture<String> third = async(() -> scheduler.schedule(() -> "key", caller(listener3, l -> {
+      runs.incrementAndGet();
+      l.handle(issue);
+      return "coalesced";
+    })));
+    waitUntil(() -> scheduler.coalescedAnalyses() == 1);
+    assertThat(scheduler.queueDepth()).isEqualTo(1);
+
+    release.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("coalesced");
+    assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("coalesced");
+    assertThat(runs.get()).isEqualTo(1);
+    verify(listener2).handle(issue);
+    verify(listener3).handle(issue);
+    assertThat(scheduler.requestedAnalyses()).isEqualTo(3);
+  }
+
+  @Test
+  public void coalesced_callers_get_their_own_result_logs_and_progress() throws Exception {
+    AnalysisScheduler scheduler = new AnalysisScheduler(1);
+    CountDownLatch release = new CountDownLatch(1);
+    async(() -> scheduler.schedule(() -> null, caller(listener, l -> await(release, "first"))));
+    waitUntil(() -> scheduler.runningAnalyses() == 1);
+
+    LogOutput logOutput2 = mock(LogOutput.class);
+    LogOutput logOutput3 = mock(LogOutput.class);
+    ProgressMonitor monitor2 = mock(ProgressMonitor.class);
+    ProgressMonitor monitor3 = mock(ProgressMonitor.class);
+    CompletableFuture<String> second = async(() -> scheduler.schedule(() -> "key", new TestCaller(listener, logOutput2, monitor2, "second", null)));
+    waitUntil(() -> scheduler.queueDepth() == 1);
+    CompletableFuture<String> third = async(() -> scheduler.schedule(() -> "key", new TestCaller(listener, logOutput3, monitor3, "third", null)));
+    waitUntil(() -> scheduler.coalescedAnalyses() == 1);
+
+    release.countDown();
+
+    // the analysis is run by whichever caller wakes up first
+    assertThat(Arrays.asList(second.get(5, TimeUnit.SECONDS), third.get(5, TimeUnit.SECONDS)))
+      .isIn(Arrays.asList("second", "result of second for third"), Arrays.asList("result of third for second", "third"));
+    verify(logOutput2).log("analyzing", LogOutput.Level.INFO);
+    verify(logOutput3).log("analyzing", LogOutput.Level.INFO);
+    verify(monitor2).setFraction(0.5f);
+    verify(monitor3).setFraction(0.5f);
+  }
+
+  @Test
+  public void coalesced_caller_that_cancels_stops_receiving_issues() throws Exception {
+    AnalysisScheduler scheduler = new AnalysisScheduler(1);
+    CountDownLatch release = new CountDownLatch(1);
+    async(() -> scheduler.schedule(() -> null, caller(listener, l -> await(release, "first"))));
+    waitUntil(() -> scheduler.runningAnalyses() == 1);
+
+    Issue issue = mock(Issue.class);
+    IssueListener listener2 = mock(IssueListener.class);
+    IssueListener listener3 = mock(IssueListener.class);
+    ProgressMonitor monitor2 = mock(ProgressMonitor.class);
+    // cancels once the analysis is running, before the issue is reported
+    ProgressMonitor monitor3 = new ProgressMonitor() {
+      private volatile boolean canceled;
+
+      @Override
+      public boolean isCanceled() {
+        return canceled;
+      }
+
+      @Override
+      public void setFraction(float fraction) {
+        canceled = true;
+      }
+    };
+    CompletableFuture<String> second = async(() -> scheduler.schedule(() -> "key", new TestCaller(listener2, null, monitor2, "second", issue)));
+    waitUntil(() -> scheduler.queueDepth() == 1);
+    CompletableFuture<String> third = async(() -> scheduler.schedule(() -> "key", new TestCaller(listener3, null, monitor3, "third", issue)));
+    waitUntil(() -> scheduler.coalescedAnalyses() == 1);
+
+    release.countDown();
+
+    assertThat(second.get(5, TimeUnit.SECONDS)).isIn("second", "result of third for second");
+    assertFailure(third, CanceledException.class);
+    verify(listener2).handle(issue);
+    verify(listener3, never()).handle(issue);
+  }
+
+  @Test
+  public void coalesced_requests_share_failure() throws Exception {
+    AnalysisScheduler scheduler = new AnalysisScheduler(1);
+    CountDownLatch release = new CountDownLatch(1);
+    async(() -> scheduler.schedule(() -> null, caller(listener, l -> await(release, "first"))));
+    waitUntil(() -> scheduler.runningAnalyses() == 1);
+    CompletableFuture<String> second = async(() -> scheduler.schedule(() -> "key", caller(listener, l -> {
+      throw new IllegalStateException("boom");
+    })));
+    waitUntil(() -> scheduler.queueDepth() == 1);
+    CompletableFuture<String> third = async(() -> scheduler.schedule(() -> "key", caller(listener, l -> {
+      throw new IllegalStateException("boom");
+    })));
+    waitUntil(() -> scheduler.coalescedAnalyses() == 1);
+
+    release.countDown();
+
+    assertFailure(second, IllegalStateException.class);
+    assertFailure(third, IllegalStateException.class);
+    assertThat(scheduler.runningAnalyses()).isZero();
+  }
+
+  @Test
+  public void leave_queue_when_canceled_while_waiting() throws Exception {
+    AnalysisScheduler scheduler = new AnalysisScheduler(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> first = async(() -> scheduler.schedule(() -> null, caller(listener, l -> await(release, "first"))));
+    waitUntil(() -> scheduler.runningAnalyses() == 1);
+    ProgressMonitor monitor = mock(ProgressMonitor.class);
+    CompletableFuture<String> second = async(() -> scheduler.schedule(() -> "key", new TestCaller(listener, null, monitor, "second", null)));
+    waitUntil(() -> scheduler.queueDepth() == 1);
+
+    when(monitor.isCanceled()).thenReturn(true);
+
+    assertFailure(second, CanceledException.class);
+    assertThat(scheduler.queueDepth()).isZero();
+    assertThat(scheduler.runningAnalyses()).isEqualTo(1);
+    release.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    verify(monitor, never()).setFraction(0.5f);
+  }
+
+  @Test
+  public void interrupted_while_waiting() throws Exception {
+    AnalysisScheduler scheduler = new AnalysisScheduler(1);
+    CountDownLatch release = new CountDownLatch(1);
+    async(() -> scheduler.schedule(() -> null, caller(listener, l -> await(release, "first"))));
+    waitUntil(() -> scheduler.runningAnalyses() == 1);
+    CompletableFuture<Class<?>> failure = new CompletableFuture<>();
+    Thread waiting = new Thread(() -> {
+      try {
+        scheduler.schedule(() -> "key", caller(listener, l -> "second"));
+        failure.complete(null);
+      } catch (Exception e) {
+        failure.complete(e.getClass());
+      }
+    });
+    waiting.start();
+    waitUntil(() -> scheduler.queueDepth() == 1);
+
+    waiting.interrupt();
+
+    assertThat(failure.get(5, TimeUnit.SECONDS)).isEqualTo(CanceledException.class);
+    assertThat(scheduler.queueDepth()).isZero();
+    release.countDown();
+    waitUntil(() -> scheduler.runningAnalyses() == 0);
+    assertThat(scheduler.<String>schedule(() -> "key", caller(listener, l -> "third"))).isEqualTo("third");
+  }
+
+  private static <T> AnalysisScheduler.Caller<T> caller(IssueListener issueListener, Function<IssueListener, T> analysis) {
+    return new AnalysisScheduler.Caller<T>(issueListener, null, null) {
+      @Override
+      protected T analyze(IssueListener listener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
+        return analysis.apply(listener);
+      }
+    };
+  }
+
+  private static class TestCaller extends AnalysisScheduler.Caller<String> {
+    private final String name;
+    private final Issue issue;
+
+    private TestCaller(IssueListener issueListener, @Nullable LogOutput logOutput, ProgressMonitor monitor, String name, @Nullable Issue issue) {
+      super(issueListener, logOutput, monitor);
+      this.name = name;
+      this.issue = issue;
+    }
+
+    @Override
+    protected String analyze(IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
+      if (logOutput != null) {
+        logOutput.log("analyzing", LogOutput.Level.INFO);
+      }
+      monitor.setFraction(0.5f);
+      if (issue != null) {
+        issueListener.handle(issue);
+      }
+      return name;
+    }
+
+    @Override
+    protected String resultOf(String sharedResult) {
+      return "result of " + sharedResult + " for " + name;
+    }
+  }
+
+  private static void assertFailure(CompletableFuture<?> future, Class<? extends Throwable> expected) throws Exception {
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      fail("Expected exception");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(expected);
+    }
+  }
+
+  private static String await(CountDownLatch latch, String result) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return result;
+  }
+
+  private static String record(List<String> order, String result) {
+    order.add(result);
+    return result;
+  }
+
+  private static <T> CompletableFuture<T> async(Supplier<T> supplier) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    new Thread(() -> {
+      try {
+        future.complete(supplier.get());
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      }
+    }).start();
+    return future;
+  }
+
+  private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("Timeout");
+      }
+      Thread.sleep(5);
+    }
+  }
+}
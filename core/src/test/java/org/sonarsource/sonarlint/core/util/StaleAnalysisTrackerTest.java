@@ -0,0 +1,122 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.util;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.TestClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StaleAnalysisTrackerTest {
+
+  private final ClientInputFile fileA = new TestClientInputFile(Paths.get("a.java"), false, UTF_8);
+  private final ClientInputFile fileB = new TestClientInputFile(Paths.get("b.java"), false, UTF_8);
+
+  @Test
+  public void disabled_returns_client_monitor() {
+    ProgressMonitor clientMonitor = mock(ProgressMonitor.class);
+    StaleAnalysisTracker tracker = new StaleAnalysisTracker(false);
+
+    assertThat(tracker.start(Collections.singletonList(fileA), clientMonitor)).isSameAs(clientMonitor);
+    assertThat(tracker.start(Collections.singletonList(fileA), null)).isNull();
+    tracker.finish(clientMonitor);
+  }
+
+  @Test
+  public void new_analysis_of_same_files_cancels_previous_one() {
+    StaleAnalysisTracker tracker = new StaleAnalysisTracker(true);
+
+    ProgressMonitor first = tracker.start(Arrays.asList(fileA, fileB), null);
+    assertThat(first.isCanceled()).isFalse();
+
+    ProgressMonitor second = tracker.start(Arrays.asList(fileB, fileA), null);
+    assertThat(first.isCanceled()).isTrue();
+    assertThat(second.isCanceled()).isFalse();
+
+    tracker.finish(first);
+    ProgressMonitor third = tracker.start(Arrays.asList(fileA, fileB), null);
+    assertThat(second.isCanceled()).isTrue();
+    assertThat(third.isCanceled()).isFalse();
+  }
+
+  @Test
+  public void analysis_of_other_files_is_not_cancelled() {
+    StaleAnalysisTracker tracker = new StaleAnalysisTracker(true);
+
+    ProgressMonitor first = tracker.start(Collections.singletonList(fileA), null);
+    tracker.start(Collections.singletonList(fileB), null);
+    tracker.start(Arrays.asList(fileA, fileB), null);
+
+    assertThat(first.isCanceled()).isFalse();
+  }
+
+  @Test
+  public void finished_analysis_is_not_cancelled() {
+    StaleAnalysisTracker tracker = new StaleAnalysisTracker(true);
+
+    ProgressMonitor first = tracker.start(Collections.singletonList(fileA), null);
+    tracker.finish(first);
+    tracker.start(Collections.singletonList(fileA), null);
+
+    assertThat(first.isCanceled()).isFalse();
+  }
+
+  @Test(expected = CanceledException.class)
+  public void superseded_analysis_fails_at_next_checkpoint() {
+    StaleAnalysisTracker tracker = new StaleAnalysisTracker(true);
+
+    ProgressWrapper progress = new ProgressWrapper(tracker.start(Collections.singletonList(fileA), null));
+    progress.checkCancel();
+    tracker.start(Collections.singletonList(fileA), null);
+    progress.checkCancel();
+  }
+
+  @Test
+  public void delegate_to_client_monitor() {
+    ProgressMonitor clientMonitor = mock(ProgressMonitor.class);
+    StaleAnalysisTracker tracker = new StaleAnalysisTracker(true);
+    ProgressMonitor monitor = tracker.start(Collections.singletonList(fileA), clientMonitor);
+
+    when(clientMonitor.isCanceled()).thenReturn(true);
+    assertThat(monitor.isCanceled()).isTrue();
+
+    monitor.setMessage("msg");
+    monitor.setFraction(0.5f);
+    monitor.setIndeterminate(true);
+    monitor.startNonCancelableSection();
+    monitor.finishNonCancelableSection();
+
+    verify(clientMonitor).setMessage("msg");
+    verify(clientMonitor).setFraction(0.5f);
+    verify(clientMonitor).setIndeterminate(true);
+    verify(clientMonitor).startNonCancelableSection();
+    verify(clientMonitor).finishNonCancelableSection();
+  }
+}
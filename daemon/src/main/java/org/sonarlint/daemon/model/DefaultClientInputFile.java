@@ -76,4 +76,9 @@ public class DefaultClientInputFile implements ClientInputFile {
   public String language() {
     return language;
   }
+
+  @Override
+  public boolean isContentOnDisk() {
+    return true;
+  }
 }